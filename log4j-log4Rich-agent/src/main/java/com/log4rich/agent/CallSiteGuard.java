@@ -0,0 +1,331 @@
+package com.log4rich.agent;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Wraps concatenating trace, debug and info calls on the bridge's Logger and
+ * Category in the matching level check.
+ *
+ * A call site such as {@code log.debug("user " + id)} compiles to a receiver
+ * load, the argument construction and the call. The argument construction is
+ * found by walking back from the call while counting stack slots, and is
+ * rewritten to
+ * <pre>
+ *   receiver; DUP; isDebugEnabled(); IFEQ skip; argument; debug(); GOTO end;
+ *   skip: POP; end:
+ * </pre>
+ * Only straight-line arguments built from loads, constants, arithmetic and
+ * the StringBuilder, StringBuffer and String.valueOf calls of a concatenation
+ * are rewritten, so that the guard never skips a side effect; anything with a
+ * branch, a jump target, a store, an increment or another method call is left
+ * alone and counted as skipped. The message must come from
+ * {@code StringBuilder.toString()} or an indy string concatenation, and the
+ * throwable of the two-argument form must be a local variable.
+ */
+final class CallSiteGuard {
+
+    static final String LOGGER = "org/apache/log4j/Logger";
+    static final String CATEGORY = "org/apache/log4j/Category";
+
+    private static final String MESSAGE = "(Ljava/lang/Object;)V";
+    private static final String MESSAGE_THROWABLE = "(Ljava/lang/Object;Ljava/lang/Throwable;)V";
+    private static final String CONCAT_FACTORY = "java/lang/invoke/StringConcatFactory";
+
+    private CallSiteGuard() {
+    }
+
+    /**
+     * Rewrite a class file.
+     *
+     * @param classBytes the class file
+     * @param loader loader used to resolve common super classes while computing frames
+     * @param stats counters to update
+     * @param verbose print each guarded call site to System.err
+     * @return the rewritten class file, or null when no call site was guarded
+     */
+    static byte[] rewrite(byte[] classBytes, final ClassLoader loader, RewriteStats stats, boolean verbose) {
+        ClassNode node = new ClassNode();
+        new ClassReader(classBytes).accept(node, ClassReader.SKIP_FRAMES);
+
+        int guardedSites = 0;
+        for (MethodNode method : node.methods) {
+            guardedSites += guardMethod(node.name, method, stats, verbose);
+        }
+        if (guardedSites == 0) {
+            return null;
+        }
+
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected ClassLoader getClassLoader() {
+                return loader;
+            }
+        };
+        node.accept(writer);
+        return writer.toByteArray();
+    }
+
+    private static int guardMethod(String className, MethodNode method, RewriteStats stats, boolean verbose) {
+        Set<LabelNode> targets = null;
+        int guardedSites = 0;
+        AbstractInsnNode insn = method.instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (isLogCall(insn)) {
+                stats.callSite();
+                MethodInsnNode call = (MethodInsnNode) insn;
+                if (isConcatenation(messageProducer(call))) {
+                    if (targets == null) {
+                        targets = jumpTargets(method);
+                    }
+                    AbstractInsnNode start = argumentStart(call, targets);
+                    if (start == null) {
+                        stats.skipped();
+                    } else {
+                        guard(method, call, start, targets);
+                        stats.guarded();
+                        guardedSites++;
+                        if (verbose) {
+                            System.err.println("log4Rich agent: guarded " + className.replace('/', '.') + "."
+                                + method.name + " line " + lineOf(call) + " " + call.name + "()");
+                        }
+                    }
+                }
+            }
+            insn = next;
+        }
+        return guardedSites;
+    }
+
+    private static boolean isLogCall(AbstractInsnNode insn) {
+        if (insn.getOpcode() != Opcodes.INVOKEVIRTUAL) {
+            return false;
+        }
+        MethodInsnNode call = (MethodInsnNode) insn;
+        if (!LOGGER.equals(call.owner) && !CATEGORY.equals(call.owner)) {
+            return false;
+        }
+        if (!"trace".equals(call.name) && !"debug".equals(call.name) && !"info".equals(call.name)) {
+            return false;
+        }
+        return MESSAGE.equals(call.desc) || MESSAGE_THROWABLE.equals(call.desc);
+    }
+
+    /**
+     * Find the instruction that leaves the message on the stack, or null when
+     * the throwable of the two-argument form is not a plain local variable.
+     */
+    private static AbstractInsnNode messageProducer(MethodInsnNode call) {
+        AbstractInsnNode last = previousInstruction(call);
+        if (MESSAGE.equals(call.desc)) {
+            return last;
+        }
+        if (last == null || last.getOpcode() != Opcodes.ALOAD) {
+            return null;
+        }
+        return previousInstruction(last);
+    }
+
+    private static boolean isConcatenation(AbstractInsnNode insn) {
+        if (insn == null) {
+            return false;
+        }
+        if (insn.getOpcode() == Opcodes.INVOKEVIRTUAL) {
+            MethodInsnNode call = (MethodInsnNode) insn;
+            return "toString".equals(call.name) && "()Ljava/lang/String;".equals(call.desc)
+                && ("java/lang/StringBuilder".equals(call.owner) || "java/lang/StringBuffer".equals(call.owner));
+        }
+        if (insn.getOpcode() == Opcodes.INVOKEDYNAMIC) {
+            return CONCAT_FACTORY.equals(((InvokeDynamicInsnNode) insn).bsm.getOwner());
+        }
+        return false;
+    }
+
+    /**
+     * Walk back from the call to the first instruction of its arguments, the
+     * point where only the receiver is left on the stack. Returns null when the
+     * arguments are not straight-line code this class knows the stack effect of.
+     */
+    private static AbstractInsnNode argumentStart(MethodInsnNode call, Set<LabelNode> targets) {
+        int needed = Type.getArgumentTypes(call.desc).length;
+        for (AbstractInsnNode insn = call.getPrevious(); insn != null; insn = insn.getPrevious()) {
+            if (insn instanceof LabelNode) {
+                if (targets.contains(insn)) {
+                    return null;
+                }
+                continue;
+            }
+            if (insn.getOpcode() < 0) {
+                continue; // line numbers and frames
+            }
+            int[] effect = stackEffect(insn);
+            if (effect == null || effect[1] > needed) {
+                return null;
+            }
+            needed += effect[0] - effect[1];
+            if (needed == 0) {
+                return insn;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the values consumed and produced by an instruction allowed in a
+     * guarded argument, or null for anything else. Long and double values count
+     * as one value, so instructions that work on stack words are excluded.
+     */
+    private static int[] stackEffect(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        switch (opcode) {
+            case Opcodes.INVOKEVIRTUAL:
+            case Opcodes.INVOKESPECIAL:
+            case Opcodes.INVOKESTATIC: {
+                MethodInsnNode call = (MethodInsnNode) insn;
+                if (!isConcatenationStep(call)) {
+                    return null;
+                }
+                int consumed = Type.getArgumentTypes(call.desc).length + (opcode == Opcodes.INVOKESTATIC ? 0 : 1);
+                return new int[] { consumed, Type.getReturnType(call.desc) == Type.VOID_TYPE ? 0 : 1 };
+            }
+            case Opcodes.INVOKEDYNAMIC: {
+                InvokeDynamicInsnNode call = (InvokeDynamicInsnNode) insn;
+                if (!CONCAT_FACTORY.equals(call.bsm.getOwner())) {
+                    return null;
+                }
+                return new int[] { Type.getArgumentTypes(call.desc).length, 1 };
+            }
+            case Opcodes.DUP:
+                return new int[] { 1, 2 };
+            case Opcodes.GETSTATIC:
+            case Opcodes.NEW:
+            case Opcodes.LDC:
+            case Opcodes.BIPUSH:
+            case Opcodes.SIPUSH:
+                return new int[] { 0, 1 };
+            case Opcodes.GETFIELD:
+            case Opcodes.CHECKCAST:
+            case Opcodes.INSTANCEOF:
+            case Opcodes.ARRAYLENGTH:
+            case Opcodes.NEWARRAY:
+            case Opcodes.ANEWARRAY:
+                return new int[] { 1, 1 };
+            default:
+                break;
+        }
+        if (opcode >= Opcodes.ACONST_NULL && opcode <= Opcodes.DCONST_1) {
+            return new int[] { 0, 1 };
+        }
+        if (opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD) {
+            return new int[] { 0, 1 };
+        }
+        if (opcode >= Opcodes.IALOAD && opcode <= Opcodes.SALOAD) {
+            return new int[] { 2, 1 };
+        }
+        if (opcode >= Opcodes.IADD && opcode <= Opcodes.DREM) {
+            return new int[] { 2, 1 };
+        }
+        if (opcode >= Opcodes.INEG && opcode <= Opcodes.DNEG) {
+            return new int[] { 1, 1 };
+        }
+        if (opcode >= Opcodes.ISHL && opcode <= Opcodes.LXOR) {
+            return new int[] { 2, 1 };
+        }
+        if (opcode >= Opcodes.I2L && opcode <= Opcodes.I2S) {
+            return new int[] { 1, 1 };
+        }
+        return null;
+    }
+
+    /**
+     * Check whether a call is part of building a string: a StringBuilder or
+     * StringBuffer constructor, append or toString, or String.valueOf.
+     */
+    private static boolean isConcatenationStep(MethodInsnNode call) {
+        if ("java/lang/StringBuilder".equals(call.owner) || "java/lang/StringBuffer".equals(call.owner)) {
+            return call.getOpcode() == Opcodes.INVOKESPECIAL ? "<init>".equals(call.name)
+                : call.getOpcode() == Opcodes.INVOKEVIRTUAL && ("append".equals(call.name) || "toString".equals(call.name));
+        }
+        return call.getOpcode() == Opcodes.INVOKESTATIC && "java/lang/String".equals(call.owner)
+            && "valueOf".equals(call.name);
+    }
+
+    private static void guard(MethodNode method, MethodInsnNode call, AbstractInsnNode start, Set<LabelNode> targets) {
+        String check = "is" + Character.toUpperCase(call.name.charAt(0)) + call.name.substring(1) + "Enabled";
+        LabelNode skip = new LabelNode();
+        LabelNode end = new LabelNode();
+
+        InsnList before = new InsnList();
+        before.add(new InsnNode(Opcodes.DUP));
+        before.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, call.owner, check, "()Z", false));
+        before.add(new JumpInsnNode(Opcodes.IFEQ, skip));
+        method.instructions.insertBefore(start, before);
+
+        InsnList after = new InsnList();
+        after.add(new JumpInsnNode(Opcodes.GOTO, end));
+        after.add(skip);
+        after.add(new InsnNode(Opcodes.POP));
+        after.add(end);
+        method.instructions.insert(call, after);
+
+        targets.add(skip);
+        targets.add(end);
+    }
+
+    private static Set<LabelNode> jumpTargets(MethodNode method) {
+        Set<LabelNode> targets = new HashSet<>();
+        for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn instanceof JumpInsnNode) {
+                targets.add(((JumpInsnNode) insn).label);
+            } else if (insn instanceof TableSwitchInsnNode) {
+                targets.add(((TableSwitchInsnNode) insn).dflt);
+                targets.addAll(((TableSwitchInsnNode) insn).labels);
+            } else if (insn instanceof LookupSwitchInsnNode) {
+                targets.add(((LookupSwitchInsnNode) insn).dflt);
+                targets.addAll(((LookupSwitchInsnNode) insn).labels);
+            }
+        }
+        for (TryCatchBlockNode block : method.tryCatchBlocks) {
+            targets.add(block.start);
+            targets.add(block.end);
+            targets.add(block.handler);
+        }
+        return targets;
+    }
+
+    private static AbstractInsnNode previousInstruction(AbstractInsnNode insn) {
+        AbstractInsnNode previous = insn.getPrevious();
+        while (previous != null && previous.getOpcode() < 0) {
+            previous = previous.getPrevious();
+        }
+        return previous;
+    }
+
+    private static int lineOf(AbstractInsnNode insn) {
+        for (AbstractInsnNode previous = insn; previous != null; previous = previous.getPrevious()) {
+            if (previous instanceof LineNumberNode) {
+                return ((LineNumberNode) previous).line;
+            }
+        }
+        return -1;
+    }
+}
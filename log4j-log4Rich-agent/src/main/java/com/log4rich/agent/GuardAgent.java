@@ -0,0 +1,104 @@
+package com.log4rich.agent;
+
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Java agent that wraps concatenating {@code trace}, {@code debug} and
+ * {@code info} calls on {@code org.apache.log4j.Logger} and {@code Category}
+ * in the matching level check, so the message is not built when the level is
+ * disabled.
+ *
+ * <pre>
+ *   -javaagent:log4j-log4Rich-agent.jar
+ *   -javaagent:log4j-log4Rich-agent.jar=include=com.acme:org.example,exclude=com.acme.generated,verbose
+ * </pre>
+ *
+ * Options are separated by commas; package lists by colons.
+ * <ul>
+ *   <li>{@code include} - only rewrite classes in these packages (default: all)</li>
+ *   <li>{@code exclude} - never rewrite classes in these packages</li>
+ *   <li>{@code verbose} - print each guarded call site and each class left unchanged</li>
+ *   <li>{@code report=false} - do not print the rewrite statistics at shutdown</li>
+ * </ul>
+ * Only classes loaded after the agent starts are rewritten. Rewritten call
+ * sites behave like hand-written guards, so their disabled events are not
+ * captured by the flight recorder.
+ */
+public final class GuardAgent {
+
+    private static final RewriteStats STATS = new RewriteStats();
+
+    private GuardAgent() {
+    }
+
+    public static void premain(String args, Instrumentation instrumentation) {
+        install(args, instrumentation);
+    }
+
+    public static void agentmain(String args, Instrumentation instrumentation) {
+        install(args, instrumentation);
+    }
+
+    /**
+     * Get the statistics of every class transformed so far.
+     */
+    public static RewriteStats getStats() {
+        return STATS;
+    }
+
+    private static void install(String args, Instrumentation instrumentation) {
+        List<String> includes = new ArrayList<>();
+        List<String> excludes = new ArrayList<>();
+        boolean verbose = false;
+        boolean report = true;
+
+        if (args != null) {
+            for (String option : args.split(",")) {
+                String key = option.trim();
+                String value = "";
+                int eq = key.indexOf('=');
+                if (eq >= 0) {
+                    value = key.substring(eq + 1).trim();
+                    key = key.substring(0, eq).trim();
+                }
+                if (key.isEmpty()) {
+                    continue;
+                }
+                if ("include".equals(key)) {
+                    addPrefixes(value, includes);
+                } else if ("exclude".equals(key)) {
+                    addPrefixes(value, excludes);
+                } else if ("verbose".equals(key)) {
+                    verbose = value.isEmpty() || Boolean.parseBoolean(value);
+                } else if ("report".equals(key)) {
+                    report = value.isEmpty() || Boolean.parseBoolean(value);
+                } else {
+                    System.err.println("log4Rich agent: ignoring unknown option " + key);
+                }
+            }
+        }
+
+        instrumentation.addTransformer(new GuardTransformer(
+            includes.toArray(new String[0]), excludes.toArray(new String[0]), verbose, STATS));
+
+        if (report) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    System.err.println(STATS);
+                }
+            }, "log4Rich-agent-report"));
+        }
+    }
+
+    private static void addPrefixes(String value, List<String> prefixes) {
+        for (String name : value.split(":")) {
+            String prefix = name.trim();
+            if (!prefix.isEmpty()) {
+                prefixes.add(prefix.replace('.', '/') + (prefix.endsWith(".") ? "" : "/"));
+            }
+        }
+    }
+}
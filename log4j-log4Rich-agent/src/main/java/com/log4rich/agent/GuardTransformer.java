@@ -0,0 +1,99 @@
+package com.log4rich.agent;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.nio.charset.StandardCharsets;
+import java.security.ProtectionDomain;
+
+/**
+ * Hands classes that reference the log4j 1.x bridge to {@link CallSiteGuard}.
+ *
+ * Classes are filtered by internal-name prefix first, then by a scan of the
+ * raw class file for the bridge's package name, so that only classes which
+ * can contain a call site are parsed. Classes that fail to rewrite are loaded
+ * unchanged.
+ */
+final class GuardTransformer implements ClassFileTransformer {
+
+    private static final String[] ALWAYS_EXCLUDED = {
+        "java/", "javax/", "jdk/", "sun/", "com/sun/",
+        "org/apache/log4j/", "org/apache/logging/log4j/", "com/log4rich/"
+    };
+
+    private static final byte[] BRIDGE_PACKAGE = "org/apache/log4j/".getBytes(StandardCharsets.US_ASCII);
+
+    private final String[] includes;
+    private final String[] excludes;
+    private final boolean verbose;
+    private final RewriteStats stats;
+
+    /**
+     * @param includes internal-name prefixes to rewrite; empty for every class not excluded
+     * @param excludes internal-name prefixes never rewritten
+     * @param verbose print each guarded call site and each failure
+     * @param stats counters to update
+     */
+    GuardTransformer(String[] includes, String[] excludes, boolean verbose, RewriteStats stats) {
+        this.includes = includes;
+        this.excludes = excludes;
+        this.verbose = verbose;
+        this.stats = stats;
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        if (className == null || loader == null || classBeingRedefined != null || !accepts(className)) {
+            return null;
+        }
+        stats.classScanned();
+        if (!contains(classfileBuffer, BRIDGE_PACKAGE)) {
+            return null;
+        }
+        try {
+            byte[] rewritten = CallSiteGuard.rewrite(classfileBuffer, loader, stats, verbose);
+            if (rewritten != null) {
+                stats.classRewritten();
+            }
+            return rewritten;
+        } catch (Throwable t) {
+            stats.failed();
+            if (verbose) {
+                System.err.println("log4Rich agent: left " + className.replace('/', '.') + " unchanged: " + t);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Check whether a class, given by internal name, is eligible for rewriting.
+     */
+    boolean accepts(String className) {
+        if (startsWithAny(className, ALWAYS_EXCLUDED) || startsWithAny(className, excludes)) {
+            return false;
+        }
+        return includes.length == 0 || startsWithAny(className, includes);
+    }
+
+    private static boolean startsWithAny(String className, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(byte[] bytes, byte[] pattern) {
+        int last = bytes.length - pattern.length;
+        outer:
+        for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
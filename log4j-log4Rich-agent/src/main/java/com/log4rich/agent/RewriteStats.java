@@ -0,0 +1,90 @@
+package com.log4rich.agent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters kept by the guard agent while it transforms classes.
+ */
+public final class RewriteStats {
+
+    private final AtomicLong classesScanned = new AtomicLong();
+    private final AtomicLong classesRewritten = new AtomicLong();
+    private final AtomicLong callSites = new AtomicLong();
+    private final AtomicLong guarded = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    void classScanned() {
+        classesScanned.incrementAndGet();
+    }
+
+    void classRewritten() {
+        classesRewritten.incrementAndGet();
+    }
+
+    void callSite() {
+        callSites.incrementAndGet();
+    }
+
+    void guarded() {
+        guarded.incrementAndGet();
+    }
+
+    void skipped() {
+        skipped.incrementAndGet();
+    }
+
+    void failed() {
+        failures.incrementAndGet();
+    }
+
+    /**
+     * Get the number of classes the agent looked at.
+     */
+    public long getClassesScanned() {
+        return classesScanned.get();
+    }
+
+    /**
+     * Get the number of classes with at least one guarded call site.
+     */
+    public long getClassesRewritten() {
+        return classesRewritten.get();
+    }
+
+    /**
+     * Get the number of trace, debug and info call sites found.
+     */
+    public long getCallSites() {
+        return callSites.get();
+    }
+
+    /**
+     * Get the number of call sites wrapped in a level check.
+     */
+    public long getGuarded() {
+        return guarded.get();
+    }
+
+    /**
+     * Get the number of concatenating call sites left alone because their
+     * argument could not be isolated safely, for example when it contains a branch.
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Get the number of classes that could not be rewritten and were loaded unchanged.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public String toString() {
+        return "log4Rich agent: guarded " + guarded.get() + " of " + callSites.get() + " call sites ("
+            + skipped.get() + " skipped) in " + classesRewritten.get() + " of " + classesScanned.get()
+            + " classes, " + failures.get() + " failed";
+    }
+}
@@ -0,0 +1,186 @@
+package com.log4rich.agent;
+
+import org.apache.log4j.Category;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PropertyConfigurator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for guarding concatenating call sites.
+ */
+public class CallSiteGuardTest {
+
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        props.setProperty("log4j.appender.console", "org.apache.log4j.ConsoleAppender");
+        PropertyConfigurator.configure(props);
+    }
+
+    @Test
+    public void testDisabledMessageNotBuilt() throws Exception {
+        assertFalse(Logger.getLogger("agent.sample").isDebugEnabled());
+
+        Probe probe = new Probe();
+        invoke(Sample.class, "concatenated", probe);
+        assertEquals(1, probe.rendered, "without the agent the message is always built");
+
+        RewriteStats stats = new RewriteStats();
+        Class<?> guarded = rewrite(stats);
+        probe = new Probe();
+        invoke(guarded, "concatenated", probe);
+        assertEquals(0, probe.rendered);
+        invoke(guarded, "category", Category.getInstance("agent.sample"), probe);
+        assertEquals(0, probe.rendered);
+    }
+
+    @Test
+    public void testEnabledMessageStillLogged() throws Exception {
+        Class<?> guarded = rewrite(new RewriteStats());
+        Probe probe = new Probe();
+        invoke(guarded, "withThrowable", probe, new IllegalStateException("expected"));
+        assertEquals(1, probe.rendered);
+    }
+
+    @Test
+    public void testSideEffectsLeftUntouched() throws Exception {
+        Class<?> guarded = rewrite(new RewriteStats());
+        assertEquals(8, invoke(guarded, "postIncrement", 7), "n++ in the message still increments");
+
+        invoke(guarded, "nextCalls");
+        assertEquals(2, evaluated(guarded), "log.debug(next()) and \"next \" + next() still call next()");
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        RewriteStats stats = new RewriteStats();
+        Class<?> guarded = rewrite(stats);
+
+        // concatenated, withThrowable, category; skipped are the branch in conditional,
+        // the increment in postIncrement and the call to next() in nextCalls
+        assertEquals(3, stats.getGuarded());
+        assertEquals(3, stats.getSkipped());
+        assertEquals(8, stats.getCallSites());
+
+        Probe probe = new Probe();
+        invoke(guarded, "conditional", true, probe);
+        assertEquals(1, probe.rendered, "skipped call sites keep their original behavior");
+        assertTrue(stats.toString().contains("guarded 3 of 8 call sites"));
+    }
+
+    @Test
+    public void testClassFilter() {
+        GuardTransformer all = new GuardTransformer(new String[0], new String[] { "com/acme/generated/" },
+                                                    false, new RewriteStats());
+        assertTrue(all.accepts("com/acme/Service"));
+        assertFalse(all.accepts("com/acme/generated/Stub"));
+        assertFalse(all.accepts("java/lang/String"));
+        assertFalse(all.accepts("org/apache/log4j/Logger"));
+
+        GuardTransformer included = new GuardTransformer(new String[] { "com/acme/" }, new String[0],
+                                                         false, new RewriteStats());
+        assertTrue(included.accepts("com/acme/Service"));
+        assertFalse(included.accepts("org/example/Service"));
+    }
+
+    private static Class<?> rewrite(RewriteStats stats) throws IOException {
+        String resource = Sample.class.getName().replace('.', '/') + ".class";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = CallSiteGuardTest.class.getClassLoader().getResourceAsStream(resource)) {
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        ClassLoader parent = CallSiteGuardTest.class.getClassLoader();
+        byte[] rewritten = CallSiteGuard.rewrite(bytes.toByteArray(), parent, stats, false);
+        assertNotNull(rewritten);
+        return new DefiningLoader(parent).define(Sample.class.getName(), rewritten);
+    }
+
+    private static Object invoke(Class<?> sample, String method, Object... arguments) throws Exception {
+        for (Method m : sample.getDeclaredMethods()) {
+            if (m.getName().equals(method)) {
+                return m.invoke(null, arguments);
+            }
+        }
+        fail("no method " + method);
+        return null;
+    }
+
+    private static int evaluated(Class<?> sample) throws Exception {
+        return sample.getField("evaluated").getInt(null);
+    }
+
+    private static final class DefiningLoader extends ClassLoader {
+
+        DefiningLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    public static final class Probe {
+
+        int rendered;
+
+        @Override
+        public String toString() {
+            rendered++;
+            return "probe";
+        }
+    }
+
+    public static class Sample {
+
+        static final Logger LOG = Logger.getLogger("agent.sample");
+
+        public static int evaluated;
+
+        public static void concatenated(Object value) {
+            LOG.debug("value " + value);
+        }
+
+        public static void withThrowable(Object value, Exception e) {
+            LOG.info("failed after " + value + " attempts", e);
+        }
+
+        public static void category(Category category, Object value) {
+            category.trace("state " + value);
+        }
+
+        public static void conditional(boolean flag, Object value) {
+            LOG.debug("flag " + (flag ? value : "none"));
+            LOG.debug("constant");
+        }
+
+        public static int postIncrement(int n) {
+            LOG.debug("n=" + n++);
+            return n;
+        }
+
+        public static void nextCalls() {
+            LOG.debug(next());
+            LOG.debug("next " + next());
+        }
+
+        static String next() {
+            evaluated++;
+            return Integer.toString(evaluated);
+        }
+    }
+}
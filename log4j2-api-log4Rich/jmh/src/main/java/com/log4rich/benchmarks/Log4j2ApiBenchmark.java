@@ -0,0 +1,119 @@
+package com.log4rich.benchmarks;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * log4j2 API call costs, built against either the log4Rich bridge or log4j2 core
+ * (see the pom profiles). Root level is INFO in both setups, so DEBUG and TRACE
+ * calls measure the disabled path and INFO calls the enabled path.
+ *
+ * Run with -prof gc to compare allocation per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmark.xml")
+@State(Scope.Benchmark)
+public class Log4j2ApiBenchmark {
+    
+    private Logger logger;
+    private String user;
+    private int count;
+    private long id;
+    
+    @Setup
+    public void setUp() throws Exception {
+        configureLog4RichBridge();
+        logger = LogManager.getLogger(Log4j2ApiBenchmark.class);
+        user = "alice";
+        count = 42;
+        id = 123456789L;
+    }
+    
+    @TearDown
+    public void tearDown() {
+        LogManager.shutdown();
+    }
+    
+    // Disabled path
+    
+    @Benchmark
+    public boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
+    }
+    
+    @Benchmark
+    public void disabledDebugOneParam() {
+        logger.debug("user={}", user);
+    }
+    
+    @Benchmark
+    public void disabledDebugTwoParams() {
+        logger.debug("user={} count={}", user, count);
+    }
+    
+    @Benchmark
+    public void disabledDebugThreeParams() {
+        logger.debug("user={} count={} id={}", user, count, id);
+    }
+    
+    @Benchmark
+    public void disabledTraceSupplier() {
+        logger.trace(() -> "user=" + user);
+    }
+    
+    // Enabled path
+    
+    @Benchmark
+    public void enabledInfoPlain() {
+        logger.info("plain message");
+    }
+    
+    @Benchmark
+    public void enabledInfoOneParam() {
+        logger.info("user={}", user);
+    }
+    
+    @Benchmark
+    public void enabledInfoTwoParams() {
+        logger.info("user={} count={}", user, count);
+    }
+    
+    @Benchmark
+    public void enabledInfoThreeParams() {
+        logger.info("user={} count={} id={}", user, count, id);
+    }
+    
+    /**
+     * Set the log4Rich root level to INFO through the log4j 1.x configurator when the
+     * bridge is on the classpath. log4j2 core reads log4j2-benchmark.xml instead.
+     */
+    private static void configureLog4RichBridge() throws Exception {
+        Class<?> configurator;
+        try {
+            configurator = Class.forName("org.apache.log4j.PropertyConfigurator");
+        } catch (ClassNotFoundException e) {
+            return;
+        }
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, file");
+        props.setProperty("log4j.appender.file.File", "target/log4rich-benchmark.log");
+        configurator.getMethod("configure", Properties.class).invoke(null, props);
+    }
+}
@@ -0,0 +1,148 @@
+package org.apache.logging.log4j;
+
+import com.log4rich.core.LogLevel;
+
+import java.util.Locale;
+
+/**
+ * log4j2 Level compatibility class that maps to log4Rich LogLevel.
+ * Provides drop-in replacement for org.apache.logging.log4j.Level.
+ *
+ * As in log4j2, a smaller intLevel is more specific: OFF is 0 and ALL is Integer.MAX_VALUE.
+ */
+public final class Level implements Comparable<Level> {
+    
+    public static final Level OFF = new Level("OFF", 0, LogLevel.OFF);
+    public static final Level FATAL = new Level("FATAL", 100, LogLevel.FATAL);
+    public static final Level ERROR = new Level("ERROR", 200, LogLevel.ERROR);
+    public static final Level WARN = new Level("WARN", 300, LogLevel.WARN);
+    public static final Level INFO = new Level("INFO", 400, LogLevel.INFO);
+    public static final Level DEBUG = new Level("DEBUG", 500, LogLevel.DEBUG);
+    public static final Level TRACE = new Level("TRACE", 600, LogLevel.TRACE);
+    public static final Level ALL = new Level("ALL", Integer.MAX_VALUE, LogLevel.TRACE);
+    
+    private static final Level[] VALUES = { OFF, FATAL, ERROR, WARN, INFO, DEBUG, TRACE, ALL };
+    
+    private final String name;
+    private final int intLevel;
+    private final LogLevel log4RichLevel;
+    private final org.apache.log4j.Level log4j1Level;
+    
+    private Level(String name, int intLevel, LogLevel log4RichLevel) {
+        this.name = name;
+        this.intLevel = intLevel;
+        this.log4RichLevel = log4RichLevel;
+        this.log4j1Level = org.apache.log4j.Level.toLevel(name);
+    }
+    
+    /**
+     * Get the level name.
+     */
+    public String name() {
+        return name;
+    }
+    
+    /**
+     * Get the numeric level value.
+     */
+    public int intLevel() {
+        return intLevel;
+    }
+    
+    /**
+     * Get the log4Rich LogLevel equivalent.
+     */
+    public LogLevel getLog4RichLevel() {
+        return log4RichLevel;
+    }
+    
+    /**
+     * Get the log4j 1.x bridge level equivalent, used for the shared write path.
+     */
+    org.apache.log4j.Level getLog4j1Level() {
+        return log4j1Level;
+    }
+    
+    /**
+     * Check if this level is at least as specific (severe) as the given level.
+     */
+    public boolean isMoreSpecificThan(Level level) {
+        return this.intLevel <= level.intLevel;
+    }
+    
+    /**
+     * Check if this level is at most as specific (severe) as the given level.
+     */
+    public boolean isLessSpecificThan(Level level) {
+        return this.intLevel >= level.intLevel;
+    }
+    
+    /**
+     * Check if this level lies between the two given levels, inclusive.
+     */
+    public boolean isInRange(Level minLevel, Level maxLevel) {
+        return this.intLevel >= minLevel.intLevel && this.intLevel <= maxLevel.intLevel;
+    }
+    
+    @Override
+    public int compareTo(Level other) {
+        return Integer.compare(intLevel, other.intLevel);
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+    
+    /**
+     * Get all standard levels.
+     */
+    public static Level[] values() {
+        return VALUES.clone();
+    }
+    
+    /**
+     * Get the standard level with the given name.
+     *
+     * @throws IllegalArgumentException if the name is not a standard level
+     */
+    public static Level valueOf(String name) {
+        Level level = getLevel(name == null ? null : name.trim().toUpperCase(Locale.ENGLISH));
+        if (level == null) {
+            throw new IllegalArgumentException("Unknown level constant [" + name + "].");
+        }
+        return level;
+    }
+    
+    /**
+     * Get the standard level with exactly the given name, or null.
+     */
+    public static Level getLevel(String name) {
+        if (name != null) {
+            for (Level level : VALUES) {
+                if (level.name.equals(name)) {
+                    return level;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Convert a level name to a Level, defaulting to DEBUG.
+     */
+    public static Level toLevel(String name) {
+        return toLevel(name, DEBUG);
+    }
+    
+    /**
+     * Convert a level name to a Level with default fallback.
+     */
+    public static Level toLevel(String name, Level defaultLevel) {
+        if (name == null) {
+            return defaultLevel;
+        }
+        Level level = getLevel(name.trim().toUpperCase(Locale.ENGLISH));
+        return level != null ? level : defaultLevel;
+    }
+}
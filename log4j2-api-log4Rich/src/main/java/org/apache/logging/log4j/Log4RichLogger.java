@@ -0,0 +1,1159 @@
+package org.apache.logging.log4j;
+
+import org.apache.logging.log4j.util.Supplier;
+
+/**
+ * log4j2 Logger implementation on top of the log4j 1.x bridge logger of the same
+ * name, so both APIs share logger instances, level checks and the write path.
+ *
+ * Level checks happen before any formatting; the one and two parameter forms
+ * never allocate a parameter array, the three to ten parameter forms allocate
+ * one only once the level is enabled, and placeholders are substituted into a
+ * reused per-thread buffer by {@link ParameterFormatter}.
+ */
+final class Log4RichLogger implements Logger {
+    
+    private final org.apache.log4j.Logger delegate;
+    
+    Log4RichLogger(org.apache.log4j.Logger delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+    
+    @Override
+    public Level getLevel() {
+        if (delegate.isTraceEnabled()) return Level.TRACE;
+        if (delegate.isDebugEnabled()) return Level.DEBUG;
+        if (delegate.isInfoEnabled()) return Level.INFO;
+        if (delegate.isWarnEnabled()) return Level.WARN;
+        if (delegate.isErrorEnabled()) return Level.ERROR;
+        if (delegate.isFatalEnabled()) return Level.FATAL;
+        return Level.OFF;
+    }
+    
+    /**
+     * Get the log4j 1.x bridge logger this logger writes through.
+     */
+    org.apache.log4j.Logger getDelegate() {
+        return delegate;
+    }
+    
+    // Level checking methods
+    
+    @Override
+    public boolean isEnabled(Level level) {
+        return delegate.isEnabledFor(level.getLog4j1Level());
+    }
+    
+    @Override
+    public boolean isEnabled(Level level, Marker marker) {
+        return delegate.isEnabledFor(level.getLog4j1Level());
+    }
+    
+    @Override
+    public boolean isTraceEnabled() {
+        return delegate.isTraceEnabled();
+    }
+    
+    @Override
+    public boolean isTraceEnabled(Marker marker) {
+        return delegate.isTraceEnabled();
+    }
+    
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+    
+    @Override
+    public boolean isDebugEnabled(Marker marker) {
+        return delegate.isDebugEnabled();
+    }
+    
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+    
+    @Override
+    public boolean isInfoEnabled(Marker marker) {
+        return delegate.isInfoEnabled();
+    }
+    
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+    
+    @Override
+    public boolean isWarnEnabled(Marker marker) {
+        return delegate.isWarnEnabled();
+    }
+    
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+    
+    @Override
+    public boolean isErrorEnabled(Marker marker) {
+        return delegate.isErrorEnabled();
+    }
+    
+    @Override
+    public boolean isFatalEnabled() {
+        return delegate.isFatalEnabled();
+    }
+    
+    @Override
+    public boolean isFatalEnabled(Marker marker) {
+        return delegate.isFatalEnabled();
+    }
+    
+    // Generic logging methods
+    
+    @Override
+    public void log(Level level, String message) {
+        delegate.log(level.getLog4j1Level(), message);
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0) {
+        if (isEnabled(level)) {
+            log1(level.getLog4j1Level(), message, p0);
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0, Object p1) {
+        if (isEnabled(level)) {
+            log2(level.getLog4j1Level(), message, p0, p1);
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0, Object p1, Object p2) {
+        if (isEnabled(level)) {
+            logN(level.getLog4j1Level(), message, new Object[] { p0, p1, p2 });
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0, Object p1, Object p2, Object p3) {
+        if (isEnabled(level)) {
+            logN(level.getLog4j1Level(), message, new Object[] { p0, p1, p2, p3 });
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4) {
+        if (isEnabled(level)) {
+            logN(level.getLog4j1Level(), message, new Object[] { p0, p1, p2, p3, p4 });
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                    Object p5) {
+        if (isEnabled(level)) {
+            logN(level.getLog4j1Level(), message, new Object[] { p0, p1, p2, p3, p4, p5 });
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                    Object p5, Object p6) {
+        if (isEnabled(level)) {
+            logN(level.getLog4j1Level(), message, new Object[] { p0, p1, p2, p3, p4, p5, p6 });
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                    Object p5, Object p6, Object p7) {
+        if (isEnabled(level)) {
+            logN(level.getLog4j1Level(), message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7 });
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                    Object p5, Object p6, Object p7, Object p8) {
+        if (isEnabled(level)) {
+            logN(level.getLog4j1Level(), message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8 });
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                    Object p5, Object p6, Object p7, Object p8, Object p9) {
+        if (isEnabled(level)) {
+            logN(level.getLog4j1Level(), message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8, p9 });
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Object... params) {
+        if (isEnabled(level)) {
+            logN(level.getLog4j1Level(), message, params);
+        }
+    }
+    
+    @Override
+    public void log(Level level, String message, Throwable throwable) {
+        delegate.log(level.getLog4j1Level(), message, throwable);
+    }
+    
+    @Override
+    public void log(Level level, Object message) {
+        delegate.log(level.getLog4j1Level(), message);
+    }
+    
+    @Override
+    public void log(Level level, Object message, Throwable throwable) {
+        delegate.log(level.getLog4j1Level(), message, throwable);
+    }
+    
+    @Override
+    public void log(Level level, Supplier<?> messageSupplier) {
+        if (isEnabled(level)) {
+            delegate.log(level.getLog4j1Level(), messageSupplier.get());
+        }
+    }
+    
+    @Override
+    public void log(Level level, Supplier<?> messageSupplier, Throwable throwable) {
+        if (isEnabled(level)) {
+            delegate.log(level.getLog4j1Level(), messageSupplier.get(), throwable);
+        }
+    }
+    
+    @Override
+    public void log(Level level, Marker marker, String message) {
+        log(level, message);
+    }
+    
+    @Override
+    public void log(Level level, Marker marker, String message, Object... params) {
+        log(level, message, params);
+    }
+    
+    @Override
+    public void log(Level level, Marker marker, String message, Throwable throwable) {
+        log(level, message, throwable);
+    }
+    
+    // TRACE level logging methods
+    
+    @Override
+    public void trace(String message) {
+        delegate.trace(message);
+    }
+    
+    @Override
+    public void trace(String message, Object p0) {
+        if (delegate.isTraceEnabled()) {
+            log1(org.apache.log4j.Level.TRACE, message, p0);
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object p0, Object p1) {
+        if (delegate.isTraceEnabled()) {
+            log2(org.apache.log4j.Level.TRACE, message, p0, p1);
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object p0, Object p1, Object p2) {
+        if (delegate.isTraceEnabled()) {
+            logN(org.apache.log4j.Level.TRACE, message, new Object[] { p0, p1, p2 });
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object p0, Object p1, Object p2, Object p3) {
+        if (delegate.isTraceEnabled()) {
+            logN(org.apache.log4j.Level.TRACE, message, new Object[] { p0, p1, p2, p3 });
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4) {
+        if (delegate.isTraceEnabled()) {
+            logN(org.apache.log4j.Level.TRACE, message, new Object[] { p0, p1, p2, p3, p4 });
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5) {
+        if (delegate.isTraceEnabled()) {
+            logN(org.apache.log4j.Level.TRACE, message, new Object[] { p0, p1, p2, p3, p4, p5 });
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6) {
+        if (delegate.isTraceEnabled()) {
+            logN(org.apache.log4j.Level.TRACE, message, new Object[] { p0, p1, p2, p3, p4, p5, p6 });
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7) {
+        if (delegate.isTraceEnabled()) {
+            logN(org.apache.log4j.Level.TRACE, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7 });
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7, Object p8) {
+        if (delegate.isTraceEnabled()) {
+            logN(org.apache.log4j.Level.TRACE, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8 });
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7, Object p8, Object p9) {
+        if (delegate.isTraceEnabled()) {
+            logN(org.apache.log4j.Level.TRACE, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8, p9 });
+        }
+    }
+    
+    @Override
+    public void trace(String message, Object... params) {
+        if (delegate.isTraceEnabled()) {
+            logN(org.apache.log4j.Level.TRACE, message, params);
+        }
+    }
+    
+    @Override
+    public void trace(String message, Throwable throwable) {
+        delegate.trace(message, throwable);
+    }
+    
+    @Override
+    public void trace(Object message) {
+        delegate.trace(message);
+    }
+    
+    @Override
+    public void trace(Object message, Throwable throwable) {
+        delegate.trace(message, throwable);
+    }
+    
+    @Override
+    public void trace(Supplier<?> messageSupplier) {
+        if (delegate.isTraceEnabled()) {
+            delegate.trace(messageSupplier.get());
+        }
+    }
+    
+    @Override
+    public void trace(Supplier<?> messageSupplier, Throwable throwable) {
+        if (delegate.isTraceEnabled()) {
+            delegate.trace(messageSupplier.get(), throwable);
+        }
+    }
+    
+    @Override
+    public void trace(Marker marker, String message) {
+        trace(message);
+    }
+    
+    @Override
+    public void trace(Marker marker, String message, Object p0) {
+        trace(message, p0);
+    }
+    
+    @Override
+    public void trace(Marker marker, String message, Object p0, Object p1) {
+        trace(message, p0, p1);
+    }
+    
+    @Override
+    public void trace(Marker marker, String message, Object... params) {
+        trace(message, params);
+    }
+    
+    @Override
+    public void trace(Marker marker, String message, Throwable throwable) {
+        trace(message, throwable);
+    }
+    
+    @Override
+    public void trace(Marker marker, Supplier<?> messageSupplier) {
+        trace(messageSupplier);
+    }
+    
+    // DEBUG level logging methods
+    
+    @Override
+    public void debug(String message) {
+        delegate.debug(message);
+    }
+    
+    @Override
+    public void debug(String message, Object p0) {
+        if (delegate.isDebugEnabled()) {
+            log1(org.apache.log4j.Level.DEBUG, message, p0);
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object p0, Object p1) {
+        if (delegate.isDebugEnabled()) {
+            log2(org.apache.log4j.Level.DEBUG, message, p0, p1);
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object p0, Object p1, Object p2) {
+        if (delegate.isDebugEnabled()) {
+            logN(org.apache.log4j.Level.DEBUG, message, new Object[] { p0, p1, p2 });
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object p0, Object p1, Object p2, Object p3) {
+        if (delegate.isDebugEnabled()) {
+            logN(org.apache.log4j.Level.DEBUG, message, new Object[] { p0, p1, p2, p3 });
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4) {
+        if (delegate.isDebugEnabled()) {
+            logN(org.apache.log4j.Level.DEBUG, message, new Object[] { p0, p1, p2, p3, p4 });
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5) {
+        if (delegate.isDebugEnabled()) {
+            logN(org.apache.log4j.Level.DEBUG, message, new Object[] { p0, p1, p2, p3, p4, p5 });
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6) {
+        if (delegate.isDebugEnabled()) {
+            logN(org.apache.log4j.Level.DEBUG, message, new Object[] { p0, p1, p2, p3, p4, p5, p6 });
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7) {
+        if (delegate.isDebugEnabled()) {
+            logN(org.apache.log4j.Level.DEBUG, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7 });
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7, Object p8) {
+        if (delegate.isDebugEnabled()) {
+            logN(org.apache.log4j.Level.DEBUG, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8 });
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7, Object p8, Object p9) {
+        if (delegate.isDebugEnabled()) {
+            logN(org.apache.log4j.Level.DEBUG, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8, p9 });
+        }
+    }
+    
+    @Override
+    public void debug(String message, Object... params) {
+        if (delegate.isDebugEnabled()) {
+            logN(org.apache.log4j.Level.DEBUG, message, params);
+        }
+    }
+    
+    @Override
+    public void debug(String message, Throwable throwable) {
+        delegate.debug(message, throwable);
+    }
+    
+    @Override
+    public void debug(Object message) {
+        delegate.debug(message);
+    }
+    
+    @Override
+    public void debug(Object message, Throwable throwable) {
+        delegate.debug(message, throwable);
+    }
+    
+    @Override
+    public void debug(Supplier<?> messageSupplier) {
+        if (delegate.isDebugEnabled()) {
+            delegate.debug(messageSupplier.get());
+        }
+    }
+    
+    @Override
+    public void debug(Supplier<?> messageSupplier, Throwable throwable) {
+        if (delegate.isDebugEnabled()) {
+            delegate.debug(messageSupplier.get(), throwable);
+        }
+    }
+    
+    @Override
+    public void debug(Marker marker, String message) {
+        debug(message);
+    }
+    
+    @Override
+    public void debug(Marker marker, String message, Object p0) {
+        debug(message, p0);
+    }
+    
+    @Override
+    public void debug(Marker marker, String message, Object p0, Object p1) {
+        debug(message, p0, p1);
+    }
+    
+    @Override
+    public void debug(Marker marker, String message, Object... params) {
+        debug(message, params);
+    }
+    
+    @Override
+    public void debug(Marker marker, String message, Throwable throwable) {
+        debug(message, throwable);
+    }
+    
+    @Override
+    public void debug(Marker marker, Supplier<?> messageSupplier) {
+        debug(messageSupplier);
+    }
+    
+    // INFO level logging methods
+    
+    @Override
+    public void info(String message) {
+        delegate.info(message);
+    }
+    
+    @Override
+    public void info(String message, Object p0) {
+        if (delegate.isInfoEnabled()) {
+            log1(org.apache.log4j.Level.INFO, message, p0);
+        }
+    }
+    
+    @Override
+    public void info(String message, Object p0, Object p1) {
+        if (delegate.isInfoEnabled()) {
+            log2(org.apache.log4j.Level.INFO, message, p0, p1);
+        }
+    }
+    
+    @Override
+    public void info(String message, Object p0, Object p1, Object p2) {
+        if (delegate.isInfoEnabled()) {
+            logN(org.apache.log4j.Level.INFO, message, new Object[] { p0, p1, p2 });
+        }
+    }
+    
+    @Override
+    public void info(String message, Object p0, Object p1, Object p2, Object p3) {
+        if (delegate.isInfoEnabled()) {
+            logN(org.apache.log4j.Level.INFO, message, new Object[] { p0, p1, p2, p3 });
+        }
+    }
+    
+    @Override
+    public void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4) {
+        if (delegate.isInfoEnabled()) {
+            logN(org.apache.log4j.Level.INFO, message, new Object[] { p0, p1, p2, p3, p4 });
+        }
+    }
+    
+    @Override
+    public void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5) {
+        if (delegate.isInfoEnabled()) {
+            logN(org.apache.log4j.Level.INFO, message, new Object[] { p0, p1, p2, p3, p4, p5 });
+        }
+    }
+    
+    @Override
+    public void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                     Object p5, Object p6) {
+        if (delegate.isInfoEnabled()) {
+            logN(org.apache.log4j.Level.INFO, message, new Object[] { p0, p1, p2, p3, p4, p5, p6 });
+        }
+    }
+    
+    @Override
+    public void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                     Object p5, Object p6, Object p7) {
+        if (delegate.isInfoEnabled()) {
+            logN(org.apache.log4j.Level.INFO, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7 });
+        }
+    }
+    
+    @Override
+    public void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                     Object p5, Object p6, Object p7, Object p8) {
+        if (delegate.isInfoEnabled()) {
+            logN(org.apache.log4j.Level.INFO, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8 });
+        }
+    }
+    
+    @Override
+    public void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                     Object p5, Object p6, Object p7, Object p8, Object p9) {
+        if (delegate.isInfoEnabled()) {
+            logN(org.apache.log4j.Level.INFO, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8, p9 });
+        }
+    }
+    
+    @Override
+    public void info(String message, Object... params) {
+        if (delegate.isInfoEnabled()) {
+            logN(org.apache.log4j.Level.INFO, message, params);
+        }
+    }
+    
+    @Override
+    public void info(String message, Throwable throwable) {
+        delegate.info(message, throwable);
+    }
+    
+    @Override
+    public void info(Object message) {
+        delegate.info(message);
+    }
+    
+    @Override
+    public void info(Object message, Throwable throwable) {
+        delegate.info(message, throwable);
+    }
+    
+    @Override
+    public void info(Supplier<?> messageSupplier) {
+        if (delegate.isInfoEnabled()) {
+            delegate.info(messageSupplier.get());
+        }
+    }
+    
+    @Override
+    public void info(Supplier<?> messageSupplier, Throwable throwable) {
+        if (delegate.isInfoEnabled()) {
+            delegate.info(messageSupplier.get(), throwable);
+        }
+    }
+    
+    @Override
+    public void info(Marker marker, String message) {
+        info(message);
+    }
+    
+    @Override
+    public void info(Marker marker, String message, Object p0) {
+        info(message, p0);
+    }
+    
+    @Override
+    public void info(Marker marker, String message, Object p0, Object p1) {
+        info(message, p0, p1);
+    }
+    
+    @Override
+    public void info(Marker marker, String message, Object... params) {
+        info(message, params);
+    }
+    
+    @Override
+    public void info(Marker marker, String message, Throwable throwable) {
+        info(message, throwable);
+    }
+    
+    @Override
+    public void info(Marker marker, Supplier<?> messageSupplier) {
+        info(messageSupplier);
+    }
+    
+    // WARN level logging methods
+    
+    @Override
+    public void warn(String message) {
+        delegate.warn(message);
+    }
+    
+    @Override
+    public void warn(String message, Object p0) {
+        if (delegate.isWarnEnabled()) {
+            log1(org.apache.log4j.Level.WARN, message, p0);
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object p0, Object p1) {
+        if (delegate.isWarnEnabled()) {
+            log2(org.apache.log4j.Level.WARN, message, p0, p1);
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object p0, Object p1, Object p2) {
+        if (delegate.isWarnEnabled()) {
+            logN(org.apache.log4j.Level.WARN, message, new Object[] { p0, p1, p2 });
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object p0, Object p1, Object p2, Object p3) {
+        if (delegate.isWarnEnabled()) {
+            logN(org.apache.log4j.Level.WARN, message, new Object[] { p0, p1, p2, p3 });
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4) {
+        if (delegate.isWarnEnabled()) {
+            logN(org.apache.log4j.Level.WARN, message, new Object[] { p0, p1, p2, p3, p4 });
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5) {
+        if (delegate.isWarnEnabled()) {
+            logN(org.apache.log4j.Level.WARN, message, new Object[] { p0, p1, p2, p3, p4, p5 });
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                     Object p5, Object p6) {
+        if (delegate.isWarnEnabled()) {
+            logN(org.apache.log4j.Level.WARN, message, new Object[] { p0, p1, p2, p3, p4, p5, p6 });
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                     Object p5, Object p6, Object p7) {
+        if (delegate.isWarnEnabled()) {
+            logN(org.apache.log4j.Level.WARN, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7 });
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                     Object p5, Object p6, Object p7, Object p8) {
+        if (delegate.isWarnEnabled()) {
+            logN(org.apache.log4j.Level.WARN, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8 });
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                     Object p5, Object p6, Object p7, Object p8, Object p9) {
+        if (delegate.isWarnEnabled()) {
+            logN(org.apache.log4j.Level.WARN, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8, p9 });
+        }
+    }
+    
+    @Override
+    public void warn(String message, Object... params) {
+        if (delegate.isWarnEnabled()) {
+            logN(org.apache.log4j.Level.WARN, message, params);
+        }
+    }
+    
+    @Override
+    public void warn(String message, Throwable throwable) {
+        delegate.warn(message, throwable);
+    }
+    
+    @Override
+    public void warn(Object message) {
+        delegate.warn(message);
+    }
+    
+    @Override
+    public void warn(Object message, Throwable throwable) {
+        delegate.warn(message, throwable);
+    }
+    
+    @Override
+    public void warn(Supplier<?> messageSupplier) {
+        if (delegate.isWarnEnabled()) {
+            delegate.warn(messageSupplier.get());
+        }
+    }
+    
+    @Override
+    public void warn(Supplier<?> messageSupplier, Throwable throwable) {
+        if (delegate.isWarnEnabled()) {
+            delegate.warn(messageSupplier.get(), throwable);
+        }
+    }
+    
+    @Override
+    public void warn(Marker marker, String message) {
+        warn(message);
+    }
+    
+    @Override
+    public void warn(Marker marker, String message, Object p0) {
+        warn(message, p0);
+    }
+    
+    @Override
+    public void warn(Marker marker, String message, Object p0, Object p1) {
+        warn(message, p0, p1);
+    }
+    
+    @Override
+    public void warn(Marker marker, String message, Object... params) {
+        warn(message, params);
+    }
+    
+    @Override
+    public void warn(Marker marker, String message, Throwable throwable) {
+        warn(message, throwable);
+    }
+    
+    @Override
+    public void warn(Marker marker, Supplier<?> messageSupplier) {
+        warn(messageSupplier);
+    }
+    
+    // ERROR level logging methods
+    
+    @Override
+    public void error(String message) {
+        delegate.error(message);
+    }
+    
+    @Override
+    public void error(String message, Object p0) {
+        if (delegate.isErrorEnabled()) {
+            log1(org.apache.log4j.Level.ERROR, message, p0);
+        }
+    }
+    
+    @Override
+    public void error(String message, Object p0, Object p1) {
+        if (delegate.isErrorEnabled()) {
+            log2(org.apache.log4j.Level.ERROR, message, p0, p1);
+        }
+    }
+    
+    @Override
+    public void error(String message, Object p0, Object p1, Object p2) {
+        if (delegate.isErrorEnabled()) {
+            logN(org.apache.log4j.Level.ERROR, message, new Object[] { p0, p1, p2 });
+        }
+    }
+    
+    @Override
+    public void error(String message, Object p0, Object p1, Object p2, Object p3) {
+        if (delegate.isErrorEnabled()) {
+            logN(org.apache.log4j.Level.ERROR, message, new Object[] { p0, p1, p2, p3 });
+        }
+    }
+    
+    @Override
+    public void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4) {
+        if (delegate.isErrorEnabled()) {
+            logN(org.apache.log4j.Level.ERROR, message, new Object[] { p0, p1, p2, p3, p4 });
+        }
+    }
+    
+    @Override
+    public void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5) {
+        if (delegate.isErrorEnabled()) {
+            logN(org.apache.log4j.Level.ERROR, message, new Object[] { p0, p1, p2, p3, p4, p5 });
+        }
+    }
+    
+    @Override
+    public void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6) {
+        if (delegate.isErrorEnabled()) {
+            logN(org.apache.log4j.Level.ERROR, message, new Object[] { p0, p1, p2, p3, p4, p5, p6 });
+        }
+    }
+    
+    @Override
+    public void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7) {
+        if (delegate.isErrorEnabled()) {
+            logN(org.apache.log4j.Level.ERROR, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7 });
+        }
+    }
+    
+    @Override
+    public void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7, Object p8) {
+        if (delegate.isErrorEnabled()) {
+            logN(org.apache.log4j.Level.ERROR, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8 });
+        }
+    }
+    
+    @Override
+    public void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7, Object p8, Object p9) {
+        if (delegate.isErrorEnabled()) {
+            logN(org.apache.log4j.Level.ERROR, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8, p9 });
+        }
+    }
+    
+    @Override
+    public void error(String message, Object... params) {
+        if (delegate.isErrorEnabled()) {
+            logN(org.apache.log4j.Level.ERROR, message, params);
+        }
+    }
+    
+    @Override
+    public void error(String message, Throwable throwable) {
+        delegate.error(message, throwable);
+    }
+    
+    @Override
+    public void error(Object message) {
+        delegate.error(message);
+    }
+    
+    @Override
+    public void error(Object message, Throwable throwable) {
+        delegate.error(message, throwable);
+    }
+    
+    @Override
+    public void error(Supplier<?> messageSupplier) {
+        if (delegate.isErrorEnabled()) {
+            delegate.error(messageSupplier.get());
+        }
+    }
+    
+    @Override
+    public void error(Supplier<?> messageSupplier, Throwable throwable) {
+        if (delegate.isErrorEnabled()) {
+            delegate.error(messageSupplier.get(), throwable);
+        }
+    }
+    
+    @Override
+    public void error(Marker marker, String message) {
+        error(message);
+    }
+    
+    @Override
+    public void error(Marker marker, String message, Object p0) {
+        error(message, p0);
+    }
+    
+    @Override
+    public void error(Marker marker, String message, Object p0, Object p1) {
+        error(message, p0, p1);
+    }
+    
+    @Override
+    public void error(Marker marker, String message, Object... params) {
+        error(message, params);
+    }
+    
+    @Override
+    public void error(Marker marker, String message, Throwable throwable) {
+        error(message, throwable);
+    }
+    
+    @Override
+    public void error(Marker marker, Supplier<?> messageSupplier) {
+        error(messageSupplier);
+    }
+    
+    // FATAL level logging methods
+    
+    @Override
+    public void fatal(String message) {
+        delegate.fatal(message);
+    }
+    
+    @Override
+    public void fatal(String message, Object p0) {
+        if (delegate.isFatalEnabled()) {
+            log1(org.apache.log4j.Level.FATAL, message, p0);
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object p0, Object p1) {
+        if (delegate.isFatalEnabled()) {
+            log2(org.apache.log4j.Level.FATAL, message, p0, p1);
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object p0, Object p1, Object p2) {
+        if (delegate.isFatalEnabled()) {
+            logN(org.apache.log4j.Level.FATAL, message, new Object[] { p0, p1, p2 });
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object p0, Object p1, Object p2, Object p3) {
+        if (delegate.isFatalEnabled()) {
+            logN(org.apache.log4j.Level.FATAL, message, new Object[] { p0, p1, p2, p3 });
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4) {
+        if (delegate.isFatalEnabled()) {
+            logN(org.apache.log4j.Level.FATAL, message, new Object[] { p0, p1, p2, p3, p4 });
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5) {
+        if (delegate.isFatalEnabled()) {
+            logN(org.apache.log4j.Level.FATAL, message, new Object[] { p0, p1, p2, p3, p4, p5 });
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6) {
+        if (delegate.isFatalEnabled()) {
+            logN(org.apache.log4j.Level.FATAL, message, new Object[] { p0, p1, p2, p3, p4, p5, p6 });
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7) {
+        if (delegate.isFatalEnabled()) {
+            logN(org.apache.log4j.Level.FATAL, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7 });
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7, Object p8) {
+        if (delegate.isFatalEnabled()) {
+            logN(org.apache.log4j.Level.FATAL, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8 });
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+                      Object p5, Object p6, Object p7, Object p8, Object p9) {
+        if (delegate.isFatalEnabled()) {
+            logN(org.apache.log4j.Level.FATAL, message, new Object[] { p0, p1, p2, p3, p4, p5, p6, p7, p8, p9 });
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Object... params) {
+        if (delegate.isFatalEnabled()) {
+            logN(org.apache.log4j.Level.FATAL, message, params);
+        }
+    }
+    
+    @Override
+    public void fatal(String message, Throwable throwable) {
+        delegate.fatal(message, throwable);
+    }
+    
+    @Override
+    public void fatal(Object message) {
+        delegate.fatal(message);
+    }
+    
+    @Override
+    public void fatal(Object message, Throwable throwable) {
+        delegate.fatal(message, throwable);
+    }
+    
+    @Override
+    public void fatal(Supplier<?> messageSupplier) {
+        if (delegate.isFatalEnabled()) {
+            delegate.fatal(messageSupplier.get());
+        }
+    }
+    
+    @Override
+    public void fatal(Supplier<?> messageSupplier, Throwable throwable) {
+        if (delegate.isFatalEnabled()) {
+            delegate.fatal(messageSupplier.get(), throwable);
+        }
+    }
+    
+    @Override
+    public void fatal(Marker marker, String message) {
+        fatal(message);
+    }
+    
+    @Override
+    public void fatal(Marker marker, String message, Object p0) {
+        fatal(message, p0);
+    }
+    
+    @Override
+    public void fatal(Marker marker, String message, Object p0, Object p1) {
+        fatal(message, p0, p1);
+    }
+    
+    @Override
+    public void fatal(Marker marker, String message, Object... params) {
+        fatal(message, params);
+    }
+    
+    @Override
+    public void fatal(Marker marker, String message, Throwable throwable) {
+        fatal(message, throwable);
+    }
+    
+    @Override
+    public void fatal(Marker marker, Supplier<?> messageSupplier) {
+        fatal(messageSupplier);
+    }
+    
+    // Formatting helpers, called only after the level check
+    
+    private void log1(org.apache.log4j.Level level, String pattern, Object p0) {
+        if (p0 instanceof Throwable && ParameterFormatter.countPlaceholders(pattern) < 1) {
+            delegate.log(level, pattern, (Throwable) p0);
+        } else {
+            delegate.log(level, ParameterFormatter.format(pattern, p0));
+        }
+    }
+    
+    private void log2(org.apache.log4j.Level level, String pattern, Object p0, Object p1) {
+        if (p1 instanceof Throwable && ParameterFormatter.countPlaceholders(pattern) < 2) {
+            delegate.log(level, ParameterFormatter.format(pattern, p0), (Throwable) p1);
+        } else {
+            delegate.log(level, ParameterFormatter.format(pattern, p0, p1));
+        }
+    }
+    
+    private void logN(org.apache.log4j.Level level, String pattern, Object[] params) {
+        int count = params != null ? params.length : 0;
+        if (count > 0 && params[count - 1] instanceof Throwable
+                && ParameterFormatter.countPlaceholders(pattern) < count) {
+            delegate.log(level, ParameterFormatter.format(pattern, params, count - 1), (Throwable) params[count - 1]);
+        } else {
+            delegate.log(level, ParameterFormatter.format(pattern, params, count));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.apache.logging.log4j;
+
+import org.apache.log4j.helpers.BackendRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * log4j2 LogManager compatibility class that manages loggers.
+ * Provides drop-in replacement for org.apache.logging.log4j.LogManager.
+ *
+ * Logger names are canonicalized by the same rules as the log4j 1.x bridge,
+ * and each log4j2 logger wraps the 1.x bridge logger of the same name, so a
+ * class logging through both APIs ends up on one log4Rich logger.
+ */
+public class LogManager {
+    
+    /** Name of the root logger in the log4j2 API. */
+    public static final String ROOT_LOGGER_NAME = "";
+    
+    private static final ConcurrentMap<String, Logger> loggerCache = new ConcurrentHashMap<>();
+    
+    protected LogManager() {
+    }
+    
+    /**
+     * Get a logger named after the calling class.
+     */
+    public static Logger getLogger() {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        return getLogger(stack.length > 1 ? stack[1].getClassName() : ROOT_LOGGER_NAME);
+    }
+    
+    /**
+     * Get a logger for the specified class.
+     */
+    public static Logger getLogger(Class<?> clazz) {
+        return getLogger(BackendRegistry.canonicalName(clazz));
+    }
+    
+    /**
+     * Get a logger named after the class of the given object.
+     */
+    public static Logger getLogger(Object value) {
+        return getLogger(value != null ? value.getClass() : null);
+    }
+    
+    /**
+     * Get a logger for the specified name.
+     */
+    public static Logger getLogger(String name) {
+        String canonical = BackendRegistry.canonicalName(name);
+        Logger logger = loggerCache.get(canonical);
+        if (logger == null) {
+            logger = new Log4RichLogger(org.apache.log4j.LogManager.getLogger(canonical));
+            Logger existing = loggerCache.putIfAbsent(canonical, logger);
+            if (existing != null) {
+                logger = existing;
+            }
+        }
+        return logger;
+    }
+    
+    /**
+     * Get the root logger.
+     */
+    public static Logger getRootLogger() {
+        return getLogger(ROOT_LOGGER_NAME);
+    }
+    
+    /**
+     * Check if a logger exists.
+     */
+    public static boolean exists(String name) {
+        return loggerCache.containsKey(BackendRegistry.canonicalName(name));
+    }
+    
+    /**
+     * Shutdown the logging system.
+     * This delegates to the log4j 1.x bridge, which drains and stops log4Rich.
+     */
+    public static void shutdown() {
+        org.apache.log4j.LogManager.shutdown();
+        loggerCache.clear();
+    }
+}
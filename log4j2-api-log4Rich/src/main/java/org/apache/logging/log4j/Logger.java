@@ -0,0 +1,410 @@
+package org.apache.logging.log4j;
+
+import org.apache.logging.log4j.util.Supplier;
+
+/**
+ * log4j2 Logger compatibility interface.
+ * Provides drop-in replacement for org.apache.logging.log4j.Logger for the
+ * commonly used methods: plain, parameterized ({} placeholders, with unrolled
+ * one to ten parameter forms for every level and for log(Level, ...)),
+ * Throwable, Supplier and Marker variants. Marker forms are unrolled up to two
+ * parameters; more parameters with a marker bind to the varargs form.
+ *
+ * Messages are formatted only when the level is enabled, and the unrolled
+ * forms allocate nothing while it is disabled. If the last parameter is a
+ * Throwable that no placeholder consumes, it is logged as the exception.
+ */
+public interface Logger {
+    
+    /**
+     * Get the logger name.
+     */
+    String getName();
+    
+    /**
+     * Get the most verbose level currently enabled for this logger.
+     */
+    Level getLevel();
+    
+    // Level checking methods
+    
+    boolean isEnabled(Level level);
+    
+    boolean isEnabled(Level level, Marker marker);
+    
+    boolean isTraceEnabled();
+    
+    boolean isTraceEnabled(Marker marker);
+    
+    boolean isDebugEnabled();
+    
+    boolean isDebugEnabled(Marker marker);
+    
+    boolean isInfoEnabled();
+    
+    boolean isInfoEnabled(Marker marker);
+    
+    boolean isWarnEnabled();
+    
+    boolean isWarnEnabled(Marker marker);
+    
+    boolean isErrorEnabled();
+    
+    boolean isErrorEnabled(Marker marker);
+    
+    boolean isFatalEnabled();
+    
+    boolean isFatalEnabled(Marker marker);
+    
+    // Generic logging methods
+    
+    void log(Level level, String message);
+    
+    void log(Level level, String message, Object p0);
+    
+    void log(Level level, String message, Object p0, Object p1);
+    
+    void log(Level level, String message, Object p0, Object p1, Object p2);
+    
+    void log(Level level, String message, Object p0, Object p1, Object p2, Object p3);
+    
+    void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4);
+    
+    void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5);
+    
+    void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+             Object p5, Object p6);
+    
+    void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+             Object p5, Object p6, Object p7);
+    
+    void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+             Object p5, Object p6, Object p7, Object p8);
+    
+    void log(Level level, String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+             Object p5, Object p6, Object p7, Object p8, Object p9);
+    
+    void log(Level level, String message, Object... params);
+    
+    void log(Level level, String message, Throwable throwable);
+    
+    void log(Level level, Object message);
+    
+    void log(Level level, Object message, Throwable throwable);
+    
+    void log(Level level, Supplier<?> messageSupplier);
+    
+    void log(Level level, Supplier<?> messageSupplier, Throwable throwable);
+    
+    void log(Level level, Marker marker, String message);
+    
+    void log(Level level, Marker marker, String message, Object... params);
+    
+    void log(Level level, Marker marker, String message, Throwable throwable);
+    
+    // TRACE level logging methods
+    
+    void trace(String message);
+    
+    void trace(String message, Object p0);
+    
+    void trace(String message, Object p0, Object p1);
+    
+    void trace(String message, Object p0, Object p1, Object p2);
+    
+    void trace(String message, Object p0, Object p1, Object p2, Object p3);
+    
+    void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4);
+    
+    void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5);
+    
+    void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6);
+    
+    void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7);
+    
+    void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7, Object p8);
+    
+    void trace(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7, Object p8, Object p9);
+    
+    void trace(String message, Object... params);
+    
+    void trace(String message, Throwable throwable);
+    
+    void trace(Object message);
+    
+    void trace(Object message, Throwable throwable);
+    
+    void trace(Supplier<?> messageSupplier);
+    
+    void trace(Supplier<?> messageSupplier, Throwable throwable);
+    
+    void trace(Marker marker, String message);
+    
+    void trace(Marker marker, String message, Object p0);
+    
+    void trace(Marker marker, String message, Object p0, Object p1);
+    
+    void trace(Marker marker, String message, Object... params);
+    
+    void trace(Marker marker, String message, Throwable throwable);
+    
+    void trace(Marker marker, Supplier<?> messageSupplier);
+    
+    // DEBUG level logging methods
+    
+    void debug(String message);
+    
+    void debug(String message, Object p0);
+    
+    void debug(String message, Object p0, Object p1);
+    
+    void debug(String message, Object p0, Object p1, Object p2);
+    
+    void debug(String message, Object p0, Object p1, Object p2, Object p3);
+    
+    void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4);
+    
+    void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5);
+    
+    void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6);
+    
+    void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7);
+    
+    void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7, Object p8);
+    
+    void debug(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7, Object p8, Object p9);
+    
+    void debug(String message, Object... params);
+    
+    void debug(String message, Throwable throwable);
+    
+    void debug(Object message);
+    
+    void debug(Object message, Throwable throwable);
+    
+    void debug(Supplier<?> messageSupplier);
+    
+    void debug(Supplier<?> messageSupplier, Throwable throwable);
+    
+    void debug(Marker marker, String message);
+    
+    void debug(Marker marker, String message, Object p0);
+    
+    void debug(Marker marker, String message, Object p0, Object p1);
+    
+    void debug(Marker marker, String message, Object... params);
+    
+    void debug(Marker marker, String message, Throwable throwable);
+    
+    void debug(Marker marker, Supplier<?> messageSupplier);
+    
+    // INFO level logging methods
+    
+    void info(String message);
+    
+    void info(String message, Object p0);
+    
+    void info(String message, Object p0, Object p1);
+    
+    void info(String message, Object p0, Object p1, Object p2);
+    
+    void info(String message, Object p0, Object p1, Object p2, Object p3);
+    
+    void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4);
+    
+    void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5);
+    
+    void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6);
+    
+    void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+              Object p5, Object p6, Object p7);
+    
+    void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+              Object p5, Object p6, Object p7, Object p8);
+    
+    void info(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+              Object p5, Object p6, Object p7, Object p8, Object p9);
+    
+    void info(String message, Object... params);
+    
+    void info(String message, Throwable throwable);
+    
+    void info(Object message);
+    
+    void info(Object message, Throwable throwable);
+    
+    void info(Supplier<?> messageSupplier);
+    
+    void info(Supplier<?> messageSupplier, Throwable throwable);
+    
+    void info(Marker marker, String message);
+    
+    void info(Marker marker, String message, Object p0);
+    
+    void info(Marker marker, String message, Object p0, Object p1);
+    
+    void info(Marker marker, String message, Object... params);
+    
+    void info(Marker marker, String message, Throwable throwable);
+    
+    void info(Marker marker, Supplier<?> messageSupplier);
+    
+    // WARN level logging methods
+    
+    void warn(String message);
+    
+    void warn(String message, Object p0);
+    
+    void warn(String message, Object p0, Object p1);
+    
+    void warn(String message, Object p0, Object p1, Object p2);
+    
+    void warn(String message, Object p0, Object p1, Object p2, Object p3);
+    
+    void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4);
+    
+    void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5);
+    
+    void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6);
+    
+    void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+              Object p5, Object p6, Object p7);
+    
+    void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+              Object p5, Object p6, Object p7, Object p8);
+    
+    void warn(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+              Object p5, Object p6, Object p7, Object p8, Object p9);
+    
+    void warn(String message, Object... params);
+    
+    void warn(String message, Throwable throwable);
+    
+    void warn(Object message);
+    
+    void warn(Object message, Throwable throwable);
+    
+    void warn(Supplier<?> messageSupplier);
+    
+    void warn(Supplier<?> messageSupplier, Throwable throwable);
+    
+    void warn(Marker marker, String message);
+    
+    void warn(Marker marker, String message, Object p0);
+    
+    void warn(Marker marker, String message, Object p0, Object p1);
+    
+    void warn(Marker marker, String message, Object... params);
+    
+    void warn(Marker marker, String message, Throwable throwable);
+    
+    void warn(Marker marker, Supplier<?> messageSupplier);
+    
+    // ERROR level logging methods
+    
+    void error(String message);
+    
+    void error(String message, Object p0);
+    
+    void error(String message, Object p0, Object p1);
+    
+    void error(String message, Object p0, Object p1, Object p2);
+    
+    void error(String message, Object p0, Object p1, Object p2, Object p3);
+    
+    void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4);
+    
+    void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5);
+    
+    void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6);
+    
+    void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7);
+    
+    void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7, Object p8);
+    
+    void error(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7, Object p8, Object p9);
+    
+    void error(String message, Object... params);
+    
+    void error(String message, Throwable throwable);
+    
+    void error(Object message);
+    
+    void error(Object message, Throwable throwable);
+    
+    void error(Supplier<?> messageSupplier);
+    
+    void error(Supplier<?> messageSupplier, Throwable throwable);
+    
+    void error(Marker marker, String message);
+    
+    void error(Marker marker, String message, Object p0);
+    
+    void error(Marker marker, String message, Object p0, Object p1);
+    
+    void error(Marker marker, String message, Object... params);
+    
+    void error(Marker marker, String message, Throwable throwable);
+    
+    void error(Marker marker, Supplier<?> messageSupplier);
+    
+    // FATAL level logging methods
+    
+    void fatal(String message);
+    
+    void fatal(String message, Object p0);
+    
+    void fatal(String message, Object p0, Object p1);
+    
+    void fatal(String message, Object p0, Object p1, Object p2);
+    
+    void fatal(String message, Object p0, Object p1, Object p2, Object p3);
+    
+    void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4);
+    
+    void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5);
+    
+    void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6);
+    
+    void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7);
+    
+    void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7, Object p8);
+    
+    void fatal(String message, Object p0, Object p1, Object p2, Object p3, Object p4,
+               Object p5, Object p6, Object p7, Object p8, Object p9);
+    
+    void fatal(String message, Object... params);
+    
+    void fatal(String message, Throwable throwable);
+    
+    void fatal(Object message);
+    
+    void fatal(Object message, Throwable throwable);
+    
+    void fatal(Supplier<?> messageSupplier);
+    
+    void fatal(Supplier<?> messageSupplier, Throwable throwable);
+    
+    void fatal(Marker marker, String message);
+    
+    void fatal(Marker marker, String message, Object p0);
+    
+    void fatal(Marker marker, String message, Object p0, Object p1);
+    
+    void fatal(Marker marker, String message, Object... params);
+    
+    void fatal(Marker marker, String message, Throwable throwable);
+    
+    void fatal(Marker marker, Supplier<?> messageSupplier);
+}
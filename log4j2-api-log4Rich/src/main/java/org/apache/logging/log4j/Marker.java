@@ -0,0 +1,26 @@
+package org.apache.logging.log4j;
+
+import java.io.Serializable;
+
+/**
+ * log4j2 Marker compatibility interface.
+ * Markers are accepted for API compatibility; log4Rich output does not include them.
+ */
+public interface Marker extends Serializable {
+    
+    Marker addParents(Marker... markers);
+    
+    String getName();
+    
+    Marker[] getParents();
+    
+    boolean hasParents();
+    
+    boolean isInstanceOf(Marker m);
+    
+    boolean isInstanceOf(String name);
+    
+    boolean remove(Marker marker);
+    
+    Marker setParents(Marker... markers);
+}
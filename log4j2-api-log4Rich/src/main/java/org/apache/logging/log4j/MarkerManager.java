@@ -0,0 +1,171 @@
+package org.apache.logging.log4j;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * log4j2 MarkerManager compatibility class: creates and caches markers by name.
+ */
+public final class MarkerManager {
+    
+    private static final ConcurrentMap<String, Marker> markers = new ConcurrentHashMap<>();
+    
+    private MarkerManager() {
+    }
+    
+    /**
+     * Get or create the marker with the given name.
+     */
+    public static Marker getMarker(String name) {
+        Marker marker = markers.get(name);
+        if (marker == null) {
+            marker = new Log4jMarker(name);
+            Marker existing = markers.putIfAbsent(name, marker);
+            if (existing != null) {
+                marker = existing;
+            }
+        }
+        return marker;
+    }
+    
+    /**
+     * Check if a marker with the given name exists.
+     */
+    public static boolean exists(String name) {
+        return markers.containsKey(name);
+    }
+    
+    /**
+     * Remove all markers.
+     */
+    public static void clear() {
+        markers.clear();
+    }
+    
+    /**
+     * Default Marker implementation. Parents are held in a copy-on-write array.
+     */
+    public static class Log4jMarker implements Marker {
+        
+        private static final long serialVersionUID = 1L;
+        private static final Marker[] NO_PARENTS = new Marker[0];
+        
+        private final String name;
+        private volatile Marker[] parents = NO_PARENTS;
+        
+        public Log4jMarker(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("Marker name cannot be null.");
+            }
+            this.name = name;
+        }
+        
+        @Override
+        public String getName() {
+            return name;
+        }
+        
+        @Override
+        public Marker[] getParents() {
+            return parents.clone();
+        }
+        
+        @Override
+        public boolean hasParents() {
+            return parents.length > 0;
+        }
+        
+        @Override
+        public synchronized Marker addParents(Marker... markers) {
+            Marker[] updated = parents;
+            for (Marker marker : markers) {
+                if (marker != null && marker != this && !contains(updated, marker)) {
+                    updated = Arrays.copyOf(updated, updated.length + 1);
+                    updated[updated.length - 1] = marker;
+                }
+            }
+            parents = updated;
+            return this;
+        }
+        
+        @Override
+        public synchronized Marker setParents(Marker... markers) {
+            parents = NO_PARENTS;
+            return markers == null ? this : addParents(markers);
+        }
+        
+        @Override
+        public synchronized boolean remove(Marker marker) {
+            Marker[] current = parents;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].equals(marker)) {
+                    Marker[] updated = new Marker[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    parents = updated;
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public boolean isInstanceOf(Marker marker) {
+            if (marker == null) {
+                return false;
+            }
+            if (this == marker || name.equals(marker.getName())) {
+                return true;
+            }
+            for (Marker parent : parents) {
+                if (parent.isInstanceOf(marker)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public boolean isInstanceOf(String markerName) {
+            if (markerName == null) {
+                return false;
+            }
+            if (name.equals(markerName)) {
+                return true;
+            }
+            for (Marker parent : parents) {
+                if (parent.isInstanceOf(markerName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private static boolean contains(Marker[] array, Marker marker) {
+            for (Marker element : array) {
+                if (element.equals(marker)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Marker)) return false;
+            return name.equals(((Marker) obj).getName());
+        }
+        
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.apache.logging.log4j;
+
+import java.util.Arrays;
+
+/**
+ * Substitutes {} placeholders in log4j2 message patterns.
+ *
+ * Substitution appends directly into a reused per-thread StringBuilder; the
+ * one and two parameter forms take their arguments as plain parameters so no
+ * Object[] is created. The only allocation on the path is the resulting String
+ * handed to log4Rich. A backslash escapes a following '{' or backslash: the
+ * backslash is dropped and the escaped character written as is, so
+ * {@code \{}} is a literal {} and {@code \\{}} a backslash followed by a
+ * placeholder. Other backslashes are written unchanged. Counting and
+ * substitution apply the same rule.
+ */
+final class ParameterFormatter {
+    
+    /** Builders that grew beyond this are dropped rather than retained by the thread. */
+    static final int MAX_REUSABLE_CAPACITY = 2048;
+    
+    private static final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+    
+    private ParameterFormatter() {
+    }
+    
+    /**
+     * Count the unescaped {} placeholders in a pattern.
+     */
+    static int countPlaceholders(String pattern) {
+        if (pattern == null) {
+            return 0;
+        }
+        int count = 0;
+        int length = pattern.length();
+        for (int i = 0; i < length - 1; i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\' && isEscapable(pattern.charAt(i + 1))) {
+                i++; // skip the escaped character
+            } else if (c == '{' && pattern.charAt(i + 1) == '}') {
+                count++;
+                i++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Format a pattern with one parameter.
+     */
+    static String format(String pattern, Object p0) {
+        StringBuilder sb = buffer();
+        formatTo(sb, pattern, 1, p0, null, null);
+        return release(sb);
+    }
+    
+    /**
+     * Format a pattern with two parameters.
+     */
+    static String format(String pattern, Object p0, Object p1) {
+        StringBuilder sb = buffer();
+        formatTo(sb, pattern, 2, p0, p1, null);
+        return release(sb);
+    }
+    
+    /**
+     * Format a pattern with the first {@code count} entries of a parameter array.
+     */
+    static String format(String pattern, Object[] params, int count) {
+        StringBuilder sb = buffer();
+        formatTo(sb, pattern, count, null, null, params);
+        return release(sb);
+    }
+    
+    /**
+     * Append a formatted pattern to a builder. Parameters come from {@code params}
+     * when it is non-null, otherwise from {@code p0} and {@code p1}.
+     */
+    static void formatTo(StringBuilder sb, String pattern, int count, Object p0, Object p1, Object[] params) {
+        if (pattern == null) {
+            sb.append("null");
+            return;
+        }
+        int length = pattern.length();
+        int start = 0;
+        int argIndex = 0;
+        for (int i = 0; i < length - 1; i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\' && isEscapable(pattern.charAt(i + 1))) {
+                // drop the backslash; the escaped character is copied with the next literal run
+                sb.append(pattern, start, i);
+                i++;
+                start = i;
+            } else if (c == '{' && pattern.charAt(i + 1) == '}' && argIndex < count) {
+                sb.append(pattern, start, i);
+                Object arg = params != null ? params[argIndex] : (argIndex == 0 ? p0 : p1);
+                appendArgument(sb, arg);
+                argIndex++;
+                i++;
+                start = i + 1;
+            }
+        }
+        sb.append(pattern, start, length);
+    }
+    
+    private static boolean isEscapable(char c) {
+        return c == '{' || c == '\\';
+    }
+    
+    private static void appendArgument(StringBuilder sb, Object arg) {
+        if (arg == null || arg instanceof String) {
+            sb.append((String) arg);
+        } else if (arg instanceof Integer) {
+            sb.append(((Integer) arg).intValue());
+        } else if (arg instanceof Long) {
+            sb.append(((Long) arg).longValue());
+        } else if (arg instanceof Boolean) {
+            sb.append(((Boolean) arg).booleanValue());
+        } else if (arg instanceof Character) {
+            sb.append(((Character) arg).charValue());
+        } else if (arg instanceof CharSequence) {
+            sb.append((CharSequence) arg);
+        } else if (arg.getClass().isArray()) {
+            appendArray(sb, arg);
+        } else {
+            sb.append(arg.toString());
+        }
+    }
+    
+    private static void appendArray(StringBuilder sb, Object array) {
+        if (array instanceof Object[]) {
+            sb.append(Arrays.deepToString((Object[]) array));
+        } else if (array instanceof int[]) {
+            sb.append(Arrays.toString((int[]) array));
+        } else if (array instanceof long[]) {
+            sb.append(Arrays.toString((long[]) array));
+        } else if (array instanceof byte[]) {
+            sb.append(Arrays.toString((byte[]) array));
+        } else if (array instanceof short[]) {
+            sb.append(Arrays.toString((short[]) array));
+        } else if (array instanceof char[]) {
+            sb.append(Arrays.toString((char[]) array));
+        } else if (array instanceof boolean[]) {
+            sb.append(Arrays.toString((boolean[]) array));
+        } else if (array instanceof float[]) {
+            sb.append(Arrays.toString((float[]) array));
+        } else if (array instanceof double[]) {
+            sb.append(Arrays.toString((double[]) array));
+        }
+    }
+    
+    private static StringBuilder buffer() {
+        StringBuilder sb = buffers.get();
+        sb.setLength(0);
+        return sb;
+    }
+    
+    private static String release(StringBuilder sb) {
+        String result = sb.toString();
+        if (sb.capacity() > MAX_REUSABLE_CAPACITY) {
+            buffers.set(new StringBuilder(256));
+        }
+        return result;
+    }
+}
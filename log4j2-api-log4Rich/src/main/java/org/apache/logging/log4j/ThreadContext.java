@@ -0,0 +1,174 @@
+package org.apache.logging.log4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * log4j2 ThreadContext compatibility class: per-thread context map and stack.
+ * Provides drop-in replacement for org.apache.logging.log4j.ThreadContext.
+ */
+public final class ThreadContext {
+    
+    private static final ThreadLocal<Map<String, String>> contextMap = new ThreadLocal<>();
+    private static final ThreadLocal<Deque<String>> contextStack = new ThreadLocal<>();
+    
+    private ThreadContext() {
+    }
+    
+    // Context map operations
+    
+    /**
+     * Put a context value for the current thread.
+     */
+    public static void put(String key, String value) {
+        Map<String, String> map = contextMap.get();
+        if (map == null) {
+            map = new HashMap<>();
+            contextMap.set(map);
+        }
+        map.put(key, value);
+    }
+    
+    /**
+     * Put all entries into the current thread's context.
+     */
+    public static void putAll(Map<String, String> values) {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    /**
+     * Get a context value for the current thread.
+     */
+    public static String get(String key) {
+        Map<String, String> map = contextMap.get();
+        return map != null ? map.get(key) : null;
+    }
+    
+    /**
+     * Remove a context value for the current thread.
+     */
+    public static void remove(String key) {
+        Map<String, String> map = contextMap.get();
+        if (map != null) {
+            map.remove(key);
+        }
+    }
+    
+    /**
+     * Clear the current thread's context map.
+     */
+    public static void clearMap() {
+        contextMap.remove();
+    }
+    
+    /**
+     * Clear the current thread's context map and stack.
+     */
+    public static void clearAll() {
+        contextMap.remove();
+        contextStack.remove();
+    }
+    
+    /**
+     * Check if the current thread's context contains a key.
+     */
+    public static boolean containsKey(String key) {
+        Map<String, String> map = contextMap.get();
+        return map != null && map.containsKey(key);
+    }
+    
+    /**
+     * Check if the current thread's context map is empty.
+     */
+    public static boolean isEmpty() {
+        Map<String, String> map = contextMap.get();
+        return map == null || map.isEmpty();
+    }
+    
+    /**
+     * Get a mutable copy of the current thread's context map.
+     */
+    public static Map<String, String> getContext() {
+        Map<String, String> map = contextMap.get();
+        return map != null ? new HashMap<>(map) : new HashMap<String, String>();
+    }
+    
+    /**
+     * Get an immutable copy of the current thread's context map.
+     */
+    public static Map<String, String> getImmutableContext() {
+        Map<String, String> map = contextMap.get();
+        return map != null ? Collections.unmodifiableMap(new HashMap<>(map)) : Collections.<String, String>emptyMap();
+    }
+    
+    // Context stack operations
+    
+    /**
+     * Push a message onto the current thread's context stack.
+     */
+    public static void push(String message) {
+        Deque<String> stack = contextStack.get();
+        if (stack == null) {
+            stack = new ArrayDeque<>();
+            contextStack.set(stack);
+        }
+        stack.push(message);
+    }
+    
+    /**
+     * Pop the top message from the current thread's context stack, or return "" when empty.
+     */
+    public static String pop() {
+        Deque<String> stack = contextStack.get();
+        return stack == null || stack.isEmpty() ? "" : stack.pop();
+    }
+    
+    /**
+     * Peek at the top of the current thread's context stack, or return "" when empty.
+     */
+    public static String peek() {
+        Deque<String> stack = contextStack.get();
+        return stack == null || stack.isEmpty() ? "" : stack.peek();
+    }
+    
+    /**
+     * Get the depth of the current thread's context stack.
+     */
+    public static int getDepth() {
+        Deque<String> stack = contextStack.get();
+        return stack == null ? 0 : stack.size();
+    }
+    
+    /**
+     * Trim the current thread's context stack to the given depth.
+     */
+    public static void trim(int depth) {
+        Deque<String> stack = contextStack.get();
+        while (stack != null && stack.size() > depth) {
+            stack.pop();
+        }
+    }
+    
+    /**
+     * Clear the current thread's context stack.
+     */
+    public static void clearStack() {
+        contextStack.remove();
+    }
+    
+    /**
+     * Get an immutable copy of the current thread's context stack, top first.
+     */
+    public static List<String> getImmutableStack() {
+        Deque<String> stack = contextStack.get();
+        return stack == null ? Collections.<String>emptyList()
+                             : Collections.unmodifiableList(new ArrayList<>(stack));
+    }
+}
@@ -0,0 +1,13 @@
+package org.apache.logging.log4j.util;
+
+/**
+ * Lazily supplies a log message or parameter; only called when the level is enabled.
+ * Provides drop-in replacement for org.apache.logging.log4j.util.Supplier.
+ */
+public interface Supplier<T> {
+
+    /**
+     * Get the value.
+     */
+    T get();
+}
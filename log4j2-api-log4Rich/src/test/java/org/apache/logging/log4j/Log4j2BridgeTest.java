@@ -0,0 +1,129 @@
+package org.apache.logging.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test suite for the log4j2 API bridge.
+ */
+public class Log4j2BridgeTest {
+    
+    private final Logger logger = LogManager.getLogger(Log4j2BridgeTest.class);
+    
+    @Test
+    public void testLoggerCreation() {
+        assertNotNull(logger);
+        assertEquals(Log4j2BridgeTest.class.getName(), logger.getName());
+        assertSame(logger, LogManager.getLogger(Log4j2BridgeTest.class.getName()));
+    }
+    
+    @Test
+    public void testCallerLogger() {
+        assertEquals(Log4j2BridgeTest.class.getName(), LogManager.getLogger().getName());
+    }
+    
+    @Test
+    public void testSharedCanonicalizationWithLog4j1() {
+        Logger log4j2Logger = LogManager.getLogger("shared.name");
+        org.apache.log4j.Logger log4j1Logger = org.apache.log4j.LogManager.getLogger("shared.name");
+        
+        assertSame(log4j1Logger, ((Log4RichLogger) log4j2Logger).getDelegate());
+        assertSame(log4j1Logger.getLog4RichLogger(), ((Log4RichLogger) log4j2Logger).getDelegate().getLog4RichLogger());
+        assertEquals("ROOT", LogManager.getRootLogger().getName());
+    }
+    
+    @Test
+    public void testParameterizedLogging() {
+        logger.info("one {}", "param");
+        logger.info("two {} {}", "params", 2);
+        logger.info("three {} {} {}", 1, 2, 3);
+        logger.error("failure for {}", "order-1", new RuntimeException("test exception"));
+        logger.log(Level.WARN, "generic {}", "warn");
+    }
+    
+    @Test
+    public void testUnrolledParametersUpToTen() {
+        final List<LogEvent> events = new CopyOnWriteArrayList<>();
+        WritePath.install(Collections.<String, AsyncDispatcher>emptyMap(),
+                          Collections.<String, BatchingStage>emptyMap(),
+                          Collections.<String, EventSink>singletonMap("capture", events::add),
+                          Collections.singletonMap(WritePath.ROOT, new String[] { "capture" }));
+        try {
+            Logger captured = LogManager.getLogger("unrolled.test");
+            captured.warn("{}{}{}", 1, 2, 3);
+            captured.error("{} {} {} {} {} {} {} {} {} {}", 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+            captured.log(Level.ERROR, "{}-{}-{}-{}-{}-{}", "a", "b", "c", "d", "e", "f");
+            captured.error("{} {} failed", "order", 7, new IllegalStateException("boom"));
+
+            assertEquals(4, events.size());
+            assertEquals("123", events.get(0).getMessage());
+            assertEquals("1 2 3 4 5 6 7 8 9 10", events.get(1).getMessage());
+            assertEquals("a-b-c-d-e-f", events.get(2).getMessage());
+            assertEquals("order 7 failed", events.get(3).getMessage());
+            assertEquals("boom", events.get(3).getThrowable().getMessage());
+        } finally {
+            WritePath.reset(1000L);
+        }
+    }
+    
+    @Test
+    public void testSupplierNotEvaluatedWhenDisabled() {
+        final boolean[] evaluated = { false };
+        Logger quiet = LogManager.getLogger("supplier.test");
+        if (quiet.isTraceEnabled()) {
+            return;
+        }
+        quiet.trace(() -> {
+            evaluated[0] = true;
+            return "expensive";
+        });
+        assertFalse(evaluated[0]);
+    }
+    
+    @Test
+    public void testMarkers() {
+        Marker parent = MarkerManager.getMarker("AUDIT");
+        Marker child = MarkerManager.getMarker("AUDIT.LOGIN").addParents(parent);
+        
+        assertTrue(child.isInstanceOf(parent));
+        assertTrue(child.isInstanceOf("AUDIT"));
+        assertFalse(parent.isInstanceOf(child));
+        assertSame(child, MarkerManager.getMarker("AUDIT.LOGIN"));
+        
+        logger.info(child, "login for {}", "alice");
+    }
+    
+    @Test
+    public void testThreadContext() {
+        ThreadContext.put("requestId", "r-1");
+        assertEquals("r-1", ThreadContext.get("requestId"));
+        assertTrue(ThreadContext.containsKey("requestId"));
+        
+        ThreadContext.push("outer");
+        ThreadContext.push("inner");
+        assertEquals(2, ThreadContext.getDepth());
+        assertEquals("inner", ThreadContext.pop());
+        
+        ThreadContext.clearAll();
+        assertTrue(ThreadContext.isEmpty());
+        assertEquals(0, ThreadContext.getDepth());
+    }
+    
+    @Test
+    public void testLevels() {
+        assertTrue(Level.ERROR.isMoreSpecificThan(Level.WARN));
+        assertTrue(Level.DEBUG.isLessSpecificThan(Level.INFO));
+        assertEquals(Level.INFO, Level.toLevel("info"));
+        assertEquals(Level.DEBUG, Level.toLevel("bogus"));
+        assertThrows(IllegalArgumentException.class, () -> Level.valueOf("bogus"));
+    }
+}
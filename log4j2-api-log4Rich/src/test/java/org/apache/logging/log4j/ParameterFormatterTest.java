@@ -0,0 +1,70 @@
+package org.apache.logging.log4j;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {} placeholder substitution.
+ */
+public class ParameterFormatterTest {
+    
+    @Test
+    public void testOneParameter() {
+        assertEquals("user=alice", ParameterFormatter.format("user={}", "alice"));
+        assertEquals("count=42", ParameterFormatter.format("count={}", 42));
+        assertEquals("value=null", ParameterFormatter.format("value={}", null));
+    }
+    
+    @Test
+    public void testTwoParameters() {
+        assertEquals("a=1, b=2", ParameterFormatter.format("a={}, b={}", 1, 2));
+        assertEquals("a=1, b={}", ParameterFormatter.format("a={}, b={}", 1, null).replace("null", "{}"));
+    }
+    
+    @Test
+    public void testArrayParameters() {
+        Object[] params = { "x", 2L, true };
+        assertEquals("x 2 true", ParameterFormatter.format("{} {} {}", params, 3));
+        assertEquals("x {}", ParameterFormatter.format("{} {}", params, 1));
+    }
+    
+    @Test
+    public void testMissingAndExtraParameters() {
+        assertEquals("only one {}", ParameterFormatter.format("only {} {}", "one"));
+        assertEquals("no placeholders", ParameterFormatter.format("no placeholders", "ignored"));
+    }
+    
+    @Test
+    public void testEscapedPlaceholder() {
+        assertEquals("literal {} then 7", ParameterFormatter.format("literal \\{} then {}", 7));
+        assertEquals(1, ParameterFormatter.countPlaceholders("literal \\{} then {}"));
+    }
+    
+    @Test
+    public void testEscapesCountedAsSubstituted() {
+        String[] patterns = { "a \\{} b {}", "a \\\\{} b {}", "a \\x{} b {}", "\\\\\\{} {}", "trailing \\" };
+        String[] expected = { "a {} b 1", "a \\1 b 2", "a \\x1 b 2", "\\{} 1", "trailing \\" };
+        int[] placeholders = { 1, 2, 2, 1, 0 };
+        for (int i = 0; i < patterns.length; i++) {
+            assertEquals(placeholders[i], ParameterFormatter.countPlaceholders(patterns[i]), patterns[i]);
+            assertEquals(expected[i], ParameterFormatter.format(patterns[i], new Object[] { 1, 2 }, 2), patterns[i]);
+        }
+    }
+    
+    @Test
+    public void testArrayArgumentRendering() {
+        assertEquals("ids=[1, 2, 3]", ParameterFormatter.format("ids={}", new int[] { 1, 2, 3 }));
+        assertEquals("names=[a, b]", ParameterFormatter.format("names={}", (Object) new String[] { "a", "b" }));
+    }
+    
+    @Test
+    public void testOversizedBufferNotRetained() {
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < ParameterFormatter.MAX_REUSABLE_CAPACITY * 2; i++) {
+            big.append('x');
+        }
+        String result = ParameterFormatter.format("{}", big.toString());
+        assertEquals(big.length(), result.length());
+        assertEquals("small", ParameterFormatter.format("{}", "small"));
+    }
+}
@@ -1,5 +1,7 @@
 package org.apache.log4j;
 
+import org.apache.log4j.helpers.BackendRegistry;
+
 /**
  * Log4j Category compatibility class.
  * In older versions of log4j, Category was the parent class of Logger.
@@ -15,21 +17,21 @@ public class Category extends Logger {
      * Get a category for the specified class.
      */
     public static Category getInstance(Class<?> clazz) {
-        return new Category(clazz.getName());
+        return new Category(BackendRegistry.canonicalName(clazz));
     }
     
     /**
      * Get a category for the specified name.
      */
     public static Category getInstance(String name) {
-        return new Category(name);
+        return new Category(BackendRegistry.canonicalName(name));
     }
     
     /**
      * Get the root category.
      */
     public static Category getRoot() {
-        return new Category("ROOT");
+        return new Category(BackendRegistry.ROOT);
     }
     
     // Additional legacy methods that some old applications might use
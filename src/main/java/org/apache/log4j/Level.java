@@ -1,13 +1,29 @@
 package org.apache.log4j;
 
 import com.log4rich.core.LogLevel;
+import org.apache.log4j.helpers.LevelTable;
+
+import java.util.Arrays;
 
 /**
  * Log4j Level compatibility class that maps to log4Rich LogLevel.
  * Provides drop-in replacement for org.apache.log4j.Level.
+ *
+ * Applications may define their own levels by subclassing, as in log4j 1.x,
+ * for example {@code AUDIT} at 45000. Every level gets a compact ordinal when
+ * it is created; a level with the name and value of an existing one, such as
+ * {@link Priority#WARN}, shares that level's ordinal. Custom levels are written
+ * to log4Rich at the nearest standard level at or below their value, and keep
+ * their own name and value everywhere in the bridge; log4Rich writes their
+ * name ahead of the message.
  */
 public class Level {
     
+    private static final Object registryLock = new Object();
+    
+    /** Registered levels indexed by ordinal, replaced whenever a level is added. */
+    private static volatile Level[] levels = new Level[0];
+    
     public static final Level OFF = new Level(LogLevel.OFF, "OFF", Integer.MAX_VALUE);
     public static final Level FATAL = new Level(LogLevel.FATAL, "FATAL", 50000);
     public static final Level ERROR = new Level(LogLevel.ERROR, "ERROR", 40000);
@@ -20,11 +36,21 @@ public class Level {
     private final LogLevel log4RichLevel;
     private final String name;
     private final int intValue;
+    private final int ordinal;
     
     protected Level(LogLevel log4RichLevel, String name, int intValue) {
         this.log4RichLevel = log4RichLevel;
         this.name = name;
         this.intValue = intValue;
+        this.ordinal = register(this);
+    }
+    
+    /**
+     * Create a custom level with the log4j 1.x constructor signature. The
+     * syslog equivalent is accepted for source compatibility and ignored.
+     */
+    protected Level(int level, String levelStr, int syslogEquivalent) {
+        this(nearestLog4RichLevel(level), levelStr, level);
     }
     
     /**
@@ -48,6 +74,21 @@ public class Level {
         return intValue;
     }
     
+    /**
+     * Get this level's compact ordinal, shared by levels with the same name and value.
+     */
+    public final int getOrdinal() {
+        return ordinal;
+    }
+    
+    /**
+     * Get the registered level with this level's ordinal: the first level
+     * created with this name and value, so {@link Priority#WARN} resolves to {@link #WARN}.
+     */
+    final Level canonical() {
+        return levels[ordinal];
+    }
+    
     /**
      * Check if this level is greater than or equal to the specified level.
      */
@@ -73,7 +114,13 @@ public class Level {
             case "DEBUG": return DEBUG;
             case "TRACE": return TRACE;
             case "ALL": return ALL;
-            default: return DEBUG;
+            default:
+                for (Level level : levels) {
+                    if (level.name.equalsIgnoreCase(name)) {
+                        return level;
+                    }
+                }
+                return DEBUG;
         }
     }
     
@@ -81,6 +128,11 @@ public class Level {
      * Convert integer value to Level object.
      */
     public static Level toLevel(int intValue) {
+        for (Level level : levels) {
+            if (level.intValue == intValue) {
+                return level;
+            }
+        }
         if (intValue >= OFF.intValue) return OFF;
         if (intValue >= FATAL.intValue) return FATAL;
         if (intValue >= ERROR.intValue) return ERROR;
@@ -122,4 +174,38 @@ public class Level {
     public int hashCode() {
         return intValue;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Assign a level its ordinal, reusing the ordinal of an existing level
+     * with the same name and value.
+     */
+    private static int register(Level level) {
+        synchronized (registryLock) {
+            Level[] current = levels;
+            for (Level existing : current) {
+                if (existing.intValue == level.intValue && existing.name.equalsIgnoreCase(level.name)) {
+                    return existing.ordinal;
+                }
+            }
+            Level[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = level;
+            levels = grown;
+            LevelTable.register(level, current.length);
+            return current.length;
+        }
+    }
+    
+    /**
+     * Find the log4Rich level a custom level is written at: the nearest
+     * standard level at or below it.
+     */
+    private static LogLevel nearestLog4RichLevel(int intValue) {
+        if (intValue == Integer.MAX_VALUE) return LogLevel.OFF;
+        if (intValue >= 50000) return LogLevel.FATAL;
+        if (intValue >= 40000) return LogLevel.ERROR;
+        if (intValue >= 30000) return LogLevel.WARN;
+        if (intValue >= 20000) return LogLevel.INFO;
+        if (intValue >= 10000) return LogLevel.DEBUG;
+        return LogLevel.TRACE;
+    }
+}
@@ -0,0 +1,828 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AdaptiveVerbosity;
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.CachedDateFormat;
+import org.apache.log4j.helpers.DedupeSink;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.FlightRecorder;
+import org.apache.log4j.helpers.GzipCompressor;
+import org.apache.log4j.helpers.LevelOverrides;
+import org.apache.log4j.helpers.LogIndex;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.Log4RichSink;
+import org.apache.log4j.helpers.OverflowPolicy;
+import org.apache.log4j.helpers.PlainLayout;
+import org.apache.log4j.helpers.RingAggregator;
+import org.apache.log4j.helpers.RollingFileSink;
+import org.apache.log4j.helpers.SharedMemoryRingSink;
+import org.apache.log4j.helpers.ShutdownCoordinator;
+import org.apache.log4j.helpers.StripedFileSink;
+import org.apache.log4j.helpers.ThrowableRenderer;
+import org.apache.log4j.helpers.VirtualThreads;
+import org.apache.log4j.helpers.WritePath;
+import org.apache.log4j.or.RendererMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Internal class to translate log4j properties to log4Rich configuration.
+ */
+class Log4jToLog4RichConfigTranslator {
+    
+    private static final Pattern DATE_CONVERSION = Pattern.compile("%d(?:\\{([^}]*)\\})?");
+    
+    public static void translateAndApply(Properties log4jProps) {
+        Properties log4RichProps = translate(log4jProps);
+        
+        // Apply the translated configuration to log4Rich
+        applyLog4RichConfiguration(log4RichProps);
+        
+        // log4Rich only knows its own levels; filter a custom root level in the bridge
+        String rootLogger = log4jProps.getProperty("log4j.rootLogger");
+        Level customRoot = rootLogger != null ? customLevel(rootLogger.split(",")[0]) : null;
+        if (customRoot != null) {
+            LevelOverrides.setRootLevel(customRoot);
+        }
+        
+        // Configure bridge-side features that log4Rich has no equivalent for
+        configureFlightRecorder(log4jProps);
+        configureRenderers(log4jProps);
+        configureThrowableRendering(log4jProps);
+        configureWritePath(log4jProps);
+        configureVirtualThreads(log4jProps);
+        configureAdaptiveVerbosity(log4jProps);
+        configureShutdown(log4jProps, log4RichProps);
+    }
+    
+    /**
+     * Translate log4j properties to the equivalent log4Rich properties.
+     */
+    static Properties translate(Properties log4jProps) {
+        Properties log4RichProps = new Properties();
+        
+        // Translate root logger
+        String rootLogger = log4jProps.getProperty("log4j.rootLogger");
+        if (rootLogger != null) {
+            String[] parts = rootLogger.split(",");
+            if (parts.length > 0) {
+                String level = translateLevel(parts[0]);
+                log4RichProps.setProperty("log4rich.rootLevel", level);
+            }
+            
+            // Check for console appender
+            boolean hasConsole = false;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].trim().toLowerCase().contains("console")) {
+                    hasConsole = true;
+                    break;
+                }
+            }
+            log4RichProps.setProperty("log4rich.console.enabled", String.valueOf(hasConsole));
+        }
+        
+        // Translate specific logger levels
+        for (Object key : log4jProps.keySet()) {
+            String keyStr = key.toString();
+            if (keyStr.startsWith("log4j.logger.")) {
+                String loggerName = keyStr.substring("log4j.logger.".length());
+                String value = log4jProps.getProperty(keyStr);
+                if (value != null) {
+                    String[] parts = value.split(",");
+                    if (parts.length > 0) {
+                        String level = translateLevel(parts[0]);
+                        log4RichProps.setProperty("log4rich.logger." + loggerName, level);
+                    }
+                }
+            }
+        }
+        
+        // Translate console appender properties
+        translateConsoleAppender(log4jProps, log4RichProps);
+        
+        // Translate file appender properties
+        translateFileAppender(log4jProps, log4RichProps);
+        
+        return log4RichProps;
+    }
+    
+    /**
+     * Translate a log4j level value to a log4Rich level name. The log4j form
+     * {@code AUDIT#com.example.AuditLevel} loads the class so that its custom
+     * level is registered, and a custom level translates to the log4Rich level
+     * it is written at. Other values are passed through upper-cased.
+     */
+    static String translateLevel(String value) {
+        String level = value.trim();
+        int hash = level.indexOf('#');
+        if (hash >= 0) {
+            String className = level.substring(hash + 1).trim();
+            level = level.substring(0, hash).trim();
+            try {
+                loadClass(className);
+            } catch (ClassNotFoundException | LinkageError e) {
+                System.err.println("Failed to load level class " + className + ": " + e);
+            }
+        }
+        Level custom = customLevel(level);
+        return custom != null ? custom.getLog4RichLevel().name() : level.toUpperCase();
+    }
+    
+    /**
+     * Find the custom level registered under a level value's name, or null for
+     * standard and unknown names.
+     */
+    static Level customLevel(String value) {
+        int hash = value.indexOf('#');
+        String name = (hash >= 0 ? value.substring(0, hash) : value).trim();
+        if (name.isEmpty()) {
+            return null;
+        }
+        Level level = Level.toLevel(name, null);
+        if (level == null || !level.toString().equalsIgnoreCase(name)
+                || level.getLog4RichLevel().name().equalsIgnoreCase(name)) {
+            return null;
+        }
+        return level;
+    }
+    
+    private static Class<?> loadClass(String className) throws ClassNotFoundException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader != null) {
+            try {
+                return Class.forName(className, true, loader);
+            } catch (ClassNotFoundException e) {
+                // fall back to the bridge's own loader
+            }
+        }
+        return Class.forName(className, true, Log4jToLog4RichConfigTranslator.class.getClassLoader());
+    }
+    
+    private static void translateConsoleAppender(Properties log4jProps, Properties log4RichProps) {
+        // Look for console appender configuration
+        String target = log4jProps.getProperty("log4j.appender.console.Target");
+        if (target != null) {
+            log4RichProps.setProperty("log4rich.console.target", target.toUpperCase());
+        }
+        
+        String pattern = log4jProps.getProperty("log4j.appender.console.layout.ConversionPattern");
+        if (pattern != null) {
+            String log4RichPattern = translatePattern(pattern);
+            log4RichProps.setProperty("log4rich.console.pattern", log4RichPattern);
+        }
+    }
+    
+    private static void translateFileAppender(Properties log4jProps, Properties log4RichProps) {
+        // Look for file appender configuration
+        // Striped files, shared memory rings, rolling files the bridge compresses or rolls
+        // by date and files with a log4j write mode are written by the bridge, not by log4Rich
+        String fileName = log4jProps.getProperty("log4j.appender.file.File");
+        if (fileName != null && stripeCount(log4jProps.getProperty("log4j.appender.file.Stripes")) <= 1
+                && !Boolean.parseBoolean(log4jProps.getProperty("log4j.appender.file.SharedMemory", "false").trim())
+                && !isBridgeWritten(log4jProps, "file")) {
+            log4RichProps.setProperty("log4rich.file.path", fileName);
+        }
+        
+        String maxFileSize = log4jProps.getProperty("log4j.appender.file.MaxFileSize");
+        if (maxFileSize != null) {
+            log4RichProps.setProperty("log4rich.file.maxSize", maxFileSize);
+        }
+        
+        String maxBackupIndex = log4jProps.getProperty("log4j.appender.file.MaxBackupIndex");
+        if (maxBackupIndex != null) {
+            log4RichProps.setProperty("log4rich.file.maxBackups", maxBackupIndex);
+        }
+        
+        String pattern = log4jProps.getProperty("log4j.appender.file.layout.ConversionPattern");
+        if (pattern != null) {
+            String log4RichPattern = translatePattern(pattern);
+            log4RichProps.setProperty("log4rich.file.pattern", log4RichPattern);
+        }
+
+    }
+    
+    /**
+     * Configure the flight recorder from log4j.flightRecorder.* properties.
+     * The recorder is enabled only when log4j.flightRecorder.Loggers is set.
+     */
+    private static void configureFlightRecorder(Properties log4jProps) {
+        String loggers = log4jProps.getProperty("log4j.flightRecorder.Loggers");
+        if (loggers == null || loggers.trim().isEmpty()) {
+            FlightRecorder.disable();
+            return;
+        }
+        
+        String[] prefixes = loggers.split(",");
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = prefixes[i].trim();
+        }
+        
+        Level threshold = Level.toLevel(log4jProps.getProperty("log4j.flightRecorder.Threshold"), Level.DEBUG);
+        Level trigger = Level.toLevel(log4jProps.getProperty("log4j.flightRecorder.TriggerLevel"), Level.ERROR);
+        int bufferSize = parseInt(log4jProps.getProperty("log4j.flightRecorder.BufferSize"), 1024);
+        long maxAge = parseLong(log4jProps.getProperty("log4j.flightRecorder.MaxAge"), 0L);
+        String file = log4jProps.getProperty("log4j.flightRecorder.File");
+        
+        FlightRecorder.configure(prefixes, threshold, trigger, bufferSize, maxAge, file);
+    }
+    
+    /**
+     * Configure adaptive verbosity from log4j.adaptiveVerbosity.* properties.
+     * It is enabled only when log4j.adaptiveVerbosity.Steps lists the thresholds to step through.
+     */
+    private static void configureAdaptiveVerbosity(Properties log4jProps) {
+        String steps = log4jProps.getProperty("log4j.adaptiveVerbosity.Steps");
+        if (steps == null || steps.trim().isEmpty()) {
+            AdaptiveVerbosity.disable();
+            return;
+        }
+        
+        String[] names = steps.split(",");
+        Level[] levels = new Level[names.length];
+        for (int i = 0; i < names.length; i++) {
+            levels[i] = Level.toLevel(names[i].trim(), Level.WARN);
+        }
+        String base = "log4j.adaptiveVerbosity.";
+        long interval = parseLong(log4jProps.getProperty(base + "Interval"), 100L);
+        long window = parseLong(log4jProps.getProperty(base + "Window"), 2000L);
+        long recovery = parseLong(log4jProps.getProperty(base + "RecoveryWindow"), 10000L);
+        double high = parseDouble(log4jProps.getProperty(base + "QueueHighWatermark"), 0.8);
+        double low = parseDouble(log4jProps.getProperty(base + "QueueLowWatermark"), 0.3);
+        long latencyLimit = parseLong(log4jProps.getProperty(base + "LatencyLimit"), 0L);
+        
+        AdaptiveVerbosity.configure(interval, window, recovery, high, low, latencyLimit, levels);
+    }
+    
+    /**
+     * Enable the virtual-thread mode when log4j.virtualThreads is true.
+     */
+    private static void configureVirtualThreads(Properties log4jProps) {
+        if (!Boolean.parseBoolean(log4jProps.getProperty("log4j.virtualThreads", "false").trim())) {
+            VirtualThreads.disable();
+            return;
+        }
+        if (!VirtualThreads.isSupported()) {
+            System.err.println("Virtual threads are not available on this runtime; log4j.virtualThreads has no effect");
+        }
+        VirtualThreads.enable(parseInt(log4jProps.getProperty("log4j.virtualThreads.QueueSize"), 8192));
+    }
+    
+    /**
+     * Register the object renderers given as log4j.renderer.<rendered class>=<renderer class>,
+     * replacing those of the previous configuration.
+     */
+    private static void configureRenderers(Properties log4jProps) {
+        RendererMap renderers = LogManager.getRendererMap();
+        renderers.clear();
+        String prefix = "log4j.renderer.";
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (key.startsWith(prefix) && key.length() > prefix.length()) {
+                renderers.addRenderer(key.substring(prefix.length()), log4jProps.getProperty(key).trim());
+            }
+        }
+    }
+    
+    /**
+     * Configure stack trace limits from the layout properties MaxStackFrames,
+     * CollapsedPackages and MaxCauseDepth. log4Rich renders throwables for all
+     * appenders alike, so the limits are combined across appenders: the
+     * smallest frame and cause limits and every listed package apply.
+     */
+    private static void configureThrowableRendering(Properties log4jProps) {
+        String prefix = "log4j.appender.";
+        int maxFrames = 0;
+        int maxCauseDepth = 0;
+        Set<String> packages = new LinkedHashSet<>();
+        
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (!key.startsWith(prefix)) {
+                continue;
+            }
+            String value = log4jProps.getProperty(key);
+            if (key.endsWith(".layout.MaxStackFrames")) {
+                maxFrames = lowestLimit(maxFrames, parseInt(value, 0));
+            } else if (key.endsWith(".layout.MaxCauseDepth")) {
+                maxCauseDepth = lowestLimit(maxCauseDepth, parseInt(value, 0));
+            } else if (key.endsWith(".layout.CollapsedPackages")) {
+                for (String name : value.split(",")) {
+                    if (!name.trim().isEmpty()) {
+                        packages.add(name.trim());
+                    }
+                }
+            }
+        }
+        
+        ThrowableRenderer renderer = new ThrowableRenderer(maxFrames, packages.toArray(new String[0]), maxCauseDepth);
+        ThrowableRenderer.setActive(renderer);
+        if (renderer.isLimited()) {
+            System.out.println("Stack traces limited to " + (maxFrames > 0 ? maxFrames + " frames" : "all frames")
+                               + " and " + (maxCauseDepth > 0 ? maxCauseDepth + " causes" : "all causes")
+                               + (packages.isEmpty() ? "" : ", collapsing " + packages));
+        }
+    }
+    
+    /**
+     * Combine two limits where 0 means unlimited.
+     */
+    private static int lowestLimit(int current, int limit) {
+        if (limit <= 0) {
+            return current;
+        }
+        return current > 0 ? Math.min(current, limit) : limit;
+    }
+    
+    /**
+     * Configure per-appender backpressure from log4j.appender.X.OverflowPolicy and per-thread
+     * batching from log4j.appender.X.BatchSize, with their related properties.
+     * Appenders with neither, and no bridge-written or deduplicating sink, keep writing straight to log4Rich.
+     */
+    private static void configureWritePath(Properties log4jProps) {
+        String prefix = "log4j.appender.";
+        Map<String, EventSink> sinks = configureStripedFiles(log4jProps);
+        sinks.putAll(configureSharedMemory(log4jProps));
+        sinks.putAll(configureRollingFiles(log4jProps));
+        configureDedupe(log4jProps, sinks);
+        
+        String suffix = ".OverflowPolicy";
+        Map<String, AsyncDispatcher> dispatchers = new HashMap<>();
+        
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (!key.startsWith(prefix) || !key.endsWith(suffix)) {
+                continue;
+            }
+            String appender = key.substring(prefix.length(), key.length() - suffix.length());
+            String base = prefix + appender + ".";
+            
+            OverflowPolicy policy = OverflowPolicy.toPolicy(log4jProps.getProperty(key), OverflowPolicy.BLOCK);
+            int queueSize = parseInt(log4jProps.getProperty(base + "QueueSize"), 8192);
+            Level dropThreshold = Level.toLevel(log4jProps.getProperty(base + "DropThreshold"), Level.WARN);
+            String overflowFile = log4jProps.getProperty(base + "OverflowFile");
+            long reportInterval = parseLong(log4jProps.getProperty(base + "DiscardReportInterval"), 10000L);
+            
+            try {
+                dispatchers.put(appender, new AsyncDispatcher(appender, queueSize, policy, dropThreshold,
+                                                              overflowFile, reportInterval,
+                                                              sinks.containsKey(appender) ? sinks.get(appender)
+                                                                                          : Log4RichSink.INSTANCE,
+                                                              layoutFor(log4jProps, appender)));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring overflow policy for appender " + appender + ": " + e.getMessage());
+            }
+        }
+        
+        Map<String, BatchingStage> stages = new HashMap<>();
+        String batchSuffix = ".BatchSize";
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (!key.startsWith(prefix) || !key.endsWith(batchSuffix)) {
+                continue;
+            }
+            int batchSize = parseInt(log4jProps.getProperty(key), 1);
+            if (batchSize <= 1) {
+                continue;
+            }
+            String appender = key.substring(prefix.length(), key.length() - batchSuffix.length());
+            String base = prefix + appender + ".";
+            
+            long maxAge = parseLong(log4jProps.getProperty(base + "BatchMaxAge"), 100L);
+            Level flushLevel = Level.toLevel(log4jProps.getProperty(base + "BatchFlushLevel"), Level.ERROR);
+            int capacity = parseInt(log4jProps.getProperty(base + "BatchQueueSize"), 65536);
+            stages.put(appender, new BatchingStage(appender, batchSize, maxAge, flushLevel, capacity,
+                                                   downstream(dispatchers.get(appender), sinks.get(appender))));
+        }
+        
+        Map<String, String[]> loggerAppenders = new HashMap<>();
+        String rootLogger = log4jProps.getProperty("log4j.rootLogger");
+        if (rootLogger != null) {
+            loggerAppenders.put(WritePath.ROOT, appenderNames(rootLogger));
+        }
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (key.startsWith("log4j.logger.")) {
+                loggerAppenders.put(key.substring("log4j.logger.".length()),
+                                    appenderNames(log4jProps.getProperty(key)));
+            }
+        }
+        
+        WritePath.install(dispatchers, stages, sinks, loggerAppenders);
+    }
+    
+    /**
+     * Create striped file sinks for appenders with log4j.appender.X.Stripes greater than one.
+     * The stripes are written next to log4j.appender.X.File and merged into it on close.
+     */
+    private static Map<String, EventSink> configureStripedFiles(Properties log4jProps) {
+        String prefix = "log4j.appender.";
+        String suffix = ".Stripes";
+        Map<String, EventSink> sinks = new HashMap<>();
+        
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (!key.startsWith(prefix) || !key.endsWith(suffix)) {
+                continue;
+            }
+            String appender = key.substring(prefix.length(), key.length() - suffix.length());
+            String base = prefix + appender + ".";
+            int stripes = stripeCount(log4jProps.getProperty(key));
+            if (stripes <= 1) {
+                continue;
+            }
+            String file = log4jProps.getProperty(base + "File");
+            if (file == null) {
+                System.err.println("Ignoring Stripes for appender " + appender + ": no File configured");
+                continue;
+            }
+            
+            int segmentSize = (int) Math.min(Integer.MAX_VALUE,
+                parseSize(log4jProps.getProperty(base + "StripeSegmentSize"), 8L * 1024 * 1024));
+            boolean mergeOnClose = Boolean.parseBoolean(log4jProps.getProperty(base + "StripeMergeOnClose", "true"));
+            try {
+                sinks.put(appender, new StripedFileSink(file, stripes, segmentSize, mergeOnClose,
+                                                        layoutFor(log4jProps, appender)));
+                System.out.println("Appender " + appender + " writes " + file + " memory-mapped in "
+                                   + stripes + " stripes");
+            } catch (IOException e) {
+                System.err.println("Failed to open striped file " + file + ": " + e.getMessage());
+            }
+        }
+        return sinks;
+    }
+    
+    /**
+     * Get the layout for records the bridge writes itself for an appender: its
+     * log4j.appender.X.layout.ConversionPattern, "%p - %m" for a SimpleLayout, or the default.
+     */
+    private static PlainLayout layoutFor(Properties log4jProps, String appender) {
+        String base = "log4j.appender." + appender + ".layout";
+        String pattern = log4jProps.getProperty(base + ".ConversionPattern");
+        if (pattern != null) {
+            return new PlainLayout(pattern);
+        }
+        String layoutClass = log4jProps.getProperty(base);
+        if (layoutClass != null && layoutClass.trim().endsWith("SimpleLayout")) {
+            return new PlainLayout("%p - %m");
+        }
+        return new PlainLayout();
+    }
+    
+    /**
+     * Create shared-memory ring sinks for appenders with log4j.appender.X.SharedMemory=true.
+     * A {@link RingAggregator} process drains the rings into the output files.
+     */
+    private static Map<String, EventSink> configureSharedMemory(Properties log4jProps) {
+        String prefix = "log4j.appender.";
+        String suffix = ".SharedMemory";
+        Map<String, EventSink> sinks = new HashMap<>();
+        
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (!key.startsWith(prefix) || !key.endsWith(suffix)
+                    || !Boolean.parseBoolean(log4jProps.getProperty(key).trim())) {
+                continue;
+            }
+            String appender = key.substring(prefix.length(), key.length() - suffix.length());
+            String base = prefix + appender + ".";
+            String directory = log4jProps.getProperty(base + "RingDirectory", SharedMemoryRingSink.DEFAULT_DIRECTORY);
+            long ringSize = parseSize(log4jProps.getProperty(base + "RingSize"), 16L * 1024 * 1024);
+            int slotSize = parseInt(log4jProps.getProperty(base + "RingSlotSize"), 256);
+            try {
+                SharedMemoryRingSink sink = new SharedMemoryRingSink(directory.trim(), appender, ringSize, slotSize,
+                                                                 layoutFor(log4jProps, appender));
+                sinks.put(appender, sink);
+                System.out.println("Appender " + appender + " writes to shared memory ring " + sink.getFileName());
+            } catch (IOException e) {
+                System.err.println("Failed to create shared memory ring in " + directory + ": " + e.getMessage());
+            }
+        }
+        return sinks;
+    }
+    
+    /**
+     * Create rolling file sinks for DailyRollingFileAppenders, which log4Rich cannot roll by time,
+     * for RollingFileAppenders with log4j.appender.X.Compress=true, and for file appenders that set
+     * BufferedIO, BufferSize or ImmediateFlush, which log4Rich cannot apply per appender. Rolled
+     * files are compressed on the pool sized by log4j.compression.Threads, and rolling files get a
+     * sidecar index with an entry per log4j.appender.X.IndexBlockSize bytes (default 64KB, 0 for none).
+     * <ul>
+     *   <li>ImmediateFlush=true, the log4j default - flushed after every event</li>
+     *   <li>ImmediateFlush=false - flushed when the 8KB buffer fills</li>
+     *   <li>BufferedIO=true - flushed when the BufferSize buffer fills; as in log4j,
+     *       BufferedIO turns ImmediateFlush off</li>
+     * </ul>
+     */
+    private static Map<String, EventSink> configureRollingFiles(Properties log4jProps) {
+        String prefix = "log4j.appender.";
+        Map<String, EventSink> sinks = new HashMap<>();
+        GzipCompressor.setThreads(parseInt(log4jProps.getProperty("log4j.compression.Threads"),
+                                           GzipCompressor.defaultThreads()));
+        
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (!key.startsWith(prefix) || key.indexOf('.', prefix.length()) >= 0) {
+                continue;
+            }
+            String appender = key.substring(prefix.length());
+            if (!isBridgeWritten(log4jProps, appender)) {
+                continue;
+            }
+            String base = prefix + appender + ".";
+            String file = log4jProps.getProperty(base + "File");
+            if (file == null) {
+                System.err.println("Ignoring rolling appender " + appender + ": no File configured");
+                continue;
+            }
+            
+            String className = log4jProps.getProperty(key).trim();
+            boolean daily = className.endsWith("DailyRollingFileAppender");
+            boolean rolled = daily || className.endsWith("RollingFileAppender");
+            String datePattern = daily ? log4jProps.getProperty(base + "DatePattern", "'.'yyyy-MM-dd").trim() : null;
+            long maxFileSize = daily || !rolled ? 0L
+                : parseSize(log4jProps.getProperty(base + "MaxFileSize"), 10L * 1024 * 1024);
+            int maxBackups = parseInt(log4jProps.getProperty(base + "MaxBackupIndex"), 1);
+            boolean bufferedIO = Boolean.parseBoolean(log4jProps.getProperty(base + "BufferedIO", "false").trim());
+            boolean immediateFlush = !bufferedIO
+                && Boolean.parseBoolean(log4jProps.getProperty(base + "ImmediateFlush", "true").trim());
+            int bufferSize = (int) Math.min(Integer.MAX_VALUE,
+                parseSize(log4jProps.getProperty(base + "BufferSize"), 8192L));
+            boolean compress = Boolean.parseBoolean(log4jProps.getProperty(base + "Compress", "false").trim());
+            int blockSize = (int) Math.min(Integer.MAX_VALUE,
+                parseSize(log4jProps.getProperty(base + "CompressBlockSize"), GzipCompressor.DEFAULT_BLOCK_SIZE));
+            int indexBlockSize = !rolled ? 0 : (int) Math.min(Integer.MAX_VALUE,
+                parseSize(log4jProps.getProperty(base + "IndexBlockSize"), LogIndex.DEFAULT_BLOCK_SIZE));
+            try {
+                sinks.put(appender, new RollingFileSink(appender, file, datePattern, maxFileSize, maxBackups,
+                                                        immediateFlush, bufferSize, compress, blockSize,
+                                                        layoutFor(log4jProps, appender), indexBlockSize));
+                System.out.println("Appender " + appender + " writes " + file
+                                   + (daily ? " rolled by date pattern " + datePattern
+                                      : rolled ? " rolled at " + maxFileSize + " bytes" : "")
+                                   + (compress ? ", gzipped" : "")
+                                   + (indexBlockSize > 0 ? ", indexed" : "")
+                                   + (immediateFlush ? ", flushed after every event"
+                                      : ", flushed when the " + bufferSize + " byte buffer fills"));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Failed to open rolling file " + file + ": " + e.getMessage());
+            }
+        }
+        return sinks;
+    }
+    
+    /**
+     * Check whether the bridge writes an appender's file itself rather than log4Rich: rolling
+     * files it rolls, and file appenders that set BufferedIO, BufferSize or ImmediateFlush,
+     * unless they are striped or shared-memory appenders.
+     */
+    private static boolean isBridgeWritten(Properties log4jProps, String appender) {
+        if (isBridgeRolled(log4jProps, appender)) {
+            return true;
+        }
+        String className = log4jProps.getProperty("log4j.appender." + appender);
+        String base = "log4j.appender." + appender + ".";
+        if (className == null || !className.trim().endsWith("FileAppender")
+                || stripeCount(log4jProps.getProperty(base + "Stripes")) > 1
+                || Boolean.parseBoolean(log4jProps.getProperty(base + "SharedMemory", "false").trim())) {
+            return false;
+        }
+        return log4jProps.getProperty(base + "BufferedIO") != null
+            || log4jProps.getProperty(base + "BufferSize") != null
+            || log4jProps.getProperty(base + "ImmediateFlush") != null;
+    }
+    
+    /**
+     * Check whether the bridge writes an appender's rolling file itself rather than log4Rich:
+     * DailyRollingFileAppenders, and RollingFileAppenders with Compress=true.
+     */
+    private static boolean isBridgeRolled(Properties log4jProps, String appender) {
+        String className = log4jProps.getProperty("log4j.appender." + appender);
+        if (className == null) {
+            return false;
+        }
+        className = className.trim();
+        if (className.endsWith("DailyRollingFileAppender")) {
+            return true;
+        }
+        String compress = log4jProps.getProperty("log4j.appender." + appender + ".Compress", "false");
+        return className.endsWith("RollingFileAppender") && Boolean.parseBoolean(compress.trim());
+    }
+    
+    /**
+     * Put a duplicate-collapsing sink in front of the sink of each appender with
+     * log4j.appender.X.Dedupe=true, or in front of log4Rich for appenders without one.
+     */
+    private static void configureDedupe(Properties log4jProps, Map<String, EventSink> sinks) {
+        String prefix = "log4j.appender.";
+        String suffix = ".Dedupe";
+        
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (!key.startsWith(prefix) || !key.endsWith(suffix)
+                    || !Boolean.parseBoolean(log4jProps.getProperty(key).trim())) {
+                continue;
+            }
+            String appender = key.substring(prefix.length(), key.length() - suffix.length());
+            long interval = parseLong(log4jProps.getProperty(prefix + appender + ".DedupeInterval"), 10000L);
+            EventSink sink = sinks.containsKey(appender) ? sinks.get(appender) : Log4RichSink.INSTANCE;
+            sinks.put(appender, new DedupeSink(appender, sink, interval));
+        }
+    }
+    
+    /**
+     * Parse a Stripes value: a count, or "auto" for one stripe per available processor.
+     */
+    private static int stripeCount(String value) {
+        if (value == null) {
+            return 1;
+        }
+        if ("auto".equalsIgnoreCase(value.trim())) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return parseInt(value, 1);
+    }
+    
+    /**
+     * Parse a size such as 8192, 512KB, 8MB or 1GB, as used by MaxFileSize.
+     */
+    private static long parseSize(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        String s = value.trim().toUpperCase();
+        long multiplier = 1L;
+        if (s.endsWith("KB")) {
+            multiplier = 1024L;
+        } else if (s.endsWith("MB")) {
+            multiplier = 1024L * 1024;
+        } else if (s.endsWith("GB")) {
+            multiplier = 1024L * 1024 * 1024;
+        }
+        if (multiplier > 1L) {
+            s = s.substring(0, s.length() - 2).trim();
+        }
+        return parseLong(s, defaultValue / multiplier) * multiplier;
+    }
+    
+    /**
+     * Sink a batching stage writes to: the appender's dispatcher when it has one,
+     * then its bridge-written sink, otherwise log4Rich.
+     */
+    private static EventSink downstream(final AsyncDispatcher dispatcher, EventSink sink) {
+        if (dispatcher == null) {
+            return sink != null ? sink : Log4RichSink.INSTANCE;
+        }
+        return new EventSink() {
+            @Override
+            public void write(LogEvent event) {
+                dispatcher.dispatch(event);
+            }
+        };
+    }
+    
+    /**
+     * Configure the shutdown deadline and hook, and register the files to force to disk.
+     */
+    private static void configureShutdown(Properties log4jProps, Properties log4RichProps) {
+        ShutdownCoordinator.setDeadline(parseLong(log4jProps.getProperty("log4j.shutdown.Timeout"),
+                                                  ShutdownCoordinator.DEFAULT_DEADLINE));
+        List<String> files = bridgeFiles(log4jProps);
+        files.add(log4RichProps.getProperty("log4rich.file.path"));
+        files.add(log4jProps.getProperty("log4j.flightRecorder.File"));
+        ShutdownCoordinator.setFiles(files);
+        
+        if (Boolean.parseBoolean(log4jProps.getProperty("log4j.shutdown.Hook", "true"))) {
+            ShutdownCoordinator.installHook();
+        }
+    }
+    
+    /**
+     * Get the files the bridge writes itself, which log4Rich does not force to disk: rolling and
+     * buffered files, striped files with their stripes, and overflow files of the Spill policy.
+     */
+    private static List<String> bridgeFiles(Properties log4jProps) {
+        String prefix = "log4j.appender.";
+        List<String> files = new ArrayList<>();
+        for (String key : log4jProps.stringPropertyNames()) {
+            if (!key.startsWith(prefix) || key.indexOf('.', prefix.length()) >= 0) {
+                continue;
+            }
+            String appender = key.substring(prefix.length());
+            String base = prefix + appender + ".";
+            String file = log4jProps.getProperty(base + "File");
+            int stripes = stripeCount(log4jProps.getProperty(base + "Stripes"));
+            if (file != null && stripes > 1) {
+                files.add(file);
+                for (int i = 0; i < stripes; i++) {
+                    files.add(StripedFileSink.stripeFileName(file, i));
+                }
+            } else if (file != null && isBridgeWritten(log4jProps, appender)) {
+                files.add(file);
+            }
+            files.add(log4jProps.getProperty(base + "OverflowFile"));
+        }
+        return files;
+    }
+    
+    /**
+     * Extract the appender names from a "LEVEL, appender1, appender2" logger value.
+     */
+    private static String[] appenderNames(String loggerValue) {
+        String[] parts = loggerValue.split(",");
+        String[] names = new String[Math.max(0, parts.length - 1)];
+        for (int i = 1; i < parts.length; i++) {
+            names[i - 1] = parts[i].trim();
+        }
+        return names;
+    }
+    
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid integer value '" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    private static double parseDouble(String value, double defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid decimal value '" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid long value '" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    private static String translatePattern(String log4jPattern) {
+        // Basic pattern translation from log4j to log4Rich format
+        if (log4jPattern == null) {
+            return "[%level] %date{yyyy-MM-dd HH:mm:ss} [%thread] %class.%method:%line - %message%n";
+        }
+        
+        String pattern = log4jPattern;
+        
+        // Translate common log4j pattern elements to log4Rich equivalents
+        pattern = translateDates(pattern);
+        pattern = pattern.replace("%p", "%level");
+        pattern = pattern.replace("%c", "%class");
+        pattern = pattern.replace("%t", "%thread");
+        pattern = pattern.replace("%m", "%message");
+        pattern = pattern.replace("%l", "%class.%method:%line");
+        pattern = pattern.replace("%M", "%method");
+        pattern = pattern.replace("%L", "%line");
+        
+        return pattern;
+    }
+    
+    /**
+     * Translate %d and %d{format} to %date{pattern}, resolving the log4j names ISO8601, ABSOLUTE and DATE.
+     * A bare %d is ISO8601, as in log4j and in the records the bridge writes itself.
+     */
+    private static String translateDates(String pattern) {
+        Matcher matcher = DATE_CONVERSION.matcher(pattern);
+        StringBuffer translated = new StringBuffer(pattern.length() + 16);
+        while (matcher.find()) {
+            String format = CachedDateFormat.resolvePattern(matcher.group(1));
+            matcher.appendReplacement(translated, Matcher.quoteReplacement("%date{" + format + "}"));
+        }
+        matcher.appendTail(translated);
+        return translated.toString();
+    }
+    
+    private static void applyLog4RichConfiguration(Properties log4RichProps) {
+        try {
+            // Apply basic configuration directly to log4Rich
+            String rootLevel = log4RichProps.getProperty("log4rich.rootLevel");
+            if (rootLevel != null) {
+                com.log4rich.core.LogLevel.valueOf(rootLevel.toUpperCase());
+                LevelOverrides.setRootLevel(Level.toLevel(rootLevel));
+            }
+            
+            // Apply other configuration properties as needed
+            // For now, we focus on the basic properties translation
+            System.out.println("Applied log4Rich configuration with " + log4RichProps.size() + " properties");
+        } catch (Exception e) {
+            System.err.println("Failed to apply log4Rich configuration: " + e.getMessage());
+        }
+    }
+}
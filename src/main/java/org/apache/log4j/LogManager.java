@@ -1,5 +1,16 @@
 package org.apache.log4j;
 
+import org.apache.log4j.helpers.AdaptiveVerbosity;
+import org.apache.log4j.helpers.BackendRegistry;
+import org.apache.log4j.helpers.FlightRecorder;
+import org.apache.log4j.helpers.FlushReport;
+import org.apache.log4j.helpers.LevelOverrides;
+import org.apache.log4j.helpers.ShutdownCoordinator;
+import org.apache.log4j.helpers.ThrowableRenderer;
+import org.apache.log4j.helpers.VirtualThreads;
+import org.apache.log4j.helpers.WritePath;
+import org.apache.log4j.or.RendererMap;
+
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -10,22 +21,21 @@ import java.util.concurrent.ConcurrentMap;
 public class LogManager {
     
     private static final ConcurrentMap<String, Logger> loggerCache = new ConcurrentHashMap<>();
-    private static final Logger rootLogger = new Logger("ROOT");
+    private static final Logger rootLogger = new Logger(BackendRegistry.ROOT);
+    private static final RendererMap rendererMap = new RendererMap();
     
     /**
      * Get a logger for the specified class.
      */
     public static Logger getLogger(Class<?> clazz) {
-        return getLogger(clazz.getName());
+        return getLogger(BackendRegistry.canonicalName(clazz));
     }
     
     /**
      * Get a logger for the specified name.
      */
     public static Logger getLogger(String name) {
-        if (name == null) {
-            name = "NULL";
-        }
+        name = BackendRegistry.canonicalName(name);
         
         // Use cache for performance
         Logger logger = loggerCache.get(name);
@@ -46,6 +56,47 @@ public class LogManager {
         return rootLogger;
     }
     
+    /**
+     * Get the renderers used for non-String messages, configured from log4j.renderer.* properties.
+     */
+    public static RendererMap getRendererMap() {
+        return rendererMap;
+    }
+    
+    /**
+     * Log at the given level for loggers under a prefix while the thread's MDC
+     * holds the given value, e.g. {@code addLevelOverride("tenant", "acme", "com.shop", Level.DEBUG)}.
+     * Replaces an existing override for the same key, value and prefix.
+     *
+     * @param loggerPrefix logger name or prefix ("com.shop" or "com.shop.*"); "*" for every logger
+     */
+    public static void addLevelOverride(String mdcKey, String mdcValue, String loggerPrefix, Level level) {
+        LevelOverrides.add(mdcKey, mdcValue, loggerPrefix, level);
+    }
+    
+    /**
+     * Remove a level override.
+     *
+     * @return true if it was installed
+     */
+    public static boolean removeLevelOverride(String mdcKey, String mdcValue, String loggerPrefix) {
+        return LevelOverrides.remove(mdcKey, mdcValue, loggerPrefix);
+    }
+    
+    /**
+     * Remove every level override.
+     */
+    public static void clearLevelOverrides() {
+        LevelOverrides.clear();
+    }
+    
+    /**
+     * Describe the installed level overrides, e.g. "tenant=acme -> DEBUG for com.shop".
+     */
+    public static String[] getLevelOverrides() {
+        return LevelOverrides.describe();
+    }
+    
     /**
      * Check if a logger exists.
      */
@@ -53,17 +104,27 @@ public class LogManager {
         return loggerCache.containsKey(name);
     }
     
+    /**
+     * Flush the logging system without stopping it.
+     * Events queued on the bridge side are handed to log4Rich and the active
+     * log files are forced to disk, e.g. before taking a checkpoint.
+     *
+     * @param timeoutMillis maximum time to wait for queued events
+     * @return how many events were flushed and how many were still pending at the timeout
+     */
+    public static FlushReport flush(long timeoutMillis) {
+        return ShutdownCoordinator.flush(timeoutMillis);
+    }
+    
     /**
      * Shutdown the logging system.
-     * This delegates to log4Rich's shutdown mechanism.
+     * Queued events are drained and log4Rich is stopped within the configured
+     * shutdown deadline (log4j.shutdown.Timeout, 5 seconds by default), then the
+     * active log files are forced to disk. Events still pending at the deadline are
+     * reported on System.err.
      */
     public static void shutdown() {
-        try {
-            // Call log4Rich shutdown if available
-            com.log4rich.Log4Rich.shutdown();
-        } catch (Exception e) {
-            // Ignore shutdown errors
-        }
+        ShutdownCoordinator.shutdown();
         
         // Clear our cache
         loggerCache.clear();
@@ -77,6 +138,12 @@ public class LogManager {
         // log4Rich handles configuration differently, so this is mostly a no-op
         // But we clear the cache to force recreation of loggers
         loggerCache.clear();
+        FlightRecorder.disable();
+        AdaptiveVerbosity.disable();
+        ThrowableRenderer.setActive(null);
+        LevelOverrides.resetRootLevel();
+        VirtualThreads.disable();
+        WritePath.reset(1000L);
     }
     
     /**
@@ -1,7 +1,21 @@
 package org.apache.log4j;
 
-import com.log4rich.Log4Rich;
-import com.log4rich.core.LogLevel;
+import org.apache.log4j.helpers.AdaptiveVerbosity;
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BackendRegistry;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.FlightRecorder;
+import org.apache.log4j.helpers.LevelOverrides;
+import org.apache.log4j.helpers.LevelTable;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.Log4RichSink;
+import org.apache.log4j.helpers.MessageRenderer;
+import org.apache.log4j.helpers.VirtualThreads;
+import org.apache.log4j.helpers.WritePath;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Log4j Logger compatibility class that delegates to log4Rich.
@@ -9,33 +23,39 @@ import com.log4rich.core.LogLevel;
  */
 public class Logger {
     
-    private final com.log4rich.core.Logger log4RichLogger;
     private final String name;
+    private com.log4rich.core.Logger log4RichLogger;
+    private FlightRecorder.Binding flightBinding = FlightRecorder.Binding.UNBOUND;
+    private WritePath.Binding writeBinding = WritePath.Binding.UNBOUND;
     
+    /**
+     * Create a logger. The log4Rich logger is resolved on the first level check
+     * or enabled event, so that loggers held in static fields do not bootstrap
+     * log4Rich during class initialization.
+     */
     protected Logger(String name) {
         this.name = name;
-        this.log4RichLogger = Log4Rich.getLogger(name);
     }
     
     /**
      * Get a logger for the specified class.
      */
     public static Logger getLogger(Class<?> clazz) {
-        return new Logger(clazz.getName());
+        return new Logger(BackendRegistry.canonicalName(clazz));
     }
     
     /**
      * Get a logger for the specified name.
      */
     public static Logger getLogger(String name) {
-        return new Logger(name);
+        return new Logger(BackendRegistry.canonicalName(name));
     }
     
     /**
      * Get the root logger.
      */
     public static Logger getRootLogger() {
-        return new Logger("ROOT");
+        return new Logger(BackendRegistry.ROOT);
     }
     
     /**
@@ -51,145 +71,198 @@ public class Logger {
      * Check if TRACE level is enabled.
      */
     public boolean isTraceEnabled() {
-        return log4RichLogger.isLevelEnabled(LogLevel.TRACE);
+        return isEnabled(Level.TRACE);
     }
     
     /**
      * Check if DEBUG level is enabled.
      */
     public boolean isDebugEnabled() {
-        return log4RichLogger.isLevelEnabled(LogLevel.DEBUG);
+        return isEnabled(Level.DEBUG);
     }
     
     /**
      * Check if INFO level is enabled.
      */
     public boolean isInfoEnabled() {
-        return log4RichLogger.isLevelEnabled(LogLevel.INFO);
+        return isEnabled(Level.INFO);
     }
     
     /**
      * Check if WARN level is enabled.
      */
     public boolean isWarnEnabled() {
-        return log4RichLogger.isLevelEnabled(LogLevel.WARN);
+        return isEnabled(Level.WARN);
     }
     
     /**
      * Check if ERROR level is enabled.
      */
     public boolean isErrorEnabled() {
-        return log4RichLogger.isLevelEnabled(LogLevel.ERROR);
+        return isEnabled(Level.ERROR);
     }
     
     /**
      * Check if FATAL level is enabled.
      */
     public boolean isFatalEnabled() {
-        return log4RichLogger.isLevelEnabled(LogLevel.FATAL);
+        return isEnabled(Level.FATAL);
     }
     
     /**
      * Check if the specified level is enabled.
      */
     public boolean isEnabledFor(Level level) {
-        return log4RichLogger.isLevelEnabled(level.getLog4RichLevel());
+        return isEnabled(level);
     }
     
     /**
      * Check if the specified priority is enabled.
      */
     public boolean isEnabledFor(Priority priority) {
-        return log4RichLogger.isLevelEnabled(priority.getLog4RichLevel());
+        return isEnabled(priority);
+    }
+    
+    /**
+     * Check a level against log4Rich, then against the bridge thresholds with one
+     * lookup by ordinal; only a level below them checks the adaptive verbosity
+     * floor and MDC level overrides.
+     */
+    private boolean isEnabled(Level level) {
+        return backend().isLevelEnabled(level.getLog4RichLevel())
+            && (LevelTable.passes(level) || AdaptiveVerbosity.permits(level) && LevelOverrides.permits(name, level));
     }
     
     // TRACE level logging methods
     
     public void trace(Object message) {
-        log4RichLogger.trace(String.valueOf(message));
+        if (isTraceEnabled()) {
+            forcedLog(Level.TRACE, render(message), null);
+        } else {
+            record(Level.TRACE, message, null, null);
+        }
     }
     
     public void trace(Object message, Throwable throwable) {
-        log4RichLogger.trace(String.valueOf(message), throwable);
+        if (isTraceEnabled()) {
+            forcedLog(Level.TRACE, render(message), throwable);
+        } else {
+            record(Level.TRACE, message, null, throwable);
+        }
     }
     
     // DEBUG level logging methods
     
     public void debug(Object message) {
-        log4RichLogger.debug(String.valueOf(message));
+        if (isDebugEnabled()) {
+            forcedLog(Level.DEBUG, render(message), null);
+        } else {
+            record(Level.DEBUG, message, null, null);
+        }
     }
     
     public void debug(Object message, Throwable throwable) {
-        log4RichLogger.debug(String.valueOf(message), throwable);
+        if (isDebugEnabled()) {
+            forcedLog(Level.DEBUG, render(message), throwable);
+        } else {
+            record(Level.DEBUG, message, null, throwable);
+        }
     }
     
     // INFO level logging methods
     
     public void info(Object message) {
-        log4RichLogger.info(String.valueOf(message));
+        if (isInfoEnabled()) {
+            forcedLog(Level.INFO, render(message), null);
+        } else {
+            record(Level.INFO, message, null, null);
+        }
     }
     
     public void info(Object message, Throwable throwable) {
-        log4RichLogger.info(String.valueOf(message), throwable);
+        if (isInfoEnabled()) {
+            forcedLog(Level.INFO, render(message), throwable);
+        } else {
+            record(Level.INFO, message, null, throwable);
+        }
     }
     
     // WARN level logging methods
     
     public void warn(Object message) {
-        log4RichLogger.warn(String.valueOf(message));
+        if (isWarnEnabled()) {
+            forcedLog(Level.WARN, render(message), null);
+        } else {
+            record(Level.WARN, message, null, null);
+        }
     }
     
     public void warn(Object message, Throwable throwable) {
-        log4RichLogger.warn(String.valueOf(message), throwable);
+        if (isWarnEnabled()) {
+            forcedLog(Level.WARN, render(message), throwable);
+        } else {
+            record(Level.WARN, message, null, throwable);
+        }
     }
     
     // ERROR level logging methods
     
     public void error(Object message) {
-        log4RichLogger.error(String.valueOf(message));
+        if (isErrorEnabled()) {
+            forcedLog(Level.ERROR, render(message), null);
+        } else {
+            record(Level.ERROR, message, null, null);
+        }
     }
     
     public void error(Object message, Throwable throwable) {
-        log4RichLogger.error(String.valueOf(message), throwable);
+        if (isErrorEnabled()) {
+            forcedLog(Level.ERROR, render(message), throwable);
+        } else {
+            record(Level.ERROR, message, null, throwable);
+        }
     }
     
     // FATAL level logging methods
     
     public void fatal(Object message) {
-        log4RichLogger.fatal(String.valueOf(message));
+        if (isFatalEnabled()) {
+            forcedLog(Level.FATAL, render(message), null);
+        } else {
+            record(Level.FATAL, message, null, null);
+        }
     }
     
     public void fatal(Object message, Throwable throwable) {
-        log4RichLogger.fatal(String.valueOf(message), throwable);
+        if (isFatalEnabled()) {
+            forcedLog(Level.FATAL, render(message), throwable);
+        } else {
+            record(Level.FATAL, message, null, throwable);
+        }
     }
     
     // Generic logging methods
     
     /**
-     * Log a message at the specified level.
+     * Log a message at the specified level. Custom levels are logged with their
+     * own name and value; log4Rich writes them at the nearest standard level below.
      */
     public void log(Level level, Object message) {
-        switch (level.getLog4RichLevel()) {
-            case TRACE: trace(message); break;
-            case DEBUG: debug(message); break;
-            case INFO: info(message); break;
-            case WARN: warn(message); break;
-            case ERROR: error(message); break;
-            case FATAL: fatal(message); break;
-        }
+        log(level, message, null);
     }
     
     /**
      * Log a message and throwable at the specified level.
      */
     public void log(Level level, Object message, Throwable throwable) {
-        switch (level.getLog4RichLevel()) {
-            case TRACE: trace(message, throwable); break;
-            case DEBUG: debug(message, throwable); break;
-            case INFO: info(message, throwable); break;
-            case WARN: warn(message, throwable); break;
-            case ERROR: error(message, throwable); break;
-            case FATAL: fatal(message, throwable); break;
+        Level canonical = level.canonical();
+        if (canonical.toInt() >= Level.OFF.toInt()) {
+            return;
+        }
+        if (isEnabled(canonical)) {
+            forcedLog(canonical, render(message), throwable);
+        } else {
+            record(canonical, message, null, throwable);
         }
     }
     
@@ -197,14 +270,45 @@ public class Logger {
      * Log a message at the specified priority.
      */
     public void log(Priority priority, Object message) {
-        log(Level.toLevel(priority.toInt()), message);
+        log((Level) priority, message, null);
     }
     
     /**
      * Log a message and throwable at the specified priority.
      */
     public void log(Priority priority, Object message, Throwable throwable) {
-        log(Level.toLevel(priority.toInt()), message, throwable);
+        log((Level) priority, message, throwable);
+    }
+    
+    // Bulk logging
+    
+    /**
+     * Log a batch of messages at the specified level, each as its own record
+     * with its own layout prefix. The level is checked once, and an appender
+     * the bridge writes itself takes the whole batch under one lock with one
+     * flush; log4Rich receives the records one by one. Null messages render
+     * as "null".
+     */
+    public void logBatch(Level level, Iterable<?> messages) {
+        Level canonical = level.canonical();
+        if (canonical.toInt() >= Level.OFF.toInt()) {
+            return;
+        }
+        if (!isEnabled(canonical)) {
+            for (Object message : messages) {
+                record(canonical, message, null, null);
+            }
+            return;
+        }
+        List<LogEvent> events = new ArrayList<>(messages instanceof Collection
+                                                ? ((Collection<?>) messages).size() : 16);
+        com.log4rich.core.Logger backend = backend();
+        for (Object message : messages) {
+            events.add(new LogEvent(backend, name, canonical, render(message), null));
+        }
+        if (!events.isEmpty()) {
+            forcedLogAll(canonical, events);
+        }
     }
     
     // Formatted logging methods (log4j style)
@@ -214,7 +318,9 @@ public class Logger {
      */
     public void trace(String format, Object... args) {
         if (isTraceEnabled()) {
-            log4RichLogger.trace(String.format(format, args));
+            forcedLog(Level.TRACE, MessageRenderer.format(format, args), null);
+        } else {
+            record(Level.TRACE, format, args, null);
         }
     }
     
@@ -223,7 +329,9 @@ public class Logger {
      */
     public void debug(String format, Object... args) {
         if (isDebugEnabled()) {
-            log4RichLogger.debug(String.format(format, args));
+            forcedLog(Level.DEBUG, MessageRenderer.format(format, args), null);
+        } else {
+            record(Level.DEBUG, format, args, null);
         }
     }
     
@@ -232,7 +340,9 @@ public class Logger {
      */
     public void info(String format, Object... args) {
         if (isInfoEnabled()) {
-            log4RichLogger.info(String.format(format, args));
+            forcedLog(Level.INFO, MessageRenderer.format(format, args), null);
+        } else {
+            record(Level.INFO, format, args, null);
         }
     }
     
@@ -241,7 +351,9 @@ public class Logger {
      */
     public void warn(String format, Object... args) {
         if (isWarnEnabled()) {
-            log4RichLogger.warn(String.format(format, args));
+            forcedLog(Level.WARN, MessageRenderer.format(format, args), null);
+        } else {
+            record(Level.WARN, format, args, null);
         }
     }
     
@@ -250,7 +362,9 @@ public class Logger {
      */
     public void error(String format, Object... args) {
         if (isErrorEnabled()) {
-            log4RichLogger.error(String.format(format, args));
+            forcedLog(Level.ERROR, MessageRenderer.format(format, args), null);
+        } else {
+            record(Level.ERROR, format, args, null);
         }
     }
     
@@ -259,14 +373,136 @@ public class Logger {
      */
     public void fatal(String format, Object... args) {
         if (isFatalEnabled()) {
-            log4RichLogger.fatal(String.format(format, args));
+            forcedLog(Level.FATAL, MessageRenderer.format(format, args), null);
+        } else {
+            record(Level.FATAL, format, args, null);
+        }
+    }
+    
+    // Write path
+    
+    /**
+     * Write an event that has already passed the level check.
+     * Events go through the appender's batching stage or dispatcher when one
+     * is configured, then to its bridge-written sink if any, otherwise to log4Rich.
+     */
+    private void forcedLog(Level level, String message, Throwable throwable) {
+        trigger(level);
+        WritePath.Binding route = route();
+        if (VirtualThreads.isCurrentThreadVirtual()) {
+            route.getPlatformWriter().dispatch(new LogEvent(backend(), name, level, message, throwable));
+            return;
+        }
+        BatchingStage stage = route.getStage();
+        AsyncDispatcher dispatcher = route.getDispatcher();
+        if (stage != null) {
+            stage.add(new LogEvent(backend(), name, level, message, throwable));
+        } else if (dispatcher != null) {
+            dispatcher.dispatch(new LogEvent(backend(), name, level, message, throwable));
+        } else if (route.getSink() != null) {
+            route.getSink().write(new LogEvent(backend(), name, level, message, throwable));
+        } else {
+            Log4RichSink.write(backend(), level, message, throwable);
+        }
+    }
+    
+    /**
+     * Write the events of a batch that has already passed the level check, along the
+     * same path as {@link #forcedLog}, handing them to a bridge-written sink in one call.
+     */
+    private void forcedLogAll(Level level, List<LogEvent> events) {
+        trigger(level);
+        WritePath.Binding route = route();
+        if (VirtualThreads.isCurrentThreadVirtual()) {
+            AsyncDispatcher writer = route.getPlatformWriter();
+            for (LogEvent event : events) {
+                writer.dispatch(event);
+            }
+            return;
+        }
+        BatchingStage stage = route.getStage();
+        AsyncDispatcher dispatcher = route.getDispatcher();
+        if (stage != null) {
+            for (LogEvent event : events) {
+                stage.add(event);
+            }
+        } else if (dispatcher != null) {
+            for (LogEvent event : events) {
+                dispatcher.dispatch(event);
+            }
+        } else if (route.getSink() != null) {
+            route.getSink().writeAll(events);
+        } else {
+            for (LogEvent event : events) {
+                Log4RichSink.write(event.getBackend(), level, event.getMessage(), null);
+            }
+        }
+    }
+    
+    /**
+     * Render a message object with the renderer registered for its class.
+     */
+    private static String render(Object message) {
+        return MessageRenderer.render(message);
+    }
+    
+    private WritePath.Binding route() {
+        WritePath.Binding binding = writeBinding;
+        if (!binding.isCurrent()) {
+            binding = WritePath.bind(name);
+            writeBinding = binding;
+        }
+        return binding;
+    }
+    
+    // Flight recorder support
+    
+    /**
+     * Capture a disabled event into the flight recorder if this logger is recorded.
+     */
+    private void record(Level level, Object message, Object[] args, Throwable throwable) {
+        FlightRecorder recorder = flightRecorder();
+        if (recorder != null && recorder.isCaptured(level)) {
+            recorder.capture(name, level, message, args, throwable);
+        }
+    }
+    
+    /**
+     * Dump the flight recorder ahead of an enabled event at or above the trigger level.
+     */
+    private void trigger(Level level) {
+        FlightRecorder recorder = flightRecorder();
+        if (recorder != null && recorder.isTrigger(level)) {
+            recorder.dump(name, level, backend());
+        }
+    }
+    
+    private FlightRecorder flightRecorder() {
+        FlightRecorder.Binding binding = flightBinding;
+        if (!binding.isCurrent()) {
+            binding = FlightRecorder.bind(name);
+            flightBinding = binding;
         }
+        return binding.getRecorder();
     }
     
     /**
      * Get the underlying log4Rich logger (for advanced usage).
      */
     public com.log4rich.core.Logger getLog4RichLogger() {
-        return log4RichLogger;
+        return backend();
+    }
+    
+    /**
+     * Resolve the log4Rich logger on first use. A racy initialization is harmless:
+     * the registry returns the same instance for a name to every caller.
+     */
+    private com.log4rich.core.Logger backend() {
+        com.log4rich.core.Logger backend = log4RichLogger;
+        if (backend == null) {
+            backend = BackendRegistry.getBackend(name);
+            log4RichLogger = backend;
+        }
+        return backend;
     }
 }
\ No newline at end of file
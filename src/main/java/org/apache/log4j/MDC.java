@@ -0,0 +1,76 @@
+package org.apache.log4j;
+
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+/**
+ * Log4j MDC compatibility class: a per-thread map of context values.
+ * Child threads start with a copy of their parent's context, as in log4j 1.x.
+ * Context values also select the level overrides added through
+ * {@link LogManager#addLevelOverride}.
+ */
+public class MDC {
+
+    private static final ThreadLocal<Map<String, Object>> context = new InheritableThreadLocal<Map<String, Object>>() {
+        @Override
+        protected Map<String, Object> childValue(Map<String, Object> parentValue) {
+            return parentValue != null ? new HashMap<>(parentValue) : null;
+        }
+    };
+
+    private MDC() {
+    }
+
+    /**
+     * Put a context value for the current thread; a null value removes the key.
+     */
+    public static void put(String key, Object value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        Map<String, Object> map = context.get();
+        if (map == null) {
+            map = new HashMap<>();
+            context.set(map);
+        }
+        map.put(key, value);
+    }
+
+    /**
+     * Get a context value of the current thread, or null.
+     */
+    public static Object get(String key) {
+        Map<String, Object> map = context.get();
+        return map != null ? map.get(key) : null;
+    }
+
+    /**
+     * Remove a context value of the current thread.
+     */
+    public static void remove(String key) {
+        Map<String, Object> map = context.get();
+        if (map != null) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Remove every context value of the current thread.
+     */
+    public static void clear() {
+        Map<String, Object> map = context.get();
+        if (map != null) {
+            map.clear();
+        }
+    }
+
+    /**
+     * Get a copy of the current thread's context, or null when it has none.
+     */
+    public static Hashtable<String, Object> getContext() {
+        Map<String, Object> map = context.get();
+        return map != null ? new Hashtable<>(map) : null;
+    }
+}
@@ -0,0 +1,236 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+/**
+ * Sheds verbose events while the write path stays overloaded.
+ *
+ * A daemon thread samples the fill of the fullest dispatcher queue or
+ * batching stage and the dispatchers' average write latency. When either stays
+ * above its limit for a whole window, the bridge threshold is raised to the
+ * next configured step, say INFO and then WARN; each further step needs another
+ * overloaded window. Once the queues are below the low watermark and latency
+ * below half its limit for the recovery window, the threshold steps back down,
+ * one step per recovery window. Samples between the two bands reset both
+ * timers, so the threshold does not flap around a single limit.
+ *
+ * Every step writes a WARN marker record straight to log4Rich. Loggers check
+ * the raised threshold with one int compare, and it is {@link Integer#MIN_VALUE}
+ * while nothing is shed.
+ */
+public final class AdaptiveVerbosity {
+
+    private static final Object lock = new Object();
+
+    /** Lowest level logged while degraded; MIN_VALUE when nothing is shed. */
+    private static volatile int floor = Integer.MIN_VALUE;
+    private static volatile AdaptiveVerbosity active;
+
+    private final long intervalMillis;
+    private final long windowMillis;
+    private final long recoveryMillis;
+    private final double highWatermark;
+    private final double lowWatermark;
+    private final long latencyLimitMicros;
+    private final Level[] steps;
+    private final Thread sampler;
+
+    private volatile boolean running = true;
+    private int step;
+    private long overloadedSince = -1L;
+    private long calmSince = -1L;
+    private long lastWriteNanos = -1L;
+    private long lastWritten = -1L;
+
+    private AdaptiveVerbosity(long intervalMillis, long windowMillis, long recoveryMillis, double highWatermark,
+                              double lowWatermark, long latencyLimitMicros, Level[] steps) {
+        this.intervalMillis = Math.max(1L, intervalMillis);
+        this.windowMillis = Math.max(0L, windowMillis);
+        this.recoveryMillis = Math.max(0L, recoveryMillis);
+        this.highWatermark = highWatermark;
+        this.lowWatermark = Math.min(lowWatermark, highWatermark);
+        this.latencyLimitMicros = latencyLimitMicros;
+        this.steps = steps.clone();
+        this.sampler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sampleLoop();
+            }
+        }, "log4Rich-adaptive-verbosity");
+        this.sampler.setDaemon(true);
+    }
+
+    /**
+     * Check whether an event at the given level survives the current degradation.
+     */
+    public static boolean permits(Level level) {
+        return level.toInt() >= floor;
+    }
+
+    static int floor() {
+        return floor;
+    }
+
+    /**
+     * Get the lowest level currently logged, or null when nothing is shed.
+     */
+    public static Level getFloor() {
+        AdaptiveVerbosity controller = active;
+        if (controller == null) {
+            return null;
+        }
+        synchronized (controller) {
+            return controller.running && controller.step > 0 ? controller.steps[controller.step - 1] : null;
+        }
+    }
+
+    /**
+     * Start a controller, replacing the previous one and restoring full verbosity.
+     *
+     * @param intervalMillis time between samples
+     * @param windowMillis how long the write path must stay overloaded before each step up
+     * @param recoveryMillis how long it must stay calm before each step down
+     * @param highWatermark queue fill, from 0 to 1, that counts as overloaded
+     * @param lowWatermark queue fill at or below which the write path counts as calm
+     * @param latencyLimitMicros average write latency that counts as overloaded, or 0 to ignore latency
+     * @param steps thresholds applied in turn, least severe first
+     */
+    public static void configure(long intervalMillis, long windowMillis, long recoveryMillis, double highWatermark,
+                                 double lowWatermark, long latencyLimitMicros, Level[] steps) {
+        if (steps == null || steps.length == 0) {
+            throw new IllegalArgumentException("Adaptive verbosity needs at least one step");
+        }
+        AdaptiveVerbosity controller = new AdaptiveVerbosity(intervalMillis, windowMillis, recoveryMillis,
+                                                             highWatermark, lowWatermark, latencyLimitMicros, steps);
+        synchronized (lock) {
+            stop(active);
+            active = controller;
+            controller.sampler.start();
+        }
+    }
+
+    /**
+     * Stop the controller, if any, and restore full verbosity.
+     */
+    public static void disable() {
+        synchronized (lock) {
+            stop(active);
+            active = null;
+        }
+    }
+
+    /**
+     * Get the running controller, or null.
+     */
+    public static AdaptiveVerbosity getActive() {
+        return active;
+    }
+
+    /**
+     * Get the number of steps currently applied.
+     */
+    public synchronized int getStep() {
+        return step;
+    }
+
+    /**
+     * Apply one sample.
+     *
+     * @param nowMillis sample time
+     * @param queueFill fill of the fullest queue, from 0 to 1
+     * @param latencyMicros average write latency since the previous sample
+     */
+    public synchronized void update(long nowMillis, double queueFill, long latencyMicros) {
+        if (!running) {
+            return;
+        }
+        boolean latencyHigh = latencyLimitMicros > 0 && latencyMicros >= latencyLimitMicros;
+        boolean latencyLow = latencyLimitMicros <= 0 || latencyMicros < latencyLimitMicros / 2;
+
+        if (queueFill >= highWatermark || latencyHigh) {
+            calmSince = -1L;
+            if (overloadedSince < 0) {
+                overloadedSince = nowMillis;
+            }
+            if (nowMillis - overloadedSince >= windowMillis && step < steps.length) {
+                step++;
+                overloadedSince = nowMillis;
+                apply(queueFill, latencyMicros);
+            }
+        } else if (queueFill <= lowWatermark && latencyLow) {
+            overloadedSince = -1L;
+            if (step == 0) {
+                calmSince = -1L;
+                return;
+            }
+            if (calmSince < 0) {
+                calmSince = nowMillis;
+            }
+            if (nowMillis - calmSince >= recoveryMillis) {
+                step--;
+                calmSince = nowMillis;
+                apply(queueFill, latencyMicros);
+            }
+        } else {
+            overloadedSince = -1L;
+            calmSince = -1L;
+        }
+    }
+
+    private void apply(double queueFill, long latencyMicros) {
+        floor = step == 0 ? Integer.MIN_VALUE : steps[step - 1].toInt();
+        LevelTable.rebuild();
+        String pressure = String.format("queue %.0f%% full, write latency %dus", queueFill * 100.0, latencyMicros);
+        String message = step == 0
+            ? "Adaptive verbosity restored configured levels (" + pressure + ")"
+            : "Adaptive verbosity dropping events below " + steps[step - 1] + " (" + pressure + ")";
+        try {
+            Log4RichSink.write(BackendRegistry.getBackend(AdaptiveVerbosity.class.getName()), Level.WARN,
+                               message, null);
+        } catch (RuntimeException e) {
+            System.err.println(message);
+        }
+    }
+
+    private void sampleLoop() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                // stop() interrupts to end the loop
+            }
+            if (running) {
+                update(System.currentTimeMillis(), WritePath.getQueueFill(), sampleLatencyMicros());
+            }
+        }
+    }
+
+    /**
+     * Average write latency since the previous sample, or 0 when nothing was written.
+     */
+    private long sampleLatencyMicros() {
+        long nanos = WritePath.getDispatcherWriteNanos();
+        long written = WritePath.getDispatcherWrittenCount();
+        long deltaNanos = nanos - lastWriteNanos;
+        long deltaWritten = written - lastWritten;
+        boolean first = lastWritten < 0;
+        lastWriteNanos = nanos;
+        lastWritten = written;
+        // Counters restart when the write path is reconfigured
+        if (first || deltaWritten <= 0 || deltaNanos < 0) {
+            return 0L;
+        }
+        return deltaNanos / deltaWritten / 1000L;
+    }
+
+    private static void stop(AdaptiveVerbosity controller) {
+        if (controller != null) {
+            synchronized (controller) {
+                controller.running = false;
+            }
+            controller.sampler.interrupt();
+        }
+        floor = Integer.MIN_VALUE;
+        LevelTable.rebuild();
+    }
+}
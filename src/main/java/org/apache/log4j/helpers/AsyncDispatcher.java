@@ -0,0 +1,410 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded hand-off between logging threads and a slower {@link EventSink}.
+ *
+ * Callers enqueue rendered events; a single daemon thread drains them to the
+ * sink. When the queue is full the configured {@link OverflowPolicy} decides
+ * whether the caller blocks, the event is dropped or it is spilled to an
+ * overflow file. Every drop is counted, and a "N events discarded" record is
+ * written through the sink at most once per report interval.
+ */
+public final class AsyncDispatcher {
+
+    private static final int DRAIN_BATCH = 256;
+
+    private final String name;
+    private final BlockingQueue<LogEvent> queue;
+    private final OverflowPolicy policy;
+    private final int dropThresholdInt;
+    private final String overflowFile;
+    private final long reportIntervalMillis;
+    private final EventSink sink;
+    private final Thread worker;
+
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final int capacity;
+    private long reportedDiscards;
+    private long lastReportMillis = System.currentTimeMillis();
+
+    /** Held by the worker while it writes, so that close() only interrupts it while it waits. */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** A lock rather than a monitor, so a virtual thread spilling to disk does not pin its carrier. */
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private FileOutputStream spillStream;
+    private Writer spillWriter;
+    private final PlainLayout spillLayout;
+
+    private volatile boolean running = true;
+
+    /**
+     * Create and start a dispatcher.
+     *
+     * @param name name used for the worker thread and in discard reports, normally the appender name
+     * @param capacity maximum number of queued events
+     * @param policy what to do when the queue is full
+     * @param dropThreshold for {@link OverflowPolicy#DROP_BELOW_LEVEL}, events below this level are dropped
+     * @param overflowFile for {@link OverflowPolicy#SPILL}, the file overflowing events are appended to
+     * @param reportIntervalMillis minimum interval between discard reports
+     * @param sink destination for drained events
+     */
+    public AsyncDispatcher(String name, int capacity, OverflowPolicy policy, Level dropThreshold,
+                           String overflowFile, long reportIntervalMillis, EventSink sink) {
+        this(name, capacity, policy, dropThreshold, overflowFile, reportIntervalMillis, sink, new PlainLayout());
+    }
+
+    /**
+     * Create and start a dispatcher.
+     *
+     * @param name name used for the worker thread and in discard reports, normally the appender name
+     * @param capacity maximum number of queued events
+     * @param policy what to do when the queue is full
+     * @param dropThreshold for {@link OverflowPolicy#DROP_BELOW_LEVEL}, events below this level are dropped
+     * @param overflowFile for {@link OverflowPolicy#SPILL}, the file overflowing events are appended to
+     * @param reportIntervalMillis minimum interval between discard reports
+     * @param sink destination for drained events
+     * @param spillLayout layout events spilled to the overflow file are rendered with
+     */
+    public AsyncDispatcher(String name, int capacity, OverflowPolicy policy, Level dropThreshold,
+                           String overflowFile, long reportIntervalMillis, EventSink sink, PlainLayout spillLayout) {
+        if (policy == OverflowPolicy.SPILL && overflowFile == null) {
+            throw new IllegalArgumentException("Overflow policy SPILL requires an overflow file for " + name);
+        }
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.policy = policy;
+        this.dropThresholdInt = dropThreshold != null ? dropThreshold.toInt() : Level.WARN.toInt();
+        this.overflowFile = overflowFile;
+        this.reportIntervalMillis = Math.max(1L, reportIntervalMillis);
+        this.sink = sink;
+        this.spillLayout = spillLayout;
+
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        }, "log4Rich-dispatcher-" + name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Hand an event to the writer, applying the overflow policy if the queue is full.
+     * Once the dispatcher is closed, events are written on the calling thread.
+     */
+    public void dispatch(LogEvent event) {
+        if (!running) {
+            sink.write(event);
+            return;
+        }
+        if (queue.offer(event)) {
+            accepted.incrementAndGet();
+            drainIfClosed();
+            return;
+        }
+
+        switch (policy) {
+            case DROP_BELOW_LEVEL:
+                if (event.getLevel().toInt() < dropThresholdInt) {
+                    discarded.incrementAndGet();
+                } else {
+                    put(event);
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        discarded.incrementAndGet();
+                        completed.incrementAndGet();
+                    }
+                }
+                accepted.incrementAndGet();
+                break;
+            case SPILL:
+                spill(event);
+                break;
+            case BLOCK:
+            default:
+                put(event);
+                break;
+        }
+        drainIfClosed();
+    }
+
+    /**
+     * Write out events left in the queue by a close() that raced this caller's
+     * enqueue: the worker may already have exited and would strand them.
+     */
+    private void drainIfClosed() {
+        if (running) {
+            return;
+        }
+        List<LogEvent> batch = new ArrayList<>();
+        while (queue.drainTo(batch, DRAIN_BATCH) > 0) {
+            writeBatch(batch);
+        }
+    }
+
+    /**
+     * Wait until every event accepted before this call has been written, without stopping the dispatcher.
+     * The overflow file, if any, is forced to disk.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return the number of those events still pending when the timeout expired
+     */
+    public long flush(long timeoutMillis) {
+        long target = accepted.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeoutMillis));
+        while (completed.get() < target && worker.isAlive() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        syncSpillFile();
+        return Math.max(0L, target - completed.get());
+    }
+
+    /**
+     * Stop accepting queued events and drain what is left to the sink.
+     *
+     * @param timeoutMillis maximum time to wait for the queue to drain
+     * @return the number of events still queued when the timeout expired
+     */
+    public int close(long timeoutMillis) {
+        running = false;
+        long deadline = System.currentTimeMillis() + Math.max(1L, timeoutMillis);
+        try {
+            // Wake the worker if it is waiting for events, but never interrupt a write in progress
+            if (writeLock.tryLock(Math.max(1L, timeoutMillis), TimeUnit.MILLISECONDS)) {
+                try {
+                    worker.interrupt();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+            worker.join(Math.max(1L, deadline - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        reportDiscards(true);
+        closeSpillWriter();
+        return queue.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Get the number of events dropped by the overflow policy.
+     */
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+
+    /**
+     * Get the number of events written to the overflow file.
+     */
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    /**
+     * Get the number of events written to the sink.
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Get the number of events currently queued.
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the total time the worker has spent writing events to the sink, in nanoseconds.
+     */
+    public long getWriteNanos() {
+        return writeNanos.get();
+    }
+
+    private void put(LogEvent event) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (queue.offer(event, 10L, TimeUnit.MILLISECONDS)) {
+                    accepted.incrementAndGet();
+                    break;
+                }
+                if (!running) {
+                    // The worker may be gone; a closed dispatcher writes synchronously
+                    sink.write(event);
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<LogEvent> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                LogEvent first = queue.poll(reportIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, DRAIN_BATCH - 1);
+                }
+            } catch (InterruptedException e) {
+                // close() interrupts to wake us; the loop condition decides whether to continue
+            }
+            writeLock.lock();
+            try {
+                // Clear an interrupt from a close() that raced the poll, so the sink never sees it
+                Thread.interrupted();
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+                reportDiscards(false);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void writeBatch(List<LogEvent> batch) {
+        long start = System.nanoTime();
+        for (LogEvent event : batch) {
+            try {
+                sink.write(event);
+                written.incrementAndGet();
+            } catch (RuntimeException e) {
+                System.err.println("Failed to write log event on " + name + ": " + e.getMessage());
+            } finally {
+                completed.incrementAndGet();
+            }
+        }
+        writeNanos.addAndGet(System.nanoTime() - start);
+        batch.clear();
+    }
+
+    private void reportDiscards(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastReportMillis < reportIntervalMillis) {
+            return;
+        }
+        lastReportMillis = now;
+
+        long total = discarded.get();
+        long delta = total - reportedDiscards;
+        if (delta <= 0) {
+            return;
+        }
+        reportedDiscards = total;
+
+        String message = delta + " events discarded by overflow policy " + policy + " on appender " + name;
+        try {
+            sink.write(new LogEvent(reportLogger(), AsyncDispatcher.class.getName(), Level.WARN, message, null));
+        } catch (RuntimeException e) {
+            System.err.println(message);
+        }
+    }
+
+    private static com.log4rich.core.Logger reportLogger() {
+        return ReportLoggerHolder.LOGGER;
+    }
+
+    private void spill(LogEvent event) {
+        spillLock.lock();
+        try {
+            if (spillWriter == null) {
+                spillStream = new FileOutputStream(overflowFile, true);
+                spillWriter = new OutputStreamWriter(spillStream, StandardCharsets.UTF_8);
+            }
+            spillWriter.write(spillLayout.format(event));
+            spillWriter.write(PlainLayout.LINE_SEPARATOR);
+            spillWriter.flush();
+            spilled.incrementAndGet();
+        } catch (IOException e) {
+            discarded.incrementAndGet();
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private void syncSpillFile() {
+        spillLock.lock();
+        try {
+            if (spillStream != null) {
+                try {
+                    spillWriter.flush();
+                    spillStream.getFD().sync();
+                } catch (IOException e) {
+                    System.err.println("Failed to sync overflow file " + overflowFile + ": " + e.getMessage());
+                }
+            }
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private void closeSpillWriter() {
+        spillLock.lock();
+        try {
+            if (spillWriter != null) {
+                try {
+                    spillWriter.flush();
+                    spillStream.getFD().sync();
+                    spillWriter.close();
+                } catch (IOException e) {
+                    // Ignore close errors
+                }
+                spillWriter = null;
+                spillStream = null;
+            }
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private static final class ReportLoggerHolder {
+        static final com.log4rich.core.Logger LOGGER =
+            com.log4rich.Log4Rich.getLogger(AsyncDispatcher.class.getName());
+    }
+}
@@ -0,0 +1,63 @@
+package org.apache.log4j.helpers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Logger name canonicalization and log4Rich logger lookup shared by every API
+ * bridge in the process (log4j 1.x and log4j2), so that the same class or name
+ * always resolves to the same log4Rich logger regardless of which API asked.
+ */
+public final class BackendRegistry {
+
+    /** Canonical name of the root logger. */
+    public static final String ROOT = "ROOT";
+
+    /** Canonical name used for a null logger name. */
+    public static final String NULL = "NULL";
+
+    private static final ConcurrentMap<String, com.log4rich.core.Logger> backends = new ConcurrentHashMap<>();
+
+    private BackendRegistry() {
+    }
+
+    /**
+     * Canonical logger name for a class: its binary name, as log4j 1.x uses.
+     */
+    public static String canonicalName(Class<?> clazz) {
+        return clazz != null ? clazz.getName() : NULL;
+    }
+
+    /**
+     * Canonical logger name for a name: null maps to {@link #NULL}, and the
+     * empty name used by log4j2 for the root logger maps to {@link #ROOT}.
+     */
+    public static String canonicalName(String name) {
+        if (name == null) {
+            return NULL;
+        }
+        return name.isEmpty() ? ROOT : name;
+    }
+
+    /**
+     * Get the log4Rich logger for a canonical name, creating it on first use.
+     */
+    public static com.log4rich.core.Logger getBackend(String canonicalName) {
+        com.log4rich.core.Logger backend = backends.get(canonicalName);
+        if (backend == null) {
+            backend = com.log4rich.Log4Rich.getLogger(canonicalName);
+            com.log4rich.core.Logger existing = backends.putIfAbsent(canonicalName, backend);
+            if (existing != null) {
+                backend = existing;
+            }
+        }
+        return backend;
+    }
+
+    /**
+     * Get the number of log4Rich loggers resolved so far.
+     */
+    public static int getBackendCount() {
+        return backends.size();
+    }
+}
@@ -0,0 +1,282 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-thread batching in front of an {@link EventSink}.
+ *
+ * Each logging thread collects events in a private buffer and publishes them
+ * as one chunk when the buffer is full, when its oldest event exceeds the
+ * maximum age, or immediately for events at or above the flush level. Threads
+ * therefore touch shared state once per batch instead of once per event. A
+ * single daemon thread writes published chunks to the sink in order and
+ * publishes buffers of idle threads once they reach the maximum age.
+ *
+ * Events of one thread are written in the order they were logged; events of
+ * different threads may be interleaved by batch. Events keep the timestamp and
+ * thread name of the logging call; see {@link Log4RichSink} for how they reach
+ * log4Rich.
+ */
+public final class BatchingStage {
+
+    private final String name;
+    private final int batchSize;
+    private final long maxAgeNanos;
+    private final int flushLevelInt;
+    private final int capacity;
+    private final EventSink sink;
+    private final Thread worker;
+
+    private final ThreadLocal<Batch> batches = new ThreadLocal<Batch>() {
+        @Override
+        protected Batch initialValue() {
+            Batch batch = new Batch(Thread.currentThread(), batchSize);
+            registry.add(batch);
+            return batch;
+        }
+    };
+    private final Set<Batch> registry = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<LogEvent[]> published = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    /**
+     * Create and start a batching stage.
+     *
+     * @param name name used for the worker thread, normally the appender name
+     * @param batchSize events per thread buffer
+     * @param maxAgeMillis maximum time an event waits in a thread buffer
+     * @param flushLevel events at or above this level publish the thread's buffer immediately
+     * @param capacity maximum number of published but unwritten events before publishers wait
+     * @param sink destination for published events
+     */
+    public BatchingStage(String name, int batchSize, long maxAgeMillis, Level flushLevel,
+                         int capacity, EventSink sink) {
+        this.name = name;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, maxAgeMillis));
+        this.flushLevelInt = flushLevel != null ? flushLevel.toInt() : Level.ERROR.toInt();
+        this.capacity = Math.max(this.batchSize, capacity);
+        this.sink = sink;
+
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "log4Rich-batcher-" + name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Add an event to the calling thread's batch.
+     */
+    public void add(LogEvent event) {
+        if (!running) {
+            sink.write(event);
+            return;
+        }
+
+        Batch batch = batches.get();
+        LogEvent[] chunk;
+        synchronized (batch) {
+            long now = System.nanoTime();
+            if (batch.count == 0) {
+                batch.firstNanos = now;
+            }
+            batch.events[batch.count++] = event;
+            // Re-check under the batch monitor: a close() whose sweep already passed this
+            // buffer would leave the event stranded in it, so publish it now instead
+            if (batch.count < batchSize && event.getLevel().toInt() < flushLevelInt
+                    && now - batch.firstNanos < maxAgeNanos && running) {
+                return;
+            }
+            chunk = batch.take();
+        }
+        awaitCapacity();
+        enqueue(chunk);
+        if (!running) {
+            // The worker may have exited before seeing this chunk; write it on the calling thread
+            drainPublished();
+        }
+    }
+
+    /**
+     * Publish every thread's buffer and wait until the events accepted so far have been written.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return the number of events still pending when the timeout expired
+     */
+    public long flush(long timeoutMillis) {
+        sweep(true);
+        long target = accepted.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeoutMillis));
+        while (completed.get() < target && worker.isAlive() && System.nanoTime() < deadline) {
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return Math.max(0L, target - completed.get());
+    }
+
+    /**
+     * Publish every thread's buffer, write what is queued and stop the worker.
+     * Events added afterwards, including those racing this call, are written
+     * on the calling thread.
+     *
+     * @param timeoutMillis maximum time to wait for queued events
+     * @return the number of events still queued when the timeout expired
+     */
+    public int close(long timeoutMillis) {
+        running = false;
+        sweep(true);
+        LockSupport.unpark(worker);
+        try {
+            worker.join(Math.max(1L, timeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!worker.isAlive()) {
+            // The worker may have seen running == false with nothing published and exited
+            // before the sweep above published the last buffers; write those here
+            drainPublished();
+        }
+        return queued.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Get the number of events written to the sink.
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Get the number of published events not yet written.
+     */
+    public int getQueueSize() {
+        return queued.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void awaitCapacity() {
+        while (queued.get() >= capacity && running && worker.isAlive()) {
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    private void enqueue(LogEvent[] chunk) {
+        queued.addAndGet(chunk.length);
+        accepted.addAndGet(chunk.length);
+        published.offer(chunk);
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * Publish thread buffers whose oldest event has reached the maximum age, or all of them.
+     */
+    private void sweep(boolean all) {
+        long now = System.nanoTime();
+        for (Iterator<Batch> it = registry.iterator(); it.hasNext(); ) {
+            Batch batch = it.next();
+            LogEvent[] chunk = null;
+            synchronized (batch) {
+                if (batch.count > 0 && (all || now - batch.firstNanos >= maxAgeNanos)) {
+                    chunk = batch.take();
+                } else if (batch.count == 0 && !batch.owner.isAlive()) {
+                    it.remove();
+                }
+            }
+            if (chunk != null) {
+                enqueue(chunk);
+            }
+        }
+    }
+
+    private void drainPublished() {
+        LogEvent[] chunk;
+        while ((chunk = published.poll()) != null) {
+            write(chunk);
+        }
+    }
+
+    private void writeLoop() {
+        long sweepInterval = Math.max(TimeUnit.MILLISECONDS.toNanos(1), maxAgeNanos / 2);
+        long nextSweep = System.nanoTime() + sweepInterval;
+        while (running || !published.isEmpty()) {
+            LogEvent[] chunk = published.poll();
+            if (chunk != null) {
+                write(chunk);
+            } else if (running) {
+                LockSupport.parkNanos(Math.max(0L, nextSweep - System.nanoTime()));
+            }
+            if (System.nanoTime() >= nextSweep) {
+                sweep(false);
+                nextSweep = System.nanoTime() + sweepInterval;
+            }
+        }
+    }
+
+    private void write(LogEvent[] chunk) {
+        for (LogEvent event : chunk) {
+            try {
+                sink.write(event);
+                written.incrementAndGet();
+            } catch (RuntimeException e) {
+                System.err.println("Failed to write log event on " + name + ": " + e.getMessage());
+            } finally {
+                completed.incrementAndGet();
+            }
+        }
+        queued.addAndGet(-chunk.length);
+    }
+
+    /**
+     * A thread's private buffer. Guarded by its own monitor, which is only
+     * contended when the worker sweeps an aged buffer.
+     */
+    private static final class Batch {
+        final Thread owner;
+        final LogEvent[] events;
+        int count;
+        long firstNanos;
+
+        Batch(Thread owner, int size) {
+            this.owner = owner;
+            this.events = new LogEvent[size];
+        }
+
+        LogEvent[] take() {
+            LogEvent[] chunk = Arrays.copyOf(events, count);
+            Arrays.fill(events, 0, count, null);
+            count = 0;
+            return chunk;
+        }
+    }
+}
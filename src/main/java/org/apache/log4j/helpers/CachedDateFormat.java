@@ -0,0 +1,152 @@
+package org.apache.log4j.helpers;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Timestamp formatter for {@code %d} patterns that formats each second once.
+ *
+ * The text for the current second is cached together with the position of its
+ * millisecond digits; events within that second copy the cached text and write
+ * their own three digits. Patterns whose milliseconds cannot be located, such
+ * as {@code S} or {@code SS}, are cached per millisecond instead.
+ *
+ * Instances are thread-safe without locking: the cache is an immutable entry
+ * in a volatile field, and misses format with a per-thread SimpleDateFormat.
+ */
+public final class CachedDateFormat {
+
+    public static final String ISO8601_PATTERN = "yyyy-MM-dd HH:mm:ss,SSS";
+    public static final String ABSOLUTE_PATTERN = "HH:mm:ss,SSS";
+    public static final String DATE_PATTERN = "dd MMM yyyy HH:mm:ss,SSS";
+
+    private static final int PROBE_MILLIS = 987;
+
+    private final String pattern;
+    private final ThreadLocal<SimpleDateFormat> formats;
+    private volatile Entry cached;
+
+    /**
+     * @param pattern a SimpleDateFormat pattern or one of the log4j names
+     *                ISO8601, ABSOLUTE and DATE
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public CachedDateFormat(String pattern) {
+        this.pattern = resolvePattern(pattern);
+        final SimpleDateFormat prototype = new SimpleDateFormat(this.pattern);
+        this.formats = new ThreadLocal<SimpleDateFormat>() {
+            @Override
+            protected SimpleDateFormat initialValue() {
+                return (SimpleDateFormat) prototype.clone();
+            }
+        };
+    }
+
+    /**
+     * Translate the log4j date format names ISO8601, ABSOLUTE and DATE to their
+     * SimpleDateFormat patterns. Null or empty means ISO8601; other patterns are returned as-is.
+     */
+    public static String resolvePattern(String pattern) {
+        if (pattern == null || pattern.isEmpty() || pattern.equalsIgnoreCase("ISO8601")) {
+            return ISO8601_PATTERN;
+        }
+        if (pattern.equalsIgnoreCase("ABSOLUTE")) {
+            return ABSOLUTE_PATTERN;
+        }
+        if (pattern.equalsIgnoreCase("DATE")) {
+            return DATE_PATTERN;
+        }
+        return pattern;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Format a timestamp.
+     */
+    public String format(long timeStamp) {
+        StringBuilder sb = new StringBuilder(32);
+        format(timeStamp, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Append a formatted timestamp.
+     */
+    public void format(long timeStamp, StringBuilder sb) {
+        Entry entry = cached;
+        if (entry == null || !entry.covers(timeStamp)) {
+            entry = compute(timeStamp);
+            cached = entry;
+        }
+        if (entry.millisOffset < 0) {
+            sb.append(entry.text);
+            return;
+        }
+        int millis = (int) Math.floorMod(timeStamp, 1000L);
+        sb.append(entry.text, 0, entry.millisOffset)
+          .append((char) ('0' + millis / 100))
+          .append((char) ('0' + millis / 10 % 10))
+          .append((char) ('0' + millis % 10))
+          .append(entry.text, entry.millisOffset + 3, entry.text.length());
+    }
+
+    private Entry compute(long timeStamp) {
+        SimpleDateFormat format = formats.get();
+        long second = Math.floorDiv(timeStamp, 1000L);
+        String zero = format.format(new Date(second * 1000L));
+        String probe = format.format(new Date(second * 1000L + PROBE_MILLIS));
+        if (zero.equals(probe)) {
+            // No milliseconds in the pattern: the text is the same all second
+            return new Entry(true, second, zero, -1);
+        }
+        int offset = millisOffset(zero, probe);
+        if (offset >= 0) {
+            return new Entry(true, second, zero, offset);
+        }
+        return new Entry(false, timeStamp, format.format(new Date(timeStamp)), -1);
+    }
+
+    /**
+     * Find the three-digit millisecond field by comparing the second formatted at
+     * 0 and at {@link #PROBE_MILLIS} milliseconds, or return -1.
+     */
+    private static int millisOffset(String zero, String probe) {
+        if (zero.length() != probe.length()) {
+            return -1;
+        }
+        int offset = 0;
+        while (zero.charAt(offset) == probe.charAt(offset)) {
+            offset++;
+        }
+        if (offset + 3 > zero.length()
+                || !zero.startsWith("000", offset)
+                || !probe.startsWith("987", offset)
+                || !zero.regionMatches(offset + 3, probe, offset + 3, zero.length() - offset - 3)) {
+            return -1;
+        }
+        return offset;
+    }
+
+    private static final class Entry {
+        final boolean perSecond;
+        /** The epoch second for per-second entries, else the exact millisecond. */
+        final long key;
+        final String text;
+        /** Position of the millisecond digits in text, or -1 when text is used as-is. */
+        final int millisOffset;
+
+        Entry(boolean perSecond, long key, String text, int millisOffset) {
+            this.perSecond = perSecond;
+            this.key = key;
+            this.text = text;
+            this.millisOffset = millisOffset;
+        }
+
+        boolean covers(long timeStamp) {
+            return key == (perSecond ? Math.floorDiv(timeStamp, 1000L) : timeStamp);
+        }
+    }
+}
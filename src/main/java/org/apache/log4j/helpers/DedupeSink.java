@@ -0,0 +1,159 @@
+package org.apache.log4j.helpers;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sink that collapses runs of identical consecutive events.
+ *
+ * An event repeats the previous one when it has the same logger, level and
+ * rendered message, and a throwable of the same class and message or none.
+ * Repeats are counted instead of written, and a single
+ * "Last message repeated N times" record is written when a different event
+ * ends the run, when the run has lasted the report interval, and when the
+ * sink is flushed or closed. A daemon thread reports runs that are still
+ * open once per interval, so a storm that stops is reported even if nothing
+ * else is logged.
+ */
+public final class DedupeSink implements EventSink, Flushable, Closeable {
+
+    private final String name;
+    private final EventSink downstream;
+    private final long intervalMillis;
+    private final Thread timer;
+    private final AtomicLong collapsed = new AtomicLong();
+
+    private LogEvent last;
+    private int lastHash;
+    private int repeats;
+    private long runStart;
+    private volatile boolean running = true;
+
+    /**
+     * Create a sink and start its report timer.
+     *
+     * @param name appender name, used for the timer thread
+     * @param downstream sink unique events and repeat reports are written to
+     * @param intervalMillis longest time a run of repeats goes unreported
+     */
+    public DedupeSink(String name, EventSink downstream, long intervalMillis) {
+        this.name = name;
+        this.downstream = downstream;
+        this.intervalMillis = Math.max(1L, intervalMillis);
+        this.timer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                timerLoop();
+            }
+        }, "log4Rich-dedupe-" + name);
+        this.timer.setDaemon(true);
+        this.timer.start();
+    }
+
+    @Override
+    public synchronized void write(LogEvent event) {
+        int hash = hash(event);
+        if (last != null && hash == lastHash && repeats(event, last)) {
+            if (repeats++ == 0) {
+                runStart = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - runStart >= intervalMillis) {
+                report();
+            }
+            collapsed.incrementAndGet();
+            return;
+        }
+        report();
+        downstream.write(event);
+        last = event;
+        lastHash = hash;
+    }
+
+    /**
+     * Report the open run of repeats, if any, and flush the downstream sink.
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (this) {
+            report();
+        }
+        if (downstream instanceof Flushable) {
+            ((Flushable) downstream).flush();
+        }
+    }
+
+    /**
+     * Report the open run of repeats, stop the timer and close the downstream sink.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        timer.interrupt();
+        synchronized (this) {
+            report();
+            last = null;
+        }
+        if (downstream instanceof Closeable) {
+            ((Closeable) downstream).close();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of events collapsed into repeat reports.
+     */
+    public long getCollapsedCount() {
+        return collapsed.get();
+    }
+
+    private void report() {
+        if (repeats == 0) {
+            return;
+        }
+        String message = "Last message repeated " + repeats + (repeats == 1 ? " time" : " times");
+        repeats = 0;
+        downstream.write(new LogEvent(last.getBackend(), last.getLoggerName(), last.getLevel(), message, null));
+    }
+
+    private void timerLoop() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                // close() interrupts to stop the timer
+            }
+            synchronized (this) {
+                if (running && repeats > 0 && System.currentTimeMillis() - runStart >= intervalMillis) {
+                    report();
+                }
+            }
+        }
+    }
+
+    private static int hash(LogEvent event) {
+        int hash = event.getLoggerName().hashCode() * 31 + event.getLevel().toInt();
+        return hash * 31 + (event.getMessage() != null ? event.getMessage().hashCode() : 0);
+    }
+
+    private static boolean repeats(LogEvent event, LogEvent previous) {
+        if (event.getLevel().toInt() != previous.getLevel().toInt()
+                || !event.getLoggerName().equals(previous.getLoggerName())
+                || !equal(event.getMessage(), previous.getMessage())) {
+            return false;
+        }
+        Throwable t = event.getThrowable();
+        Throwable p = previous.getThrowable();
+        if (t == null || p == null) {
+            return t == p;
+        }
+        return t.getClass() == p.getClass() && equal(t.getMessage(), p.getMessage());
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
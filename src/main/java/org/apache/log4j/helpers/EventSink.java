@@ -0,0 +1,26 @@
+package org.apache.log4j.helpers;
+
+import java.util.List;
+
+/**
+ * Destination for events leaving a bridge-side write path.
+ */
+public interface EventSink {
+
+    /**
+     * Write a single event.
+     */
+    void write(LogEvent event);
+
+    /**
+     * Write events that belong together, such as the messages of one
+     * {@code Logger.logBatch} call, each as its own record. Sinks that render
+     * records themselves write them under one lock with one flush; by default
+     * each event is written in turn.
+     */
+    default void writeAll(List<LogEvent> events) {
+        for (LogEvent event : events) {
+            write(event);
+        }
+    }
+}
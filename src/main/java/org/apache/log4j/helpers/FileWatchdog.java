@@ -0,0 +1,87 @@
+package org.apache.log4j.helpers;
+
+import java.io.File;
+
+/**
+ * Daemon thread that checks a file for changes at a fixed interval and calls
+ * {@link #doOnChange()} when its modification time moves, as used by
+ * configureAndWatch.
+ */
+public abstract class FileWatchdog extends Thread {
+
+    /** Default check interval in milliseconds (60 seconds). */
+    public static final long DEFAULT_DELAY = 60000L;
+
+    protected final String filename;
+    protected volatile long delay = DEFAULT_DELAY;
+
+    private final File file;
+    private long lastModified;
+    private boolean warnedAlready;
+    private volatile boolean interrupted;
+
+    protected FileWatchdog(String filename) {
+        super("log4Rich-FileWatchdog");
+        this.filename = filename;
+        this.file = new File(filename);
+        setDaemon(true);
+        checkAndConfigure();
+    }
+
+    /**
+     * Set the delay between checks, in milliseconds.
+     */
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * Apply the file; called once on creation and again whenever it changes.
+     */
+    protected abstract void doOnChange();
+
+    protected void checkAndConfigure() {
+        boolean exists;
+        try {
+            exists = file.exists();
+        } catch (SecurityException e) {
+            System.err.println("Was not allowed to read check file existence, file:[" + filename + "].");
+            interrupted = true;
+            return;
+        }
+
+        if (exists) {
+            long modified = file.lastModified();
+            if (modified > lastModified) {
+                lastModified = modified;
+                doOnChange();
+                warnedAlready = false;
+            }
+        } else if (!warnedAlready) {
+            System.err.println("[" + filename + "] does not exist.");
+            warnedAlready = true;
+        }
+    }
+
+    /**
+     * Stop watching the file.
+     */
+    public void shutdown() {
+        interrupted = true;
+        interrupt();
+    }
+
+    @Override
+    public void run() {
+        while (!interrupted) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                // shutdown() interrupts to stop the watchdog
+            }
+            if (!interrupted) {
+                checkAndConfigure();
+            }
+        }
+    }
+}
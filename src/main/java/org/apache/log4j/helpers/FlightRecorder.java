@@ -0,0 +1,316 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory flight recorder for below-threshold events.
+ *
+ * Loggers selected by configuration capture events that are disabled for
+ * output (typically DEBUG) into a fixed-size striped ring buffer. Nothing is
+ * rendered at capture time: the message template, its arguments and the
+ * throwable are stored by reference in one immutable record per event. When a recorded logger emits an event at
+ * or above the trigger level, the buffered events are rendered in timestamp
+ * order and written out ahead of the triggering event.
+ *
+ * Because rendering is deferred, mutable message objects are rendered with
+ * their state at dump time, not at capture time.
+ */
+public final class FlightRecorder {
+
+    private static final String LINE_SEPARATOR = PlainLayout.LINE_SEPARATOR;
+
+    private static volatile FlightRecorder active;
+
+    private final String[] loggerPrefixes;
+    private final int thresholdInt;
+    private final int triggerInt;
+    private final long maxAgeMillis;
+    private final String fileName;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    /** Held across the dump's file I/O, which a virtual thread may wait for without pinning. */
+    private final ReentrantLock dumpLock = new ReentrantLock();
+
+    private FlightRecorder(String[] loggerPrefixes, Level threshold, Level trigger,
+                           int bufferSize, long maxAgeMillis, String fileName) {
+        this.loggerPrefixes = loggerPrefixes;
+        this.thresholdInt = threshold.toInt();
+        this.triggerInt = trigger.toInt();
+        this.maxAgeMillis = maxAgeMillis;
+        this.fileName = fileName;
+
+        int stripeCount = ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+        int slotsPerStripe = ceilingPowerOfTwo(Math.max(1, bufferSize / stripeCount));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(slotsPerStripe);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Install a flight recorder, replacing any previous one.
+     *
+     * @param loggers logger name prefixes to record; "ROOT" or "*" records all loggers
+     * @param threshold lowest level captured into the buffer
+     * @param trigger level at or above which the buffer is dumped
+     * @param bufferSize total number of buffered events across all stripes
+     * @param maxAgeMillis events older than this are not dumped; 0 disables the limit
+     * @param fileName file the dump is appended to, or null to emit it as one record through the triggering logger
+     */
+    public static void configure(String[] loggers, Level threshold, Level trigger,
+                                 int bufferSize, long maxAgeMillis, String fileName) {
+        active = new FlightRecorder(loggers, threshold, trigger, bufferSize, maxAgeMillis, fileName);
+    }
+
+    /**
+     * Remove the active flight recorder. Buffered events are discarded.
+     */
+    public static void disable() {
+        active = null;
+    }
+
+    /**
+     * Get the active flight recorder, or null when none is configured.
+     */
+    public static FlightRecorder getActive() {
+        return active;
+    }
+
+    /**
+     * Resolve the recording binding for a logger against the active recorder.
+     * Callers cache the result and re-bind when {@link Binding#isCurrent()} turns false.
+     */
+    public static Binding bind(String loggerName) {
+        FlightRecorder recorder = active;
+        return new Binding(recorder, recorder != null && recorder.isRecording(loggerName));
+    }
+
+    /**
+     * Check whether events of the given logger are recorded.
+     */
+    public boolean isRecording(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if ("*".equals(prefix) || "ROOT".equals(prefix)
+                    || loggerName.equals(prefix) || loggerName.startsWith(prefix + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a disabled event at the given level should be captured.
+     */
+    public boolean isCaptured(Level level) {
+        return level.toInt() >= thresholdInt && level.toInt() < triggerInt;
+    }
+
+    /**
+     * Check whether an event at the given level dumps the buffer.
+     */
+    public boolean isTrigger(Level level) {
+        return level.toInt() >= triggerInt;
+    }
+
+    /**
+     * Capture an unrendered event. Only references are stored.
+     */
+    public void capture(String loggerName, Level level, Object template, Object[] args, Throwable throwable) {
+        Thread thread = Thread.currentThread();
+        Stripe stripe = stripes[(int) thread.getId() & stripeMask];
+        long sequence = stripe.cursor.getAndIncrement();
+        // One immutable record per capture, published with a single volatile store, so a
+        // dump sees either the whole previous event in the slot or the whole new one
+        stripe.slots.set((int) (sequence & stripe.mask),
+                         new Snapshot(sequence, System.currentTimeMillis(), loggerName, level, template, args,
+                                      throwable, thread.getName()));
+    }
+
+    /**
+     * Render and write out all buffered events, then clear the buffer.
+     *
+     * @param loggerName the logger whose event triggered the dump
+     * @param level the level of the triggering event
+     * @param fallback backend logger used when no dump file is configured
+     * @return the number of events written
+     */
+    public int dump(String loggerName, Level level, com.log4rich.core.Logger fallback) {
+        dumpLock.lock();
+        try {
+            List<Snapshot> snapshots = drain();
+            if (snapshots.isEmpty()) {
+                return 0;
+            }
+
+            String block = renderBlock(snapshots, loggerName, level);
+            if (fileName != null) {
+                writeToFile(block);
+            } else {
+                Log4RichSink.write(fallback, level, block, null);
+            }
+            return snapshots.size();
+        } finally {
+            dumpLock.unlock();
+        }
+    }
+
+    private List<Snapshot> drain() {
+        long oldest = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+        List<Snapshot> snapshots = new ArrayList<>();
+
+        for (Stripe stripe : stripes) {
+            long end = stripe.cursor.get();
+            long start = Math.max(stripe.floor, end - stripe.slots.length());
+            for (long seq = start; seq < end; seq++) {
+                Snapshot snapshot = stripe.slots.get((int) (seq & stripe.mask));
+                if (snapshot == null || snapshot.sequence != seq) {
+                    continue; // overwritten or not yet published
+                }
+                if (snapshot.timestamp >= oldest) {
+                    snapshots.add(snapshot);
+                }
+            }
+            stripe.floor = end;
+        }
+
+        Collections.sort(snapshots, new Comparator<Snapshot>() {
+            @Override
+            public int compare(Snapshot a, Snapshot b) {
+                return Long.compare(a.timestamp, b.timestamp);
+            }
+        });
+        return snapshots;
+    }
+
+    /**
+     * Render the dump as one framed block: a header line followed by one line
+     * per event, each with its own captured timestamp, thread and level. Written
+     * through a logger, the block is a single record at the trigger level, so an
+     * alert on that level fires once per dump rather than once per event.
+     */
+    private static String renderBlock(List<Snapshot> snapshots, String loggerName, Level level) {
+        PlainLayout layout = new PlainLayout();
+        StringBuilder sb = new StringBuilder(128 * (snapshots.size() + 1));
+        sb.append("--- flight recorder: ").append(snapshots.size()).append(" events preceding ")
+          .append(level).append(" in ").append(loggerName).append(" ---");
+        for (Snapshot snapshot : snapshots) {
+            sb.append(LINE_SEPARATOR).append(render(snapshot, layout));
+        }
+        return sb.toString();
+    }
+
+    private void writeToFile(String block) {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(fileName, true), StandardCharsets.UTF_8)) {
+            writer.write(block);
+            writer.write(LINE_SEPARATOR);
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to write flight recorder dump to " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    private static String render(Snapshot snapshot, PlainLayout layout) {
+        String message;
+        if (snapshot.args != null && snapshot.template instanceof String) {
+            try {
+                message = MessageRenderer.format((String) snapshot.template, snapshot.args);
+            } catch (RuntimeException e) {
+                message = String.valueOf(snapshot.template);
+            }
+        } else {
+            message = MessageRenderer.render(snapshot.template);
+        }
+        return layout.format(snapshot.timestamp, snapshot.threadName, snapshot.level,
+                             snapshot.loggerName, message, snapshot.throwable);
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        int result = 1;
+        while (result < value) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Per-logger view of the active recorder, cached by {@link org.apache.log4j.Logger}.
+     */
+    public static final class Binding {
+
+        public static final Binding UNBOUND = new Binding(null, false);
+
+        private final FlightRecorder recorder;
+        private final boolean recording;
+
+        private Binding(FlightRecorder recorder, boolean recording) {
+            this.recorder = recorder;
+            this.recording = recording;
+        }
+
+        /**
+         * Check whether this binding still reflects the active recorder.
+         */
+        public boolean isCurrent() {
+            return recorder == active && this != UNBOUND;
+        }
+
+        /**
+         * Get the recorder for the bound logger, or null when it is not recorded.
+         */
+        public FlightRecorder getRecorder() {
+            return recording ? recorder : null;
+        }
+    }
+
+    private static final class Stripe {
+        final AtomicReferenceArray<Snapshot> slots;
+        final int mask;
+        final AtomicLong cursor = new AtomicLong();
+        long floor;
+
+        Stripe(int size) {
+            this.slots = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        }
+    }
+
+    /**
+     * A captured event, immutable once published to its slot.
+     */
+    private static final class Snapshot {
+        final long sequence;
+        final long timestamp;
+        final String loggerName;
+        final Level level;
+        final Object template;
+        final Object[] args;
+        final Throwable throwable;
+        final String threadName;
+
+        Snapshot(long sequence, long timestamp, String loggerName, Level level, Object template, Object[] args,
+                 Throwable throwable, String threadName) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.loggerName = loggerName;
+            this.level = level;
+            this.template = template;
+            this.args = args;
+            this.throwable = throwable;
+            this.threadName = threadName;
+        }
+    }
+}
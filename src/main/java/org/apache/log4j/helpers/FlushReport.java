@@ -0,0 +1,64 @@
+package org.apache.log4j.helpers;
+
+/**
+ * Outcome of a flush or shutdown: how many queued events reached log4Rich,
+ * how many were still pending at the deadline, and which files were forced
+ * to disk. Pending events are not necessarily lost: a dispatcher that missed
+ * the deadline may still write them, and events racing a close are written
+ * by the logging thread.
+ */
+public final class FlushReport {
+
+    private final long flushedEvents;
+    private final long pendingEvents;
+    private final int syncedFiles;
+    private final long elapsedMillis;
+    private final boolean timedOut;
+
+    public FlushReport(long flushedEvents, long pendingEvents, int syncedFiles, long elapsedMillis,
+                       boolean timedOut) {
+        this.flushedEvents = flushedEvents;
+        this.pendingEvents = pendingEvents;
+        this.syncedFiles = syncedFiles;
+        this.elapsedMillis = elapsedMillis;
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * Get the number of queued events written while flushing.
+     */
+    public long getFlushedEvents() {
+        return flushedEvents;
+    }
+
+    /**
+     * Get the number of queued events still undelivered when the deadline expired.
+     */
+    public long getPendingEvents() {
+        return pendingEvents;
+    }
+
+    /**
+     * Get the number of log files forced to disk.
+     */
+    public int getSyncedFiles() {
+        return syncedFiles;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Check whether the deadline expired before everything was flushed.
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    @Override
+    public String toString() {
+        return "flushed " + flushedEvents + " events, pending " + pendingEvents + ", synced " + syncedFiles
+            + " files in " + elapsedMillis + " ms" + (timedOut ? " (deadline expired)" : "");
+    }
+}
@@ -0,0 +1,200 @@
+package org.apache.log4j.helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses rolled log files on a shared, bounded pool of low-priority
+ * daemon threads.
+ *
+ * A file is split into blocks that are compressed in parallel, each into a
+ * complete gzip member, and the members are written to the target in order.
+ * Concatenated members are one valid gzip file (RFC 1952), which gunzip,
+ * zcat and {@link java.util.zip.GZIPInputStream} read as a whole. Each call
+ * keeps at most two blocks per pool thread in flight, so memory stays bounded
+ * whatever the file size.
+ *
+ * The target is written under a temporary name and renamed when complete,
+ * and only then is the source deleted, so an interrupted compression never
+ * loses the rolled file.
+ */
+public final class GzipCompressor {
+
+    public static final int DEFAULT_BLOCK_SIZE = 4 * 1024 * 1024;
+
+    private static final Object lock = new Object();
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    private static int threads = defaultThreads();
+    private static ThreadPoolExecutor pool;
+
+    private GzipCompressor() {
+    }
+
+    /**
+     * Default pool size: half the available processors, at least one.
+     */
+    public static int defaultThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    /**
+     * Set the number of pool threads. A running pool finishes its queued blocks
+     * and is replaced on next use.
+     */
+    public static void setThreads(int count) {
+        synchronized (lock) {
+            int size = Math.max(1, count);
+            if (size == threads) {
+                return;
+            }
+            threads = size;
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
+
+    public static int getThreads() {
+        synchronized (lock) {
+            return threads;
+        }
+    }
+
+    /**
+     * Compress a file into a multi-member gzip file and delete the source.
+     *
+     * @param source file to compress
+     * @param target gzip file to write; replaced if it exists
+     * @param blockSize bytes of input per gzip member
+     */
+    public static void compress(File source, File target, int blockSize) throws IOException {
+        int size = Math.max(64 * 1024, blockSize);
+        ExecutorService executor = pool();
+        int maxInFlight = 2 * getThreads();
+        File temporary = new File(target.getPath() + ".tmp");
+
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             OutputStream out = new FileOutputStream(temporary)) {
+            long length = in.size();
+            long offset = 0;
+            do {
+                if (inFlight.size() >= maxInFlight) {
+                    out.write(await(inFlight.removeFirst()));
+                }
+                int blockLength = (int) Math.min(size, length - offset);
+                Block block = new Block(in, offset, blockLength);
+                try {
+                    inFlight.addLast(executor.submit(block));
+                } catch (RejectedExecutionException e) {
+                    // The pool was resized; blocks already queued still run on the old one
+                    executor = pool();
+                    inFlight.addLast(executor.submit(block));
+                }
+                offset += blockLength;
+            } while (offset < length);
+            while (!inFlight.isEmpty()) {
+                out.write(await(inFlight.removeFirst()));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Future<byte[]> block : inFlight) {
+                block.cancel(false);
+            }
+            temporary.delete();
+            throw e;
+        }
+
+        target.delete();
+        if (!temporary.renameTo(target)) {
+            temporary.delete();
+            throw new IOException("Failed to rename " + temporary + " to " + target);
+        }
+        source.delete();
+    }
+
+    private static byte[] await(Future<byte[]> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to compress block", cause);
+        }
+    }
+
+    private static ExecutorService pool() {
+        synchronized (lock) {
+            if (pool == null) {
+                pool = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                                              new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable task) {
+                        Thread thread = new Thread(task, "log4Rich-gzip-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+                pool.allowCoreThreadTimeOut(true);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Compresses one block of the source into a complete gzip member.
+     */
+    private static final class Block implements Callable<byte[]> {
+        private final FileChannel in;
+        private final long offset;
+        private final int length;
+
+        Block(FileChannel in, long offset, int length) {
+            this.in = in;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public byte[] call() throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (in.read(buffer, offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(512, length / 4));
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 65536)) {
+                gzip.write(buffer.array(), 0, buffer.position());
+            }
+            return compressed.toByteArray();
+        }
+    }
+}
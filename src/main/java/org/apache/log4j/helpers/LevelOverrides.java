@@ -0,0 +1,280 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.MDC;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Level overrides selected by MDC values, such as DEBUG for com.shop while
+ * the thread's {@code tenant} is {@code acme}.
+ *
+ * log4Rich has a single threshold, so while overrides are installed its root
+ * level is lowered to the most verbose override level and the bridge applies
+ * the configured level itself: an event passes when it is at or above the
+ * configured level, or when an override matches the thread's context. With no
+ * overrides the bridge threshold is {@link Integer#MIN_VALUE}, so the check is
+ * a single int compare.
+ *
+ * log4Rich has no per-logger levels either, so the lowering is process-wide:
+ * while an override is installed, loggers obtained from log4Rich directly
+ * rather than through this bridge also log at the most verbose override
+ * level. Keep overrides short-lived in applications that log natively too.
+ *
+ * Removing the last override puts log4Rich's root level back: to the level
+ * last configured, or, when none is configured, to the level log4Rich had
+ * before the first override was added. Overrides outlive reconfiguration and
+ * are only removed by {@link #remove} and {@link #clear}.
+ */
+public final class LevelOverrides {
+
+    private static final Object lock = new Object();
+
+    /** Bridge-side threshold; MIN_VALUE while no override or custom root level is installed. */
+    private static volatile int threshold = Integer.MIN_VALUE;
+    private static volatile Table active = new Table(new LinkedHashMap<String, Rule>());
+
+    /** The root level last configured, or null when log4Rich's own level applies. */
+    private static Level configuredLevel;
+
+    /** The level log4Rich is kept at without overrides, restored when the last one is removed. */
+    private static Level baseLevel;
+
+    private LevelOverrides() {
+    }
+
+    /**
+     * Check whether an event that log4Rich accepts should be logged.
+     */
+    public static boolean permits(String loggerName, Level level) {
+        return level.toInt() >= threshold || matches(loggerName, level);
+    }
+
+    static int threshold() {
+        return threshold;
+    }
+
+    /**
+     * Set the root level from configuration, keeping log4Rich lowered while overrides are installed.
+     */
+    public static void setRootLevel(Level level) {
+        synchronized (lock) {
+            configuredLevel = level;
+            apply(active);
+        }
+    }
+
+    /**
+     * Forget the configured root level, so that removing the last override
+     * restores log4Rich's own level until a root level is configured again.
+     */
+    public static void resetRootLevel() {
+        synchronized (lock) {
+            configuredLevel = null;
+            apply(active);
+        }
+    }
+
+    /**
+     * Add or replace an override.
+     *
+     * @param key MDC key
+     * @param value MDC value that selects the override
+     * @param loggerPrefix logger name or prefix; "com.shop" and "com.shop.*" both cover
+     *                     com.shop and its descendants, "*" or "" covers every logger
+     * @param level most verbose level logged while the context matches
+     */
+    public static void add(String key, String value, String loggerPrefix, Level level) {
+        if (key == null || value == null || level == null) {
+            throw new IllegalArgumentException("Level override needs a key, a value and a level");
+        }
+        synchronized (lock) {
+            Map<String, Rule> rules = new LinkedHashMap<>(active.rules);
+            Rule rule = new Rule(key, value, prefix(loggerPrefix), level);
+            rules.put(rule.id(), rule);
+            apply(new Table(rules));
+        }
+    }
+
+    /**
+     * Remove an override.
+     *
+     * @return true if it was installed
+     */
+    public static boolean remove(String key, String value, String loggerPrefix) {
+        synchronized (lock) {
+            Map<String, Rule> rules = new LinkedHashMap<>(active.rules);
+            if (rules.remove(new Rule(key, value, prefix(loggerPrefix), Level.OFF).id()) == null) {
+                return false;
+            }
+            apply(new Table(rules));
+            return true;
+        }
+    }
+
+    /**
+     * Remove every override and restore log4Rich's root level.
+     */
+    public static void clear() {
+        synchronized (lock) {
+            apply(new Table(new LinkedHashMap<String, Rule>()));
+        }
+    }
+
+    /**
+     * Describe the installed overrides, e.g. "tenant=acme -> DEBUG for com.shop".
+     */
+    public static String[] describe() {
+        List<String> descriptions = new ArrayList<>();
+        for (Rule rule : active.rules.values()) {
+            descriptions.add(rule.toString());
+        }
+        return descriptions.toArray(new String[0]);
+    }
+
+    private static boolean matches(String loggerName, Level level) {
+        Table table = active;
+        int levelInt = level.toInt();
+        for (int k = 0; k < table.keys.length; k++) {
+            Object value = MDC.get(table.keys[k]);
+            if (value == null) {
+                continue;
+            }
+            Rule[] rules = table.byValue.get(k).get(value instanceof String ? (String) value : value.toString());
+            if (rules == null) {
+                continue;
+            }
+            for (Rule rule : rules) {
+                if (levelInt >= rule.level.toInt() && rule.covers(loggerName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void apply(Table table) {
+        if (configuredLevel != null) {
+            baseLevel = configuredLevel;
+        } else if (baseLevel == null || active.rules.isEmpty()) {
+            // Not lowered yet, so this is log4Rich's own level
+            baseLevel = probeRootLevel();
+        }
+        Level lowest = baseLevel;
+        for (Rule rule : table.rules.values()) {
+            if (rule.level.toInt() < lowest.toInt()) {
+                lowest = rule.level;
+            }
+        }
+        // Filter in the bridge while log4Rich's level changes, so no event below
+        // the configured level slips through in between
+        threshold = baseLevel.toInt();
+        LevelTable.rebuild();
+        active = table;
+        com.log4rich.config.ConfigurationManager.setRootLevel(lowest.getLog4RichLevel());
+        // A custom root level between two log4Rich levels stays filtered in the bridge
+        if (table.rules.isEmpty() && isStandard(baseLevel)) {
+            threshold = Integer.MIN_VALUE;
+            LevelTable.rebuild();
+        }
+    }
+
+    private static boolean isStandard(Level level) {
+        return level.toInt() == Level.toLevel(level.getLog4RichLevel().name()).toInt()
+            || level.toInt() == Level.ALL.toInt();
+    }
+
+    /**
+     * Find the most verbose level log4Rich's root logger accepts.
+     */
+    private static Level probeRootLevel() {
+        com.log4rich.core.Logger root = BackendRegistry.getBackend(BackendRegistry.ROOT);
+        Level[] levels = { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR, Level.FATAL };
+        for (Level level : levels) {
+            if (root.isLevelEnabled(level.getLog4RichLevel())) {
+                return level;
+            }
+        }
+        return Level.OFF;
+    }
+
+    private static String prefix(String loggerPrefix) {
+        if (loggerPrefix == null) {
+            return "";
+        }
+        String prefix = loggerPrefix.trim();
+        if (prefix.equals("*") || prefix.equals(BackendRegistry.ROOT)) {
+            return "";
+        }
+        return prefix.endsWith(".*") ? prefix.substring(0, prefix.length() - 2) : prefix;
+    }
+
+    private static final class Rule {
+        final String key;
+        final String value;
+        final String prefix;
+        final Level level;
+
+        Rule(String key, String value, String prefix, Level level) {
+            this.key = key;
+            this.value = value;
+            this.prefix = prefix;
+            this.level = level;
+        }
+
+        String id() {
+            return key + '=' + value + ' ' + prefix;
+        }
+
+        boolean covers(String loggerName) {
+            return prefix.isEmpty()
+                || loggerName.startsWith(prefix)
+                   && (loggerName.length() == prefix.length() || loggerName.charAt(prefix.length()) == '.');
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value + " -> " + level + " for " + (prefix.isEmpty() ? "*" : prefix);
+        }
+    }
+
+    /**
+     * Immutable lookup structure: for each MDC key, the rules keyed by value.
+     */
+    private static final class Table {
+        final Map<String, Rule> rules;
+        final String[] keys;
+        final List<Map<String, Rule[]>> byValue;
+
+        Table(Map<String, Rule> rules) {
+            this.rules = rules;
+            Map<String, Map<String, List<Rule>>> grouped = new LinkedHashMap<>();
+            for (Rule rule : rules.values()) {
+                Map<String, List<Rule>> values = grouped.get(rule.key);
+                if (values == null) {
+                    values = new HashMap<>();
+                    grouped.put(rule.key, values);
+                }
+                List<Rule> list = values.get(rule.value);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    values.put(rule.value, list);
+                }
+                list.add(rule);
+            }
+            keys = grouped.keySet().toArray(new String[0]);
+            byValue = new ArrayList<>(keys.length);
+            for (int k = 0; k < keys.length; k++) {
+                Map<String, Rule[]> values = new HashMap<>();
+                for (Map.Entry<String, List<Rule>> entry : grouped.get(keys[k]).entrySet()) {
+                    values.put(entry.getKey(), entry.getValue().toArray(new Rule[0]));
+                }
+                byValue.add(values);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+import java.util.Arrays;
+
+/**
+ * Per-level lookups indexed by {@link Level#getOrdinal()}.
+ *
+ * The bridge filters events with two thresholds of its own, the adaptive
+ * verbosity floor and the level override threshold. Their combined result is
+ * kept as one flag per ordinal and rebuilt whenever either threshold or the
+ * set of levels changes, so a level check is a single array load. A cleared
+ * flag is not final: an override may still match the thread's context, which
+ * the caller then checks. log4Rich's own threshold can change outside the
+ * bridge, so it is always asked directly.
+ *
+ * The table also holds the prefix written ahead of messages at custom levels,
+ * since log4Rich can only name its own levels.
+ */
+public final class LevelTable {
+
+    private static final Object lock = new Object();
+
+    private static Level[] levels = new Level[0];
+    private static volatile boolean[] passes = new boolean[0];
+    private static volatile String[] prefixes = new String[0];
+
+    private LevelTable() {
+    }
+
+    /**
+     * Check whether a level is at or above every bridge-side threshold. False
+     * means the adaptive floor or the override threshold has to be checked.
+     */
+    public static boolean passes(Level level) {
+        boolean[] table = passes;
+        int ordinal = level.getOrdinal();
+        return ordinal < table.length && table[ordinal];
+    }
+
+    /**
+     * Get the prefix written to log4Rich ahead of a message at this level, such
+     * as "[AUDIT] ", or null for levels log4Rich writes under their own name.
+     */
+    public static String prefix(Level level) {
+        String[] table = prefixes;
+        int ordinal = level.getOrdinal();
+        return ordinal < table.length ? table[ordinal] : null;
+    }
+
+    /**
+     * Add a newly registered level; called by {@link Level} as it assigns the ordinal.
+     */
+    public static void register(Level level, int ordinal) {
+        synchronized (lock) {
+            if (ordinal >= levels.length) {
+                levels = Arrays.copyOf(levels, ordinal + 1);
+            }
+            levels[ordinal] = level;
+            String[] grown = Arrays.copyOf(prefixes, levels.length);
+            grown[ordinal] = level.toString().equals(level.getLog4RichLevel().name())
+                ? null : "[" + level + "] ";
+            prefixes = grown;
+            rebuild();
+        }
+    }
+
+    /**
+     * Recompute the flags after a bridge-side threshold changed.
+     */
+    static void rebuild() {
+        synchronized (lock) {
+            int threshold = Math.max(AdaptiveVerbosity.floor(), LevelOverrides.threshold());
+            boolean[] table = new boolean[levels.length];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = levels[i] != null && levels[i].toInt() >= threshold;
+            }
+            passes = table;
+        }
+    }
+}
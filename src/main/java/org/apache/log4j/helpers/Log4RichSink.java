@@ -0,0 +1,79 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+/**
+ * Sink that writes events to the log4Rich logger they carry.
+ *
+ * log4Rich takes the thread name from the thread that calls it, so an event
+ * written by a dispatcher or batching stage would carry the writer's name. The
+ * name of the thread that logged it is written ahead of the message instead,
+ * as in {@code [http-nio-8080-exec-3] order placed}; the writer thread itself
+ * is never renamed. log4Rich stamps the record itself when it is written, so
+ * the timestamp of a queued event trails the logging call by its time in the
+ * queue, and caller location is not available. Sinks the bridge writes itself,
+ * such as striped and rolling files, use the thread name and time the event
+ * was logged.
+ */
+public final class Log4RichSink implements EventSink {
+
+    public static final Log4RichSink INSTANCE = new Log4RichSink();
+
+    private Log4RichSink() {
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        String message = event.getMessage();
+        String threadName = event.getThreadName();
+        if (threadName != null && !threadName.equals(Thread.currentThread().getName())) {
+            message = "[" + threadName + "] " + message;
+        }
+        write(event.getBackend(), event.getLevel(), message, event.getThrowable());
+    }
+
+    /**
+     * Write a message to a log4Rich logger at the given bridge level. While the
+     * active {@link ThrowableRenderer} limits stack traces, the throwable is
+     * rendered by it and appended to the message instead of handed to log4Rich.
+     * A custom level is written at its log4Rich level with its own name ahead of
+     * the message, as in {@code ERROR [AUDIT] payment approved}.
+     */
+    public static void write(com.log4rich.core.Logger backend, Level level, String message, Throwable throwable) {
+        String prefix = LevelTable.prefix(level);
+        if (prefix != null) {
+            message = prefix + message;
+        }
+        if (throwable != null) {
+            ThrowableRenderer renderer = ThrowableRenderer.getActive();
+            if (renderer.isLimited()) {
+                StringBuilder sb = new StringBuilder(1024);
+                sb.append(message).append(PlainLayout.LINE_SEPARATOR);
+                renderer.render(throwable, sb);
+                message = sb.toString();
+                throwable = null;
+            }
+        }
+        if (throwable == null) {
+            switch (level.getLog4RichLevel()) {
+                case TRACE: backend.trace(message); break;
+                case DEBUG: backend.debug(message); break;
+                case INFO: backend.info(message); break;
+                case WARN: backend.warn(message); break;
+                case ERROR: backend.error(message); break;
+                case FATAL: backend.fatal(message); break;
+                default: break;
+            }
+        } else {
+            switch (level.getLog4RichLevel()) {
+                case TRACE: backend.trace(message, throwable); break;
+                case DEBUG: backend.debug(message, throwable); break;
+                case INFO: backend.info(message, throwable); break;
+                case WARN: backend.warn(message, throwable); break;
+                case ERROR: backend.error(message, throwable); break;
+                case FATAL: backend.fatal(message, throwable); break;
+                default: break;
+            }
+        }
+    }
+}
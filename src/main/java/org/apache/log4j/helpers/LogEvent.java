@@ -0,0 +1,69 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+/**
+ * A rendered logging event handed from a bridge {@link org.apache.log4j.Logger}
+ * to a bridge-side write path.
+ *
+ * The message is rendered on the calling thread so that later changes to the
+ * logged objects cannot affect what is written.
+ */
+public final class LogEvent {
+
+    private final com.log4rich.core.Logger backend;
+    private final String loggerName;
+    private final Level level;
+    private final String message;
+    private final Throwable throwable;
+    private final long timeStamp;
+    private final String threadName;
+
+    public LogEvent(com.log4rich.core.Logger backend, String loggerName, Level level,
+                    String message, Throwable throwable) {
+        this(backend, loggerName, level, message, throwable,
+             System.currentTimeMillis(), Thread.currentThread().getName());
+    }
+
+    public LogEvent(com.log4rich.core.Logger backend, String loggerName, Level level,
+                    String message, Throwable throwable, long timeStamp, String threadName) {
+        this.backend = backend;
+        this.loggerName = loggerName;
+        this.level = level;
+        this.message = message;
+        this.throwable = throwable;
+        this.timeStamp = timeStamp;
+        this.threadName = threadName;
+    }
+
+    /**
+     * Get the log4Rich logger this event is written to.
+     */
+    public com.log4rich.core.Logger getBackend() {
+        return backend;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Throwable getThrowable() {
+        return throwable;
+    }
+
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+}
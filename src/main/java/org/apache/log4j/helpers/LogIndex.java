@@ -0,0 +1,511 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reader for the sidecar index written by {@link LogIndexWriter}, used to
+ * seek straight to a time range or to records at or above a level instead of
+ * scanning the whole log file. Only the blocks whose timestamps overlap the
+ * range and whose level bitmap matches are read; records in them are then
+ * filtered one by one. Parts of the file the index does not cover, such as
+ * content written before the index existed, are always scanned.
+ *
+ * Records are lines that start with a {@code yyyy-MM-dd HH:mm:ss} timestamp,
+ * optionally followed by milliseconds, as written by the bridge's own layout
+ * and log4Rich's default pattern; other lines, like stack trace frames, belong
+ * to the record before them. {@link #build} indexes an existing file, such as
+ * one rolled by log4Rich, the same way. Usage:
+ * {@code java -cp log4j-log4Rich.jar org.apache.log4j.helpers.LogIndex [--build] <file> [--from time] [--to time] [--level level]}
+ *
+ * File format: a {@link #HEADER_SIZE}-byte header (magic, version, block size,
+ * reserved) followed by one entry per block:
+ * {@code long start, long end, long min timestamp, long max timestamp, int record count, int level bits}.
+ */
+public final class LogIndex {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    public static final String SUFFIX = ".idx";
+
+    static final int MAGIC = 0x4C345249; // "L4RI"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 40;
+
+    /** Level bits, TRACE through FATAL; blocks not covered by the index have all of them. */
+    static final int ALL_LEVELS = 0x3F;
+
+    private static final String TIMESTAMP_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final int TIMESTAMP_LENGTH = TIMESTAMP_PATTERN.length();
+
+    private final String logFile;
+    private final List<Block> blocks;
+
+    private LogIndex(String logFile, List<Block> blocks) {
+        this.logFile = logFile;
+        this.blocks = Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * Get the index file name of a log file.
+     */
+    public static String indexFileName(String logFile) {
+        return logFile + SUFFIX;
+    }
+
+    /**
+     * Read the index of a log file.
+     *
+     * @throws FileNotFoundException if the file has no index
+     * @throws IOException if the index cannot be read or is not an index
+     */
+    public static LogIndex open(String logFile) throws IOException {
+        long length = new File(logFile).length();
+        List<Block> indexed = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(indexFileName(logFile)), 65536))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(indexFileName(logFile) + " is not a log index");
+            }
+            in.readInt(); // block size
+            in.readInt(); // reserved
+            byte[] entry = new byte[ENTRY_SIZE];
+            while (readEntry(in, entry)) {
+                DataInputStream fields = new DataInputStream(new ByteArrayInputStream(entry));
+                Block block = new Block(fields.readLong(), fields.readLong(), fields.readLong(), fields.readLong(),
+                                        fields.readInt(), fields.readInt());
+                // Entries past the end belong to content that has since been truncated
+                if (block.end <= length) {
+                    indexed.add(block);
+                }
+            }
+        }
+        return new LogIndex(logFile, withGaps(indexed, length));
+    }
+
+    /**
+     * Index an existing log file, replacing any index it has.
+     */
+    public static LogIndex build(String logFile, int blockSize) throws IOException {
+        new File(indexFileName(logFile)).delete();
+        TimestampParser timestamps = new TimestampParser();
+        try (LineReader reader = new LineReader(new FileInputStream(logFile), 0L);
+             LogIndexWriter writer = new LogIndexWriter(logFile, blockSize)) {
+            long recordStart = -1L;
+            long recordTimestamp = 0L;
+            int recordLevel = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long timestamp = timestamps.parse(line);
+                if (timestamp == Long.MIN_VALUE) {
+                    continue;
+                }
+                if (recordStart >= 0) {
+                    writer.record(recordStart, (int) (reader.lineStart() - recordStart), recordTimestamp, recordLevel);
+                }
+                recordStart = reader.lineStart();
+                recordTimestamp = timestamp;
+                recordLevel = parseLevel(line);
+            }
+            if (recordStart >= 0) {
+                writer.record(recordStart, (int) (reader.position() - recordStart), recordTimestamp, recordLevel);
+            }
+        }
+        return open(logFile);
+    }
+
+    public String getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Get the blocks of the file in order, including those the index does not cover.
+     */
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Get the blocks that may hold records in a time range at or above a level,
+     * with adjacent blocks merged.
+     *
+     * @param from earliest timestamp, inclusive
+     * @param to latest timestamp, inclusive
+     * @param minLevel lowest level wanted, or null for all
+     */
+    public List<Block> select(long from, long to, Level minLevel) {
+        int mask = minLevel == null ? ALL_LEVELS : ALL_LEVELS & ~(levelBit(minLevel.toInt()) - 1);
+        List<Block> selected = new ArrayList<>();
+        Block run = null;
+        for (Block block : blocks) {
+            if (block.maxTimestamp < from || block.minTimestamp > to || (block.levels & mask) == 0) {
+                continue;
+            }
+            if (run != null && run.end == block.start) {
+                run = new Block(run.start, block.end, Math.min(run.minTimestamp, block.minTimestamp),
+                                Math.max(run.maxTimestamp, block.maxTimestamp),
+                                run.records < 0 || block.records < 0 ? -1 : run.records + block.records,
+                                run.levels | block.levels);
+                selected.set(selected.size() - 1, run);
+            } else {
+                run = block;
+                selected.add(run);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Write the records in a time range at or above a level, reading only the
+     * blocks that may hold them.
+     *
+     * @return the number of records written
+     */
+    public long scan(long from, long to, Level minLevel, Writer out) throws IOException {
+        TimestampParser timestamps = new TimestampParser();
+        int minLevelInt = minLevel == null ? Integer.MIN_VALUE : minLevel.toInt();
+        long count = 0;
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            for (Block block : select(from, to, minLevel)) {
+                file.seek(block.start);
+                // Not closed: closing would close the shared file
+                LineReader reader = new LineReader(Channels.newInputStream(file.getChannel()), block.start);
+                boolean matching = false;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    long timestamp = timestamps.parse(line);
+                    if (timestamp != Long.MIN_VALUE) {
+                        // Blocks end on record boundaries, so stop at the first record past the end
+                        if (reader.lineStart() >= block.end) {
+                            break;
+                        }
+                        matching = timestamp >= from && timestamp <= to && parseLevel(line) >= minLevelInt;
+                        if (matching) {
+                            count++;
+                        }
+                    }
+                    if (matching) {
+                        out.write(line);
+                        out.write(PlainLayout.LINE_SEPARATOR);
+                    }
+                }
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean build = false;
+        String logFile = null;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        Level minLevel = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if ("--build".equals(args[i])) {
+                    build = true;
+                } else if ("--from".equals(args[i]) && i + 1 < args.length) {
+                    from = parseTime(args[++i]);
+                } else if ("--to".equals(args[i]) && i + 1 < args.length) {
+                    to = parseTime(args[++i]);
+                } else if ("--level".equals(args[i]) && i + 1 < args.length) {
+                    minLevel = Level.toLevel(args[++i]);
+                } else {
+                    logFile = args[i];
+                }
+            }
+        } catch (ParseException e) {
+            logFile = null;
+            System.err.println(e.getMessage());
+        }
+        if (logFile == null) {
+            System.err.println("Usage: LogIndex [--build] <log file> [--from time] [--to time] [--level level]");
+            System.err.println("Times are \"" + TIMESTAMP_PATTERN + "[.SSS]\" or epoch milliseconds");
+            System.exit(2);
+        }
+
+        LogIndex index;
+        if (build || !new File(indexFileName(logFile)).exists()) {
+            index = build(logFile, DEFAULT_BLOCK_SIZE);
+            System.err.println("Indexed " + logFile + " in " + index.getBlocks().size() + " blocks");
+            if (build && from == Long.MIN_VALUE && to == Long.MAX_VALUE && minLevel == null) {
+                return;
+            }
+        } else {
+            index = open(logFile);
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 65536);
+        index.scan(from, to, minLevel, out);
+    }
+
+    /**
+     * Map a level to its bit in a block's level bitmap: TRACE through FATAL,
+     * custom levels sharing the bit of the standard level below them.
+     */
+    static int levelBit(int level) {
+        if (level >= Level.FATAL.toInt()) return 1 << 5;
+        if (level >= Level.ERROR.toInt()) return 1 << 4;
+        if (level >= Level.WARN.toInt()) return 1 << 3;
+        if (level >= Level.INFO.toInt()) return 1 << 2;
+        if (level >= Level.DEBUG.toInt()) return 1 << 1;
+        return 1;
+    }
+
+    /**
+     * Find a record line's level: the first word, brackets removed, that names
+     * a level. Returns {@link Integer#MIN_VALUE} when there is none.
+     */
+    static int parseLevel(String line) {
+        int end = line.indexOf(" - ");
+        end = end < 0 ? Math.min(line.length(), 200) : end;
+        int i = TIMESTAMP_LENGTH;
+        while (i < end) {
+            while (i < end && (line.charAt(i) == ' ' || line.charAt(i) == '[' || line.charAt(i) == ']')) {
+                i++;
+            }
+            int start = i;
+            while (i < end && line.charAt(i) != ' ' && line.charAt(i) != '[' && line.charAt(i) != ']') {
+                i++;
+            }
+            if (i > start && Character.isUpperCase(line.charAt(start))) {
+                Level level = Level.toLevel(line.substring(start, i), null);
+                if (level != null && level.toString().equals(line.substring(start, i))) {
+                    return level.toInt();
+                }
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    private static long parseTime(String value) throws ParseException {
+        String s = value.trim().replace('T', ' ');
+        if (isNumber(s)) {
+            return Long.parseLong(s);
+        }
+        long timestamp = new TimestampParser().parse(s);
+        if (timestamp == Long.MIN_VALUE) {
+            throw new ParseException("Cannot parse time " + value, 0);
+        }
+        return timestamp;
+    }
+
+    private static boolean isNumber(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return !s.isEmpty();
+    }
+
+    private static boolean readEntry(DataInputStream in, byte[] entry) throws IOException {
+        int read = 0;
+        while (read < entry.length) {
+            int n = in.read(entry, read, entry.length - read);
+            if (n < 0) {
+                return false; // a torn last entry is ignored
+            }
+            read += n;
+        }
+        return true;
+    }
+
+    /**
+     * Add blocks for the parts of the file the index does not cover.
+     */
+    private static List<Block> withGaps(List<Block> indexed, long length) {
+        List<Block> blocks = new ArrayList<>(indexed.size() + 2);
+        long covered = 0L;
+        for (Block block : indexed) {
+            if (block.start > covered) {
+                blocks.add(Block.unindexed(covered, block.start));
+            }
+            if (block.start >= covered) {
+                blocks.add(block);
+                covered = block.end;
+            }
+        }
+        if (length > covered) {
+            blocks.add(Block.unindexed(covered, length));
+        }
+        return blocks;
+    }
+
+    /**
+     * A byte range of the log file and what the index knows about its records.
+     */
+    public static final class Block {
+        final long start;
+        final long end;
+        final long minTimestamp;
+        final long maxTimestamp;
+        final int records;
+        final int levels;
+
+        Block(long start, long end, long minTimestamp, long maxTimestamp, int records, int levels) {
+            this.start = start;
+            this.end = end;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+            this.records = records;
+            this.levels = levels;
+        }
+
+        static Block unindexed(long start, long end) {
+            return new Block(start, end, Long.MIN_VALUE, Long.MAX_VALUE, -1, ALL_LEVELS);
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public long getMinTimestamp() {
+            return minTimestamp;
+        }
+
+        public long getMaxTimestamp() {
+            return maxTimestamp;
+        }
+
+        /**
+         * Get the number of records, or -1 for a block the index does not cover.
+         */
+        public int getRecordCount() {
+            return records;
+        }
+
+        public boolean isIndexed() {
+            return records >= 0;
+        }
+    }
+
+    /**
+     * Parses record timestamps, reusing the last parsed second.
+     */
+    private static final class TimestampParser {
+        private final SimpleDateFormat format = new SimpleDateFormat(TIMESTAMP_PATTERN);
+        private String lastSecond;
+        private long lastSecondMillis;
+
+        /**
+         * Parse the timestamp a line starts with, or return Long.MIN_VALUE.
+         */
+        long parse(String line) {
+            if (line.length() < TIMESTAMP_LENGTH || line.charAt(4) != '-' || line.charAt(13) != ':'
+                    || !Character.isDigit(line.charAt(0)) || !Character.isDigit(line.charAt(18))) {
+                return Long.MIN_VALUE;
+            }
+            if (lastSecond == null || !line.startsWith(lastSecond)) {
+                try {
+                    String second = line.substring(0, TIMESTAMP_LENGTH);
+                    lastSecondMillis = format.parse(second).getTime();
+                    lastSecond = second;
+                } catch (ParseException e) {
+                    return Long.MIN_VALUE;
+                }
+            }
+            int millis = 0;
+            int end = TIMESTAMP_LENGTH + 4;
+            if (line.length() >= end && (line.charAt(TIMESTAMP_LENGTH) == '.' || line.charAt(TIMESTAMP_LENGTH) == ',')) {
+                for (int i = TIMESTAMP_LENGTH + 1; i < end; i++) {
+                    char c = line.charAt(i);
+                    if (c < '0' || c > '9') {
+                        return lastSecondMillis;
+                    }
+                    millis = millis * 10 + (c - '0');
+                }
+            }
+            return lastSecondMillis + millis;
+        }
+    }
+
+    /**
+     * Reads UTF-8 lines while tracking their byte offsets.
+     */
+    private static final class LineReader implements Closeable {
+        private final InputStream in;
+        private final byte[] buffer = new byte[65536];
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        private int count;
+        private int next;
+        private long bufferStart;
+        private long lineStart;
+
+        LineReader(InputStream in, long offset) {
+            this.in = in;
+            this.bufferStart = offset;
+        }
+
+        /**
+         * Read the next line without its separator, or return null at the end.
+         */
+        String readLine() throws IOException {
+            line.reset();
+            lineStart = position();
+            while (true) {
+                if (next == count) {
+                    bufferStart += count;
+                    count = in.read(buffer);
+                    next = 0;
+                    if (count <= 0) {
+                        count = 0;
+                        return line.size() > 0 ? decode() : null;
+                    }
+                }
+                int start = next;
+                while (next < count && buffer[next] != '\n') {
+                    next++;
+                }
+                line.write(buffer, start, next - start);
+                if (next < count) {
+                    next++; // the newline
+                    return decode();
+                }
+            }
+        }
+
+        long lineStart() {
+            return lineStart;
+        }
+
+        long position() {
+            return bufferStart + next;
+        }
+
+        private String decode() {
+            String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+            return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
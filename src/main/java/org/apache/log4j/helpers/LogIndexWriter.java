@@ -0,0 +1,114 @@
+package org.apache.log4j.helpers;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes the sidecar index of a log file, {@code <file>.idx}, as the file is
+ * written. The log is divided into blocks of about the given size that start
+ * and end on record boundaries, and each block gets one entry with its start
+ * and end offsets, lowest and highest timestamp, record count and a bitmap of
+ * the levels it holds. {@link LogIndex} reads it.
+ *
+ * {@link #record} is called for each record written and costs a few compares;
+ * an entry is written only when a block is complete. Not thread-safe.
+ */
+public final class LogIndexWriter implements Flushable, Closeable {
+
+    private final DataOutputStream out;
+    private final int blockSize;
+
+    private long blockStart = -1L;
+    private long blockEnd;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private int records;
+    private int levels;
+
+    /**
+     * Open the index of a log file, appending to it when it exists.
+     *
+     * @param logFile the log file the index describes
+     * @param blockSize approximate number of log bytes per index entry
+     */
+    public LogIndexWriter(String logFile, int blockSize) throws IOException {
+        this.blockSize = Math.max(1024, blockSize);
+        File index = new File(LogIndex.indexFileName(logFile));
+        boolean append = index.length() >= LogIndex.HEADER_SIZE;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(index, append), 8192));
+        if (!append) {
+            out.writeInt(LogIndex.MAGIC);
+            out.writeInt(LogIndex.VERSION);
+            out.writeInt(this.blockSize);
+            out.writeInt(0);
+        }
+    }
+
+    /**
+     * Note a record written to the log file.
+     *
+     * @param offset byte offset of the record in the log file
+     * @param length the record's length in bytes, including its line separator
+     * @param timestamp the record's timestamp
+     * @param level the record's level, as {@link org.apache.log4j.Level#toInt()}
+     */
+    public void record(long offset, int length, long timestamp, int level) throws IOException {
+        if (blockStart < 0 || offset != blockEnd || offset - blockStart >= blockSize) {
+            endBlock();
+            blockStart = offset;
+            minTimestamp = timestamp;
+            maxTimestamp = timestamp;
+        } else if (timestamp < minTimestamp) {
+            minTimestamp = timestamp;
+        } else if (timestamp > maxTimestamp) {
+            maxTimestamp = timestamp;
+        }
+        blockEnd = offset + length;
+        records++;
+        levels |= LogIndex.levelBit(level);
+    }
+
+    /**
+     * Write the open block's entry, so the index covers everything recorded so far.
+     * The next record starts a new block.
+     */
+    public void endBlock() throws IOException {
+        if (blockStart < 0) {
+            return;
+        }
+        out.writeLong(blockStart);
+        out.writeLong(blockEnd);
+        out.writeLong(minTimestamp);
+        out.writeLong(maxTimestamp);
+        out.writeInt(records);
+        out.writeInt(levels);
+        blockStart = -1L;
+        records = 0;
+        levels = 0;
+    }
+
+    /**
+     * Flush the entries of completed blocks.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Write the open block's entry and close the index.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            endBlock();
+        } finally {
+            out.close();
+        }
+    }
+}
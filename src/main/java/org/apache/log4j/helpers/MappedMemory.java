@@ -0,0 +1,144 @@
+package org.apache.log4j.helpers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Ordered and volatile accesses to the longs that a mapped file shared with
+ * another process is synchronized on.
+ *
+ * ByteBuffer reads and writes are plain, so neither the compiler nor the CPU
+ * has to keep a record's contents ahead of the sequence that publishes it.
+ * These go through {@code sun.misc.Unsafe} on the mapping's address instead,
+ * looked up reflectively since it is not part of the compile-time platform:
+ * an ordered store releases everything written before it, a volatile load
+ * acquires everything written before the store it sees. Values keep the
+ * buffer's big-endian layout. Where Unsafe is not available the accesses fall
+ * back to the buffer's plain ones.
+ */
+final class MappedMemory {
+
+    private static final MethodHandle PUT_ORDERED;
+    private static final MethodHandle GET_VOLATILE;
+    private static final MethodHandle COMPARE_AND_SWAP;
+    private static final MethodHandle GET_LONG;
+    private static final long ADDRESS_OFFSET;
+    private static final boolean SWAP = ByteOrder.nativeOrder() != ByteOrder.BIG_ENDIAN;
+
+    static {
+        MethodHandle putOrdered = null;
+        MethodHandle getVolatile = null;
+        MethodHandle compareAndSwap = null;
+        MethodHandle getLong = null;
+        long offset = -1L;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            putOrdered = lookup.findVirtual(type, "putOrderedLong",
+                MethodType.methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+            getVolatile = lookup.findVirtual(type, "getLongVolatile",
+                MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            compareAndSwap = lookup.findVirtual(type, "compareAndSwapLong",
+                MethodType.methodType(boolean.class, Object.class, long.class, long.class, long.class)).bindTo(unsafe);
+            getLong = lookup.findVirtual(type, "getLong",
+                MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            offset = (Long) type.getMethod("objectFieldOffset", Field.class)
+                .invoke(unsafe, Buffer.class.getDeclaredField("address"));
+        } catch (Throwable t) {
+            putOrdered = null;
+        }
+        PUT_ORDERED = putOrdered;
+        GET_VOLATILE = getVolatile;
+        COMPARE_AND_SWAP = compareAndSwap;
+        GET_LONG = getLong;
+        ADDRESS_OFFSET = offset;
+    }
+
+    private MappedMemory() {
+    }
+
+    /**
+     * Get the native address of a mapping, or 0 if ordered accesses are not
+     * available and the plain buffer accesses have to be used.
+     */
+    static long address(MappedByteBuffer buffer) {
+        if (PUT_ORDERED == null) {
+            return 0L;
+        }
+        try {
+            return (long) GET_LONG.invokeExact((Object) buffer, ADDRESS_OFFSET);
+        } catch (Throwable t) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Store a long with release semantics. {@code offset} must be a multiple of 8.
+     */
+    static void putOrderedLong(ByteBuffer buffer, long address, int offset, long value) {
+        if (address == 0L) {
+            buffer.putLong(offset, value);
+            return;
+        }
+        try {
+            PUT_ORDERED.invokeExact((Object) null, address + offset, SWAP ? Long.reverseBytes(value) : value);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Load a long with acquire semantics. {@code offset} must be a multiple of 8.
+     */
+    static long getLongVolatile(ByteBuffer buffer, long address, int offset) {
+        if (address == 0L) {
+            return buffer.getLong(offset);
+        }
+        return load(address + offset);
+    }
+
+    /**
+     * Raise a stored long to {@code value} unless another thread already stored a larger one.
+     */
+    static void raiseLong(ByteBuffer buffer, long address, int offset, long value) {
+        if (address == 0L) {
+            synchronized (buffer) {
+                if (buffer.getLong(offset) < value) {
+                    buffer.putLong(offset, value);
+                }
+            }
+            return;
+        }
+        long stored = SWAP ? Long.reverseBytes(value) : value;
+        try {
+            long current;
+            do {
+                current = load(address + offset);
+                if (current >= value) {
+                    return;
+                }
+            } while (!(boolean) COMPARE_AND_SWAP.invokeExact((Object) null, address + offset,
+                                                             SWAP ? Long.reverseBytes(current) : current, stored));
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static long load(long address) {
+        try {
+            long value = (long) GET_VOLATILE.invokeExact((Object) null, address);
+            return SWAP ? Long.reverseBytes(value) : value;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.LogManager;
+
+/**
+ * Turns logged message objects into text, shared by the live logging path and
+ * the {@link FlightRecorder}, so that a deferred event renders exactly as it
+ * would have when logged.
+ */
+public final class MessageRenderer {
+
+    private MessageRenderer() {
+    }
+
+    /**
+     * Render a message object with the renderer registered for its class.
+     */
+    public static String render(Object message) {
+        if (message instanceof String) {
+            return (String) message;
+        }
+        return message == null ? "null" : LogManager.getRendererMap().findAndRender(message);
+    }
+
+    /**
+     * Format a log4j-style formatted message ({@link String#format} conversions).
+     */
+    public static String format(String format, Object[] args) {
+        return String.format(format, args);
+    }
+}
@@ -0,0 +1,35 @@
+package org.apache.log4j.helpers;
+
+/**
+ * What an {@link AsyncDispatcher} does with an event when its queue is full.
+ */
+public enum OverflowPolicy {
+
+    /** Block the caller until the writer has room. */
+    BLOCK,
+
+    /** Discard events below the drop threshold; block for the rest. */
+    DROP_BELOW_LEVEL,
+
+    /** Discard the oldest queued event to make room. */
+    DROP_OLDEST,
+
+    /** Write the event to an overflow file on the calling thread. */
+    SPILL;
+
+    /**
+     * Parse a policy name as written in log4j.properties, e.g. "DropOldest" or "DROP_OLDEST".
+     */
+    public static OverflowPolicy toPolicy(String name, OverflowPolicy defaultPolicy) {
+        if (name == null) {
+            return defaultPolicy;
+        }
+        String normalized = name.trim().replace("_", "").replace("-", "").toUpperCase();
+        for (OverflowPolicy policy : values()) {
+            if (policy.name().replace("_", "").equals(normalized)) {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+}
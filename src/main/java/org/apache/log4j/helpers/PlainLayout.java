@@ -0,0 +1,299 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line layout for records the bridge writes itself, outside log4Rich.
+ *
+ * By default a record is {@code yyyy-MM-dd HH:mm:ss.SSS [thread] LEVEL logger - message}.
+ * A layout can instead render a log4j ConversionPattern, so that files the
+ * bridge writes look like those log4Rich writes for the same configuration.
+ * Supported are {@code %d{format}} (including ISO8601, ABSOLUTE and DATE),
+ * {@code %p}, {@code %c{precision}}, {@code %t}, {@code %m}, {@code %r},
+ * {@code %n} and {@code %%}, with the log4j format modifiers such as
+ * {@code %-5p} and {@code %.30c}. Events carry no location, MDC or NDC, so
+ * {@code %C}, {@code %F}, {@code %l}, {@code %L} and {@code %M} render as
+ * {@code ?} and {@code %X} and {@code %x} as nothing, with a warning when the
+ * layout is created. A trailing {@code %n} is dropped, since sinks end each
+ * record with {@link #LINE_SEPARATOR} themselves.
+ *
+ * Instances are thread-safe; timestamps are formatted by a {@link CachedDateFormat}, and
+ * stack traces are rendered by the active {@link ThrowableRenderer} after the pattern.
+ */
+public final class PlainLayout {
+
+    public static final String LINE_SEPARATOR = System.getProperty("line.separator", "\n");
+
+    public static final String DEFAULT_PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%t] %p %c - %m";
+
+    private static final long START_TIME = System.currentTimeMillis();
+    private static final char LITERAL = 0;
+
+    private final String pattern;
+    private final Segment[] segments;
+
+    /**
+     * Create a layout with the default pattern.
+     */
+    public PlainLayout() {
+        this(DEFAULT_PATTERN);
+    }
+
+    /**
+     * Create a layout rendering a log4j ConversionPattern.
+     */
+    public PlainLayout(String conversionPattern) {
+        this.pattern = conversionPattern;
+        this.segments = parse(conversionPattern);
+    }
+
+    /**
+     * Get the ConversionPattern this layout renders.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Render an event as a single record, including any stack trace, without a trailing line separator.
+     */
+    public String format(LogEvent event) {
+        return format(event.getTimeStamp(), event.getThreadName(), event.getLevel(),
+                      event.getLoggerName(), event.getMessage(), event.getThrowable());
+    }
+
+    /**
+     * Render the given fields as a single record without a trailing line separator.
+     */
+    public String format(long timeStamp, String threadName, Level level, String loggerName,
+                         String message, Throwable throwable) {
+        StringBuilder sb = new StringBuilder(128);
+        for (Segment segment : segments) {
+            int start = sb.length();
+            switch (segment.conversion) {
+                case LITERAL:
+                    sb.append(segment.text);
+                    continue;
+                case 'd':
+                    segment.date.format(timeStamp, sb);
+                    break;
+                case 'p':
+                    sb.append(level);
+                    break;
+                case 'c':
+                    appendLoggerName(loggerName, segment.precision, sb);
+                    break;
+                case 't':
+                    sb.append(threadName);
+                    break;
+                case 'm':
+                    sb.append(message);
+                    break;
+                case 'r':
+                    sb.append(timeStamp - START_TIME);
+                    break;
+                default:
+                    sb.append(segment.text);
+                    break;
+            }
+            segment.pad(sb, start);
+        }
+
+        if (throwable != null) {
+            sb.append(LINE_SEPARATOR);
+            ThrowableRenderer.getActive().render(throwable, sb);
+        }
+        return sb.toString();
+    }
+
+    private static void appendLoggerName(String loggerName, int precision, StringBuilder sb) {
+        if (loggerName == null || precision <= 0) {
+            sb.append(loggerName);
+            return;
+        }
+        int start = loggerName.length();
+        for (int i = 0; i < precision && start > 0; i++) {
+            start = loggerName.lastIndexOf('.', start - 1);
+            if (start < 0) {
+                break;
+            }
+        }
+        sb.append(loggerName, start + 1, loggerName.length());
+    }
+
+    private static Segment[] parse(String conversionPattern) {
+        String body = conversionPattern;
+        int percents = 0;
+        while (body.endsWith("n") && percents < body.length() - 1
+               && body.charAt(body.length() - 2 - percents) == '%') {
+            percents++;
+        }
+        if (percents % 2 == 1) {
+            // An odd run of '%' before the final 'n' ends in a %n conversion rather than an escaped '%'
+            body = body.substring(0, body.length() - 2);
+        }
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int length = body.length();
+        int i = 0;
+        while (i < length) {
+            char c = body.charAt(i++);
+            if (c != '%' || i == length) {
+                literal.append(c);
+                continue;
+            }
+            if (body.charAt(i) == '%') {
+                literal.append('%');
+                i++;
+                continue;
+            }
+
+            int start = i - 1;
+            boolean leftAlign = false;
+            int min = 0;
+            int max = Integer.MAX_VALUE;
+            if (body.charAt(i) == '-') {
+                leftAlign = true;
+                i++;
+            }
+            while (i < length && Character.isDigit(body.charAt(i))) {
+                min = min * 10 + (body.charAt(i++) - '0');
+            }
+            if (i < length && body.charAt(i) == '.') {
+                i++;
+                max = 0;
+                while (i < length && Character.isDigit(body.charAt(i))) {
+                    max = max * 10 + (body.charAt(i++) - '0');
+                }
+            }
+            if (i == length) {
+                literal.append(body, start, length);
+                break;
+            }
+            char conversion = body.charAt(i++);
+            String option = null;
+            if (i < length && body.charAt(i) == '{') {
+                int close = body.indexOf('}', i);
+                if (close > 0) {
+                    option = body.substring(i + 1, close);
+                    i = close + 1;
+                }
+            }
+
+            Segment segment;
+            switch (conversion) {
+                case 'n':
+                    literal.append(LINE_SEPARATOR);
+                    continue;
+                case 'd':
+                    segment = new Segment(conversion, null, leftAlign, min, max);
+                    segment.date = dateFormat(option);
+                    break;
+                case 'c':
+                    segment = new Segment(conversion, null, leftAlign, min, max);
+                    segment.precision = option != null ? precision(option) : 0;
+                    break;
+                case 'p':
+                case 't':
+                case 'm':
+                case 'r':
+                    segment = new Segment(conversion, null, leftAlign, min, max);
+                    break;
+                case 'C':
+                case 'F':
+                case 'l':
+                case 'L':
+                case 'M':
+                    warn(conversionPattern, conversion, "location information", "?");
+                    segment = new Segment(conversion, "?", leftAlign, min, max);
+                    break;
+                case 'X':
+                case 'x':
+                    warn(conversionPattern, conversion, "MDC and NDC values", "nothing");
+                    segment = new Segment(conversion, "", leftAlign, min, max);
+                    break;
+                default:
+                    System.err.println("Unknown conversion %" + conversion + " in pattern \""
+                                       + conversionPattern + "\"; written as is");
+                    literal.append(body, start, i);
+                    continue;
+            }
+            if (literal.length() > 0) {
+                segments.add(new Segment(LITERAL, literal.toString(), false, 0, Integer.MAX_VALUE));
+                literal.setLength(0);
+            }
+            segments.add(segment);
+        }
+        if (literal.length() > 0) {
+            segments.add(new Segment(LITERAL, literal.toString(), false, 0, Integer.MAX_VALUE));
+        }
+        return segments.toArray(new Segment[0]);
+    }
+
+    private static CachedDateFormat dateFormat(String option) {
+        try {
+            return new CachedDateFormat(option);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid date format '" + option + "', using ISO8601: " + e.getMessage());
+            return new CachedDateFormat(CachedDateFormat.ISO8601_PATTERN);
+        }
+    }
+
+    private static int precision(String option) {
+        try {
+            return Integer.parseInt(option.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid logger name precision '" + option + "', writing the full name");
+            return 0;
+        }
+    }
+
+    private static void warn(String conversionPattern, char conversion, String missing, String rendered) {
+        System.err.println("Pattern \"" + conversionPattern + "\": records the bridge writes itself carry no "
+                           + missing + ", so %" + conversion + " renders as " + rendered);
+    }
+
+    /**
+     * One literal or conversion of a parsed pattern, with its format modifiers.
+     */
+    private static final class Segment {
+        final char conversion;
+        final String text;
+        final boolean leftAlign;
+        final int min;
+        final int max;
+        CachedDateFormat date;
+        int precision;
+
+        Segment(char conversion, String text, boolean leftAlign, int min, int max) {
+            this.conversion = conversion;
+            this.text = text;
+            this.leftAlign = leftAlign;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * Apply the modifiers to the text appended since start: log4j truncates from the left.
+         */
+        void pad(StringBuilder sb, int start) {
+            int length = sb.length() - start;
+            if (length > max) {
+                sb.delete(start, start + length - max);
+            } else if (length < min) {
+                if (leftAlign) {
+                    for (int i = length; i < min; i++) {
+                        sb.append(' ');
+                    }
+                } else {
+                    for (int i = length; i < min; i++) {
+                        sb.insert(start, ' ');
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package org.apache.log4j.helpers;
+
+import org.apache.log4j.Level;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the rings written by {@link SharedMemoryRingSink} in every JVM on the
+ * host into one output file, rolled over by size like log4j's
+ * RollingFileAppender ({@code file.1}, {@code file.2}, ...).
+ *
+ * Each round reads up to {@link #BATCH_SIZE} records from every ring, writes
+ * them in timestamp order with a single buffered write and flush, and then
+ * advances each ring's read cursor. Rings whose JVM closed them or exited are
+ * deleted once drained. When a ring's sink has dropped records because the
+ * ring was full, a WARN record giving the number dropped since the last report
+ * is written in the round that notices it. Each output file gets a {@link LogIndexWriter} sidecar
+ * index, rolled over with it, that {@link LogIndex} uses to seek by time and
+ * level. Usage:
+ * {@code java -cp log4j-log4Rich.jar org.apache.log4j.helpers.RingAggregator <output> [ring directory] [max file size] [max backups] [index block size]}
+ */
+public final class RingAggregator implements Closeable {
+
+    static final int BATCH_SIZE = 4096;
+    static final long POLL_MILLIS = 10L;
+
+    private static final byte[] LINE_SEPARATOR = PlainLayout.LINE_SEPARATOR.getBytes(StandardCharsets.UTF_8);
+
+    private final File directory;
+    private final File output;
+    private final long maxFileSize;
+    private final int maxBackups;
+    private final int indexBlockSize;
+    private final Map<String, RingReader> rings = new HashMap<>();
+    private OutputStream out;
+    private LogIndexWriter index;
+    private long outputSize;
+    private long drained;
+    private volatile boolean running = true;
+
+    /**
+     * @param directory directory the rings are written to
+     * @param output output file, appended to
+     * @param maxFileSize size at which the output rolls over, or 0 for no limit
+     * @param maxBackups number of rolled files kept
+     */
+    public RingAggregator(String directory, String output, long maxFileSize, int maxBackups) throws IOException {
+        this(directory, output, maxFileSize, maxBackups, LogIndex.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param directory directory the rings are written to
+     * @param output output file, appended to
+     * @param maxFileSize size at which the output rolls over, or 0 for no limit
+     * @param maxBackups number of rolled files kept
+     * @param indexBlockSize output bytes per sidecar index entry, or 0 for no index
+     */
+    public RingAggregator(String directory, String output, long maxFileSize, int maxBackups,
+                          int indexBlockSize) throws IOException {
+        this.directory = new File(directory);
+        this.output = new File(output);
+        this.maxFileSize = maxFileSize;
+        this.maxBackups = Math.max(0, maxBackups);
+        this.indexBlockSize = Math.max(0, indexBlockSize);
+        File parent = this.output.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        this.outputSize = this.output.length();
+        this.out = new BufferedOutputStream(new FileOutputStream(this.output, true), 65536);
+        this.index = openIndex();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: RingAggregator <output> [ring directory] [max file size] [max backups]"
+                               + " [index block size, 0 for none]");
+            System.err.println("Drains " + SharedMemoryRingSink.DEFAULT_DIRECTORY + "/*" + SharedMemoryRingSink.SUFFIX
+                               + " (or the given directory) into output");
+            System.exit(2);
+        }
+        String directory = args.length > 1 ? args[1] : SharedMemoryRingSink.DEFAULT_DIRECTORY;
+        long maxFileSize = args.length > 2 ? parseSize(args[2]) : 0L;
+        int maxBackups = args.length > 3 ? Integer.parseInt(args[3].trim()) : 1;
+        int indexBlockSize = args.length > 4 ? (int) parseSize(args[4]) : LogIndex.DEFAULT_BLOCK_SIZE;
+
+        final RingAggregator aggregator = new RingAggregator(directory, args[0], maxFileSize, maxBackups,
+                                                             indexBlockSize);
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                aggregator.stop();
+            }
+        }, "log4Rich-ring-aggregator-shutdown"));
+        System.out.println("Draining rings in " + directory + " into " + args[0]);
+        aggregator.run();
+    }
+
+    /**
+     * Drain until {@link #stop()} is called, then drain once more and close.
+     */
+    public void run() {
+        try {
+            while (running) {
+                if (drain() == 0) {
+                    Thread.sleep(POLL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Ring aggregator failed: " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Run one round: pick up new rings, write what they hold and delete finished ones.
+     *
+     * @return the number of ring records written, not counting dropped-count markers
+     */
+    public synchronized int drain() throws IOException {
+        discoverRings();
+        List<Record> records = new ArrayList<>();
+        int count = 0;
+        for (RingReader ring : rings.values()) {
+            count += ring.read(records, BATCH_SIZE);
+        }
+        Collections.sort(records, new Comparator<Record>() {
+            @Override
+            public int compare(Record a, Record b) {
+                return Long.compare(a.timestamp, b.timestamp);
+            }
+        });
+        for (Record record : records) {
+            write(record);
+        }
+        out.flush();
+        if (index != null) {
+            index.flush();
+        }
+
+        // Release the slots only once their records are in the output
+        Iterator<RingReader> it = rings.values().iterator();
+        while (it.hasNext()) {
+            RingReader ring = it.next();
+            ring.commit();
+            if (ring.isFinished()) {
+                ring.close();
+                new File(ring.fileName).delete();
+                it.remove();
+            }
+        }
+        drained += count;
+        return count;
+    }
+
+    /**
+     * Drain what is left, then close the rings and the output. Rings are left
+     * in place for the next aggregator unless their JVM is done with them.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            while (drain() > 0) {
+                // keep draining
+            }
+        } catch (IOException e) {
+            System.err.println("Ring aggregator failed to drain on close: " + e.getMessage());
+        }
+        for (RingReader ring : rings.values()) {
+            ring.close();
+        }
+        rings.clear();
+        try {
+            out.close();
+            if (index != null) {
+                index.close();
+            }
+        } catch (IOException e) {
+            // Ignore close errors
+        }
+    }
+
+    /**
+     * Get the number of records written so far.
+     */
+    public synchronized long getDrainedCount() {
+        return drained;
+    }
+
+    private void discoverRings() {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SharedMemoryRingSink.SUFFIX);
+            }
+        });
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String fileName = file.getPath();
+            if (rings.containsKey(fileName)) {
+                continue;
+            }
+            try {
+                RingReader ring = RingReader.open(fileName);
+                if (ring != null) {
+                    rings.put(fileName, ring);
+                }
+            } catch (IOException e) {
+                // Deleted or still being created; retried next round
+            }
+        }
+    }
+
+    private void write(Record record) throws IOException {
+        byte[] text = record.text;
+        int length = text.length + LINE_SEPARATOR.length;
+        if (maxFileSize > 0 && outputSize > 0 && outputSize + length > maxFileSize) {
+            rollOver();
+        }
+        if (index != null) {
+            index.record(outputSize, length, record.timestamp, record.level);
+        }
+        out.write(text);
+        out.write(LINE_SEPARATOR);
+        outputSize += length;
+    }
+
+    private void rollOver() throws IOException {
+        out.close();
+        if (index != null) {
+            index.close();
+        }
+        String name = output.getPath();
+        if (maxBackups > 0) {
+            delete(name + "." + maxBackups);
+            for (int i = maxBackups - 1; i >= 1; i--) {
+                rename(name + "." + i, name + "." + (i + 1));
+            }
+            rename(name, name + ".1");
+        }
+        new File(LogIndex.indexFileName(name)).delete();
+        out = new BufferedOutputStream(new FileOutputStream(output, false), 65536);
+        outputSize = 0;
+        index = openIndex();
+    }
+
+    /**
+     * Open the output's index, or return null when indexing is off.
+     */
+    private LogIndexWriter openIndex() throws IOException {
+        return indexBlockSize > 0 ? new LogIndexWriter(output.getPath(), indexBlockSize) : null;
+    }
+
+    /**
+     * Delete a log file and its index.
+     */
+    private static void delete(String fileName) {
+        new File(fileName).delete();
+        new File(LogIndex.indexFileName(fileName)).delete();
+    }
+
+    /**
+     * Rename a log file and its index, if it exists.
+     */
+    private static void rename(String from, String to) {
+        File file = new File(from);
+        if (file.exists()) {
+            file.renameTo(new File(to));
+            new File(LogIndex.indexFileName(to)).delete();
+            new File(LogIndex.indexFileName(from)).renameTo(new File(LogIndex.indexFileName(to)));
+        }
+    }
+
+    private static long parseSize(String value) {
+        String s = value.trim().toUpperCase();
+        long multiplier = 1L;
+        if (s.endsWith("KB")) {
+            multiplier = 1024L;
+        } else if (s.endsWith("MB")) {
+            multiplier = 1024L * 1024;
+        } else if (s.endsWith("GB")) {
+            multiplier = 1024L * 1024 * 1024;
+        }
+        if (multiplier > 1L) {
+            s = s.substring(0, s.length() - 2).trim();
+        }
+        return Long.parseLong(s) * multiplier;
+    }
+
+    private static final class Record {
+        final long timestamp;
+        final int level;
+        final byte[] text;
+
+        Record(long timestamp, int level, byte[] text) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Reader over one ring, resuming at the ring's stored read cursor.
+     */
+    private static final class RingReader implements Closeable {
+        final String fileName;
+        private final FileChannel channel;
+        private final MappedByteBuffer ring;
+        private final long address;
+        private final int slotSize;
+        private final int slotCount;
+        private final long pid;
+        private long cursor;
+        private long reported;
+        private boolean idle;
+
+        private RingReader(String fileName, FileChannel channel, MappedByteBuffer ring) {
+            this.fileName = fileName;
+            this.channel = channel;
+            this.ring = ring;
+            this.address = MappedMemory.address(ring);
+            this.slotSize = ring.getInt(SharedMemoryRingSink.SLOT_SIZE_OFFSET);
+            this.slotCount = ring.getInt(SharedMemoryRingSink.SLOT_COUNT_OFFSET);
+            this.pid = ring.getLong(SharedMemoryRingSink.PID_OFFSET);
+            this.cursor = ring.getLong(SharedMemoryRingSink.READ_CURSOR_OFFSET);
+            this.reported = ring.getLong(SharedMemoryRingSink.REPORTED_OFFSET);
+        }
+
+        /**
+         * Map a ring file, or return null if its header is not complete yet.
+         */
+        static RingReader open(String fileName) throws IOException {
+            FileChannel channel = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE);
+            long size = channel.size();
+            if (size < SharedMemoryRingSink.HEADER_SIZE) {
+                channel.close();
+                return null;
+            }
+            MappedByteBuffer ring = channel.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+            if (ring.getInt(0) != SharedMemoryRingSink.MAGIC || ring.getInt(4) != SharedMemoryRingSink.VERSION) {
+                channel.close();
+                return null;
+            }
+            return new RingReader(fileName, channel, ring);
+        }
+
+        /**
+         * Read up to {@code max} records, after a marker if the sink dropped more since the last one.
+         *
+         * @return the number of ring records read
+         */
+        int read(List<Record> records, int max) {
+            ByteBuffer view = ring.duplicate();
+            int end = SharedMemoryRingSink.HEADER_SIZE + slotCount * slotSize;
+            int count = 0;
+            long dropped = MappedMemory.getLongVolatile(ring, address, SharedMemoryRingSink.DROPPED_OFFSET);
+            if (dropped > reported) {
+                String marker = "log4j-log4Rich: " + (dropped - reported) + " records dropped by "
+                                + new File(fileName).getName() + " because the ring was full";
+                records.add(new Record(System.currentTimeMillis(), Level.WARN.toInt(),
+                                       marker.getBytes(StandardCharsets.UTF_8)));
+                reported = dropped;
+            }
+            while (count < max) {
+                int start = SharedMemoryRingSink.HEADER_SIZE + (int) (cursor % slotCount) * slotSize;
+                if (MappedMemory.getLongVolatile(view, address, start) != cursor + 1) {
+                    break;
+                }
+                long timestamp = view.getLong(start + 8);
+                int length = view.getInt(start + 16);
+                int level = view.getInt(start + 20);
+                byte[] text = new byte[length];
+                int payload = start + SharedMemoryRingSink.RECORD_HEADER_SIZE;
+                int first = Math.min(length, end - payload);
+                view.position(payload);
+                view.get(text, 0, first);
+                if (first < length) {
+                    view.position(SharedMemoryRingSink.HEADER_SIZE);
+                    view.get(text, first, length - first);
+                }
+                records.add(new Record(timestamp, level, text));
+                cursor += (SharedMemoryRingSink.RECORD_HEADER_SIZE + length + slotSize - 1) / slotSize;
+                count++;
+            }
+            idle = count == 0;
+            return count;
+        }
+
+        void commit() {
+            ring.putLong(SharedMemoryRingSink.REPORTED_OFFSET, reported);
+            // Ordered, so the sink never reuses a slot before it has been read
+            MappedMemory.putOrderedLong(ring, address, SharedMemoryRingSink.READ_CURSOR_OFFSET, cursor);
+        }
+
+        /**
+         * Check whether the writing JVM is done with the ring and it held nothing this round.
+         */
+        boolean isFinished() {
+            return idle && (ring.getInt(SharedMemoryRingSink.CLOSED_OFFSET) != 0 || !isAlive(pid));
+        }
+
+        private static boolean isAlive(long pid) {
+            File proc = new File("/proc");
+            if (pid <= 0 || !proc.isDirectory()) {
+                return true; // cannot tell, so keep the ring
+            }
+            return new File(proc, String.valueOf(pid)).exists();
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignore close errors
+            }
+        }
+    }
+}
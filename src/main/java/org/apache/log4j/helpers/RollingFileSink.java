@@ -0,0 +1,528 @@
+package org.apache.log4j.helpers;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * File sink that rolls over by time like log4j's DailyRollingFileAppender,
+ * or by size like its RollingFileAppender, and can gzip rolled files.
+ *
+ * With a date pattern such as {@code '.'yyyy-MM-dd}, the file is renamed to
+ * {@code <file><formatted period>} when an event from a later period arrives;
+ * the period (minute, hour, half day, day, week or month) is derived from the
+ * pattern as log4j does. With a maximum size, the file is renamed to
+ * {@code <file>.1} when the next record would exceed it, older backups move
+ * up one index and the one beyond the last backup index is deleted.
+ *
+ * With compression, the writer only renames the file, so a rollover costs
+ * the writer no more than without. A background thread of low priority then
+ * compresses it with {@link GzipCompressor}; size-based backups become
+ * {@code <file>.1.gz} and so on, and are shifted by that thread once the new
+ * backup is compressed, so backups keep their order even when one is
+ * compressed while the next rollover happens. Size-based rollovers left
+ * uncompressed when the JVM stopped are picked up when the sink is next opened.
+ *
+ * With an index block size, a {@link LogIndexWriter} sidecar index
+ * ({@code <file>.idx}) is written with the file and renamed with it on
+ * rollover, so each uncompressed rolled file keeps its own index. A rolled
+ * file that is compressed loses its index, whose offsets do not apply to
+ * the gzip data.
+ */
+public final class RollingFileSink implements EventSink, Flushable, Closeable {
+
+    static final String PENDING_SUFFIX = ".rolled-";
+
+    private static final int TOP_OF_MINUTE = 0;
+    private static final int TOP_OF_HOUR = 1;
+    private static final int HALF_DAY = 2;
+    private static final int TOP_OF_DAY = 3;
+    private static final int TOP_OF_WEEK = 4;
+    private static final int TOP_OF_MONTH = 5;
+
+    private static final byte[] LINE_SEPARATOR = PlainLayout.LINE_SEPARATOR.getBytes(StandardCharsets.UTF_8);
+
+    private final String name;
+    private final File file;
+    private final SimpleDateFormat datePattern;
+    private final int period;
+    private final long maxFileSize;
+    private final int maxBackups;
+    private final boolean immediateFlush;
+    private final int bufferSize;
+    private final boolean compress;
+    private final int compressBlockSize;
+    private final ExecutorService compressor;
+    private final PlainLayout layout;
+    private final int indexBlockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private OutputStream out;
+    private LogIndexWriter index;
+    private long size;
+    private String periodSuffix;
+    private long nextRollover = Long.MAX_VALUE;
+    private boolean closed;
+
+    /**
+     * Open the file, appending to it, and resume compressing files left rolled but uncompressed.
+     *
+     * @param name appender name, used for the compression thread
+     * @param fileName file written to
+     * @param datePattern SimpleDateFormat pattern of the rolled file suffix, or null for no time rollover
+     * @param maxFileSize size at which the file rolls over, or 0 for no size rollover
+     * @param maxBackups number of size-based backups kept
+     * @param immediateFlush whether every record is flushed to the file
+     * @param bufferSize output buffer size in bytes
+     * @param compress whether rolled files are gzipped
+     * @param compressBlockSize bytes of input per gzip member, compressed in parallel
+     */
+    public RollingFileSink(String name, String fileName, String datePattern, long maxFileSize, int maxBackups,
+                           boolean immediateFlush, int bufferSize, boolean compress, int compressBlockSize)
+            throws IOException {
+        this(name, fileName, datePattern, maxFileSize, maxBackups, immediateFlush, bufferSize, compress,
+             compressBlockSize, new PlainLayout());
+    }
+
+    /**
+     * Open the file, appending to it, and resume compressing files left rolled but uncompressed.
+     *
+     * @param name appender name, used for the compression thread
+     * @param fileName file written to
+     * @param datePattern SimpleDateFormat pattern of the rolled file suffix, or null for no time rollover
+     * @param maxFileSize size at which the file rolls over, or 0 for no size rollover
+     * @param maxBackups number of size-based backups kept
+     * @param immediateFlush whether every record is flushed to the file
+     * @param bufferSize output buffer size in bytes
+     * @param compress whether rolled files are gzipped
+     * @param compressBlockSize bytes of input per gzip member, compressed in parallel
+     * @param layout layout records are rendered with
+     */
+    public RollingFileSink(String name, String fileName, String datePattern, long maxFileSize, int maxBackups,
+                           boolean immediateFlush, int bufferSize, boolean compress, int compressBlockSize,
+                           PlainLayout layout) throws IOException {
+        this(name, fileName, datePattern, maxFileSize, maxBackups, immediateFlush, bufferSize, compress,
+             compressBlockSize, layout, 0);
+    }
+
+    /**
+     * Open the file, appending to it, and resume compressing files left rolled but uncompressed.
+     *
+     * @param name appender name, used for the compression thread
+     * @param fileName file written to
+     * @param datePattern SimpleDateFormat pattern of the rolled file suffix, or null for no time rollover
+     * @param maxFileSize size at which the file rolls over, or 0 for no size rollover
+     * @param maxBackups number of size-based backups kept
+     * @param immediateFlush whether every record is flushed to the file
+     * @param bufferSize output buffer size in bytes
+     * @param compress whether rolled files are gzipped
+     * @param compressBlockSize bytes of input per gzip member, compressed in parallel
+     * @param layout layout records are rendered with
+     * @param indexBlockSize log bytes per sidecar index entry, or 0 for no index
+     */
+    public RollingFileSink(String name, String fileName, String datePattern, long maxFileSize, int maxBackups,
+                           boolean immediateFlush, int bufferSize, boolean compress, int compressBlockSize,
+                           PlainLayout layout, int indexBlockSize) throws IOException {
+        this.name = name;
+        this.layout = layout;
+        this.indexBlockSize = Math.max(0, indexBlockSize);
+        this.file = new File(fileName);
+        this.datePattern = datePattern != null ? new SimpleDateFormat(datePattern) : null;
+        this.period = datePattern != null ? periodOf(datePattern) : -1;
+        this.maxFileSize = Math.max(0L, maxFileSize);
+        this.maxBackups = Math.max(0, maxBackups);
+        this.immediateFlush = immediateFlush;
+        this.bufferSize = Math.max(512, bufferSize);
+        this.compress = compress;
+        this.compressBlockSize = compressBlockSize;
+        this.compressor = compress ? Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "log4Rich-compress-" + RollingFileSink.this.name);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        }) : null;
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        if (compress) {
+            resumePending();
+        }
+        open();
+        if (this.datePattern != null) {
+            long start = size > 0 ? file.lastModified() : System.currentTimeMillis();
+            periodSuffix = this.datePattern.format(new Date(start));
+            nextRollover = nextCheck(start, period, TimeZone.getDefault());
+        }
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        byte[] text = layout.format(event).getBytes(StandardCharsets.UTF_8);
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            append(text, event.getTimeStamp(), event.getLevel().toInt());
+            if (immediateFlush) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write to " + file + ": " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the events as consecutive records, rendered before the lock is taken and flushed once.
+     */
+    @Override
+    public void writeAll(List<LogEvent> events) {
+        byte[][] texts = new byte[events.size()][];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = layout.format(events.get(i)).getBytes(StandardCharsets.UTF_8);
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            for (int i = 0; i < texts.length; i++) {
+                LogEvent event = events.get(i);
+                append(texts[i], event.getTimeStamp(), event.getLevel().toInt());
+            }
+            if (immediateFlush) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write to " + file + ": " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            if (!closed) {
+                out.flush();
+                if (index != null) {
+                    index.flush();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the file. Compressions already started continue in the background;
+     * see {@link #awaitCompression}.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            out.close();
+            if (index != null) {
+                index.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (compressor != null) {
+            compressor.shutdown();
+        }
+    }
+
+    /**
+     * Wait for the rolled files handed to compression so far to be compressed.
+     *
+     * @return true if none is left pending
+     */
+    public boolean awaitCompression(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (pending.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(5L);
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of rolled files waiting to be compressed.
+     */
+    public int getPendingCompressions() {
+        return pending.get();
+    }
+
+    public String getFileName() {
+        return file.getPath();
+    }
+
+    public boolean isImmediateFlush() {
+        return immediateFlush;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    private void append(byte[] text, long timestamp, int level) throws IOException {
+        int length = text.length + LINE_SEPARATOR.length;
+        if (timestamp >= nextRollover) {
+            rollOverTime(timestamp);
+        } else if (maxFileSize > 0 && size > 0 && size + length > maxFileSize) {
+            rollOverSize();
+        }
+        if (index != null) {
+            index.record(size, length, timestamp, level);
+        }
+        out.write(text);
+        out.write(LINE_SEPARATOR);
+        size += length;
+    }
+
+    private void open() throws IOException {
+        out = new BufferedOutputStream(new FileOutputStream(file, true), bufferSize);
+        size = file.length();
+        index = indexBlockSize > 0 ? new LogIndexWriter(file.getPath(), indexBlockSize) : null;
+    }
+
+    /**
+     * Close the file and its index ahead of a rollover.
+     */
+    private void closeFile() throws IOException {
+        out.close();
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    private void rollOverTime(long timestamp) throws IOException {
+        String suffix = datePattern.format(new Date(timestamp));
+        nextRollover = nextCheck(timestamp, period, TimeZone.getDefault());
+        if (suffix.equals(periodSuffix)) {
+            return;
+        }
+        closeFile();
+        File rolled = unusedFile(file.getPath() + periodSuffix);
+        boolean renamed = size > 0 && file.renameTo(rolled);
+        if (renamed && !compress) {
+            renameIndex(file.getPath(), rolled.getPath());
+        } else {
+            deleteIndex(file.getPath());
+        }
+        if (renamed && compress) {
+            submit(rolled, new File(rolled.getPath() + ".gz"), false);
+        }
+        periodSuffix = suffix;
+        open();
+    }
+
+    private void rollOverSize() throws IOException {
+        closeFile();
+        String base = file.getPath();
+        if (compress) {
+            File pending = unusedFile(base + PENDING_SUFFIX + System.currentTimeMillis());
+            if (file.renameTo(pending)) {
+                submit(pending, new File(pending.getPath() + ".gz"), true);
+            }
+        } else if (maxBackups > 0) {
+            new File(base + "." + maxBackups).delete();
+            deleteIndex(base + "." + maxBackups);
+            for (int i = maxBackups - 1; i >= 1; i--) {
+                rename(base + "." + i, base + "." + (i + 1));
+                renameIndex(base + "." + i, base + "." + (i + 1));
+            }
+            rename(base, base + ".1");
+            renameIndex(base, base + ".1");
+        }
+        // The new file starts empty, so its index must too
+        deleteIndex(base);
+        open();
+    }
+
+    /**
+     * Compress a rolled file on the compression thread, or just shift it into place when
+     * the source is already compressed; size-based backups are shifted after compression.
+     */
+    private void submit(final File source, final File target, final boolean shiftBackups) {
+        pending.incrementAndGet();
+        compressor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (target != null) {
+                        GzipCompressor.compress(source, target, compressBlockSize);
+                    }
+                    if (shiftBackups) {
+                        shiftCompressedBackups(target != null ? target : source);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Failed to compress " + source + ": " + e.getMessage());
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private void shiftCompressedBackups(File compressed) {
+        String base = file.getPath();
+        if (maxBackups == 0) {
+            compressed.delete();
+            return;
+        }
+        new File(base + "." + maxBackups + ".gz").delete();
+        for (int i = maxBackups - 1; i >= 1; i--) {
+            rename(base + "." + i + ".gz", base + "." + (i + 1) + ".gz");
+        }
+        rename(compressed.getPath(), base + ".1.gz");
+    }
+
+    /**
+     * Queue size-based rollovers a previous run left uncompressed, or compressed but not shifted, oldest first.
+     */
+    private void resumePending() {
+        File parent = file.getAbsoluteFile().getParentFile();
+        final String prefix = file.getName() + PENDING_SUFFIX;
+        String[] names = parent.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String fileName) {
+                return fileName.startsWith(prefix) && !fileName.endsWith(".tmp");
+            }
+        });
+        if (names == null) {
+            return;
+        }
+        Arrays.sort(names);
+        for (String rolled : names) {
+            File source = new File(parent, rolled);
+            submit(source, rolled.endsWith(".gz") ? null : new File(source.getPath() + ".gz"), true);
+        }
+    }
+
+    private static File unusedFile(String fileName) {
+        File candidate = new File(fileName);
+        for (int i = 1; candidate.exists(); i++) {
+            candidate = new File(fileName + "." + i);
+        }
+        return candidate;
+    }
+
+    private static void rename(String from, String to) {
+        File source = new File(from);
+        if (source.exists()) {
+            source.renameTo(new File(to));
+        }
+    }
+
+    /**
+     * Move a log file's index along with the file, replacing any index at the target.
+     */
+    private static void renameIndex(String from, String to) {
+        deleteIndex(to);
+        rename(LogIndex.indexFileName(from), LogIndex.indexFileName(to));
+    }
+
+    private static void deleteIndex(String logFile) {
+        new File(LogIndex.indexFileName(logFile)).delete();
+    }
+
+    /**
+     * Derive the rollover period from a date pattern: the shortest period whose
+     * boundary changes the formatted value, as log4j does.
+     */
+    static int periodOf(String datePattern) {
+        TimeZone gmt = TimeZone.getTimeZone("GMT");
+        SimpleDateFormat format = new SimpleDateFormat(datePattern);
+        format.setTimeZone(gmt);
+        long epoch = 0L;
+        String first = format.format(new Date(epoch));
+        for (int candidate = TOP_OF_MINUTE; candidate <= TOP_OF_MONTH; candidate++) {
+            String next = format.format(new Date(nextCheck(epoch, candidate, gmt)));
+            if (!next.equals(first)) {
+                return candidate;
+            }
+        }
+        return TOP_OF_DAY;
+    }
+
+    /**
+     * Get the start of the period after the one holding the given time.
+     */
+    static long nextCheck(long time, int period, TimeZone zone) {
+        Calendar calendar = Calendar.getInstance(zone);
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        switch (period) {
+            case TOP_OF_MINUTE:
+                calendar.add(Calendar.MINUTE, 1);
+                break;
+            case TOP_OF_HOUR:
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.HOUR_OF_DAY, 1);
+                break;
+            case HALF_DAY:
+                calendar.set(Calendar.MINUTE, 0);
+                if (calendar.get(Calendar.HOUR_OF_DAY) < 12) {
+                    calendar.set(Calendar.HOUR_OF_DAY, 12);
+                } else {
+                    calendar.set(Calendar.HOUR_OF_DAY, 0);
+                    calendar.add(Calendar.DAY_OF_MONTH, 1);
+                }
+                break;
+            case TOP_OF_WEEK:
+                calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.WEEK_OF_YEAR, 1);
+                break;
+            case TOP_OF_MONTH:
+                calendar.set(Calendar.DAY_OF_MONTH, 1);
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.MONTH, 1);
+                break;
+            default:
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+                break;
+        }
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,214 @@
+package org.apache.log4j.helpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sink that writes records into a memory-mapped ring file, normally under
+ * {@code /dev/shm}, for a {@link RingAggregator} on the same host to drain
+ * into its output files. Application threads only copy bytes into shared
+ * memory: they never make a write system call.
+ *
+ * Each sink owns one ring, named {@code <appender>-<pid>-<start millis>-<n>.ring},
+ * so the aggregator is its only reader and the sink's threads its only
+ * writers. Threads claim slots by advancing an in-process cursor with a CAS,
+ * copy the record in, and publish it by writing its sequence number last
+ * with an ordered store, which the aggregator pairs with a volatile load.
+ * When the ring is full, because no aggregator is running or it has fallen
+ * behind, records are dropped and counted rather than blocking.
+ *
+ * File format: a {@link #HEADER_SIZE}-byte header (magic, version, slot size,
+ * slot count, pid, closed flag, the aggregator's read cursor, the dropped count
+ * the aggregator has reported, and the dropped count) followed by the slots.
+ * Slots are a multiple of 8 bytes, so every sequence is aligned. A record takes one or more consecutive slots,
+ * wrapping at the end of the ring:
+ * {@code long sequence + 1, long timestamp, int length, int level, byte[length] UTF-8 text}.
+ */
+public final class SharedMemoryRingSink implements EventSink, Closeable {
+
+    public static final String DEFAULT_DIRECTORY = "/dev/shm/log4j-log4Rich";
+    public static final String SUFFIX = ".ring";
+
+    static final int MAGIC = 0x4C345252; // "L4RR"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 256;
+    static final int SLOT_SIZE_OFFSET = 8;
+    static final int SLOT_COUNT_OFFSET = 12;
+    static final int PID_OFFSET = 16;
+    static final int CLOSED_OFFSET = 24;
+    static final int READ_CURSOR_OFFSET = 128;
+    static final int REPORTED_OFFSET = 136;
+    static final int DROPPED_OFFSET = 192;
+    static final int RECORD_HEADER_SIZE = 24;
+    static final int MIN_SLOT_SIZE = 64;
+
+    static final long PID = pid();
+
+    private static final AtomicLong instances = new AtomicLong();
+
+    private final String fileName;
+    private final int slotSize;
+    private final int slotCount;
+    private final int maxRecordSlots;
+    private final FileChannel channel;
+    private final MappedByteBuffer ring;
+    private final long address;
+    private final PlainLayout layout;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ThreadLocal<ByteBuffer> views;
+    private volatile boolean closed;
+
+    /**
+     * Create and map a new ring file.
+     *
+     * @param directory directory for the ring file, created if missing
+     * @param name appender name, used as the file name prefix
+     * @param ringSize approximate size of the slot area in bytes
+     * @param slotSize bytes per slot, rounded up to a multiple of 8; records longer than one slot take several
+     */
+    public SharedMemoryRingSink(String directory, String name, long ringSize, int slotSize) throws IOException {
+        this(directory, name, ringSize, slotSize, new PlainLayout());
+    }
+
+    /**
+     * Create and map a new ring file.
+     *
+     * @param directory directory for the ring file, created if missing
+     * @param name appender name, used as the file name prefix
+     * @param ringSize approximate size of the slot area in bytes
+     * @param slotSize bytes per slot, rounded up to a multiple of 8; records longer than one slot take several
+     * @param layout layout records are rendered with before they enter the ring
+     */
+    public SharedMemoryRingSink(String directory, String name, long ringSize, int slotSize, PlainLayout layout)
+            throws IOException {
+        this.layout = layout;
+        this.slotSize = (Math.max(MIN_SLOT_SIZE, slotSize) + 7) & ~7;
+        this.slotCount = (int) Math.max(16L, Math.min(Integer.MAX_VALUE - HEADER_SIZE, ringSize) / this.slotSize);
+        this.maxRecordSlots = Math.max(1, slotCount / 4);
+
+        File dir = new File(directory);
+        dir.mkdirs();
+        this.fileName = new File(dir, name + "-" + PID + "-" + System.currentTimeMillis()
+                                 + "-" + instances.incrementAndGet() + SUFFIX).getPath();
+        this.channel = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.CREATE_NEW,
+                                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.ring = channel.map(FileChannel.MapMode.READ_WRITE, 0L, HEADER_SIZE + (long) slotCount * this.slotSize);
+        this.address = MappedMemory.address(ring);
+        ring.putInt(SLOT_SIZE_OFFSET, this.slotSize)
+            .putInt(SLOT_COUNT_OFFSET, slotCount)
+            .putLong(PID_OFFSET, PID)
+            .putInt(4, VERSION);
+        // Magic last: the aggregator ignores rings whose header is incomplete
+        ring.putInt(0, MAGIC);
+
+        final MappedByteBuffer mapped = ring;
+        this.views = new ThreadLocal<ByteBuffer>() {
+            @Override
+            protected ByteBuffer initialValue() {
+                return mapped.duplicate();
+            }
+        };
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        offer(event);
+    }
+
+    /**
+     * Write an event unless the ring is full or closed.
+     *
+     * @return false if the event was dropped
+     */
+    public boolean offer(LogEvent event) {
+        if (closed) {
+            return false;
+        }
+        byte[] text = layout.format(event).getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(text.length, maxRecordSlots * slotSize - RECORD_HEADER_SIZE);
+        int slots = (RECORD_HEADER_SIZE + length + slotSize - 1) / slotSize;
+
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence + slots - MappedMemory.getLongVolatile(ring, address, READ_CURSOR_OFFSET) > slotCount) {
+                MappedMemory.raiseLong(ring, address, DROPPED_OFFSET, dropped.incrementAndGet());
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + slots));
+
+        ByteBuffer view = views.get();
+        int start = offset(sequence);
+        view.putLong(start + 8, event.getTimeStamp()).putInt(start + 16, length)
+            .putInt(start + 20, event.getLevel().toInt());
+
+        int payload = start + RECORD_HEADER_SIZE;
+        int end = HEADER_SIZE + slotCount * slotSize;
+        int first = Math.min(length, end - payload);
+        view.position(payload);
+        view.put(text, 0, first);
+        if (first < length) {
+            view.position(HEADER_SIZE);
+            view.put(text, first, length - first);
+        }
+        // Sequence last, so the aggregator never reads a partially written record
+        MappedMemory.putOrderedLong(view, address, start, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Mark the ring closed so the aggregator deletes it once drained. A ring
+     * that is already empty is deleted here.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ring.putInt(CLOSED_OFFSET, 1);
+        boolean drained = MappedMemory.getLongVolatile(ring, address, READ_CURSOR_OFFSET) >= claimed.get();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore close errors
+        }
+        if (drained) {
+            new File(fileName).delete();
+        }
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Get the number of records dropped because the ring was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private int offset(long sequence) {
+        return HEADER_SIZE + (int) (sequence % slotCount) * slotSize;
+    }
+
+    private static long pid() {
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        int at = name.indexOf('@');
+        try {
+            return Long.parseLong(at > 0 ? name.substring(0, at) : name);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
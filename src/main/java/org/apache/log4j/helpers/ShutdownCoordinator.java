@@ -0,0 +1,181 @@
+package org.apache.log4j.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded-latency flush and shutdown of the bridge write path.
+ *
+ * Flushing drains the bridge-side dispatcher queues and forces the registered
+ * log files to disk. Shutdown does the same within a deadline, then stops
+ * log4Rich on a helper thread so that a stuck writer cannot hold up JVM exit
+ * beyond the deadline. A JVM shutdown hook runs the same sequence when the
+ * application does not call {@link org.apache.log4j.LogManager#shutdown()}.
+ */
+public final class ShutdownCoordinator {
+
+    /** Default shutdown deadline in milliseconds. */
+    public static final long DEFAULT_DEADLINE = 5000L;
+
+    private static volatile Set<String> activeFiles = new CopyOnWriteArraySet<>();
+    private static final AtomicBoolean hookInstalled = new AtomicBoolean();
+    private static final AtomicBoolean shutDown = new AtomicBoolean();
+    private static volatile long deadlineMillis = DEFAULT_DEADLINE;
+
+    private ShutdownCoordinator() {
+    }
+
+    /**
+     * Set the maximum time shutdown may block.
+     */
+    public static void setDeadline(long millis) {
+        deadlineMillis = Math.max(0L, millis);
+    }
+
+    public static long getDeadline() {
+        return deadlineMillis;
+    }
+
+    /**
+     * Register a log file to be forced to disk on flush and shutdown, in
+     * addition to those of the current configuration.
+     */
+    public static void registerFile(String path) {
+        if (path != null) {
+            activeFiles.add(path);
+        }
+    }
+
+    /**
+     * Replace the registered log files with those of a new configuration, so
+     * that files a previous configuration wrote are no longer synced.
+     *
+     * @param paths files to force to disk; null entries are ignored
+     */
+    public static void setFiles(Collection<String> paths) {
+        Set<String> files = new CopyOnWriteArraySet<>();
+        for (String path : paths) {
+            if (path != null) {
+                files.add(path);
+            }
+        }
+        activeFiles = files;
+    }
+
+    /**
+     * Get the log files forced to disk on flush and shutdown.
+     */
+    public static Set<String> getFiles() {
+        return Collections.unmodifiableSet(activeFiles);
+    }
+
+    /**
+     * Install the JVM shutdown hook. Safe to call more than once.
+     */
+    public static void installHook() {
+        shutDown.set(false);
+        if (hookInstalled.compareAndSet(false, true)) {
+            Thread hook = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    if (!shutDown.get()) {
+                        shutdown();
+                    }
+                }
+            }, "log4Rich-shutdown-hook");
+            try {
+                Runtime.getRuntime().addShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // JVM already shutting down
+            }
+        }
+    }
+
+    /**
+     * Drain queued events and force log files to disk without stopping logging.
+     *
+     * @param timeoutMillis maximum time to wait for queued events
+     */
+    public static FlushReport flush(long timeoutMillis) {
+        long start = System.currentTimeMillis();
+        long writtenBefore = WritePath.getWrittenCount();
+
+        long pending = WritePath.flush(timeoutMillis);
+        int synced = syncFiles();
+
+        long flushed = WritePath.getWrittenCount() - writtenBefore;
+        return new FlushReport(flushed, pending, synced, System.currentTimeMillis() - start, pending > 0);
+    }
+
+    /**
+     * Drain queued events, stop log4Rich and force log files to disk, all within the configured deadline.
+     * Events still queued when the deadline expires are reported as pending.
+     */
+    public static FlushReport shutdown() {
+        shutDown.set(true);
+        long start = System.currentTimeMillis();
+        long deadline = start + deadlineMillis;
+        long writtenBefore = WritePath.getWrittenCount();
+
+        long pending = WritePath.flush(deadlineMillis);
+        long flushed = WritePath.getWrittenCount() - writtenBefore;
+        int undelivered = WritePath.reset(Math.max(1L, deadline - System.currentTimeMillis()));
+
+        boolean stopped = stopLog4Rich(Math.max(1L, deadline - System.currentTimeMillis()));
+        int synced = syncFiles();
+
+        FlushReport report = new FlushReport(flushed, undelivered, synced, System.currentTimeMillis() - start,
+                                             pending > 0 || undelivered > 0 || !stopped);
+        if (report.getPendingEvents() > 0 || !stopped) {
+            System.err.println("log4j-log4Rich shutdown: " + report);
+        } else if (Boolean.getBoolean("log4j.debug")) {
+            System.out.println("log4j-log4Rich shutdown: " + report);
+        }
+        return report;
+    }
+
+    private static boolean stopLog4Rich(long timeoutMillis) {
+        Thread stopper = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    com.log4rich.Log4Rich.shutdown();
+                } catch (Exception e) {
+                    System.err.println("log4Rich shutdown failed: " + e.getMessage());
+                }
+            }
+        }, "log4Rich-shutdown");
+        stopper.setDaemon(true);
+        stopper.start();
+        try {
+            stopper.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !stopper.isAlive();
+    }
+
+    private static int syncFiles() {
+        int synced = 0;
+        for (String path : activeFiles) {
+            File file = new File(path);
+            if (!file.isFile()) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(true);
+                synced++;
+            } catch (IOException e) {
+                System.err.println("Failed to sync " + path + ": " + e.getMessage());
+            }
+        }
+        return synced;
+    }
+}
@@ -0,0 +1,80 @@
+package org.apache.log4j.helpers;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Small lock-free pool of StringBuilders, borrowed for the length of one call.
+ *
+ * A thread-local buffer costs one buffer per thread, which is a lot of memory
+ * for a million virtual threads that each log once. This pool instead holds a
+ * few buffers per processor: {@link #borrow} takes one from a slot picked by
+ * thread id, probing the next slots, and allocates a fresh builder when they
+ * are all out; {@link #release} puts it back into an empty slot or drops it.
+ * Builders that have grown beyond the retained capacity are dropped too.
+ * Neither call blocks or takes a lock.
+ */
+public final class StringBuilderPool {
+
+    private static final int PROBES = 4;
+
+    private final AtomicReferenceArray<StringBuilder> slots;
+    private final int mask;
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+
+    /**
+     * @param size number of pooled builders, rounded up to a power of two
+     * @param initialCapacity capacity of newly allocated builders
+     * @param maxRetainedCapacity builders grown beyond this capacity are not returned to the pool
+     */
+    public StringBuilderPool(int size, int initialCapacity, int maxRetainedCapacity) {
+        int slotCount = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.mask = slotCount - 1;
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    /**
+     * Take an empty builder from the pool, or allocate one.
+     */
+    public StringBuilder borrow() {
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i < PROBES; i++) {
+            StringBuilder builder = slots.getAndSet((start + i) & mask, null);
+            if (builder != null) {
+                return builder;
+            }
+        }
+        return new StringBuilder(initialCapacity);
+    }
+
+    /**
+     * Return a borrowed builder. It must not be used afterwards.
+     */
+    public void release(StringBuilder builder) {
+        if (builder.capacity() > maxRetainedCapacity) {
+            return;
+        }
+        builder.setLength(0);
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i < PROBES; i++) {
+            if (slots.compareAndSet((start + i) & mask, null, builder)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of builders currently pooled.
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
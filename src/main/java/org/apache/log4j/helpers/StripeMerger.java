@@ -0,0 +1,185 @@
+package org.apache.log4j.helpers;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the stripe files written by {@link StripedFileSink} into a single
+ * time-ordered log file.
+ *
+ * Records are ordered by timestamp, then by stripe index, and keep their
+ * stripe order otherwise, so merging the same stripes always produces the same
+ * file. Usage:
+ * {@code java -cp log4j-log4Rich.jar org.apache.log4j.helpers.StripeMerger <file> [output]}
+ */
+public final class StripeMerger {
+
+    private StripeMerger() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: StripeMerger <file> [output]");
+            System.err.println("Merges <file>.stripe-0, <file>.stripe-1, ... into output (default <file>)");
+            System.exit(2);
+        }
+        String output = args.length > 1 ? args[1] : args[0];
+        long records = merge(args[0], countStripes(args[0]), output);
+        System.out.println("Merged " + records + " records into " + output);
+    }
+
+    /**
+     * Count the consecutive stripe files present for a base file name.
+     */
+    public static int countStripes(String fileName) {
+        int count = 0;
+        while (new File(StripedFileSink.stripeFileName(fileName, count)).isFile()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Merge the stripes of a base file into an output file, replacing it.
+     *
+     * @return the number of records written
+     */
+    public static long merge(String fileName, int stripeCount, String output) throws IOException {
+        List<StripeReader> readers = new ArrayList<>();
+        PriorityQueue<StripeReader> heads = new PriorityQueue<>(Math.max(1, stripeCount),
+            new Comparator<StripeReader>() {
+                @Override
+                public int compare(StripeReader a, StripeReader b) {
+                    return a.timestamp != b.timestamp ? Long.compare(a.timestamp, b.timestamp)
+                                                      : Integer.compare(a.stripe, b.stripe);
+                }
+            });
+        long records = 0;
+        try {
+            for (int i = 0; i < stripeCount; i++) {
+                StripeReader reader = new StripeReader(StripedFileSink.stripeFileName(fileName, i), i);
+                readers.add(reader);
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(output, false), StandardCharsets.UTF_8), 65536)) {
+                StripeReader reader;
+                while ((reader = heads.poll()) != null) {
+                    writer.write(reader.text);
+                    writer.write(PlainLayout.LINE_SEPARATOR);
+                    records++;
+                    if (reader.next()) {
+                        heads.add(reader);
+                    }
+                }
+            }
+        } finally {
+            for (StripeReader reader : readers) {
+                reader.close();
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Sequential reader over the records of one stripe file.
+     */
+    static final class StripeReader implements Closeable {
+        final int stripe;
+        private final FileChannel channel;
+        private final long size;
+        private final int segmentSize;
+        private long segmentStart;
+        private MappedByteBuffer segment;
+        private boolean finished;
+
+        long sequence;
+        long timestamp;
+        String text;
+
+        StripeReader(String fileName, int stripe) throws IOException {
+            this.stripe = stripe;
+            this.channel = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.READ);
+            this.size = channel.size();
+
+            ByteBuffer header = ByteBuffer.allocate(StripedFileSink.HEADER_SIZE);
+            channel.read(header, 0L);
+            header.flip();
+            if (header.remaining() < StripedFileSink.HEADER_SIZE || header.getInt() != StripedFileSink.MAGIC) {
+                channel.close();
+                throw new IOException(fileName + " is not a stripe file");
+            }
+            if (header.getInt() != StripedFileSink.VERSION) {
+                channel.close();
+                throw new IOException(fileName + " has an unsupported stripe format version");
+            }
+            this.segmentSize = header.getInt();
+            this.segmentStart = StripedFileSink.HEADER_SIZE;
+        }
+
+        /**
+         * Advance to the next record.
+         *
+         * @return false at the end of the stripe
+         */
+        boolean next() throws IOException {
+            while (!finished) {
+                if (segment == null) {
+                    if (segmentStart >= size) {
+                        finished = true;
+                        break;
+                    }
+                    segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                                          Math.min(segmentSize, size - segmentStart));
+                }
+                if (segment.remaining() < 4) {
+                    nextSegment();
+                    continue;
+                }
+                int length = segment.getInt();
+                if (length == StripedFileSink.SKIP) {
+                    nextSegment();
+                    continue;
+                }
+                if (length <= 0 || segment.remaining() < StripedFileSink.RECORD_HEADER_SIZE - 4 + length) {
+                    finished = true; // end of data, or a record cut short by a crash
+                    break;
+                }
+                sequence = segment.getLong();
+                timestamp = segment.getLong();
+                byte[] bytes = new byte[length];
+                segment.get(bytes);
+                text = new String(bytes, StandardCharsets.UTF_8);
+                return true;
+            }
+            return false;
+        }
+
+        private void nextSegment() {
+            segmentStart += segmentSize;
+            segment = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.apache.log4j.helpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * File sink that spreads writes over independent stripes, each a separate
+ * memory-mapped file, so that threads writing to different stripes never
+ * contend. A thread always writes to the stripe selected by the hash of its
+ * id, so the records of one thread stay in order within one stripe.
+ *
+ * Stripe files are named {@code <file>.stripe-<n>} and hold length-prefixed
+ * records, each carrying a per-stripe sequence number and a timestamp that is
+ * non-decreasing within the stripe. {@link StripeMerger} combines the stripes
+ * into a single time-ordered log file, either on demand or when the sink is
+ * closed with merge-on-close enabled.
+ *
+ * File format: a 16-byte header (magic, version, segment size, stripe index)
+ * followed by segments of the configured size. A record is
+ * {@code int length, long sequence, long timestamp, byte[length] UTF-8 text}
+ * and never crosses a segment boundary; a length of -1 skips to the next
+ * segment and a length of 0 marks the end of the data.
+ */
+public final class StripedFileSink implements EventSink, Flushable, Closeable {
+
+    static final int MAGIC = 0x4C345253; // "L4RS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 20;
+    static final int SKIP = -1;
+
+    private final String fileName;
+    private final int segmentSize;
+    private final boolean mergeOnClose;
+    private final Stripe[] stripes;
+
+    /**
+     * Create the stripe files and map their first segments.
+     *
+     * @param fileName base file name; stripes are written next to it and merged into it
+     * @param stripeCount number of stripes
+     * @param segmentSize bytes mapped at a time per stripe
+     * @param mergeOnClose whether {@link #close()} merges the stripes into the base file
+     */
+    public StripedFileSink(String fileName, int stripeCount, int segmentSize, boolean mergeOnClose)
+            throws IOException {
+        this(fileName, stripeCount, segmentSize, mergeOnClose, new PlainLayout());
+    }
+
+    /**
+     * Create the stripe files and map their first segments.
+     *
+     * @param fileName base file name; stripes are written next to it and merged into it
+     * @param stripeCount number of stripes
+     * @param segmentSize bytes mapped at a time per stripe
+     * @param mergeOnClose whether {@link #close()} merges the stripes into the base file
+     * @param layout layout records are rendered with
+     */
+    public StripedFileSink(String fileName, int stripeCount, int segmentSize, boolean mergeOnClose,
+                           PlainLayout layout) throws IOException {
+        this.fileName = fileName;
+        this.segmentSize = Math.max(4096, segmentSize);
+        this.mergeOnClose = mergeOnClose;
+        this.stripes = new Stripe[Math.max(1, stripeCount)];
+
+        File parent = new File(fileName).getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(stripeFileName(fileName, i), i, this.segmentSize, layout);
+        }
+    }
+
+    /**
+     * Name of a stripe file for a base file name.
+     */
+    public static String stripeFileName(String fileName, int stripe) {
+        return fileName + ".stripe-" + stripe;
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        Stripe stripe = stripes[stripeIndex(Thread.currentThread().getId(), stripes.length)];
+        synchronized (stripe) {
+            try {
+                stripe.append(event);
+            } catch (IOException e) {
+                System.err.println("Failed to write to " + stripe.fileName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void writeAll(List<LogEvent> events) {
+        Stripe stripe = stripes[stripeIndex(Thread.currentThread().getId(), stripes.length)];
+        synchronized (stripe) {
+            try {
+                for (LogEvent event : events) {
+                    stripe.append(event);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to write to " + stripe.fileName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Force every stripe's mapped segment to disk.
+     */
+    @Override
+    public void flush() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.segment.force();
+            }
+        }
+    }
+
+    /**
+     * Flush and close the stripe files. With merge-on-close, the stripes are
+     * merged into the base file and deleted.
+     */
+    @Override
+    public void close() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.close();
+            }
+        }
+        if (mergeOnClose) {
+            try {
+                StripeMerger.merge(fileName, stripes.length, fileName);
+                for (Stripe stripe : stripes) {
+                    new File(stripe.fileName).delete();
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to merge stripes of " + fileName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Get the stripe a thread writes to: a multiplicative hash of its id.
+     */
+    static int stripeIndex(long threadId, int stripeCount) {
+        long hash = threadId * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 33) % stripeCount);
+    }
+
+    private static final class Stripe {
+        final String fileName;
+        final int segmentSize;
+        final FileChannel channel;
+        final PlainLayout layout;
+        MappedByteBuffer segment;
+        long segmentStart;
+        long sequence;
+        long lastTimestamp;
+        boolean closed;
+
+        Stripe(String fileName, int index, int segmentSize, PlainLayout layout) throws IOException {
+            this.fileName = fileName;
+            this.segmentSize = segmentSize;
+            this.layout = layout;
+            this.channel = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.CREATE,
+                                            StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(segmentSize).putInt(index).flip();
+            channel.write(header, 0L);
+            map(HEADER_SIZE);
+        }
+
+        void append(LogEvent event) throws IOException {
+            if (closed) {
+                return;
+            }
+            // Clamp so that timestamps never decrease within a stripe, which the merge relies on
+            long timestamp = Math.max(lastTimestamp, event.getTimeStamp());
+            lastTimestamp = timestamp;
+            byte[] text = layout.format(timestamp, event.getThreadName(), event.getLevel(), event.getLoggerName(),
+                                        event.getMessage(), event.getThrowable()).getBytes(StandardCharsets.UTF_8);
+            int maxPayload = segmentSize - RECORD_HEADER_SIZE - 4;
+            int length = Math.min(text.length, maxPayload);
+            if (segment.remaining() < RECORD_HEADER_SIZE + length + 4) {
+                if (segment.remaining() >= 4) {
+                    segment.putInt(segment.position(), SKIP);
+                }
+                map(segmentStart + segmentSize);
+            }
+
+            int start = segment.position();
+            segment.position(start + 4);
+            segment.putLong(sequence++).putLong(timestamp).put(text, 0, length);
+            // Length last, so a reader never sees a partially written record
+            segment.putInt(start, length);
+        }
+
+        void map(long start) throws IOException {
+            segmentStart = start;
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, start, segmentSize);
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segment.force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignore close errors
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.apache.log4j.helpers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Renders throwables in {@link Throwable#printStackTrace()} format, optionally
+ * trimmed: at most a given number of frame lines per throwable, consecutive
+ * frames from listed packages collapsed into one
+ * {@code "... 12 frames in org.springframework"} line, and at most a given
+ * depth of causes and suppressed exceptions.
+ *
+ * Frames shared with the enclosing trace are found by comparing the two
+ * StackTraceElement arrays from the end and printed as {@code "... N more"},
+ * and everything is appended straight to the caller's StringBuilder, without
+ * a PrintWriter or intermediate strings per frame.
+ *
+ * Instances are immutable and thread-safe. The renderer set with
+ * {@link #setActive} is used by every bridge-written layout, and while it
+ * limits anything it is also applied to throwables handed to log4Rich.
+ */
+public final class ThrowableRenderer {
+
+    /** Renders whole traces, like printStackTrace. */
+    public static final ThrowableRenderer FULL = new ThrowableRenderer(0, null, 0);
+
+    private static final String CAUSE_CAPTION = "Caused by: ";
+    private static final String SUPPRESSED_CAPTION = "Suppressed: ";
+
+    private static volatile ThrowableRenderer active = FULL;
+
+    private final int maxFrames;
+    private final String[] collapsedPackages;
+    private final int maxCauseDepth;
+
+    /**
+     * @param maxFrames frame lines printed per throwable, or 0 for no limit
+     * @param collapsedPackages package prefixes whose consecutive frames are collapsed, or null
+     * @param maxCauseDepth levels of causes and suppressed exceptions printed, or 0 for no limit
+     */
+    public ThrowableRenderer(int maxFrames, String[] collapsedPackages, int maxCauseDepth) {
+        this.maxFrames = Math.max(0, maxFrames);
+        this.collapsedPackages = packages(collapsedPackages);
+        this.maxCauseDepth = Math.max(0, maxCauseDepth);
+    }
+
+    /**
+     * Get the renderer used by the bridge.
+     */
+    public static ThrowableRenderer getActive() {
+        return active;
+    }
+
+    /**
+     * Set the renderer used by the bridge; null restores {@link #FULL}.
+     */
+    public static void setActive(ThrowableRenderer renderer) {
+        active = renderer != null ? renderer : FULL;
+    }
+
+    /**
+     * Check whether this renderer trims anything compared with printStackTrace.
+     */
+    public boolean isLimited() {
+        return maxFrames > 0 || collapsedPackages.length > 0 || maxCauseDepth > 0;
+    }
+
+    public int getMaxFrames() {
+        return maxFrames;
+    }
+
+    public String[] getCollapsedPackages() {
+        return collapsedPackages.clone();
+    }
+
+    public int getMaxCauseDepth() {
+        return maxCauseDepth;
+    }
+
+    /**
+     * Render a throwable without a trailing line separator.
+     */
+    public String render(Throwable throwable) {
+        StringBuilder sb = new StringBuilder(1024);
+        render(throwable, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Append a rendered throwable without a trailing line separator.
+     */
+    public void render(Throwable throwable, StringBuilder sb) {
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        seen.add(throwable);
+        sb.append(throwable);
+        StackTraceElement[] trace = throwable.getStackTrace();
+        appendFrames(sb, trace, 0, "");
+        appendEnclosed(sb, throwable, trace, "", 1, seen);
+    }
+
+    private void appendEnclosed(StringBuilder sb, Throwable throwable, StackTraceElement[] trace,
+                                String prefix, int depth, Set<Throwable> seen) {
+        Throwable[] suppressed = throwable.getSuppressed();
+        for (int i = 0; i < suppressed.length; i++) {
+            if (maxCauseDepth > 0 && depth > maxCauseDepth) {
+                appendOmitted(sb, prefix + "\t", suppressed.length - i, "suppressed");
+                break;
+            }
+            appendEnclosing(sb, suppressed[i], trace, SUPPRESSED_CAPTION, prefix + "\t", depth, seen);
+        }
+
+        Throwable cause = throwable.getCause();
+        if (cause == null) {
+            return;
+        }
+        if (maxCauseDepth > 0 && depth > maxCauseDepth) {
+            appendOmitted(sb, prefix, causeCount(cause), "nested causes");
+            return;
+        }
+        appendEnclosing(sb, cause, trace, CAUSE_CAPTION, prefix, depth, seen);
+    }
+
+    private void appendEnclosing(StringBuilder sb, Throwable throwable, StackTraceElement[] enclosingTrace,
+                                 String caption, String prefix, int depth, Set<Throwable> seen) {
+        sb.append(PlainLayout.LINE_SEPARATOR).append(prefix).append(caption);
+        if (!seen.add(throwable)) {
+            sb.append("[CIRCULAR REFERENCE:").append(throwable).append(']');
+            return;
+        }
+        sb.append(throwable);
+
+        StackTraceElement[] trace = throwable.getStackTrace();
+        int m = trace.length - 1;
+        int n = enclosingTrace.length - 1;
+        while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+            m--;
+            n--;
+        }
+        appendFrames(sb, trace, trace.length - 1 - m, prefix);
+        appendEnclosed(sb, throwable, trace, prefix, depth + 1, seen);
+    }
+
+    /**
+     * Append the frames of a trace, less the given number shared with the enclosing trace.
+     */
+    private void appendFrames(StringBuilder sb, StackTraceElement[] trace, int inCommon, String prefix) {
+        int unique = trace.length - inCommon;
+        int lines = 0;
+        int i = 0;
+        while (i < unique) {
+            if (maxFrames > 0 && lines == maxFrames) {
+                break;
+            }
+            String collapsed = collapsedPackage(trace[i].getClassName());
+            int run = 1;
+            if (collapsed != null) {
+                while (i + run < unique && collapsed == collapsedPackage(trace[i + run].getClassName())) {
+                    run++;
+                }
+            }
+            sb.append(PlainLayout.LINE_SEPARATOR).append(prefix).append('\t');
+            if (run > 1) {
+                sb.append("... ").append(run).append(" frames in ").append(collapsed);
+            } else {
+                appendFrame(sb, trace[i]);
+            }
+            i += run;
+            lines++;
+        }
+        int omitted = trace.length - i;
+        if (omitted > 0) {
+            sb.append(PlainLayout.LINE_SEPARATOR).append(prefix).append("\t... ").append(omitted).append(" more");
+        }
+    }
+
+    /**
+     * Append a frame the way StackTraceElement.toString does on Java 8.
+     */
+    private static void appendFrame(StringBuilder sb, StackTraceElement frame) {
+        sb.append("at ").append(frame.getClassName()).append('.').append(frame.getMethodName());
+        if (frame.isNativeMethod()) {
+            sb.append("(Native Method)");
+        } else if (frame.getFileName() == null) {
+            sb.append("(Unknown Source)");
+        } else if (frame.getLineNumber() >= 0) {
+            sb.append('(').append(frame.getFileName()).append(':').append(frame.getLineNumber()).append(')');
+        } else {
+            sb.append('(').append(frame.getFileName()).append(')');
+        }
+    }
+
+    private static void appendOmitted(StringBuilder sb, String prefix, int count, String what) {
+        sb.append(PlainLayout.LINE_SEPARATOR).append(prefix).append("\t... ").append(count)
+          .append(' ').append(what).append(" omitted");
+    }
+
+    private static int causeCount(Throwable cause) {
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        int count = 0;
+        for (Throwable t = cause; t != null && seen.add(t); t = t.getCause()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get the configured prefix covering a class, or null. Returns the same
+     * instance for every class it covers, so runs compare by identity.
+     */
+    private String collapsedPackage(String className) {
+        for (String prefix : collapsedPackages) {
+            if (className.startsWith(prefix)
+                    && (className.length() == prefix.length() || className.charAt(prefix.length()) == '.')) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    private static String[] packages(String[] prefixes) {
+        if (prefixes == null) {
+            return new String[0];
+        }
+        int count = 0;
+        String[] trimmed = new String[prefixes.length];
+        for (String prefix : prefixes) {
+            String p = prefix == null ? "" : prefix.trim();
+            if (p.endsWith(".*")) {
+                p = p.substring(0, p.length() - 2);
+            } else if (p.endsWith(".")) {
+                p = p.substring(0, p.length() - 1);
+            }
+            if (!p.isEmpty()) {
+                trimmed[count++] = p;
+            }
+        }
+        return Arrays.copyOf(trimmed, count);
+    }
+}
@@ -0,0 +1,97 @@
+package org.apache.log4j.helpers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Virtual-thread mode of the write path.
+ *
+ * While enabled, events logged from a virtual thread skip everything that
+ * would pin it to its carrier or hold a carrier-sized buffer per thread: the
+ * per-thread batches of {@link BatchingStage}, synchronized sinks and the
+ * log4Rich backend itself. Instead they are queued to a platform-thread
+ * writer, the appender's own {@link AsyncDispatcher} when it has one, and a
+ * full queue parks the virtual thread without holding a monitor. Platform
+ * threads keep the configured path.
+ *
+ * Virtual threads are detected with {@code Thread.isVirtual()}, looked up
+ * once; on runtimes without them no thread is virtual and enabling the mode
+ * has no effect.
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle IS_VIRTUAL = lookupIsVirtual();
+
+    /** Queue capacity of the platform-thread writers; 0 while the mode is off. */
+    private static volatile int queueSize;
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Check whether this runtime has virtual threads.
+     */
+    public static boolean isSupported() {
+        return IS_VIRTUAL != null;
+    }
+
+    /**
+     * Check whether a thread is virtual.
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /**
+     * Check whether the calling thread should take the virtual-thread path:
+     * the mode is enabled and the thread is virtual. One volatile read while
+     * the mode is off.
+     */
+    public static boolean isCurrentThreadVirtual() {
+        return queueSize > 0 && isVirtual(Thread.currentThread());
+    }
+
+    /**
+     * Enable the mode.
+     *
+     * @param writerQueueSize queue capacity of each platform-thread writer
+     */
+    public static void enable(int writerQueueSize) {
+        queueSize = Math.max(1, writerQueueSize);
+    }
+
+    /**
+     * Disable the mode; virtual threads take the configured path again.
+     */
+    public static void disable() {
+        queueSize = 0;
+    }
+
+    public static boolean isEnabled() {
+        return queueSize > 0;
+    }
+
+    /**
+     * Get the queue capacity of the platform-thread writers, or 0 while the mode is off.
+     */
+    public static int getQueueSize() {
+        return queueSize;
+    }
+
+    private static MethodHandle lookupIsVirtual() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual",
+                                                            MethodType.methodType(boolean.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package org.apache.log4j.helpers;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Routes bridge loggers to the {@link BatchingStage} and {@link AsyncDispatcher}
+ * of the appender they write to.
+ *
+ * Appenders configured with a batch size get a batching stage, and appenders
+ * configured with an overflow policy get a dispatcher; an appender with both
+ * batches in front of its dispatcher. Appenders the bridge writes itself, such
+ * as striped files, get a sink that replaces log4Rich at the end of that chain.
+ * A logger uses the first such appender attached to it, or to its nearest
+ * configured ancestor, falling back to the root logger's appenders. Loggers
+ * routed to none of them write straight to log4Rich.
+ *
+ * In {@link VirtualThreads} mode, virtual threads hand their events to a
+ * platform-thread writer instead: the appender's dispatcher, or a writer
+ * created on first use for the sink at the end of the chain.
+ */
+public final class WritePath {
+
+    public static final String ROOT = "ROOT";
+
+    private static volatile WritePath active = new WritePath(
+        Collections.<String, AsyncDispatcher>emptyMap(), Collections.<String, BatchingStage>emptyMap(),
+        Collections.<String, EventSink>emptyMap(), Collections.<String, String[]>emptyMap());
+
+    private final Map<String, AsyncDispatcher> dispatchers;
+    private final Map<String, BatchingStage> stages;
+    private final Map<String, EventSink> sinks;
+    private final Map<String, String[]> loggerAppenders;
+    private final ConcurrentMap<EventSink, AsyncDispatcher> platformWriters = new ConcurrentHashMap<>();
+
+    private WritePath(Map<String, AsyncDispatcher> dispatchers, Map<String, BatchingStage> stages,
+                      Map<String, EventSink> sinks, Map<String, String[]> loggerAppenders) {
+        this.dispatchers = dispatchers;
+        this.stages = stages;
+        this.sinks = sinks;
+        this.loggerAppenders = loggerAppenders;
+    }
+
+    /**
+     * Install a new routing table and close the dispatchers of the previous one.
+     *
+     * @param dispatchers dispatchers keyed by appender name
+     * @param loggerAppenders appender names keyed by logger name, with {@link #ROOT} for the root logger
+     */
+    public static void install(Map<String, AsyncDispatcher> dispatchers, Map<String, String[]> loggerAppenders) {
+        install(dispatchers, Collections.<String, BatchingStage>emptyMap(), loggerAppenders);
+    }
+
+    /**
+     * Install a new routing table and close the stages and dispatchers of the previous one.
+     *
+     * @param dispatchers dispatchers keyed by appender name
+     * @param stages batching stages keyed by appender name
+     * @param loggerAppenders appender names keyed by logger name, with {@link #ROOT} for the root logger
+     */
+    public static void install(Map<String, AsyncDispatcher> dispatchers, Map<String, BatchingStage> stages,
+                               Map<String, String[]> loggerAppenders) {
+        install(dispatchers, stages, Collections.<String, EventSink>emptyMap(), loggerAppenders);
+    }
+
+    /**
+     * Install a new routing table and close the stages, dispatchers and sinks of the previous one.
+     *
+     * @param dispatchers dispatchers keyed by appender name
+     * @param stages batching stages keyed by appender name
+     * @param sinks bridge-written sinks keyed by appender name; closed on replacement if {@link Closeable}
+     * @param loggerAppenders appender names keyed by logger name, with {@link #ROOT} for the root logger
+     */
+    public static void install(Map<String, AsyncDispatcher> dispatchers, Map<String, BatchingStage> stages,
+                               Map<String, EventSink> sinks, Map<String, String[]> loggerAppenders) {
+        WritePath previous = active;
+        active = new WritePath(new HashMap<>(dispatchers), new HashMap<>(stages), new HashMap<>(sinks),
+                               new HashMap<>(loggerAppenders));
+        previous.closeAll(1000L);
+    }
+
+    /**
+     * Remove all stages and dispatchers, draining each for at most the given time.
+     *
+     * @return the number of events left undelivered
+     */
+    public static int reset(long timeoutMillis) {
+        WritePath previous = active;
+        active = new WritePath(
+            Collections.<String, AsyncDispatcher>emptyMap(), Collections.<String, BatchingStage>emptyMap(),
+            Collections.<String, EventSink>emptyMap(), Collections.<String, String[]>emptyMap());
+        return previous.closeAll(timeoutMillis);
+    }
+
+    /**
+     * Wait for every stage and dispatcher to write the events accepted so far.
+     *
+     * @param timeoutMillis maximum total time to wait
+     * @return the number of events still pending when the timeout expired
+     */
+    public static long flush(long timeoutMillis) {
+        WritePath path = active;
+        long deadline = System.currentTimeMillis() + Math.max(0L, timeoutMillis);
+        long pending = 0;
+        for (BatchingStage stage : path.stages.values()) {
+            pending += stage.flush(Math.max(0L, deadline - System.currentTimeMillis()));
+        }
+        for (AsyncDispatcher dispatcher : path.dispatchers.values()) {
+            pending += dispatcher.flush(Math.max(0L, deadline - System.currentTimeMillis()));
+        }
+        for (AsyncDispatcher writer : path.platformWriters.values()) {
+            pending += writer.flush(Math.max(0L, deadline - System.currentTimeMillis()));
+        }
+        for (EventSink sink : path.sinks.values()) {
+            if (sink instanceof Flushable) {
+                try {
+                    ((Flushable) sink).flush();
+                } catch (IOException e) {
+                    System.err.println("Failed to flush " + sink + ": " + e.getMessage());
+                }
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Get the total number of events written to log4Rich by the active stages and dispatchers.
+     */
+    public static long getWrittenCount() {
+        WritePath path = active;
+        long written = 0;
+        for (AsyncDispatcher dispatcher : path.dispatchers.values()) {
+            written += dispatcher.getWrittenCount();
+        }
+        for (AsyncDispatcher writer : path.platformWriters.values()) {
+            written += writer.getWrittenCount();
+        }
+        for (Map.Entry<String, BatchingStage> entry : path.stages.entrySet()) {
+            if (!path.dispatchers.containsKey(entry.getKey()) && !path.sinks.containsKey(entry.getKey())) {
+                written += entry.getValue().getWrittenCount();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Get the fill ratio of the fullest dispatcher queue or batching stage, from 0 to 1.
+     */
+    public static double getQueueFill() {
+        WritePath path = active;
+        double fill = 0.0;
+        for (AsyncDispatcher dispatcher : path.dispatchers.values()) {
+            fill = Math.max(fill, dispatcher.getQueueSize() / (double) dispatcher.getCapacity());
+        }
+        for (AsyncDispatcher writer : path.platformWriters.values()) {
+            fill = Math.max(fill, writer.getQueueSize() / (double) writer.getCapacity());
+        }
+        for (BatchingStage stage : path.stages.values()) {
+            fill = Math.max(fill, stage.getQueueSize() / (double) stage.getCapacity());
+        }
+        return Math.min(1.0, fill);
+    }
+
+    /**
+     * Get the total time the active dispatchers have spent writing to their sinks, in nanoseconds.
+     */
+    public static long getDispatcherWriteNanos() {
+        long nanos = 0;
+        for (AsyncDispatcher dispatcher : active.dispatchers.values()) {
+            nanos += dispatcher.getWriteNanos();
+        }
+        return nanos;
+    }
+
+    /**
+     * Get the total number of events the active dispatchers have written to their sinks.
+     */
+    public static long getDispatcherWrittenCount() {
+        long written = 0;
+        for (AsyncDispatcher dispatcher : active.dispatchers.values()) {
+            written += dispatcher.getWrittenCount();
+        }
+        return written;
+    }
+
+    /**
+     * Get the dispatcher configured for an appender, or null.
+     */
+    public static AsyncDispatcher getDispatcher(String appenderName) {
+        return active.dispatchers.get(appenderName);
+    }
+
+    /**
+     * Get the bridge-written sink configured for an appender, or null.
+     */
+    public static EventSink getSink(String appenderName) {
+        return active.sinks.get(appenderName);
+    }
+
+    /**
+     * Get the batching stage configured for an appender, or null.
+     */
+    public static BatchingStage getStage(String appenderName) {
+        return active.stages.get(appenderName);
+    }
+
+    /**
+     * Resolve the stage and dispatcher for a logger against the active routing table.
+     * Callers cache the result and re-bind when {@link Binding#isCurrent()} turns false.
+     */
+    public static Binding bind(String loggerName) {
+        WritePath path = active;
+        String appender = path.resolve(loggerName);
+        return appender == null ? new Binding(path, null, null, null)
+            : new Binding(path, path.dispatchers.get(appender), path.stages.get(appender), path.sinks.get(appender));
+    }
+
+    /**
+     * Get the platform-thread writer for a sink, starting it on first use.
+     */
+    private AsyncDispatcher platformWriter(EventSink sink) {
+        AsyncDispatcher writer = platformWriters.get(sink);
+        if (writer != null) {
+            return writer;
+        }
+        AsyncDispatcher created = new AsyncDispatcher("platform-writer-" + platformWriters.size(),
+                                                      VirtualThreads.getQueueSize(), OverflowPolicy.BLOCK,
+                                                      null, null, 10000L, sink);
+        writer = platformWriters.putIfAbsent(sink, created);
+        if (writer != null) {
+            created.close(0L);
+            return writer;
+        }
+        if (this != active) {
+            // Replaced while starting: closeAll may have missed it, and a closed writer writes synchronously
+            created.close(0L);
+        }
+        return created;
+    }
+
+    private String resolve(String loggerName) {
+        if (dispatchers.isEmpty() && stages.isEmpty() && sinks.isEmpty()) {
+            return null;
+        }
+        String name = loggerName;
+        while (name != null) {
+            String appender = firstRouted(loggerAppenders.get(name));
+            if (appender != null) {
+                return appender;
+            }
+            int dot = name.lastIndexOf('.');
+            name = dot > 0 ? name.substring(0, dot) : null;
+        }
+        return firstRouted(loggerAppenders.get(ROOT));
+    }
+
+    private String firstRouted(String[] appenders) {
+        if (appenders == null) {
+            return null;
+        }
+        for (String appender : appenders) {
+            if (stages.containsKey(appender) || dispatchers.containsKey(appender) || sinks.containsKey(appender)) {
+                return appender;
+            }
+        }
+        return null;
+    }
+
+    private int closeAll(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + Math.max(1L, timeoutMillis);
+        int undelivered = 0;
+        // Stages first: they may still hand events to the dispatchers
+        for (BatchingStage stage : stages.values()) {
+            undelivered += stage.close(Math.max(1L, deadline - System.currentTimeMillis()));
+        }
+        for (AsyncDispatcher dispatcher : dispatchers.values()) {
+            undelivered += dispatcher.close(Math.max(1L, deadline - System.currentTimeMillis()));
+        }
+        for (AsyncDispatcher writer : platformWriters.values()) {
+            undelivered += writer.close(Math.max(1L, deadline - System.currentTimeMillis()));
+        }
+        for (EventSink sink : sinks.values()) {
+            if (sink instanceof Closeable) {
+                try {
+                    ((Closeable) sink).close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close " + sink + ": " + e.getMessage());
+                }
+            }
+        }
+        return undelivered;
+    }
+
+    /**
+     * Per-logger view of the active routing table, cached by {@link org.apache.log4j.Logger}.
+     */
+    public static final class Binding {
+
+        public static final Binding UNBOUND = new Binding(null, null, null, null);
+
+        private final WritePath path;
+        private final AsyncDispatcher dispatcher;
+        private final BatchingStage stage;
+        private final EventSink sink;
+
+        private Binding(WritePath path, AsyncDispatcher dispatcher, BatchingStage stage, EventSink sink) {
+            this.path = path;
+            this.dispatcher = dispatcher;
+            this.stage = stage;
+            this.sink = sink;
+        }
+
+        /**
+         * Check whether this binding still reflects the active routing table.
+         */
+        public boolean isCurrent() {
+            return path == active;
+        }
+
+        /**
+         * Get the dispatcher for the bound logger, or null to write directly to log4Rich.
+         */
+        public AsyncDispatcher getDispatcher() {
+            return dispatcher;
+        }
+
+        /**
+         * Get the batching stage for the bound logger, or null when events are not batched.
+         */
+        public BatchingStage getStage() {
+            return stage;
+        }
+
+        /**
+         * Get the bridge-written sink for the bound logger, or null to write to log4Rich.
+         */
+        public EventSink getSink() {
+            return sink;
+        }
+
+        /**
+         * Get the platform-thread writer virtual threads hand the bound logger's events to:
+         * the appender's dispatcher, or a writer for its sink or for log4Rich.
+         */
+        public AsyncDispatcher getPlatformWriter() {
+            if (dispatcher != null) {
+                return dispatcher;
+            }
+            return path.platformWriter(sink != null ? sink : Log4RichSink.INSTANCE);
+        }
+    }
+}
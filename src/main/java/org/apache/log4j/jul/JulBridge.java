@@ -0,0 +1,76 @@
+package org.apache.log4j.jul;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import java.util.logging.Handler;
+
+/**
+ * Installs {@link Log4RichHandler} as the only handler of the JUL root logger,
+ * replacing the JDK's ConsoleHandler/FileHandler.
+ *
+ * By default the JUL root level is set from the bridge root logger, so that JUL
+ * loggers do not even build LogRecords for events the bridge would discard.
+ * Loggers configured more verbosely than the root in log4j.properties need a
+ * matching JUL level, or use {@link #install(java.util.logging.Level)}.
+ */
+public final class JulBridge {
+    
+    private JulBridge() {
+    }
+    
+    /**
+     * Route all JUL logging to the bridge, with the JUL root level taken from the bridge root logger.
+     */
+    public static void install() {
+        install(Log4RichHandler.toJulLevel(mostVerboseEnabled(LogManager.getRootLogger())));
+    }
+    
+    /**
+     * Route all JUL logging to the bridge with an explicit JUL root level.
+     */
+    public static void install(java.util.logging.Level rootLevel) {
+        java.util.logging.Logger root = java.util.logging.LogManager.getLogManager().getLogger("");
+        for (Handler handler : root.getHandlers()) {
+            root.removeHandler(handler);
+        }
+        root.addHandler(new Log4RichHandler());
+        root.setLevel(rootLevel);
+    }
+    
+    /**
+     * Remove the bridge handler from the JUL root logger.
+     */
+    public static void uninstall() {
+        java.util.logging.Logger root = java.util.logging.LogManager.getLogManager().getLogger("");
+        for (Handler handler : root.getHandlers()) {
+            if (handler instanceof Log4RichHandler) {
+                root.removeHandler(handler);
+            }
+        }
+    }
+    
+    /**
+     * Check whether the bridge handler is installed on the JUL root logger.
+     */
+    public static boolean isInstalled() {
+        java.util.logging.Logger root = java.util.logging.LogManager.getLogManager().getLogger("");
+        for (Handler handler : root.getHandlers()) {
+            if (handler instanceof Log4RichHandler) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static Level mostVerboseEnabled(Logger logger) {
+        if (logger.isTraceEnabled()) return Level.TRACE;
+        if (logger.isDebugEnabled()) return Level.DEBUG;
+        if (logger.isInfoEnabled()) return Level.INFO;
+        if (logger.isWarnEnabled()) return Level.WARN;
+        if (logger.isErrorEnabled()) return Level.ERROR;
+        if (logger.isFatalEnabled()) return Level.FATAL;
+        return Level.OFF;
+    }
+}
@@ -0,0 +1,114 @@
+package org.apache.log4j.jul;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import java.text.MessageFormat;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * java.util.logging Handler that funnels JUL records into the log4j bridge.
+ *
+ * Each record is routed to the bridge logger of the same name, obtained from
+ * the {@link LogManager} cache, and checked against that logger's level before
+ * its message is localized or its parameters formatted. Records then share the
+ * bridge's write path and configuration with every other logging API in the
+ * process.
+ *
+ * Install it with {@link JulBridge#install()}.
+ */
+public class Log4RichHandler extends Handler {
+    
+    /**
+     * Map a JUL level to the bridge level: FINEST and below to TRACE, FINER and FINE
+     * to DEBUG, CONFIG and INFO to INFO, WARNING to WARN and SEVERE to ERROR.
+     */
+    public static Level toLevel(java.util.logging.Level julLevel) {
+        int value = julLevel.intValue();
+        if (value <= java.util.logging.Level.FINEST.intValue()) return Level.TRACE;
+        if (value <= java.util.logging.Level.FINE.intValue()) return Level.DEBUG;
+        if (value <= java.util.logging.Level.INFO.intValue()) return Level.INFO;
+        if (value <= java.util.logging.Level.WARNING.intValue()) return Level.WARN;
+        return Level.ERROR;
+    }
+    
+    /**
+     * Map a bridge level to the most verbose JUL level that still reaches it.
+     */
+    public static java.util.logging.Level toJulLevel(Level level) {
+        if (level.toInt() <= Level.TRACE.toInt()) return java.util.logging.Level.ALL;
+        if (level.toInt() <= Level.DEBUG.toInt()) return java.util.logging.Level.FINER;
+        if (level.toInt() <= Level.INFO.toInt()) return java.util.logging.Level.CONFIG;
+        if (level.toInt() <= Level.WARN.toInt()) return java.util.logging.Level.WARNING;
+        if (level.toInt() <= Level.FATAL.toInt()) return java.util.logging.Level.SEVERE;
+        return java.util.logging.Level.OFF;
+    }
+    
+    @Override
+    public void publish(LogRecord record) {
+        if (record == null || record.getLevel() == java.util.logging.Level.OFF) {
+            return;
+        }
+        
+        Logger logger = LogManager.getLogger(record.getLoggerName());
+        Level level = toLevel(record.getLevel());
+        if (!logger.isEnabledFor(level)) {
+            return;
+        }
+        if (getFilter() != null && !getFilter().isLoggable(record)) {
+            return;
+        }
+        
+        logger.log(level, formatMessage(record), record.getThrown());
+    }
+    
+    /**
+     * Localize and format the record message, following java.util.logging.Formatter:
+     * the message is looked up in the record's resource bundle, and MessageFormat is
+     * applied only when parameters are present and the message contains a "{0"-style
+     * placeholder.
+     */
+    protected String formatMessage(LogRecord record) {
+        String message = record.getMessage();
+        if (message == null) {
+            return null;
+        }
+        
+        ResourceBundle bundle = record.getResourceBundle();
+        if (bundle != null) {
+            try {
+                message = bundle.getString(message);
+            } catch (MissingResourceException e) {
+                // Use the raw message
+            }
+        }
+        
+        Object[] parameters = record.getParameters();
+        if (parameters == null || parameters.length == 0) {
+            return message;
+        }
+        if (message.indexOf("{0") >= 0 || message.indexOf("{1") >= 0
+                || message.indexOf("{2") >= 0 || message.indexOf("{3") >= 0) {
+            try {
+                return MessageFormat.format(message, parameters);
+            } catch (IllegalArgumentException e) {
+                return message;
+            }
+        }
+        return message;
+    }
+    
+    @Override
+    public void flush() {
+        // Writes are handed to the bridge write path, which owns flushing
+    }
+    
+    @Override
+    public void close() {
+        // Nothing to release; the bridge write path outlives JUL handlers
+    }
+}
@@ -0,0 +1,21 @@
+package org.apache.log4j.or;
+
+/**
+ * An {@link ObjectRenderer} that writes into a caller-supplied buffer.
+ * The bridge hands it a per-thread buffer that is reused across events, so the
+ * renderer builds no intermediate strings of its own.
+ */
+public interface AppendingRenderer extends ObjectRenderer {
+
+    /**
+     * Append the rendered object to the buffer.
+     */
+    void render(Object o, StringBuilder buffer);
+
+    @Override
+    default String doRender(Object o) {
+        StringBuilder buffer = new StringBuilder();
+        render(o, buffer);
+        return buffer.toString();
+    }
+}
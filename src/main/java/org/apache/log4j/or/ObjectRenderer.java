@@ -0,0 +1,14 @@
+package org.apache.log4j.or;
+
+/**
+ * Renders objects of a particular class as log messages, so that logging a
+ * domain object does not go through its {@code toString()}.
+ * Registered with {@code log4j.renderer.<rendered class>=<renderer class>}.
+ */
+public interface ObjectRenderer {
+
+    /**
+     * Render the object as a string.
+     */
+    String doRender(Object o);
+}
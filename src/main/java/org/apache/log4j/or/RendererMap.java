@@ -0,0 +1,209 @@
+package org.apache.log4j.or;
+
+import org.apache.log4j.helpers.StringBuilderPool;
+import org.apache.log4j.helpers.VirtualThreads;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps message classes to the {@link ObjectRenderer} that renders them.
+ *
+ * A class resolves to the renderer registered for it, else for one of its
+ * interfaces, else for its nearest superclass (checking that class's
+ * interfaces in turn), else to the default renderer, which uses
+ * {@code String.valueOf}. The result is computed once per class and cached in
+ * a {@link ClassValue}; registering a renderer discards the cache.
+ */
+public class RendererMap {
+
+    private static final ObjectRenderer DEFAULT_RENDERER = new ObjectRenderer() {
+        @Override
+        public String doRender(Object o) {
+            return String.valueOf(o);
+        }
+    };
+
+    /** Per-thread buffers that have grown beyond this many characters are not kept. */
+    static final int MAX_REUSABLE_CAPACITY = 4096;
+
+    private static final ThreadLocal<Buffer> BUFFER = new ThreadLocal<Buffer>() {
+        @Override
+        protected Buffer initialValue() {
+            return new Buffer();
+        }
+    };
+
+    /** Buffers for virtual threads, which would otherwise keep one buffer each. */
+    private static final StringBuilderPool POOL =
+        new StringBuilderPool(2 * Runtime.getRuntime().availableProcessors(), 256, MAX_REUSABLE_CAPACITY);
+
+    private final Map<Class<?>, ObjectRenderer> renderers = new ConcurrentHashMap<>();
+    private volatile ClassValue<ObjectRenderer> resolved = newCache();
+
+    /**
+     * Register a renderer for a class and its subclasses or implementations.
+     */
+    public void put(Class<?> clazz, ObjectRenderer renderer) {
+        renderers.put(clazz, renderer);
+        resolved = newCache();
+    }
+
+    /**
+     * Register a renderer by class names, reporting classes that cannot be loaded on System.err.
+     */
+    public void addRenderer(String renderedClassName, String renderingClassName) {
+        try {
+            Class<?> rendered = loadClass(renderedClassName);
+            Object renderer = loadClass(renderingClassName).newInstance();
+            if (!(renderer instanceof ObjectRenderer)) {
+                System.err.println(renderingClassName + " is not an ObjectRenderer; ignoring renderer for "
+                                   + renderedClassName);
+                return;
+            }
+            put(rendered, (ObjectRenderer) renderer);
+        } catch (Exception | LinkageError e) {
+            System.err.println("Failed to register renderer " + renderingClassName + " for "
+                               + renderedClassName + ": " + e);
+        }
+    }
+
+    /**
+     * Remove every registered renderer.
+     */
+    public void clear() {
+        renderers.clear();
+        resolved = newCache();
+    }
+
+    /**
+     * Check whether no renderer is registered.
+     */
+    public boolean isEmpty() {
+        return renderers.isEmpty();
+    }
+
+    /**
+     * Get the renderer for an object's class, or the default renderer for null.
+     */
+    public ObjectRenderer get(Object o) {
+        return o == null ? DEFAULT_RENDERER : get(o.getClass());
+    }
+
+    /**
+     * Get the renderer for a class.
+     */
+    public ObjectRenderer get(Class<?> clazz) {
+        return renderers.isEmpty() ? DEFAULT_RENDERER : resolved.get(clazz);
+    }
+
+    public ObjectRenderer getDefaultRenderer() {
+        return DEFAULT_RENDERER;
+    }
+
+    /**
+     * Render an object with the renderer for its class. {@link AppendingRenderer}s
+     * write into a reused per-thread buffer.
+     *
+     * @return the rendered object, or null for a null object
+     */
+    public String findAndRender(Object o) {
+        if (o == null) {
+            return null;
+        }
+        if (renderers.isEmpty()) {
+            return o.toString();
+        }
+        ObjectRenderer renderer = resolved.get(o.getClass());
+        if (renderer instanceof AppendingRenderer) {
+            return renderBuffered((AppendingRenderer) renderer, o);
+        }
+        return renderer.doRender(o);
+    }
+
+    private static String renderBuffered(AppendingRenderer renderer, Object o) {
+        if (VirtualThreads.isCurrentThreadVirtual()) {
+            return renderPooled(renderer, o);
+        }
+        Buffer buffer = BUFFER.get();
+        if (buffer.inUse) {
+            // A renderer that logs while rendering gets its own buffer
+            return renderer.doRender(o);
+        }
+        buffer.inUse = true;
+        try {
+            StringBuilder builder = buffer.builder;
+            builder.setLength(0);
+            renderer.render(o, builder);
+            String rendered = builder.toString();
+            if (builder.capacity() > MAX_REUSABLE_CAPACITY) {
+                buffer.builder = new StringBuilder(256);
+            }
+            return rendered;
+        } finally {
+            buffer.inUse = false;
+        }
+    }
+
+    private static String renderPooled(AppendingRenderer renderer, Object o) {
+        StringBuilder builder = POOL.borrow();
+        try {
+            renderer.render(o, builder);
+            return builder.toString();
+        } finally {
+            POOL.release(builder);
+        }
+    }
+
+    private ClassValue<ObjectRenderer> newCache() {
+        return new ClassValue<ObjectRenderer>() {
+            @Override
+            protected ObjectRenderer computeValue(Class<?> type) {
+                return search(type);
+            }
+        };
+    }
+
+    private ObjectRenderer search(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            ObjectRenderer renderer = renderers.get(c);
+            if (renderer == null) {
+                renderer = searchInterfaces(c);
+            }
+            if (renderer != null) {
+                return renderer;
+            }
+        }
+        return DEFAULT_RENDERER;
+    }
+
+    private ObjectRenderer searchInterfaces(Class<?> c) {
+        for (Class<?> iface : c.getInterfaces()) {
+            ObjectRenderer renderer = renderers.get(iface);
+            if (renderer == null) {
+                renderer = searchInterfaces(iface);
+            }
+            if (renderer != null) {
+                return renderer;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> loadClass(String className) throws ClassNotFoundException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader != null) {
+            try {
+                return Class.forName(className, true, loader);
+            } catch (ClassNotFoundException e) {
+                // fall back to the bridge's own loader
+            }
+        }
+        return Class.forName(className);
+    }
+
+    private static final class Buffer {
+        StringBuilder builder = new StringBuilder(256);
+        boolean inUse;
+    }
+}
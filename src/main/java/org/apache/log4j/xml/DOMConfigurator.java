@@ -0,0 +1,348 @@
+package org.apache.log4j.xml;
+
+import org.apache.log4j.PropertyConfigurator;
+import org.apache.log4j.helpers.FileWatchdog;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * Log4j DOMConfigurator compatibility class.
+ * Reads log4j.xml configurations with a streaming pull parser, converts them
+ * to the equivalent log4j properties and applies those through
+ * {@link PropertyConfigurator}, so XML and properties configurations share one
+ * translation path.
+ *
+ * Besides the standard log4j.dtd elements, &lt;param&gt; elements directly
+ * under &lt;log4j:configuration&gt; whose name starts with "log4j." are passed
+ * through as properties, which makes bridge settings such as
+ * log4j.shutdown.Timeout available to XML configurations.
+ */
+public class DOMConfigurator {
+    
+    private static XMLWatchdog watchdog;
+    
+    /**
+     * Configure log4j from an XML file, falling back to a classpath resource of the same name.
+     */
+    public static void configure(String filename) {
+        File file = new File(filename);
+        if (file.isFile()) {
+            try (InputStream in = new FileInputStream(file)) {
+                PropertyConfigurator.configure(toProperties(in));
+            } catch (Exception e) {
+                System.err.println("Failed to configure from " + filename + ": " + e.getMessage());
+            }
+            return;
+        }
+        
+        URL url = DOMConfigurator.class.getClassLoader().getResource(filename);
+        if (url != null) {
+            configure(url);
+        } else {
+            System.err.println("Failed to configure from " + filename + ": file not found");
+        }
+    }
+    
+    /**
+     * Configure log4j from an XML document at the given URL.
+     */
+    public static void configure(URL url) {
+        try (InputStream in = url.openStream()) {
+            PropertyConfigurator.configure(toProperties(in));
+        } catch (Exception e) {
+            System.err.println("Failed to configure from " + url + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Configure log4j from an already parsed log4j:configuration element.
+     */
+    public static void configure(Element element) {
+        try {
+            Translation translation = new Translation();
+            walk(element, translation);
+            PropertyConfigurator.configure(translation.properties);
+        } catch (Exception e) {
+            System.err.println("Failed to configure from element: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Configure log4j from an XML file and re-apply it whenever it changes,
+     * checking every 60 seconds.
+     */
+    public static void configureAndWatch(String filename) {
+        configureAndWatch(filename, FileWatchdog.DEFAULT_DELAY);
+    }
+    
+    /**
+     * Configure log4j from an XML file and re-apply it whenever it changes.
+     *
+     * @param delay milliseconds between checks for changes
+     */
+    public static void configureAndWatch(String filename, long delay) {
+        synchronized (DOMConfigurator.class) {
+            if (watchdog != null) {
+                watchdog.shutdown();
+            }
+            watchdog = new XMLWatchdog(filename);
+            watchdog.setDelay(delay);
+            watchdog.start();
+        }
+    }
+    
+    /**
+     * Convert a log4j.xml document to the equivalent log4j properties.
+     */
+    public static Properties toProperties(InputStream in) throws IOException {
+        Translation translation = new Translation();
+        XmlPullReader reader = new XmlPullReader(in);
+        Attributes attributes = new PullAttributes(reader);
+        int event;
+        while ((event = reader.next()) != XmlPullReader.END_DOCUMENT) {
+            if (event == XmlPullReader.START_ELEMENT) {
+                translation.start(reader.getLocalName(), attributes);
+            } else {
+                translation.end(reader.getLocalName());
+            }
+        }
+        return translation.properties;
+    }
+    
+    private static void walk(Element element, Translation translation) {
+        String name = localName(element.getNodeName());
+        translation.start(name, new DomAttributes(element));
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                walk((Element) child, translation);
+            }
+        }
+        translation.end(name);
+    }
+    
+    private static String localName(String name) {
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+    
+    /**
+     * Attribute access shared by the streaming and DOM front ends.
+     */
+    private interface Attributes {
+        String get(String name);
+    }
+    
+    private static final class PullAttributes implements Attributes {
+        private final XmlPullReader reader;
+        
+        PullAttributes(XmlPullReader reader) {
+            this.reader = reader;
+        }
+        
+        @Override
+        public String get(String name) {
+            return reader.getAttributeValue(name);
+        }
+    }
+    
+    private static final class DomAttributes implements Attributes {
+        private final Element element;
+        
+        DomAttributes(Element element) {
+            this.element = element;
+        }
+        
+        @Override
+        public String get(String name) {
+            return element.hasAttribute(name) ? element.getAttribute(name) : null;
+        }
+    }
+    
+    /**
+     * Element-by-element conversion of the log4j.dtd structure to log4j properties.
+     */
+    private static final class Translation {
+        
+        final Properties properties = new Properties();
+        
+        private int depth;
+        private int ignoredDepth = -1;
+        private String appender;
+        private boolean inLayout;
+        private String logger;
+        private String loggerLevel;
+        private StringBuilder loggerAppenders;
+        
+        void start(String element, Attributes attributes) {
+            depth++;
+            if (ignoredDepth >= 0) {
+                return;
+            }
+            
+            switch (element) {
+                case "configuration":
+                    set("log4j.threshold", attributes.get("threshold"));
+                    set("log4j.debug", attributes.get("debug"));
+                    break;
+                case "appender":
+                    appender = subst(attributes.get("name"));
+                    set("log4j.appender." + appender, attributes.get("class"));
+                    break;
+                case "layout":
+                    if (appender != null) {
+                        inLayout = true;
+                        set("log4j.appender." + appender + ".layout", attributes.get("class"));
+                    }
+                    break;
+                case "param":
+                    param(subst(attributes.get("name")), attributes.get("value"));
+                    break;
+                case "logger":
+                case "category":
+                    startLogger(subst(attributes.get("name")));
+                    set("log4j.additivity." + logger, attributes.get("additivity"));
+                    break;
+                case "root":
+                    startLogger(null);
+                    break;
+                case "level":
+                case "priority":
+                    if (loggerAppenders != null) {
+                        loggerLevel = subst(attributes.get("value"));
+                        String levelClass = subst(attributes.get("class"));
+                        if (loggerLevel != null && levelClass != null && !levelClass.isEmpty()) {
+                            // Custom level class, in the properties form LEVEL#class
+                            loggerLevel = loggerLevel + "#" + levelClass;
+                        }
+                    }
+                    break;
+                case "appender-ref":
+                    if (loggerAppenders != null) {
+                        loggerAppenders.append(", ").append(subst(attributes.get("ref")));
+                    }
+                    break;
+                case "renderer":
+                    set("log4j.renderer." + subst(attributes.get("renderedClass")),
+                        attributes.get("renderingClass"));
+                    break;
+                case "filter":
+                case "errorHandler":
+                case "rollingPolicy":
+                case "triggeringPolicy":
+                case "connectionSource":
+                    ignoredDepth = depth;
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        void end(String element) {
+            if (ignoredDepth >= 0) {
+                if (depth == ignoredDepth) {
+                    ignoredDepth = -1;
+                }
+                depth--;
+                return;
+            }
+            depth--;
+            
+            switch (element) {
+                case "appender":
+                    appender = null;
+                    break;
+                case "layout":
+                    inLayout = false;
+                    break;
+                case "logger":
+                case "category":
+                case "root":
+                    endLogger();
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        private void param(String name, String value) {
+            if (name == null) {
+                return;
+            }
+            if (appender != null) {
+                set("log4j.appender." + appender + (inLayout ? ".layout." : ".") + name, value);
+            } else if (loggerAppenders == null && name.startsWith("log4j.")) {
+                set(name, value);
+            }
+        }
+        
+        private void startLogger(String name) {
+            logger = name;
+            loggerLevel = null;
+            loggerAppenders = new StringBuilder();
+        }
+        
+        private void endLogger() {
+            String level = loggerLevel;
+            if (level == null || "inherited".equalsIgnoreCase(level) || "null".equalsIgnoreCase(level)) {
+                // The root logger has no parent to inherit from; log4j defaults it to DEBUG
+                level = logger == null ? "DEBUG" : "";
+            }
+            String key = logger == null ? "log4j.rootLogger" : "log4j.logger." + logger;
+            properties.setProperty(key, level + loggerAppenders);
+            logger = null;
+            loggerLevel = null;
+            loggerAppenders = null;
+        }
+        
+        private void set(String key, String value) {
+            if (value != null) {
+                properties.setProperty(key, subst(value));
+            }
+        }
+        
+        /**
+         * Substitute ${name} references with system properties, as log4j does.
+         */
+        private static String subst(String value) {
+            if (value == null || value.indexOf("${") < 0) {
+                return value;
+            }
+            StringBuilder result = new StringBuilder(value.length());
+            int i = 0;
+            while (i < value.length()) {
+                int start = value.indexOf("${", i);
+                int end = start >= 0 ? value.indexOf('}', start) : -1;
+                if (start < 0 || end < 0) {
+                    result.append(value, i, value.length());
+                    break;
+                }
+                result.append(value, i, start);
+                String resolved = System.getProperty(value.substring(start + 2, end));
+                if (resolved != null) {
+                    result.append(resolved);
+                }
+                i = end + 1;
+            }
+            return result.toString();
+        }
+    }
+    
+    private static final class XMLWatchdog extends FileWatchdog {
+        
+        XMLWatchdog(String filename) {
+            super(filename);
+        }
+        
+        @Override
+        protected void doOnChange() {
+            configure(filename);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package org.apache.log4j.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal non-validating pull parser for log4j.xml documents, with a
+ * StAX-like cursor API.
+ *
+ * It reports element start and end events with their attributes and skips
+ * everything else: the prolog, DOCTYPE (the DTD is never loaded), comments,
+ * processing instructions, CDATA and text. Predefined and numeric character
+ * references in attribute values are decoded. Namespace prefixes are kept in
+ * the raw name and stripped by {@link #getLocalName()}.
+ *
+ * Used instead of the JDK StAX implementation because configuration happens
+ * at startup, where the JAXP factory lookup and class loading dominate the cost
+ * of parsing a configuration file.
+ */
+final class XmlPullReader {
+    
+    static final int START_ELEMENT = 1;
+    static final int END_ELEMENT = 2;
+    static final int END_DOCUMENT = 8;
+    
+    private final char[] buf;
+    private int pos;
+    private String name;
+    private final List<String> attributeNames = new ArrayList<>();
+    private final List<String> attributeValues = new ArrayList<>();
+    private boolean pendingEnd;
+    
+    XmlPullReader(InputStream in) throws IOException {
+        this.buf = decode(readFully(in)).toCharArray();
+    }
+    
+    /**
+     * Advance to the next element event.
+     *
+     * @return {@link #START_ELEMENT}, {@link #END_ELEMENT} or {@link #END_DOCUMENT}
+     */
+    int next() throws IOException {
+        if (pendingEnd) {
+            pendingEnd = false;
+            attributeNames.clear();
+            attributeValues.clear();
+            return END_ELEMENT;
+        }
+        
+        while (true) {
+            int lt = indexOf('<', pos);
+            if (lt < 0) {
+                pos = buf.length;
+                return END_DOCUMENT;
+            }
+            pos = lt + 1;
+            
+            char c = pos < buf.length ? buf[pos] : 0;
+            if (c == '!') {
+                if (startsWith("!--")) {
+                    skipPast("-->");
+                } else if (startsWith("![CDATA[")) {
+                    skipPast("]]>");
+                } else {
+                    skipDeclaration();
+                }
+            } else if (c == '?') {
+                skipPast("?>");
+            } else if (c == '/') {
+                pos++;
+                name = readName();
+                skipWhitespace();
+                expect('>');
+                attributeNames.clear();
+                attributeValues.clear();
+                return END_ELEMENT;
+            } else {
+                readStartTag();
+                return START_ELEMENT;
+            }
+        }
+    }
+    
+    /**
+     * Get the element name without its namespace prefix.
+     */
+    String getLocalName() {
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+    
+    /**
+     * Get an attribute of the current start element, or null.
+     */
+    String getAttributeValue(String attribute) {
+        for (int i = 0; i < attributeNames.size(); i++) {
+            if (attributeNames.get(i).equals(attribute)) {
+                return attributeValues.get(i);
+            }
+        }
+        return null;
+    }
+    
+    private void readStartTag() throws IOException {
+        name = readName();
+        attributeNames.clear();
+        attributeValues.clear();
+        
+        while (true) {
+            skipWhitespace();
+            if (pos >= buf.length) {
+                throw error("unterminated start tag <" + name);
+            }
+            char c = buf[pos];
+            if (c == '>') {
+                pos++;
+                return;
+            }
+            if (c == '/') {
+                pos++;
+                expect('>');
+                pendingEnd = true;
+                return;
+            }
+            
+            String attribute = readName();
+            skipWhitespace();
+            expect('=');
+            skipWhitespace();
+            if (pos >= buf.length || (buf[pos] != '"' && buf[pos] != '\'')) {
+                throw error("expected quoted value for attribute " + attribute);
+            }
+            char quote = buf[pos++];
+            int end = indexOf(quote, pos);
+            if (end < 0) {
+                throw error("unterminated value for attribute " + attribute);
+            }
+            attributeNames.add(attribute);
+            attributeValues.add(unescape(pos, end));
+            pos = end + 1;
+        }
+    }
+    
+    private String readName() throws IOException {
+        int start = pos;
+        while (pos < buf.length) {
+            char c = buf[pos];
+            if (c == '>' || c == '/' || c == '=' || c <= ' ') {
+                break;
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw error("expected a name");
+        }
+        return new String(buf, start, pos - start);
+    }
+    
+    private String unescape(int start, int end) throws IOException {
+        int amp = start;
+        while (amp < end && buf[amp] != '&' && buf[amp] != '\n' && buf[amp] != '\r' && buf[amp] != '\t') {
+            amp++;
+        }
+        if (amp == end) {
+            return new String(buf, start, end - start);
+        }
+        
+        StringBuilder value = new StringBuilder(end - start);
+        value.append(buf, start, amp - start);
+        for (int i = amp; i < end; i++) {
+            char c = buf[i];
+            if (c == '\n' || c == '\r' || c == '\t') {
+                value.append(' ');
+            } else if (c != '&') {
+                value.append(c);
+            } else {
+                int semi = indexOf(';', i);
+                if (semi < 0 || semi >= end) {
+                    throw error("unterminated character reference");
+                }
+                String ref = new String(buf, i + 1, semi - i - 1);
+                switch (ref) {
+                    case "lt": value.append('<'); break;
+                    case "gt": value.append('>'); break;
+                    case "amp": value.append('&'); break;
+                    case "quot": value.append('"'); break;
+                    case "apos": value.append('\''); break;
+                    default:
+                        if (!ref.startsWith("#")) {
+                            throw error("undefined entity &" + ref + ";");
+                        }
+                        try {
+                            value.appendCodePoint(ref.startsWith("#x")
+                                ? Integer.parseInt(ref.substring(2), 16) : Integer.parseInt(ref.substring(1)));
+                        } catch (IllegalArgumentException e) {
+                            throw error("invalid character reference &" + ref + ";");
+                        }
+                        break;
+                }
+                i = semi;
+            }
+        }
+        return value.toString();
+    }
+    
+    /**
+     * Skip a DOCTYPE or other markup declaration, including an internal subset.
+     */
+    private void skipDeclaration() throws IOException {
+        int depth = 0;
+        while (pos < buf.length) {
+            char c = buf[pos++];
+            if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            } else if (c == '>' && depth <= 0) {
+                return;
+            }
+        }
+        throw error("unterminated declaration");
+    }
+    
+    private void skipPast(String terminator) throws IOException {
+        int index = indexOf(terminator, pos);
+        if (index < 0) {
+            throw error("expected " + terminator);
+        }
+        pos = index + terminator.length();
+    }
+    
+    private void skipWhitespace() {
+        while (pos < buf.length && buf[pos] <= ' ') {
+            pos++;
+        }
+    }
+    
+    private void expect(char c) throws IOException {
+        if (pos >= buf.length || buf[pos] != c) {
+            throw error("expected '" + c + "'");
+        }
+        pos++;
+    }
+    
+    private boolean startsWith(String prefix) {
+        if (pos + prefix.length() > buf.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf[pos + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private int indexOf(char c, int from) {
+        for (int i = from; i < buf.length; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private int indexOf(String s, int from) {
+        char first = s.charAt(0);
+        for (int i = indexOf(first, from); i >= 0; i = indexOf(first, i + 1)) {
+            int saved = pos;
+            pos = i;
+            boolean match = startsWith(s);
+            pos = saved;
+            if (match) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private IOException error(String message) {
+        int line = 1;
+        for (int i = 0; i < pos && i < buf.length; i++) {
+            if (buf[i] == '\n') {
+                line++;
+            }
+        }
+        return new IOException("Malformed XML at line " + line + ": " + message);
+    }
+    
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * Decode the document using its byte order mark or XML declaration, UTF-8 by default.
+     */
+    private static String decode(byte[] data) {
+        int n = data.length;
+        if (n >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB && (data[2] & 0xFF) == 0xBF) {
+            return new String(data, 3, n - 3, StandardCharsets.UTF_8);
+        }
+        if (n >= 2 && (data[0] & 0xFF) == 0xFE && (data[1] & 0xFF) == 0xFF) {
+            return new String(data, 2, n - 2, StandardCharsets.UTF_16BE);
+        }
+        if (n >= 2 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xFE) {
+            return new String(data, 2, n - 2, StandardCharsets.UTF_16LE);
+        }
+        
+        String head = new String(data, 0, Math.min(n, 256), StandardCharsets.ISO_8859_1);
+        if (head.startsWith("<?xml")) {
+            int end = head.indexOf("?>");
+            int enc = head.indexOf("encoding");
+            if (enc > 0 && (end < 0 || enc < end)) {
+                int quote = enc + "encoding".length();
+                while (quote < head.length() && head.charAt(quote) != '"' && head.charAt(quote) != '\'') {
+                    quote++;
+                }
+                int close = quote < head.length() ? head.indexOf(head.charAt(quote), quote + 1) : -1;
+                if (close > quote) {
+                    try {
+                        return new String(data, Charset.forName(head.substring(quote + 1, close)));
+                    } catch (IllegalArgumentException e) {
+                        // Unknown encoding; fall back to UTF-8
+                    }
+                }
+            }
+        }
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,163 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AdaptiveVerbosity;
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.OverflowPolicy;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests for adaptive verbosity degradation.
+ */
+public class AdaptiveVerbosityTest {
+    
+    private static final long NEVER = 3600000L;
+    
+    private Logger logger;
+    
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        PropertyConfigurator.configure(props);
+        logger = Logger.getLogger("adaptive.Service");
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        AdaptiveVerbosity.disable();
+        WritePath.reset(1000L);
+    }
+    
+    @Test
+    public void testStepsUpPerWindowAndBackWithHysteresis() {
+        AdaptiveVerbosity.configure(NEVER, 1000L, 3000L, 0.8, 0.3, 0L, new Level[] { Level.WARN, Level.ERROR });
+        AdaptiveVerbosity controller = AdaptiveVerbosity.getActive();
+        assertTrue(logger.isInfoEnabled());
+        
+        controller.update(0L, 0.9, 0L);
+        controller.update(999L, 0.95, 0L);
+        assertEquals(0, controller.getStep(), "overload shorter than the window is tolerated");
+        controller.update(1000L, 0.9, 0L);
+        assertEquals(1, controller.getStep());
+        assertFalse(logger.isInfoEnabled());
+        assertTrue(logger.isWarnEnabled());
+        assertEquals(Level.WARN, AdaptiveVerbosity.getFloor());
+        
+        controller.update(1500L, 0.9, 0L);
+        assertEquals(1, controller.getStep(), "each step needs a further window");
+        controller.update(2000L, 0.9, 0L);
+        assertFalse(logger.isWarnEnabled());
+        assertTrue(logger.isErrorEnabled());
+        controller.update(5000L, 0.9, 0L);
+        assertEquals(2, controller.getStep(), "no step beyond the last");
+        
+        controller.update(5100L, 0.2, 0L);
+        controller.update(7000L, 0.5, 0L);
+        controller.update(8200L, 0.2, 0L);
+        assertEquals(2, controller.getStep(), "samples between the watermarks restart the recovery window");
+        controller.update(11200L, 0.2, 0L);
+        assertEquals(1, controller.getStep());
+        assertTrue(logger.isWarnEnabled());
+        assertFalse(logger.isInfoEnabled());
+        controller.update(14200L, 0.1, 0L);
+        assertEquals(0, controller.getStep());
+        assertTrue(logger.isInfoEnabled());
+        assertNull(AdaptiveVerbosity.getFloor());
+    }
+    
+    @Test
+    public void testWriteLatencyCountsAsOverload() {
+        AdaptiveVerbosity.configure(NEVER, 100L, 100L, 0.8, 0.3, 1000L, new Level[] { Level.WARN });
+        AdaptiveVerbosity controller = AdaptiveVerbosity.getActive();
+        
+        controller.update(0L, 0.0, 1500L);
+        controller.update(100L, 0.0, 1200L);
+        assertFalse(logger.isInfoEnabled());
+        
+        controller.update(200L, 0.0, 700L);
+        controller.update(400L, 0.0, 700L);
+        assertEquals(1, controller.getStep(), "latency must fall below half the limit to recover");
+        controller.update(500L, 0.0, 400L);
+        controller.update(600L, 0.0, 400L);
+        assertTrue(logger.isInfoEnabled());
+    }
+    
+    @Test
+    public void testDisableRestoresLevels() {
+        AdaptiveVerbosity.configure(NEVER, 0L, NEVER, 0.8, 0.3, 0L, new Level[] { Level.FATAL });
+        AdaptiveVerbosity.getActive().update(0L, 1.0, 0L);
+        assertFalse(logger.isErrorEnabled());
+        
+        LogManager.resetConfiguration();
+        assertNull(AdaptiveVerbosity.getActive());
+        assertTrue(logger.isErrorEnabled());
+        assertTrue(logger.isInfoEnabled());
+    }
+    
+    @Test
+    public void testConfiguredFromProperties() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        props.setProperty("log4j.adaptiveVerbosity.Steps", "WARN, ERROR");
+        props.setProperty("log4j.adaptiveVerbosity.Window", "500");
+        PropertyConfigurator.configure(props);
+        assertNotNull(AdaptiveVerbosity.getActive());
+        
+        props.remove("log4j.adaptiveVerbosity.Steps");
+        PropertyConfigurator.configure(props);
+        assertNull(AdaptiveVerbosity.getActive());
+    }
+    
+    @Test
+    public void testShedsWhileDispatcherQueueStaysFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        AsyncDispatcher dispatcher = new AsyncDispatcher("adaptive", 100, OverflowPolicy.DROP_OLDEST, null, null,
+                                                         NEVER, new EventSink() {
+            @Override
+            public void write(LogEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        WritePath.install(Collections.singletonMap("adaptive", dispatcher),
+                          Collections.<String, BatchingStage>emptyMap(),
+                          Collections.singletonMap(WritePath.ROOT, new String[] { "adaptive" }));
+        AdaptiveVerbosity.configure(10L, 50L, 50L, 0.8, 0.3, 0L, new Level[] { Level.WARN });
+        
+        try {
+            for (int i = 0; i < 200; i++) {
+                logger.info("filling " + i);
+            }
+            assertTrue(awaitInfoEnabled(false), "INFO is shed while the queue stays full");
+        } finally {
+            // close() no longer interrupts a blocked write, so the sink must be released
+            release.countDown();
+        }
+        assertTrue(awaitInfoEnabled(true), "INFO comes back once the queue drains");
+    }
+    
+    private boolean awaitInfoEnabled(boolean enabled) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (logger.isInfoEnabled() != enabled) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10L);
+        }
+        return true;
+    }
+}
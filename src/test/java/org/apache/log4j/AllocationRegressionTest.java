@@ -0,0 +1,200 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.FlightRecorder;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Properties;
+
+/**
+ * Allocation budgets for the public entry points of Logger, Category and
+ * LogManager, measured with ThreadMXBean.getThreadAllocatedBytes on the calling
+ * thread after warmup and averaged over many calls.
+ *
+ * Budgets, in bytes per call:
+ * <ul>
+ *   <li>0 - level checks, disabled calls (including varargs calls given an
+ *       existing array), LogManager cache hits, accessors</li>
+ *   <li>{@link #EVENT_BUDGET} - enabled calls: one LogEvent, plus the thread
+ *       name copy Thread.getName() makes on Java 8</li>
+ *   <li>{@link #LOGGER_BUDGET} - Logger.getLogger and Category.getInstance,
+ *       which return a new instance per call as log4j-log4Rich always has</li>
+ *   <li>{@link #FORMAT_BUDGET} - enabled String.format calls</li>
+ *   <li>{@link #FLUSH_BUDGET} - LogManager.flush with nothing queued</li>
+ * </ul>
+ * Enabled calls are routed to a discarding bridge sink so the budgets cover
+ * the bridge, not log4Rich's formatting and I/O. shutdown() and
+ * resetConfiguration() are lifecycle calls and are not measured.
+ */
+public class AllocationRegressionTest {
+
+    private static final int WARMUP = 50000;
+    private static final int ITERATIONS = 100000;
+
+    private static final long EVENT_BUDGET = 96;
+    private static final long LOGGER_BUDGET = 48;
+    private static final long FORMAT_BUDGET = 4096;
+    private static final long FLUSH_BUDGET = 512;
+
+    private static final String NAME = "alloc.Service";
+    private static final Throwable FAILURE = new IllegalStateException("allocation test");
+    private static final Object[] ARGS = { "a", "b" };
+
+    private Logger logger;
+    private Category category;
+
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, discard");
+        PropertyConfigurator.configure(props);
+        FlightRecorder.disable();
+        WritePath.install(Collections.<String, AsyncDispatcher>emptyMap(),
+                          Collections.<String, BatchingStage>emptyMap(),
+                          Collections.<String, EventSink>singletonMap("discard", new EventSink() {
+                              @Override
+                              public void write(LogEvent event) {
+                                  // discard
+                              }
+                          }),
+                          Collections.singletonMap(WritePath.ROOT, new String[] { "discard" }));
+
+        logger = LogManager.getLogger(NAME);
+        category = Category.getInstance(NAME);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        WritePath.reset(1000L);
+    }
+
+    @Test
+    public void testLevelChecks() {
+        assertBudget("Logger.isTraceEnabled", 0, i -> logger.isTraceEnabled());
+        assertBudget("Logger.isDebugEnabled", 0, i -> logger.isDebugEnabled());
+        assertBudget("Logger.isInfoEnabled", 0, i -> logger.isInfoEnabled());
+        assertBudget("Logger.isWarnEnabled", 0, i -> logger.isWarnEnabled());
+        assertBudget("Logger.isErrorEnabled", 0, i -> logger.isErrorEnabled());
+        assertBudget("Logger.isFatalEnabled", 0, i -> logger.isFatalEnabled());
+        assertBudget("Logger.isEnabledFor(Level)", 0, i -> logger.isEnabledFor(Level.DEBUG));
+        assertBudget("Logger.isEnabledFor(Priority)", 0, i -> logger.isEnabledFor(Priority.WARN));
+        assertBudget("Category.isDebugEnabled", 0, i -> category.isDebugEnabled());
+        assertBudget("Category.isInfoEnabled", 0, i -> category.isInfoEnabled());
+    }
+
+    @Test
+    public void testDisabledCalls() {
+        if (logger.isDebugEnabled()) {
+            return; // the configured root level must leave DEBUG disabled
+        }
+        assertBudget("Logger.trace(Object)", 0, i -> logger.trace("disabled"));
+        assertBudget("Logger.trace(Object, Throwable)", 0, i -> logger.trace("disabled", FAILURE));
+        assertBudget("Logger.trace(String, Object...)", 0, i -> logger.trace("disabled %s %s", ARGS));
+        assertBudget("Logger.debug(Object)", 0, i -> logger.debug("disabled"));
+        assertBudget("Logger.debug(Object, Throwable)", 0, i -> logger.debug("disabled", FAILURE));
+        assertBudget("Logger.debug(String, Object...)", 0, i -> logger.debug("disabled %s %s", ARGS));
+        assertBudget("Logger.log(Level, Object)", 0, i -> logger.log(Level.DEBUG, "disabled"));
+        assertBudget("Logger.log(Level, Object, Throwable)", 0, i -> logger.log(Level.DEBUG, "disabled", FAILURE));
+        assertBudget("Logger.log(Priority, Object)", 0, i -> logger.log(Priority.DEBUG, "disabled"));
+        assertBudget("Logger.log(Priority, Object, Throwable)", 0,
+                     i -> logger.log(Priority.DEBUG, "disabled", FAILURE));
+        assertBudget("Category.debug(Object)", 0, i -> category.debug("disabled"));
+    }
+
+    @Test
+    public void testEnabledCalls() {
+        assertBudget("Logger.info(Object)", EVENT_BUDGET, i -> logger.info("enabled"));
+        assertBudget("Logger.info(Object, Throwable)", EVENT_BUDGET, i -> logger.info("enabled", FAILURE));
+        assertBudget("Logger.warn(Object)", EVENT_BUDGET, i -> logger.warn("enabled"));
+        assertBudget("Logger.warn(Object, Throwable)", EVENT_BUDGET, i -> logger.warn("enabled", FAILURE));
+        assertBudget("Logger.error(Object)", EVENT_BUDGET, i -> logger.error("enabled"));
+        assertBudget("Logger.error(Object, Throwable)", EVENT_BUDGET, i -> logger.error("enabled", FAILURE));
+        assertBudget("Logger.fatal(Object)", EVENT_BUDGET, i -> logger.fatal("enabled"));
+        assertBudget("Logger.fatal(Object, Throwable)", EVENT_BUDGET, i -> logger.fatal("enabled", FAILURE));
+        assertBudget("Logger.log(Level, Object)", EVENT_BUDGET, i -> logger.log(Level.WARN, "enabled"));
+        assertBudget("Logger.log(Level, Object, Throwable)", EVENT_BUDGET,
+                     i -> logger.log(Level.ERROR, "enabled", FAILURE));
+        assertBudget("Logger.log(Priority, Object)", EVENT_BUDGET, i -> logger.log(Priority.WARN, "enabled"));
+        assertBudget("Logger.log(Priority, Object, Throwable)", EVENT_BUDGET,
+                     i -> logger.log(Priority.ERROR, "enabled", FAILURE));
+        assertBudget("Category.info(Object)", EVENT_BUDGET, i -> category.info("enabled"));
+
+        assertBudget("Logger.info(String, Object...)", FORMAT_BUDGET, i -> logger.info("enabled %s %s", ARGS));
+        assertBudget("Logger.warn(String, Object...)", FORMAT_BUDGET, i -> logger.warn("enabled %s %s", ARGS));
+        assertBudget("Logger.error(String, Object...)", FORMAT_BUDGET, i -> logger.error("enabled %s %s", ARGS));
+        assertBudget("Logger.fatal(String, Object...)", FORMAT_BUDGET, i -> logger.fatal("enabled %s %s", ARGS));
+    }
+
+    @Test
+    public void testLookups() {
+        assertBudget("LogManager.getLogger(String)", 0, i -> LogManager.getLogger(NAME));
+        assertBudget("LogManager.getLogger(Class)", 0, i -> LogManager.getLogger(AllocationRegressionTest.class));
+        assertBudget("LogManager.getRootLogger", 0, i -> LogManager.getRootLogger());
+        assertBudget("LogManager.exists", 0, i -> LogManager.exists(NAME));
+        assertBudget("LogManager.getCachedLoggerCount", 0, i -> LogManager.getCachedLoggerCount());
+        assertBudget("LogManager.flush", FLUSH_BUDGET, i -> LogManager.flush(0L));
+
+        assertBudget("Logger.getLogger(String)", LOGGER_BUDGET, i -> Logger.getLogger(NAME));
+        assertBudget("Logger.getLogger(Class)", LOGGER_BUDGET, i -> Logger.getLogger(AllocationRegressionTest.class));
+        assertBudget("Logger.getRootLogger", LOGGER_BUDGET, i -> Logger.getRootLogger());
+        assertBudget("Category.getInstance(String)", LOGGER_BUDGET, i -> Category.getInstance(NAME));
+        assertBudget("Category.getInstance(Class)", LOGGER_BUDGET,
+                     i -> Category.getInstance(AllocationRegressionTest.class));
+        assertBudget("Category.getRoot", LOGGER_BUDGET, i -> Category.getRoot());
+    }
+
+    @Test
+    public void testAccessors() {
+        assertBudget("Logger.getName", 0, i -> logger.getName());
+        assertBudget("Logger.getLog4RichLogger", 0, i -> logger.getLog4RichLogger());
+        assertBudget("Category.getAdditivity", 0, i -> category.getAdditivity());
+        assertBudget("Category.setAdditivity", 0, i -> category.setAdditivity(true));
+    }
+
+    /**
+     * Fail when the average allocation per call, less the cost of an empty call, exceeds the budget.
+     */
+    private static void assertBudget(String method, long budgetBytes, Call call) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocation accounting unavailable; skipping " + method);
+            return;
+        }
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        allocation.setThreadAllocatedMemoryEnabled(true);
+
+        double baseline = bytesPerCall(allocation, i -> { });
+        double perCall = bytesPerCall(allocation, call) - baseline;
+        // Half a byte per call absorbs one-off allocations such as lazy initialization
+        assertTrue(perCall <= budgetBytes + 0.5,
+                   String.format("%s allocated %.1f bytes per call, budget %d", method, perCall, budgetBytes));
+    }
+
+    private static double bytesPerCall(com.sun.management.ThreadMXBean allocation, Call call) {
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            call.run(i);
+        }
+        long before = allocation.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run(i);
+        }
+        long after = allocation.getThreadAllocatedBytes(thread);
+        return (after - before) / (double) ITERATIONS;
+    }
+
+    private interface Call {
+        void run(int iteration);
+    }
+}
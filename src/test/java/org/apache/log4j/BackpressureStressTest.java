@@ -0,0 +1,220 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.OverflowPolicy;
+import org.apache.log4j.helpers.PlainLayout;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stress test for the overflow policies: a producer at a fixed rate against
+ * a sink that is deliberately slower than the producer.
+ */
+public class BackpressureStressTest {
+
+    private static final int PRODUCER_RATE = 20000;      // events per second
+    private static final int PRODUCER_EVENTS = 20000;    // one second of load
+    private static final long SINK_DELAY_NANOS = 200000; // sink handles ~5000 events per second
+    private static final int QUEUE_SIZE = 1024;
+
+    private AsyncDispatcher dispatcher;
+
+    @AfterEach
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.close(1000L);
+        }
+        WritePath.reset(1000L);
+    }
+
+    @Test
+    public void testDropOldestKeepsCallerLatencyBounded() {
+        SlowSink sink = new SlowSink();
+        dispatcher = new AsyncDispatcher("stress", QUEUE_SIZE, OverflowPolicy.DROP_OLDEST,
+                                         null, null, 100L, sink);
+
+        long[] latencies = produce(dispatcher, Level.INFO);
+        report("DropOldest", latencies);
+
+        assertCallerNotWaitingForSink(latencies);
+        assertTrue(dispatcher.getDiscardedCount() > 0, "slow sink should force discards");
+
+        dispatcher.close(5000L);
+        assertTrue(sink.discardReports.size() > 0, "discards should be reported through the sink");
+    }
+
+    @Test
+    public void testDropBelowLevelKeepsErrors() {
+        SlowSink sink = new SlowSink();
+        dispatcher = new AsyncDispatcher("stress", QUEUE_SIZE, OverflowPolicy.DROP_BELOW_LEVEL,
+                                         Level.WARN, null, 100L, sink);
+
+        long[] latencies = produce(dispatcher, Level.DEBUG);
+        report("DropBelowLevel", latencies);
+
+        assertCallerNotWaitingForSink(latencies);
+        assertTrue(dispatcher.getDiscardedCount() > 0);
+
+        dispatcher.dispatch(new LogEvent(null, "stress", Level.ERROR, "must survive", null));
+        dispatcher.close(30000L);
+        assertTrue(sink.messages.contains("must survive"));
+    }
+
+    @Test
+    public void testSpillWritesOverflowToFile() throws Exception {
+        File overflow = File.createTempFile("overflow", ".log");
+        overflow.deleteOnExit();
+        SlowSink sink = new SlowSink();
+        dispatcher = new AsyncDispatcher("stress", QUEUE_SIZE, OverflowPolicy.SPILL,
+                                         null, overflow.getPath(), 100L, sink, new PlainLayout("%-5p %c: %m%n"));
+
+        produce(dispatcher, Level.INFO);
+        dispatcher.close(1000L);
+
+        assertTrue(dispatcher.getSpilledCount() > 0);
+        assertEquals(0L, dispatcher.getDiscardedCount());
+        List<String> lines = Files.readAllLines(overflow.toPath(), StandardCharsets.UTF_8);
+        assertEquals(dispatcher.getSpilledCount(), lines.size());
+        for (String line : lines) {
+            assertTrue(line.matches("INFO  stress: event \\d+"), "spilled with the appender's layout: " + line);
+        }
+    }
+
+    @Test
+    public void testCloseDoesNotInterruptWrite() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final List<String> written = new CopyOnWriteArrayList<>();
+        dispatcher = new AsyncDispatcher("closing", 16, OverflowPolicy.BLOCK, null, null, 10000L, event -> {
+            writing.countDown();
+            try {
+                Thread.sleep(200L);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            written.add(event.getMessage());
+        });
+
+        dispatcher.dispatch(new LogEvent(null, "closing", Level.INFO, "in flight", null));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertEquals(0, dispatcher.close(5000L));
+        assertFalse(interrupted.get(), "close must not interrupt a write in progress");
+        assertEquals(Arrays.asList("in flight"), written);
+    }
+
+    @Test
+    public void testNoEventStrandedByClose() throws Exception {
+        final List<String> written = new CopyOnWriteArrayList<>();
+        for (int round = 0; round < 20; round++) {
+            written.clear();
+            final AsyncDispatcher racing = new AsyncDispatcher("racing", 64, OverflowPolicy.BLOCK, null, null,
+                                                               10000L, event -> written.add(event.getMessage()));
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    racing.dispatch(new LogEvent(null, "racing", Level.INFO, "event " + i, null));
+                }
+            });
+            producer.start();
+            racing.close(5000L);
+            producer.join();
+            assertEquals(0, racing.getQueueSize(), "events enqueued across close must be written");
+            assertEquals(1000, written.size());
+        }
+    }
+
+    @Test
+    public void testPolicyConfiguredPerAppender() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        props.setProperty("log4j.logger.com.shop", "DEBUG, file");
+        props.setProperty("log4j.appender.file.OverflowPolicy", "DropOldest");
+        props.setProperty("log4j.appender.file.QueueSize", "512");
+        PropertyConfigurator.configure(props);
+
+        assertNotNull(WritePath.getDispatcher("file"));
+        assertEquals(OverflowPolicy.DROP_OLDEST, WritePath.getDispatcher("file").getPolicy());
+        assertNull(WritePath.getDispatcher("console"));
+
+        assertSame(WritePath.getDispatcher("file"), WritePath.bind("com.shop.cart.Checkout").getDispatcher());
+        assertNull(WritePath.bind("com.other.Service").getDispatcher());
+    }
+
+    private static long[] produce(AsyncDispatcher dispatcher, Level level) {
+        long[] latencies = new long[PRODUCER_EVENTS];
+        long interval = 1_000_000_000L / PRODUCER_RATE;
+        long next = System.nanoTime();
+
+        for (int i = 0; i < PRODUCER_EVENTS; i++) {
+            long now;
+            while ((now = System.nanoTime()) < next) {
+                LockSupport.parkNanos(next - now);
+            }
+            LogEvent event = new LogEvent(null, "stress", level, "event " + i, null);
+            long start = System.nanoTime();
+            dispatcher.dispatch(event);
+            latencies[i] = System.nanoTime() - start;
+            next += interval;
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] latencies, double fraction) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+
+    /**
+     * Callers must not wait for the slow sink: the median hand-off stays well below the
+     * sink's time per event. Percentiles are only reported, since they depend on the machine.
+     */
+    private static void assertCallerNotWaitingForSink(long[] latencies) {
+        assertTrue(percentile(latencies, 0.50) < SINK_DELAY_NANOS / 4,
+                   "median caller latency should be a fraction of the sink's time per event");
+    }
+
+    private static void report(String policy, long[] latencies) {
+        System.out.printf("%s: p50=%d ns, p99=%d ns, p99.9=%d ns, max=%d ns%n", policy,
+                          percentile(latencies, 0.50), percentile(latencies, 0.99),
+                          percentile(latencies, 0.999), percentile(latencies, 1.0));
+    }
+
+    /**
+     * Sink that takes a fixed time per event.
+     */
+    private static final class SlowSink implements EventSink {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final List<String> discardReports = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void write(LogEvent event) {
+            if (event.getMessage().contains("events discarded")) {
+                discardReports.add(event.getMessage());
+                return;
+            }
+            long end = System.nanoTime() + SINK_DELAY_NANOS;
+            while (System.nanoTime() < end) {
+                Thread.yield();
+            }
+            if (event.getLevel().isGreaterOrEqual(Level.ERROR)) {
+                messages.add(event.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.OverflowPolicy;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for per-thread event batching, plus a scalability benchmark from 1 to
+ * 128 threads comparing the shared dispatcher queue with batched publishing.
+ *
+ * Can also be run directly: java -cp ... org.apache.log4j.BatchingScalabilityTest
+ */
+public class BatchingScalabilityTest {
+    
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64, 128};
+    private static final int EVENTS_PER_THREAD = 5000;
+    
+    private BatchingStage stage;
+    
+    @AfterEach
+    public void tearDown() {
+        if (stage != null) {
+            stage.close(1000L);
+        }
+        WritePath.reset(1000L);
+    }
+    
+    @Test
+    public void testBatchPublishedWhenFull() {
+        RecordingSink sink = new RecordingSink();
+        stage = new BatchingStage("test", 4, 60000L, Level.ERROR, 1024, sink);
+        
+        for (int i = 0; i < 3; i++) {
+            stage.add(event(Level.INFO, "event " + i));
+        }
+        assertTrue(sink.messages.isEmpty(), "a partial batch should stay with its thread");
+        
+        stage.add(event(Level.INFO, "event 3"));
+        assertEquals(0L, stage.flush(5000L));
+        assertEquals(4, sink.messages.size());
+        assertEquals("event 0", sink.messages.get(0));
+        assertEquals("event 3", sink.messages.get(3));
+    }
+    
+    @Test
+    public void testErrorPublishesImmediately() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        stage = new BatchingStage("test", 1000, 60000L, Level.ERROR, 1024, sink);
+        
+        stage.add(event(Level.INFO, "context"));
+        stage.add(event(Level.ERROR, "failure"));
+        
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (sink.messages.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1L);
+        }
+        assertEquals("context", sink.messages.get(0));
+        assertEquals("failure", sink.messages.get(1));
+    }
+    
+    @Test
+    public void testIdleThreadBufferPublishedByAge() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        stage = new BatchingStage("test", 1000, 20L, Level.ERROR, 1024, sink);
+        
+        Thread producer = new Thread(() -> stage.add(event(Level.INFO, "lonely")));
+        producer.start();
+        producer.join();
+        
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (sink.messages.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertEquals(1, sink.messages.size());
+    }
+    
+    @Test
+    public void testPerThreadOrderPreserved() throws Exception {
+        final RecordingSink sink = new RecordingSink();
+        stage = new BatchingStage("test", 16, 5L, Level.ERROR, 256, sink);
+        
+        runThreads(8, 2000, stage);
+        assertEquals(0L, stage.flush(10000L));
+        assertEquals(8 * 2000, sink.messages.size());
+        
+        int[] last = new int[8];
+        Arrays.fill(last, -1);
+        for (String message : sink.messages) {
+            String[] parts = message.split(" ");
+            int thread = Integer.parseInt(parts[0]);
+            int sequence = Integer.parseInt(parts[1]);
+            assertTrue(sequence > last[thread], "events of one thread must stay in order");
+            last[thread] = sequence;
+        }
+    }
+    
+    @Test
+    public void testNoEventStrandedByClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            final CountingSink sink = new CountingSink();
+            final BatchingStage racing = new BatchingStage("racing", 64, 60000L, Level.ERROR, 1024, sink);
+            final CountDownLatch started = new CountDownLatch(4);
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread producer = new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 1000; i++) {
+                        racing.add(event(Level.INFO, "event " + i));
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+            started.await();
+            racing.close(5000L);
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            assertEquals(4000L, sink.count.get(), "events buffered across close must be written");
+            assertEquals(0, racing.getQueueSize());
+        }
+    }
+    
+    @Test
+    public void testEventKeepsCallerTimestampAndThread() throws Exception {
+        final List<LogEvent> events = Collections.synchronizedList(new ArrayList<LogEvent>());
+        stage = new BatchingStage("test", 4, 60000L, Level.ERROR, 1024, events::add);
+        
+        long before = System.currentTimeMillis();
+        stage.add(event(Level.INFO, "queued"));
+        Thread.sleep(50L);
+        assertEquals(0L, stage.flush(5000L));
+        
+        assertEquals(1, events.size());
+        assertEquals(Thread.currentThread().getName(), events.get(0).getThreadName());
+        assertTrue(events.get(0).getTimeStamp() - before < 50L, "the timestamp is taken when the event is logged");
+    }
+    
+    @Test
+    public void testBatchingConfiguredPerAppender() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        props.setProperty("log4j.logger.com.shop", "INFO, file");
+        props.setProperty("log4j.appender.file.BatchSize", "64");
+        props.setProperty("log4j.appender.file.BatchMaxAge", "50");
+        props.setProperty("log4j.appender.file.OverflowPolicy", "DropOldest");
+        PropertyConfigurator.configure(props);
+        
+        assertNotNull(WritePath.getStage("file"));
+        assertEquals(64, WritePath.getStage("file").getBatchSize());
+        assertNull(WritePath.getStage("console"));
+        
+        WritePath.Binding binding = WritePath.bind("com.shop.Cart");
+        assertSame(WritePath.getStage("file"), binding.getStage());
+        assertSame(WritePath.getDispatcher("file"), binding.getDispatcher());
+        assertNull(WritePath.bind("com.other.Service").getStage());
+        
+        Logger.getLogger("com.shop.Cart").info("batched through the dispatcher");
+        assertEquals(0L, WritePath.flush(5000L));
+        assertEquals(1L, WritePath.getDispatcher("file").getWrittenCount());
+    }
+    
+    @Test
+    public void testScalability() throws Exception {
+        System.out.println("=== Batching Scalability (events/second) ===");
+        System.out.printf("%8s %16s %16s %16s%n", "threads", "shared queue", "batched", "batched/thread");
+        
+        for (int threads : THREAD_COUNTS) {
+            CountingSink sharedSink = new CountingSink();
+            AsyncDispatcher dispatcher = new AsyncDispatcher("shared", 8192, OverflowPolicy.BLOCK,
+                                                             null, null, 10000L, sharedSink);
+            long sharedRate = runThreads(threads, EVENTS_PER_THREAD, new EventSink() {
+                @Override
+                public void write(LogEvent event) {
+                    dispatcher.dispatch(event);
+                }
+            });
+            dispatcher.close(10000L);
+            
+            CountingSink batchedSink = new CountingSink();
+            BatchingStage batcher = new BatchingStage("batched", 256, 100L, Level.ERROR, 65536, batchedSink);
+            long batchedRate = runThreads(threads, EVENTS_PER_THREAD, batcher);
+            batcher.close(10000L);
+            
+            assertEquals((long) threads * EVENTS_PER_THREAD, batchedSink.count.get());
+            System.out.printf("%8d %16d %16d %16d%n", threads, sharedRate, batchedRate, batchedRate / threads);
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        new BatchingScalabilityTest().testScalability();
+    }
+    
+    private static long runThreads(int threadCount, int events, BatchingStage target) throws Exception {
+        return runThreads(threadCount, events, new EventSink() {
+            @Override
+            public void write(LogEvent event) {
+                target.add(event);
+            }
+        });
+    }
+    
+    /**
+     * Run producer threads against a target and return the aggregate rate in events per second.
+     */
+    private static long runThreads(int threadCount, int events, EventSink target) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int threadId = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < events; i++) {
+                    target.write(new LogEvent(null, "bench", Level.INFO, threadId + " " + i, null));
+                }
+            });
+            threads[t].start();
+        }
+        
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long nanos = System.nanoTime() - begin;
+        return (long) threadCount * events * 1_000_000_000L / Math.max(1L, nanos);
+    }
+    
+    private static LogEvent event(Level level, String message) {
+        return new LogEvent(null, "test", level, message, null);
+    }
+    
+    private static final class RecordingSink implements EventSink {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+        
+        @Override
+        public void write(LogEvent event) {
+            messages.add(event.getMessage());
+        }
+    }
+    
+    private static final class CountingSink implements EventSink {
+        final AtomicLong count = new AtomicLong();
+        
+        @Override
+        public void write(LogEvent event) {
+            count.incrementAndGet();
+        }
+    }
+}
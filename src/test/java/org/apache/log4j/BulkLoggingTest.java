@@ -0,0 +1,158 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for Logger.logBatch, and a benchmark against the equivalent loop of single calls.
+ */
+public class BulkLoggingTest {
+    
+    private static final int BATCH_SIZE = 500;
+    private static final int ROUNDS = 200;
+    
+    private final List<LogEvent> written = Collections.synchronizedList(new ArrayList<LogEvent>());
+    private final AtomicInteger writes = new AtomicInteger();
+    private Logger logger;
+    
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, collect");
+        PropertyConfigurator.configure(props);
+        WritePath.install(Collections.<String, AsyncDispatcher>emptyMap(),
+                          Collections.<String, BatchingStage>emptyMap(),
+                          Collections.<String, EventSink>singletonMap("collect", new CollectingSink()),
+                          Collections.singletonMap(WritePath.ROOT, new String[] { "collect" }));
+        logger = Logger.getLogger("bulk.Importer");
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        WritePath.reset(1000L);
+    }
+    
+    @Test
+    public void testBatchWrittenAsOneRecordPerMessage() {
+        logger.logBatch(Level.INFO, Arrays.asList("row 1", 2, null, "row 4"));
+        
+        assertEquals(1, writes.get(), "the sink receives the batch in one call");
+        assertEquals(4, written.size());
+        String[] messages = { "row 1", "2", "null", "row 4" };
+        for (int i = 0; i < messages.length; i++) {
+            assertEquals(messages[i], written.get(i).getMessage());
+            assertEquals(Level.INFO, written.get(i).getLevel());
+            assertEquals("bulk.Importer", written.get(i).getLoggerName());
+        }
+    }
+    
+    @Test
+    public void testEachMessageGetsItsOwnPrefixedLine() throws Exception {
+        File file = File.createTempFile("bulk", ".log");
+        try {
+            Properties props = new Properties();
+            props.setProperty("log4j.rootLogger", "INFO, file");
+            props.setProperty("log4j.appender.file", "org.apache.log4j.FileAppender");
+            props.setProperty("log4j.appender.file.File", file.getPath());
+            props.setProperty("log4j.appender.file.ImmediateFlush", "true");
+            props.setProperty("log4j.appender.file.layout.ConversionPattern", "%p %c - %m%n");
+            PropertyConfigurator.configure(props);
+            
+            logger.logBatch(Level.WARN, Arrays.asList("row 1", "row 2", "row 3"));
+            assertEquals(Arrays.asList("WARN bulk.Importer - row 1", "WARN bulk.Importer - row 2",
+                                       "WARN bulk.Importer - row 3"),
+                         Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        } finally {
+            WritePath.reset(1000L);
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void testDisabledAndEmptyBatchesWriteNothing() {
+        logger.logBatch(Level.DEBUG, Arrays.asList("hidden", "also hidden"));
+        logger.logBatch(Level.INFO, Collections.emptyList());
+        logger.logBatch(Level.OFF, Arrays.asList("never"));
+        assertTrue(written.isEmpty());
+        
+        logger.logBatch(Level.WARN, Collections.singletonList(""));
+        assertEquals(1, written.size(), "a batch of one empty message is still a record");
+    }
+    
+    @Test
+    public void testBatchAgainstLoop() {
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            messages.add("Imported record " + i + " of the nightly audit file");
+        }
+        
+        // Warm up both paths
+        for (int r = 0; r < ROUNDS / 4; r++) {
+            loop(messages);
+            logger.logBatch(Level.INFO, messages);
+        }
+        written.clear();
+        
+        long loopStart = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            loop(messages);
+        }
+        long loopNanos = System.nanoTime() - loopStart;
+        int loopWrites = written.size();
+        written.clear();
+        
+        writes.set(0);
+        long batchStart = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            logger.logBatch(Level.INFO, messages);
+        }
+        long batchNanos = System.nanoTime() - batchStart;
+        
+        long records = (long) ROUNDS * BATCH_SIZE;
+        System.out.println("=== Bulk Logging: " + ROUNDS + " batches of " + BATCH_SIZE + " ===");
+        System.out.printf("info() loop  %8.1f ns/record, %d writes%n", loopNanos / (double) records, loopWrites);
+        System.out.printf("logBatch()   %8.1f ns/record, %d writes%n", batchNanos / (double) records, writes.get());
+        
+        assertEquals(records, loopWrites);
+        assertEquals(records, written.size());
+        assertEquals(ROUNDS, writes.get(), "one sink call per batch");
+    }
+    
+    private void loop(List<String> messages) {
+        for (String message : messages) {
+            logger.info(message);
+        }
+    }
+    
+    private final class CollectingSink implements EventSink {
+        
+        @Override
+        public void write(LogEvent event) {
+            writes.incrementAndGet();
+            written.add(event);
+        }
+        
+        @Override
+        public void writeAll(List<LogEvent> events) {
+            writes.incrementAndGet();
+            written.addAll(events);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.CachedDateFormat;
+import org.apache.log4j.helpers.PlainLayout;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for the cached %d timestamp formatter.
+ */
+public class CachedDateFormatTest {
+    
+    private static final String[] PATTERNS = {
+        "yyyy-MM-dd HH:mm:ss.SSS", "yyyy-MM-dd HH:mm:ss", "HH:mm:ss,SSS 'at' dd MMMM", "SSS",
+        "ss.S", "ss.SS", "ss.SSSS", "EEE MMM d yyyy HH:mm:ss.SSS a", "yyyyMMddHHmmssSSS"
+    };
+    
+    @Test
+    public void testMatchesSimpleDateFormat() {
+        Random random = new Random(42);
+        long start = System.currentTimeMillis();
+        for (String pattern : PATTERNS) {
+            CachedDateFormat cached = new CachedDateFormat(pattern);
+            SimpleDateFormat expected = new SimpleDateFormat(pattern);
+            long time = start;
+            for (int i = 0; i < 5000; i++) {
+                // Mostly small steps within a second, with occasional jumps back and forth
+                time += i % 100 == 0 ? random.nextInt(200000000) - 100000000 : random.nextInt(7);
+                assertEquals(expected.format(new Date(time)), cached.format(time), pattern + " at " + time);
+            }
+            assertEquals(expected.format(new Date(-1L)), cached.format(-1L), pattern + " before the epoch");
+        }
+    }
+    
+    @Test
+    public void testLog4jNamedFormats() {
+        long time = 1234567890123L;
+        assertEquals(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss,SSS").format(new Date(time)),
+                     new CachedDateFormat("ISO8601").format(time));
+        assertEquals(new SimpleDateFormat("HH:mm:ss,SSS").format(new Date(time)),
+                     new CachedDateFormat("ABSOLUTE").format(time));
+        assertEquals(new SimpleDateFormat("dd MMM yyyy HH:mm:ss,SSS").format(new Date(time)),
+                     new CachedDateFormat("DATE").format(time));
+        assertEquals(CachedDateFormat.ISO8601_PATTERN, new CachedDateFormat(null).getPattern());
+        assertEquals("yyyy", CachedDateFormat.resolvePattern("yyyy"));
+        assertThrows(IllegalArgumentException.class, () -> new CachedDateFormat("yyyy-qq"));
+    }
+    
+    @Test
+    public void testBridgeLayoutDates() {
+        long time = 1234567890123L;
+        for (String pattern : PATTERNS) {
+            assertEquals(new SimpleDateFormat(pattern).format(new Date(time)) + " x",
+                         new PlainLayout("%d{" + pattern + "} %m%n").format(time, "t", Level.INFO, "c", "x", null));
+        }
+        String iso = new SimpleDateFormat(CachedDateFormat.ISO8601_PATTERN).format(new Date(time));
+        assertEquals(iso, new PlainLayout("%d").format(time, "t", Level.INFO, "c", "x", null));
+        assertEquals(iso, new PlainLayout("%d{yyyy-qq}").format(time, "t", Level.INFO, "c", "x", null),
+                     "an invalid format falls back to ISO8601");
+    }
+    
+    @Test
+    public void testAppendsToBuilder() {
+        CachedDateFormat format = new CachedDateFormat("HH:mm:ss.SSS");
+        StringBuilder sb = new StringBuilder("at ");
+        format.format(0L, sb);
+        sb.append('!');
+        assertEquals("at " + new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(0L)) + "!", sb.toString());
+    }
+    
+    @Test
+    public void testSharedAcrossThreads() throws Exception {
+        final CachedDateFormat cached = new CachedDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        final long base = System.currentTimeMillis();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int offset = t * 1733;
+            Thread thread = new Thread(() -> {
+                SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+                for (int i = 0; i < 20000; i++) {
+                    long time = base + offset + i * 37L;
+                    String actual = cached.format(time);
+                    if (!actual.equals(expected.format(new Date(time)))) {
+                        failure.compareAndSet(null, time + " formatted as " + actual);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+    }
+}
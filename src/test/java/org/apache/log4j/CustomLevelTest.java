@@ -0,0 +1,200 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.LevelTable;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Tests for custom Level subclasses and ordinal-based level dispatch.
+ */
+public class CustomLevelTest {
+    
+    /**
+     * A custom level between ERROR and FATAL, declared the log4j 1.x way.
+     */
+    public static class AuditLevel extends Level {
+        public static final AuditLevel AUDIT = new AuditLevel(45000, "AUDIT", 4);
+        
+        protected AuditLevel(int level, String levelStr, int syslogEquivalent) {
+            super(level, levelStr, syslogEquivalent);
+        }
+    }
+    
+    private final List<LogEvent> written = Collections.synchronizedList(new ArrayList<LogEvent>());
+    
+    @AfterEach
+    public void tearDown() {
+        // Restore a standard root level, which also drops the bridge-side AUDIT threshold
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO");
+        PropertyConfigurator.configure(props);
+        WritePath.reset(1000L);
+    }
+    
+    @Test
+    public void testOrdinalsAndLookup() {
+        Level audit = AuditLevel.AUDIT;
+        assertEquals(Level.WARN.getOrdinal(), Priority.WARN.getOrdinal(), "Priority aliases share ordinals");
+        assertNotEquals(Level.ERROR.getOrdinal(), audit.getOrdinal());
+        assertTrue(audit.getOrdinal() < 32, "ordinals are compact");
+        
+        assertSame(audit, Level.toLevel("audit"));
+        assertSame(audit, Level.toLevel(45000));
+        assertSame(Level.ERROR, Level.toLevel(44000));
+        assertEquals(com.log4rich.core.LogLevel.ERROR, audit.getLog4RichLevel());
+        assertTrue(audit.isGreaterOrEqual(Level.ERROR));
+        assertFalse(audit.isGreaterOrEqual(Level.FATAL));
+    }
+    
+    @Test
+    public void testCustomLevelKeptThroughWritePath() {
+        Logger logger = collectingLogger("INFO");
+        
+        logger.log(AuditLevel.AUDIT, "payment approved");
+        logger.log(Priority.WARN, "disk almost full");
+        logger.log(Level.DEBUG, "hidden");
+        
+        assertEquals(2, written.size());
+        assertSame(AuditLevel.AUDIT, written.get(0).getLevel());
+        assertEquals("AUDIT", written.get(0).getLevel().toString());
+        assertSame(Level.WARN, written.get(1).getLevel(), "priorities resolve to their level");
+    }
+    
+    @Test
+    public void testBatchLevelsResolvedLikeSingleEvents() {
+        Logger logger = collectingLogger("INFO");
+        
+        logger.logBatch(Priority.WARN, Arrays.asList("disk almost full", "disk full"));
+        logger.logBatch(AuditLevel.AUDIT, Collections.singletonList("payment approved"));
+        logger.logBatch(Priority.DEBUG, Collections.singletonList("hidden"));
+        
+        assertEquals(3, written.size());
+        assertSame(Level.WARN, written.get(0).getLevel(), "priorities resolve to their level");
+        assertSame(Level.WARN, written.get(1).getLevel());
+        assertSame(AuditLevel.AUDIT, written.get(2).getLevel());
+    }
+    
+    @Test
+    public void testCustomRootLevelFromConfiguration() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "AUDIT#" + AuditLevel.class.getName() + ", collect");
+        assertEquals("ERROR", Log4jToLog4RichConfigTranslator.translate(props).getProperty("log4rich.rootLevel"));
+        
+        Logger logger = collectingLogger("AUDIT#" + AuditLevel.class.getName());
+        assertFalse(logger.isEnabledFor(Level.ERROR), "ERROR is below the AUDIT root level");
+        assertTrue(logger.isEnabledFor(AuditLevel.AUDIT));
+        
+        logger.error("filtered");
+        logger.log(AuditLevel.AUDIT, "kept");
+        logger.fatal("kept too");
+        
+        assertEquals(2, written.size());
+        assertSame(AuditLevel.AUDIT, written.get(0).getLevel());
+        assertSame(Level.FATAL, written.get(1).getLevel());
+    }
+    
+    @Test
+    public void testCustomLevelNamedInOutput() throws IOException {
+        assertEquals("[AUDIT] ", LevelTable.prefix(AuditLevel.AUDIT), "log4Rich gets the name ahead of the message");
+        assertNull(LevelTable.prefix(Level.ERROR));
+        assertNull(LevelTable.prefix(Priority.WARN));
+        
+        File file = File.createTempFile("custom-level", ".log");
+        try {
+            Properties props = new Properties();
+            props.setProperty("log4j.rootLogger", "INFO, file");
+            props.setProperty("log4j.appender.file", "org.apache.log4j.FileAppender");
+            props.setProperty("log4j.appender.file.File", file.getPath());
+            props.setProperty("log4j.appender.file.ImmediateFlush", "true");
+            props.setProperty("log4j.appender.file.layout", "org.apache.log4j.PatternLayout");
+            props.setProperty("log4j.appender.file.layout.ConversionPattern", "%p %c - %m%n");
+            PropertyConfigurator.configure(props);
+            
+            Logger.getLogger("audit.Payments").log(AuditLevel.AUDIT, "payment approved");
+            assertEquals(Collections.singletonList("AUDIT audit.Payments - payment approved"),
+                         Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        } finally {
+            WritePath.reset(1000L);
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void testLevelChecksFollowBridgeThresholds() {
+        Logger logger = collectingLogger("INFO");
+        assertTrue(LevelTable.passes(Level.INFO));
+        assertTrue(LevelTable.passes(AuditLevel.AUDIT));
+        
+        collectingLogger("AUDIT#" + AuditLevel.class.getName());
+        assertFalse(LevelTable.passes(Level.ERROR), "the custom root level is a bridge threshold");
+        assertTrue(LevelTable.passes(AuditLevel.AUDIT));
+        
+        MDC.put("tenant", "acme");
+        LogManager.addLevelOverride("tenant", "acme", "audit", Level.ERROR);
+        try {
+            assertFalse(LevelTable.passes(Level.ERROR));
+            assertTrue(logger.isEnabledFor(Level.ERROR), "an override matching the context still passes");
+        } finally {
+            LogManager.clearLevelOverrides();
+            MDC.remove("tenant");
+        }
+    }
+    
+    @Test
+    public void testPriorityDispatchAgainstInfo() {
+        Logger logger = collectingLogger("INFO");
+        int iterations = 200000;
+        
+        for (int i = 0; i < iterations; i++) {
+            logger.info("warmup");
+            logger.log(Priority.INFO, "warmup");
+        }
+        written.clear();
+        
+        long infoStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            logger.info("direct");
+        }
+        long infoNanos = System.nanoTime() - infoStart;
+        
+        long priorityStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            logger.log(Priority.INFO, "by priority");
+        }
+        long priorityNanos = System.nanoTime() - priorityStart;
+        
+        System.out.println("=== Level Dispatch: " + iterations + " events ===");
+        System.out.printf("info()             %6.1f ns/event%n", infoNanos / (double) iterations);
+        System.out.printf("log(Priority)      %6.1f ns/event%n", priorityNanos / (double) iterations);
+        
+        assertEquals(2 * iterations, written.size());
+        assertSame(Level.INFO, written.get(written.size() - 1).getLevel());
+    }
+    
+    private Logger collectingLogger(String rootLevel) {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", rootLevel + ", collect");
+        PropertyConfigurator.configure(props);
+        WritePath.install(Collections.<String, AsyncDispatcher>emptyMap(),
+                          Collections.<String, BatchingStage>emptyMap(),
+                          Collections.<String, EventSink>singletonMap("collect", written::add),
+                          Collections.singletonMap(WritePath.ROOT, new String[] { "collect" }));
+        return Logger.getLogger("audit.Payments");
+    }
+}
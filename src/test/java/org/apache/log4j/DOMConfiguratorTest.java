@@ -0,0 +1,168 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.OverflowPolicy;
+import org.apache.log4j.helpers.WritePath;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+/**
+ * Tests for the streaming log4j.xml configurator.
+ */
+public class DOMConfiguratorTest {
+    
+    private static final String CONFIG =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+        + "<!DOCTYPE log4j:configuration SYSTEM \"log4j.dtd\">\n"
+        + "<log4j:configuration xmlns:log4j=\"http://jakarta.apache.org/log4j/\" threshold=\"all\">\n"
+        + "  <!-- console output, see <appender> below -->\n"
+        + "  <appender name=\"console\" class=\"org.apache.log4j.ConsoleAppender\">\n"
+        + "    <param name=\"Target\" value=\"System.out\"/>\n"
+        + "    <layout class=\"org.apache.log4j.PatternLayout\">\n"
+        + "      <param name=\"ConversionPattern\" value=\"%d %-5p &lt;%c&gt; - %m%n\"/>\n"
+        + "    </layout>\n"
+        + "    <filter class=\"org.apache.log4j.varia.LevelRangeFilter\">\n"
+        + "      <param name=\"LevelMin\" value=\"DEBUG\"/>\n"
+        + "    </filter>\n"
+        + "  </appender>\n"
+        + "  <appender name=\"file\" class=\"org.apache.log4j.RollingFileAppender\">\n"
+        + "    <param name=\"File\" value=\"${java.io.tmpdir}/app.log\"/>\n"
+        + "    <param name=\"MaxFileSize\" value=\"10MB\"/>\n"
+        + "    <param name=\"OverflowPolicy\" value=\"DropOldest\"/>\n"
+        + "  </appender>\n"
+        + "  <logger name=\"com.shop\" additivity=\"false\">\n"
+        + "    <level value=\"debug\"/>\n"
+        + "    <appender-ref ref=\"file\"/>\n"
+        + "  </logger>\n"
+        + "  <category name=\"com.legacy\">\n"
+        + "    <priority value=\"WARN\"/>\n"
+        + "  </category>\n"
+        + "  <renderer renderedClass=\"com.shop.Order\" renderingClass=\"com.shop.OrderRenderer\"/>\n"
+        + "  <param name=\"log4j.shutdown.Timeout\" value=\"2000\"/>\n"
+        + "  <root>\n"
+        + "    <priority value=\"INFO\"/>\n"
+        + "    <appender-ref ref=\"console\"/>\n"
+        + "    <appender-ref ref=\"file\"/>\n"
+        + "  </root>\n"
+        + "</log4j:configuration>\n";
+    
+    @AfterEach
+    public void tearDown() {
+        LogManager.resetConfiguration();
+    }
+    
+    @Test
+    public void testTranslatesToLog4jProperties() throws Exception {
+        Properties props = DOMConfigurator.toProperties(stream(CONFIG));
+        
+        assertEquals("all", props.getProperty("log4j.threshold"));
+        assertEquals("org.apache.log4j.ConsoleAppender", props.getProperty("log4j.appender.console"));
+        assertEquals("System.out", props.getProperty("log4j.appender.console.Target"));
+        assertEquals("org.apache.log4j.PatternLayout", props.getProperty("log4j.appender.console.layout"));
+        assertEquals("%d %-5p <%c> - %m%n", props.getProperty("log4j.appender.console.layout.ConversionPattern"));
+        assertNull(props.getProperty("log4j.appender.console.LevelMin"));
+        assertEquals(System.getProperty("java.io.tmpdir") + "/app.log", props.getProperty("log4j.appender.file.File"));
+        assertEquals("debug, file", props.getProperty("log4j.logger.com.shop"));
+        assertEquals("false", props.getProperty("log4j.additivity.com.shop"));
+        assertEquals("WARN", props.getProperty("log4j.logger.com.legacy"));
+        assertEquals("com.shop.OrderRenderer", props.getProperty("log4j.renderer.com.shop.Order"));
+        assertEquals("2000", props.getProperty("log4j.shutdown.Timeout"));
+        assertEquals("INFO, console, file", props.getProperty("log4j.rootLogger"));
+    }
+    
+    @Test
+    public void testMalformedDocumentRejected() {
+        assertThrows(java.io.IOException.class,
+                     () -> DOMConfigurator.toProperties(stream("<log4j:configuration><root><level value=\"INFO")));
+    }
+    
+    @Test
+    public void testConfigureAppliesThroughTranslator() throws Exception {
+        File config = writeConfig(CONFIG);
+        DOMConfigurator.configure(config.getPath());
+        
+        assertNotNull(WritePath.getDispatcher("file"));
+        assertEquals(OverflowPolicy.DROP_OLDEST, WritePath.getDispatcher("file").getPolicy());
+        assertSame(WritePath.getDispatcher("file"), WritePath.bind("com.shop.Cart").getDispatcher());
+    }
+    
+    @Test
+    public void testDomElementMatchesStreamingParse() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        org.w3c.dom.Element element = factory.newDocumentBuilder().parse(stream(CONFIG)).getDocumentElement();
+        
+        DOMConfigurator.configure(element);
+        assertNotNull(WritePath.getDispatcher("file"));
+    }
+    
+    @Test
+    public void testConfigureAndWatchReappliesChanges() throws Exception {
+        File config = writeConfig(CONFIG.replace("DropOldest", "DropBelowLevel"));
+        DOMConfigurator.configureAndWatch(config.getPath(), 50L);
+        assertEquals(OverflowPolicy.DROP_BELOW_LEVEL, WritePath.getDispatcher("file").getPolicy());
+        
+        Files.write(config.toPath(), CONFIG.getBytes(StandardCharsets.UTF_8));
+        config.setLastModified(System.currentTimeMillis() + 5000L);
+        
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (WritePath.getDispatcher("file") == null
+                || WritePath.getDispatcher("file").getPolicy() != OverflowPolicy.DROP_OLDEST) {
+            assertTrue(System.currentTimeMillis() < deadline, "change should be picked up");
+            Thread.sleep(20L);
+        }
+    }
+    
+    @Test
+    public void testLargeConfigurationParse() throws Exception {
+        System.out.println("=== log4j.xml Parse Performance ===");
+        
+        StringBuilder xml = new StringBuilder("<log4j:configuration xmlns:log4j=\"http://jakarta.apache.org/log4j/\">\n");
+        int elements = 1;
+        for (int i = 0; elements < 5000; i++) {
+            xml.append("<logger name=\"com.example.module").append(i).append("\">")
+               .append("<level value=\"DEBUG\"/><appender-ref ref=\"file\"/><appender-ref ref=\"console\"/>")
+               .append("</logger>\n");
+            elements += 4;
+        }
+        xml.append("<root><level value=\"INFO\"/><appender-ref ref=\"console\"/></root>\n</log4j:configuration>");
+        byte[] bytes = xml.toString().getBytes(StandardCharsets.UTF_8);
+        
+        // Warm up the parser and JIT, then keep the best of several runs to
+        // leave out GC pauses and scheduler noise
+        for (int i = 0; i < 20; i++) {
+            DOMConfigurator.toProperties(new ByteArrayInputStream(bytes));
+        }
+        Properties props = null;
+        long nanos = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            props = DOMConfigurator.toProperties(new ByteArrayInputStream(bytes));
+            nanos = Math.min(nanos, System.nanoTime() - start);
+        }
+        
+        System.out.printf("Parsed %d elements into %d properties in %.2f ms%n",
+                          elements, props.size(), nanos / 1_000_000.0);
+        assertEquals("DEBUG, file, console", props.getProperty("log4j.logger.com.example.module0"));
+        assertTrue(nanos < 10_000_000L, "5k-element configuration should parse in single-digit milliseconds");
+    }
+    
+    private static ByteArrayInputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static File writeConfig(String xml) throws Exception {
+        File file = File.createTempFile("log4j", ".xml");
+        file.deleteOnExit();
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,112 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.DedupeSink;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Tests for collapsing consecutive duplicate events.
+ */
+public class DedupeSinkTest {
+    
+    private static final long NEVER = 3600000L;
+    
+    private final List<LogEvent> written = Collections.synchronizedList(new ArrayList<LogEvent>());
+    private final EventSink collector = written::add;
+    
+    @AfterEach
+    public void tearDown() {
+        WritePath.reset(1000L);
+    }
+    
+    @Test
+    public void testRunCollapsedIntoOneReport() throws IOException {
+        DedupeSink sink = new DedupeSink("dedupe", collector, NEVER);
+        for (int i = 0; i < 5; i++) {
+            sink.write(event("db", Level.ERROR, "connection refused", null));
+        }
+        sink.write(event("db", Level.WARN, "connection refused", null));
+        sink.write(event("db", Level.WARN, "connection refused", null));
+        sink.write(event("http", Level.WARN, "connection refused", null));
+        sink.close();
+        
+        assertEquals(5, written.size());
+        assertEquals("connection refused", written.get(0).getMessage());
+        assertEquals("Last message repeated 4 times", written.get(1).getMessage());
+        assertEquals(Level.ERROR, written.get(1).getLevel());
+        assertEquals("db", written.get(1).getLoggerName());
+        assertEquals(Level.WARN, written.get(2).getLevel());
+        assertEquals("Last message repeated 1 time", written.get(3).getMessage());
+        assertEquals("http", written.get(4).getLoggerName());
+        assertEquals(5, sink.getCollapsedCount());
+    }
+    
+    @Test
+    public void testThrowablesCompareByClassAndMessage() throws IOException {
+        DedupeSink sink = new DedupeSink("dedupe", collector, NEVER);
+        sink.write(event("db", Level.ERROR, "retry failed", new IOException("timeout")));
+        sink.write(event("db", Level.ERROR, "retry failed", new IOException("timeout")));
+        sink.write(event("db", Level.ERROR, "retry failed", new IllegalStateException("timeout")));
+        sink.write(event("db", Level.ERROR, "retry failed", null));
+        sink.flush();
+        
+        assertEquals(4, written.size());
+        assertEquals("Last message repeated 1 time", written.get(1).getMessage());
+        assertTrue(written.get(2).getThrowable() instanceof IllegalStateException);
+        assertNull(written.get(3).getThrowable());
+        sink.close();
+    }
+    
+    @Test
+    public void testTimerReportsRunThatStops() throws Exception {
+        DedupeSink sink = new DedupeSink("dedupe", collector, 50L);
+        for (int i = 0; i < 3; i++) {
+            sink.write(event("db", Level.ERROR, "disk full", null));
+        }
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (written.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(2, written.size());
+        assertEquals("Last message repeated 2 times", written.get(1).getMessage());
+        sink.close();
+        assertEquals(2, written.size(), "a reported run is not reported again");
+    }
+    
+    @Test
+    public void testConfiguredThroughTranslator() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, file");
+        props.setProperty("log4j.appender.file.Dedupe", "true");
+        props.setProperty("log4j.appender.file.DedupeInterval", "60000");
+        props.setProperty("log4j.appender.file.OverflowPolicy", "Block");
+        PropertyConfigurator.configure(props);
+        
+        assertTrue(WritePath.getSink("file") instanceof DedupeSink);
+        AsyncDispatcher dispatcher = WritePath.getDispatcher("file");
+        assertNotNull(dispatcher, "deduplication runs behind the dispatcher");
+        
+        Logger logger = Logger.getLogger("dedupe.Service");
+        for (int i = 0; i < 100; i++) {
+            logger.error("same failure");
+        }
+        LogManager.flush(5000L);
+        assertEquals(99, ((DedupeSink) WritePath.getSink("file")).getCollapsedCount());
+        assertEquals(100, dispatcher.getWrittenCount());
+    }
+    
+    private static LogEvent event(String logger, Level level, String message, Throwable throwable) {
+        return new LogEvent(null, logger, level, message, throwable);
+    }
+}
@@ -0,0 +1,175 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.FlightRecorder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tests for the in-memory flight recorder.
+ */
+public class FlightRecorderTest {
+
+    private File dumpFile;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dumpFile = File.createTempFile("flight-recorder", ".log");
+        dumpFile.delete();
+
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        props.setProperty("log4j.flightRecorder.Loggers", "com.shop");
+        props.setProperty("log4j.flightRecorder.Threshold", "DEBUG");
+        props.setProperty("log4j.flightRecorder.TriggerLevel", "ERROR");
+        props.setProperty("log4j.flightRecorder.BufferSize", "64");
+        props.setProperty("log4j.flightRecorder.File", dumpFile.getPath());
+        PropertyConfigurator.configure(props);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FlightRecorder.disable();
+        dumpFile.delete();
+    }
+
+    @Test
+    public void testConfiguredFromProperties() {
+        FlightRecorder recorder = FlightRecorder.getActive();
+        assertNotNull(recorder);
+        assertTrue(recorder.isRecording("com.shop"));
+        assertTrue(recorder.isRecording("com.shop.cart.Checkout"));
+        assertFalse(recorder.isRecording("com.shopping"));
+        assertTrue(recorder.isCaptured(Level.DEBUG));
+        assertFalse(recorder.isCaptured(Level.TRACE));
+        assertTrue(recorder.isTrigger(Level.ERROR));
+        assertFalse(recorder.isTrigger(Level.WARN));
+    }
+
+    @Test
+    public void testDebugContextDumpedOnError() throws Exception {
+        Logger logger = Logger.getLogger("com.shop.Checkout");
+        if (logger.isDebugEnabled()) {
+            return; // nothing to capture when DEBUG is already written
+        }
+
+        logger.debug("cart loaded");
+        logger.debug("applying coupon %s", "SAVE10");
+        assertFalse(dumpFile.exists(), "nothing should be written before the trigger");
+
+        logger.error("payment failed");
+
+        String dump = new String(Files.readAllBytes(dumpFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(dump.contains("cart loaded"));
+        assertTrue(dump.contains("applying coupon SAVE10"));
+        assertTrue(dump.indexOf("cart loaded") < dump.indexOf("applying coupon"));
+    }
+
+    @Test
+    public void testDumpIsOneFramedBlock() throws Exception {
+        Logger logger = Logger.getLogger("com.shop.Checkout");
+        if (logger.isDebugEnabled()) {
+            return;
+        }
+
+        logger.debug("cart loaded");
+        logger.debug("applying coupon %s", "SAVE10");
+        logger.error("payment failed");
+
+        String[] lines = new String(Files.readAllBytes(dumpFile.toPath()), StandardCharsets.UTF_8).split("\\R");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("--- flight recorder: 2 events preceding ERROR in com.shop.Checkout"));
+        assertTrue(lines[1].contains(" DEBUG com.shop.Checkout - cart loaded"), "events keep their captured level");
+        assertTrue(lines[2].contains(" DEBUG com.shop.Checkout - applying coupon SAVE10"));
+    }
+
+    @Test
+    public void testBufferClearedAfterDump() throws Exception {
+        Logger logger = Logger.getLogger("com.shop.Checkout");
+        if (logger.isDebugEnabled()) {
+            return;
+        }
+
+        logger.debug("first attempt");
+        logger.error("first failure");
+        long sizeAfterFirstDump = dumpFile.length();
+
+        logger.error("second failure");
+        assertEquals(sizeAfterFirstDump, dumpFile.length());
+    }
+
+    @Test
+    public void testUnrecordedLoggerNotCaptured() {
+        Logger logger = Logger.getLogger("com.other.Service");
+        if (logger.isDebugEnabled()) {
+            return;
+        }
+
+        logger.debug("not recorded");
+        logger.error("failure");
+        assertFalse(dumpFile.exists());
+    }
+
+    @Test
+    public void testRingKeepsMostRecentEvents() throws Exception {
+        Logger logger = Logger.getLogger("com.shop.Checkout");
+        if (logger.isDebugEnabled()) {
+            return;
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            logger.debug("event " + i);
+        }
+        logger.error("failure");
+
+        String dump = new String(Files.readAllBytes(dumpFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(dump.contains("event 9999"));
+        assertFalse(dump.contains("event 0\n") || dump.contains("event 0\r"));
+    }
+
+    @Test
+    public void testDumpNeverMixesConcurrentEvents() throws Exception {
+        final FlightRecorder recorder = FlightRecorder.getActive();
+        final AtomicBoolean stop = new AtomicBoolean();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            final int offset = t * 1000000;
+            writers[t] = new Thread(() -> {
+                for (int i = offset; !stop.get(); i++) {
+                    recorder.capture("com.shop.T" + i, Level.DEBUG, "event " + i, null, null);
+                }
+            });
+            writers[t].start();
+        }
+        try {
+            for (int round = 0; round < 200; round++) {
+                recorder.dump("com.shop", Level.ERROR, null);
+            }
+        } finally {
+            stop.set(true);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+
+        Pattern line = Pattern.compile(".* DEBUG com\\.shop\\.T(\\d+) - event (\\d+)");
+        int checked = 0;
+        for (String text : Files.readAllLines(dumpFile.toPath(), StandardCharsets.UTF_8)) {
+            Matcher matcher = line.matcher(text);
+            if (matcher.matches()) {
+                assertEquals(matcher.group(1), matcher.group(2), "fields of one capture: " + text);
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+}
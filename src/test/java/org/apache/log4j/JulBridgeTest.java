@@ -0,0 +1,75 @@
+package org.apache.log4j;
+
+import org.apache.log4j.jul.JulBridge;
+import org.apache.log4j.jul.Log4RichHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.LogRecord;
+
+/**
+ * Tests for the java.util.logging bridge.
+ */
+public class JulBridgeTest {
+    
+    @AfterEach
+    public void tearDown() {
+        JulBridge.uninstall();
+    }
+    
+    @Test
+    public void testLevelMapping() {
+        assertEquals(Level.TRACE, Log4RichHandler.toLevel(java.util.logging.Level.FINEST));
+        assertEquals(Level.DEBUG, Log4RichHandler.toLevel(java.util.logging.Level.FINER));
+        assertEquals(Level.DEBUG, Log4RichHandler.toLevel(java.util.logging.Level.FINE));
+        assertEquals(Level.INFO, Log4RichHandler.toLevel(java.util.logging.Level.CONFIG));
+        assertEquals(Level.INFO, Log4RichHandler.toLevel(java.util.logging.Level.INFO));
+        assertEquals(Level.WARN, Log4RichHandler.toLevel(java.util.logging.Level.WARNING));
+        assertEquals(Level.ERROR, Log4RichHandler.toLevel(java.util.logging.Level.SEVERE));
+        
+        assertEquals(java.util.logging.Level.CONFIG, Log4RichHandler.toJulLevel(Level.INFO));
+        assertEquals(java.util.logging.Level.OFF, Log4RichHandler.toJulLevel(Level.OFF));
+    }
+    
+    @Test
+    public void testInstallReplacesRootHandlers() {
+        JulBridge.install();
+        
+        java.util.logging.Logger root = java.util.logging.Logger.getLogger("");
+        assertTrue(JulBridge.isInstalled());
+        assertEquals(1, root.getHandlers().length);
+        
+        java.util.logging.Logger.getLogger("com.example.jul").info("routed through the bridge");
+        java.util.logging.Logger.getLogger("com.example.jul").log(java.util.logging.Level.WARNING,
+            "order {0} failed", "A-1");
+        
+        JulBridge.uninstall();
+        assertFalse(JulBridge.isInstalled());
+    }
+    
+    @Test
+    public void testDisabledRecordsNotFormatted() {
+        Logger logger = LogManager.getLogger("com.example.jul.gated");
+        if (logger.isTraceEnabled()) {
+            return; // nothing is gated when TRACE is written
+        }
+        
+        final AtomicInteger rendered = new AtomicInteger();
+        Object parameter = new Object() {
+            @Override
+            public String toString() {
+                rendered.incrementAndGet();
+                return "expensive";
+            }
+        };
+        
+        LogRecord record = new LogRecord(java.util.logging.Level.FINEST, "value {0}");
+        record.setLoggerName("com.example.jul.gated");
+        record.setParameters(new Object[] {parameter});
+        new Log4RichHandler().publish(record);
+        
+        assertEquals(0, rendered.get());
+    }
+}
@@ -0,0 +1,143 @@
+package org.apache.log4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for MDC-keyed level overrides.
+ */
+public class LevelOverrideTest {
+    
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        PropertyConfigurator.configure(props);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        LogManager.clearLevelOverrides();
+        MDC.clear();
+    }
+    
+    @Test
+    public void testOverrideAppliesOnlyToMatchingContext() {
+        Logger cart = Logger.getLogger("com.shop.Cart");
+        Logger billing = Logger.getLogger("com.billing.Invoice");
+        assertFalse(cart.isDebugEnabled());
+        
+        LogManager.addLevelOverride("tenant", "acme", "com.shop.*", Level.DEBUG);
+        assertFalse(cart.isDebugEnabled(), "no context, no override");
+        assertTrue(cart.isInfoEnabled());
+        
+        MDC.put("tenant", "acme");
+        assertTrue(cart.isDebugEnabled());
+        assertTrue(cart.isEnabledFor(Level.DEBUG));
+        assertFalse(cart.isTraceEnabled(), "the override stops at its level");
+        assertFalse(billing.isDebugEnabled(), "other logger trees keep the configured level");
+        assertFalse(Logger.getLogger("com.shopping.Cart").isDebugEnabled());
+        assertTrue(Logger.getLogger("com.shop").isDebugEnabled());
+        
+        MDC.put("tenant", "globex");
+        assertFalse(cart.isDebugEnabled());
+        
+        MDC.remove("tenant");
+        assertFalse(cart.isDebugEnabled());
+    }
+    
+    @Test
+    public void testOverriddenEventsReachLog4Rich() {
+        Logger cart = Logger.getLogger("com.shop.Cart");
+        LogManager.addLevelOverride("requestId", "r-42", "*", Level.TRACE);
+        assertTrue(cart.getLog4RichLogger().isLevelEnabled(com.log4rich.core.LogLevel.TRACE),
+                   "log4Rich is lowered to the most verbose override");
+        
+        MDC.put("requestId", "r-42");
+        assertTrue(cart.isTraceEnabled());
+        assertTrue(Logger.getRootLogger().isDebugEnabled());
+        
+        LogManager.clearLevelOverrides();
+        assertFalse(cart.isDebugEnabled());
+        assertFalse(cart.getLog4RichLogger().isLevelEnabled(com.log4rich.core.LogLevel.DEBUG),
+                    "clearing restores the configured level");
+    }
+    
+    @Test
+    public void testLoweringIsVisibleToNativeLog4RichLoggers() {
+        com.log4rich.core.Logger nativeLogger = com.log4rich.Log4Rich.getLogger("native.Service");
+        assertFalse(nativeLogger.isLevelEnabled(com.log4rich.core.LogLevel.DEBUG));
+        
+        LogManager.addLevelOverride("tenant", "acme", "com.shop.*", Level.DEBUG);
+        assertTrue(nativeLogger.isLevelEnabled(com.log4rich.core.LogLevel.DEBUG),
+                   "log4Rich's level is process-wide, so native loggers are lowered too, in any context");
+        assertFalse(nativeLogger.isLevelEnabled(com.log4rich.core.LogLevel.TRACE));
+        
+        LogManager.clearLevelOverrides();
+        assertFalse(nativeLogger.isLevelEnabled(com.log4rich.core.LogLevel.DEBUG),
+                    "removing the last override restores native loggers");
+        assertTrue(nativeLogger.isLevelEnabled(com.log4rich.core.LogLevel.INFO));
+    }
+    
+    @Test
+    public void testClearingRestoresUnconfiguredLevel() {
+        LogManager.resetConfiguration();
+        com.log4rich.config.ConfigurationManager.setRootLevel(com.log4rich.core.LogLevel.WARN);
+        Logger cart = Logger.getLogger("com.shop.Cart");
+        
+        LogManager.addLevelOverride("requestId", "r-42", "*", Level.TRACE);
+        assertTrue(cart.getLog4RichLogger().isLevelEnabled(com.log4rich.core.LogLevel.TRACE));
+        assertFalse(cart.isInfoEnabled(), "without context the bridge keeps log4Rich's own level");
+        
+        LogManager.clearLevelOverrides();
+        assertFalse(cart.getLog4RichLogger().isLevelEnabled(com.log4rich.core.LogLevel.INFO),
+                    "log4Rich's own level is restored, not the one configured before the reset");
+        assertTrue(cart.getLog4RichLogger().isLevelEnabled(com.log4rich.core.LogLevel.WARN));
+    }
+    
+    @Test
+    public void testOverrideSurvivesReconfiguration() {
+        LogManager.addLevelOverride("tenant", "acme", "com.shop", Level.DEBUG);
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "WARN, console");
+        PropertyConfigurator.configure(props);
+        
+        Logger cart = Logger.getLogger("com.shop.Cart");
+        assertFalse(cart.isInfoEnabled());
+        MDC.put("tenant", "acme");
+        assertTrue(cart.isInfoEnabled());
+        assertTrue(cart.isDebugEnabled());
+    }
+    
+    @Test
+    public void testManagementApi() {
+        LogManager.addLevelOverride("tenant", "acme", "com.shop.*", Level.DEBUG);
+        LogManager.addLevelOverride("tenant", "acme", "com.shop", Level.TRACE);
+        LogManager.addLevelOverride("user", "7", "com.billing", Level.DEBUG);
+        assertArrayEquals(new String[] { "tenant=acme -> TRACE for com.shop", "user=7 -> DEBUG for com.billing" },
+                          LogManager.getLevelOverrides());
+        
+        assertTrue(LogManager.removeLevelOverride("user", "7", "com.billing"));
+        assertFalse(LogManager.removeLevelOverride("user", "7", "com.billing"));
+        assertEquals(1, LogManager.getLevelOverrides().length);
+        assertThrows(IllegalArgumentException.class,
+                     () -> LogManager.addLevelOverride(null, "acme", "com.shop", Level.DEBUG));
+    }
+    
+    @Test
+    public void testContextInheritedByChildThreads() throws Exception {
+        LogManager.addLevelOverride("tenant", "acme", "com.shop", Level.DEBUG);
+        MDC.put("tenant", "acme");
+        final AtomicBoolean childEnabled = new AtomicBoolean();
+        Thread child = new Thread(() -> childEnabled.set(Logger.getLogger("com.shop.Worker").isDebugEnabled()));
+        child.start();
+        child.join();
+        assertTrue(childEnabled.get());
+        assertEquals("acme", MDC.getContext().get("tenant"));
+    }
+}
@@ -0,0 +1,239 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.LogIndex;
+import org.apache.log4j.helpers.LogIndexWriter;
+import org.apache.log4j.helpers.PlainLayout;
+import org.apache.log4j.helpers.RingAggregator;
+import org.apache.log4j.helpers.RollingFileSink;
+import org.apache.log4j.helpers.SharedMemoryRingSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the sidecar time and level index of log files.
+ */
+public class LogIndexTest {
+    
+    private static final long START = 1700000000000L;
+    private static final int RECORDS = 20000;
+    
+    private final PlainLayout layout = new PlainLayout();
+    private File dir;
+    private String logFile;
+    
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("index").toFile();
+        logFile = new File(dir, "app.log").getPath();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+    
+    @Test
+    public void testTimeRangeReadsOnlyMatchingBlocks() throws Exception {
+        List<String> expected = writeLog(true);
+        LogIndex index = LogIndex.open(logFile);
+        
+        long from = START + 5000L * 50;
+        long to = START + 5100L * 50 - 1;
+        List<LogIndex.Block> selected = index.select(from, to, null);
+        assertEquals(1, selected.size(), "adjacent blocks are merged");
+        long read = selected.get(0).getEnd() - selected.get(0).getStart();
+        assertTrue(read < new File(logFile).length() / 50, "read " + read + " bytes");
+        
+        assertEquals(join(expected.subList(5000, 5100)), scan(index, from, to, null));
+    }
+    
+    @Test
+    public void testLevelSeekFindsErrorsWithTheirStackTraces() throws Exception {
+        List<String> records = writeLog(true);
+        LogIndex index = LogIndex.open(logFile);
+        
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            if (i % 2500 == 7) {
+                errors.add(records.get(i));
+            }
+        }
+        assertEquals(join(errors), scan(index, Long.MIN_VALUE, Long.MAX_VALUE, Level.ERROR));
+        assertTrue(index.select(Long.MIN_VALUE, Long.MAX_VALUE, Level.ERROR).size() <= errors.size());
+        assertTrue(scan(index, Long.MIN_VALUE, Long.MAX_VALUE, Level.ERROR).contains("\tat "));
+    }
+    
+    @Test
+    public void testBuildIndexesExistingFileAndGapsAreScanned() throws Exception {
+        List<String> records = writeLog(false);
+        assertFalse(new File(LogIndex.indexFileName(logFile)).exists());
+        
+        LogIndex index = LogIndex.build(logFile, 4096);
+        assertTrue(index.getBlocks().size() > 100);
+        assertTrue(index.getBlocks().get(0).isIndexed());
+        long from = START + 12345L * 50;
+        assertEquals(join(records.subList(12345, 12350)), scan(index, from, from + 5 * 50 - 1, null));
+        
+        // Records appended after the index was built are covered by an unindexed block
+        String late = layout.format(new LogEvent(null, "late", Level.FATAL, "appended", null, START, "main"));
+        try (OutputStream out = new FileOutputStream(logFile, true)) {
+            out.write((late + PlainLayout.LINE_SEPARATOR).getBytes(StandardCharsets.UTF_8));
+        }
+        index = LogIndex.open(logFile);
+        assertFalse(index.getBlocks().get(index.getBlocks().size() - 1).isIndexed());
+        assertTrue(scan(index, START, START, Level.FATAL).contains("appended"));
+    }
+    
+    @Test
+    public void testAggregatorIndexesEachRolledFile() throws Exception {
+        String ringDir = new File(dir, "shm").getPath();
+        SharedMemoryRingSink sink = new SharedMemoryRingSink(ringDir, "indexed", 1024 * 1024, 128);
+        try (RingAggregator aggregator = new RingAggregator(ringDir, logFile, 64 * 1024L, 1, 1024)) {
+            for (int i = 0; i < 1500; i++) {
+                Level level = i % 100 == 42 ? Level.ERROR : Level.INFO;
+                sink.write(new LogEvent(null, "ring", level, "event " + i, null, START + i, "main"));
+            }
+            aggregator.drain();
+        }
+        sink.close();
+        
+        assertTrue(new File(LogIndex.indexFileName(logFile + ".1")).exists());
+        int errors = 0;
+        for (String file : new String[] { logFile + ".1", logFile }) {
+            LogIndex index = LogIndex.open(file);
+            for (LogIndex.Block block : index.getBlocks()) {
+                assertTrue(block.isIndexed(), file + " is fully indexed");
+            }
+            String found = scan(index, Long.MIN_VALUE, Long.MAX_VALUE, Level.ERROR);
+            errors += found.isEmpty() ? 0 : found.split(PlainLayout.LINE_SEPARATOR).length;
+        }
+        assertEquals(15, errors);
+    }
+    
+    @Test
+    public void testRollingFileSinkIndexesEachRolledFile() throws Exception {
+        RollingFileSink sink = new RollingFileSink("indexed", logFile, null, 64 * 1024L, 2, false, 8192, false, 0,
+                                                   layout, 1024);
+        for (int i = 0; i < 1500; i++) {
+            Level level = i % 100 == 42 ? Level.ERROR : Level.INFO;
+            sink.write(new LogEvent(null, "rolling", level, "event " + i, null, START + i, "main"));
+        }
+        sink.close();
+        
+        assertTrue(new File(LogIndex.indexFileName(logFile + ".1")).exists());
+        int errors = 0;
+        for (String file : new String[] { logFile + ".2", logFile + ".1", logFile }) {
+            if (!new File(file).exists()) {
+                continue;
+            }
+            LogIndex index = LogIndex.open(file);
+            for (LogIndex.Block block : index.getBlocks()) {
+                assertTrue(block.isIndexed(), file + " is fully indexed");
+            }
+            String found = scan(index, Long.MIN_VALUE, Long.MAX_VALUE, Level.ERROR);
+            errors += found.isEmpty() ? 0 : found.split(PlainLayout.LINE_SEPARATOR).length;
+        }
+        assertEquals(15, errors);
+    }
+    
+    @Test
+    public void testIndexingOverhead() throws Exception {
+        int records = 200000;
+        byte[][] lines = new byte[records][];
+        for (int i = 0; i < records; i++) {
+            lines[i] = (layout.format(new LogEvent(null, "bench", Level.INFO, "benchmark record " + i, null,
+                                                   START + i, "main")) + PlainLayout.LINE_SEPARATOR)
+                .getBytes(StandardCharsets.UTF_8);
+        }
+        for (int round = 0; round < 2; round++) {
+            long plain = writeTimed(lines, false);
+            long indexed = writeTimed(lines, true);
+            if (round == 1) {
+                System.out.println("=== Index Overhead: " + records + " records ===");
+                System.out.printf("without index  %6.1f ns/record%n", plain / (double) records);
+                System.out.printf("with index     %6.1f ns/record, index %d bytes for %d log bytes%n",
+                                  indexed / (double) records, new File(LogIndex.indexFileName(logFile)).length(),
+                                  new File(logFile).length());
+            }
+        }
+        assertTrue(new File(LogIndex.indexFileName(logFile)).length() < new File(logFile).length() / 1000);
+    }
+    
+    private long writeTimed(byte[][] lines, boolean indexed) throws IOException {
+        new File(logFile).delete();
+        new File(LogIndex.indexFileName(logFile)).delete();
+        long start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(logFile), 65536);
+             LogIndexWriter index = indexed ? new LogIndexWriter(logFile, LogIndex.DEFAULT_BLOCK_SIZE) : null) {
+            long offset = 0;
+            for (int i = 0; i < lines.length; i++) {
+                if (index != null) {
+                    index.record(offset, lines[i].length, START + i, Level.INFO.toInt());
+                }
+                out.write(lines[i]);
+                offset += lines[i].length;
+            }
+        }
+        return System.nanoTime() - start;
+    }
+    
+    /**
+     * Write RECORDS records 50ms apart, ERROR with a stack trace every 2500th, and return them rendered.
+     */
+    private List<String> writeLog(boolean indexed) throws IOException {
+        List<String> records = new ArrayList<>();
+        Exception failure = new IllegalStateException("boom");
+        try (OutputStream out = new FileOutputStream(logFile);
+             LogIndexWriter index = indexed ? new LogIndexWriter(logFile, 4096) : null) {
+            long offset = 0;
+            for (int i = 0; i < RECORDS; i++) {
+                boolean error = i % 2500 == 7;
+                String record = layout.format(new LogEvent(null, "app.Orders", error ? Level.ERROR : Level.INFO,
+                                                           "order " + i, error ? failure : null,
+                                                           START + i * 50L, "worker-" + i % 4));
+                byte[] bytes = (record + PlainLayout.LINE_SEPARATOR).getBytes(StandardCharsets.UTF_8);
+                if (index != null) {
+                    index.record(offset, bytes.length, START + i * 50L, (error ? Level.ERROR : Level.INFO).toInt());
+                }
+                out.write(bytes);
+                offset += bytes.length;
+                records.add(record);
+            }
+        }
+        return records;
+    }
+    
+    private static String scan(LogIndex index, long from, long to, Level level) throws IOException {
+        StringWriter out = new StringWriter();
+        index.scan(from, to, level, out);
+        return out.toString();
+    }
+    
+    private static String join(List<String> records) {
+        StringBuilder sb = new StringBuilder();
+        for (String record : records) {
+            sb.append(record).append(PlainLayout.LINE_SEPARATOR);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.WritePath;
+import org.apache.log4j.or.AppendingRenderer;
+import org.apache.log4j.or.ObjectRenderer;
+import org.apache.log4j.or.RendererMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Tests for object renderers and their configuration.
+ */
+public class RendererMapTest {
+    
+    @AfterEach
+    public void tearDown() {
+        LogManager.getRendererMap().clear();
+        WritePath.reset(1000L);
+    }
+    
+    @Test
+    public void testResolvedByClassHierarchy() {
+        RendererMap map = new RendererMap();
+        ObjectRenderer ofPayment = o -> "payment";
+        ObjectRenderer ofOrder = o -> "order";
+        map.put(Payment.class, ofPayment);
+        map.put(Order.class, ofOrder);
+        
+        assertSame(ofOrder, map.get(Order.class));
+        assertSame(ofOrder, map.get(new RushOrder()), "subclasses use the superclass renderer");
+        assertSame(ofPayment, map.get(CardPayment.class), "implementations use the interface renderer");
+        assertSame(map.getDefaultRenderer(), map.get(String.class));
+        assertSame(map.getDefaultRenderer(), map.get((Object) null));
+        assertEquals("order", map.findAndRender(new RushOrder()));
+        assertNull(map.findAndRender(null));
+        
+        ObjectRenderer ofRush = o -> "rush";
+        map.put(RushOrder.class, ofRush);
+        assertSame(ofRush, map.get(RushOrder.class), "registering a renderer replaces cached resolutions");
+        
+        map.clear();
+        assertSame(map.getDefaultRenderer(), map.get(RushOrder.class));
+    }
+    
+    @Test
+    public void testAppendingRendererReusesBuffer() {
+        RendererMap map = new RendererMap();
+        final List<StringBuilder> buffers = new ArrayList<>();
+        map.put(Order.class, new AppendingRenderer() {
+            @Override
+            public void render(Object o, StringBuilder buffer) {
+                buffers.add(buffer);
+                buffer.append("order #").append(((Order) o).id);
+            }
+        });
+        
+        assertEquals("order #7", map.findAndRender(new Order(7)));
+        assertEquals("order #8", map.findAndRender(new Order(8)));
+        assertSame(buffers.get(0), buffers.get(1));
+        assertEquals("order #9", map.get(Order.class).doRender(new Order(9)));
+    }
+    
+    @Test
+    public void testNestedRenderingGetsItsOwnBuffer() {
+        final RendererMap map = new RendererMap();
+        map.put(Order.class, new AppendingRenderer() {
+            @Override
+            public void render(Object o, StringBuilder buffer) {
+                buffer.append("order[");
+                Order order = (Order) o;
+                if (order.id > 0) {
+                    buffer.append(map.findAndRender(new Order(order.id - 1)));
+                }
+                buffer.append(']');
+            }
+        });
+        assertEquals("order[order[order[]]]", map.findAndRender(new Order(2)));
+    }
+    
+    @Test
+    public void testConfiguredRendererUsedForMessages() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        props.setProperty("log4j.renderer." + Order.class.getName(), OrderRenderer.class.getName());
+        props.setProperty("log4j.renderer.com.example.Missing", OrderRenderer.class.getName());
+        PropertyConfigurator.configure(props);
+        
+        final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+        WritePath.install(Collections.<String, AsyncDispatcher>emptyMap(),
+                          Collections.<String, BatchingStage>emptyMap(),
+                          Collections.<String, EventSink>singletonMap("console", event -> messages.add(event.getMessage())),
+                          Collections.singletonMap(WritePath.ROOT, new String[] { "console" }));
+        
+        Logger logger = Logger.getLogger("renderer.test");
+        logger.info(new RushOrder());
+        logger.info("plain");
+        logger.warn(null);
+        assertEquals(3, messages.size());
+        assertEquals("order #42", messages.get(0), "toString() must not be called");
+        assertEquals("plain", messages.get(1));
+        assertEquals("null", messages.get(2));
+    }
+    
+    public static class OrderRenderer implements AppendingRenderer {
+        @Override
+        public void render(Object o, StringBuilder buffer) {
+            buffer.append("order #").append(((Order) o).id);
+        }
+    }
+    
+    interface Payment {
+    }
+    
+    static class CardPayment implements Payment {
+    }
+    
+    static class Order {
+        final int id;
+        
+        Order(int id) {
+            this.id = id;
+        }
+        
+        @Override
+        public String toString() {
+            throw new AssertionError("heavyweight toString() called");
+        }
+    }
+    
+    static class RushOrder extends Order {
+        RushOrder() {
+            super(42);
+        }
+    }
+}
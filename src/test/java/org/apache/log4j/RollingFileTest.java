@@ -0,0 +1,241 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.GzipCompressor;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.RollingFileSink;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tests for time- and size-based rolling files and parallel gzip compression
+ * of rolled files, plus a benchmark comparing one compression thread with the
+ * default pool.
+ *
+ * Can also be run directly: java -cp ... org.apache.log4j.RollingFileTest
+ */
+public class RollingFileTest {
+
+    private File dir;
+    private String fileName;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("rolling").toFile();
+        fileName = new File(dir, "app.log").getPath();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        WritePath.reset(1000L);
+        GzipCompressor.setThreads(GzipCompressor.defaultThreads());
+        deleteAll(dir);
+    }
+
+    @Test
+    public void testGzipMembersConcatenateToOriginal() throws Exception {
+        byte[] original = sampleLog(1024 * 1024);
+        File source = new File(dir, "source.log");
+        File single = new File(dir, "single.gz");
+        File multi = new File(dir, "multi.gz");
+
+        Files.write(source.toPath(), original);
+        GzipCompressor.compress(source, single, 8 * 1024 * 1024);
+        assertFalse(source.exists(), "the source is deleted once compressed");
+        Files.write(source.toPath(), original);
+        GzipCompressor.compress(source, multi, 64 * 1024);
+
+        assertArrayEquals(original, gunzip(single));
+        assertArrayEquals(original, gunzip(multi), "concatenated members read back as one stream");
+        assertTrue(multi.length() > single.length(), "16 members carry 16 headers");
+        assertFalse(new File(multi.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void testSizeRolloverCompressesBackupsInOrder() throws Exception {
+        RollingFileSink sink = new RollingFileSink("sized", fileName, null, 4096, 3, true, 8192, true, 65536);
+        for (int i = 0; i < 400; i++) {
+            sink.write(event(System.currentTimeMillis(), "event " + i));
+        }
+        assertTrue(sink.awaitCompression(10000L));
+        sink.close();
+
+        assertFalse(new File(fileName + ".4.gz").exists(), "backups beyond MaxBackupIndex are deleted");
+        int previous = Integer.MAX_VALUE;
+        for (String name : new String[] {fileName, fileName + ".1.gz", fileName + ".2.gz", fileName + ".3.gz"}) {
+            List<Integer> sequence = sequence(name);
+            assertFalse(sequence.isEmpty(), name + " should hold events");
+            assertTrue(sequence.get(sequence.size() - 1) < previous, "backups must keep their order");
+            previous = sequence.get(0);
+        }
+        for (String name : dir.list()) {
+            assertFalse(name.contains(".rolled-"), "no rolled file should be left uncompressed: " + name);
+        }
+    }
+
+    @Test
+    public void testTimeRolloverNamesFilesByPeriod() throws Exception {
+        String pattern = "'.'yyyy-MM-dd-HH-mm";
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        long start = System.currentTimeMillis();
+        RollingFileSink sink = new RollingFileSink("daily", fileName, pattern, 0L, 0, true, 8192, true, 65536);
+
+        sink.write(event(start, "first minute"));
+        sink.write(event(start + 60000L, "second minute"));
+        sink.write(event(start + 120000L, "third minute"));
+        assertTrue(sink.awaitCompression(10000L));
+        sink.close();
+
+        String first = fileName + format.format(new Date(start)) + ".gz";
+        String second = fileName + format.format(new Date(start + 60000L)) + ".gz";
+        assertTrue(new String(gunzip(new File(first)), StandardCharsets.UTF_8).contains("first minute"));
+        assertTrue(new String(gunzip(new File(second)), StandardCharsets.UTF_8).contains("second minute"));
+        String live = new String(Files.readAllBytes(new File(fileName).toPath()), StandardCharsets.UTF_8);
+        assertTrue(live.contains("third minute"));
+        assertFalse(live.contains("second minute"));
+    }
+
+    @Test
+    public void testRollingAppendersTranslated() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, daily, sized, plain");
+        props.setProperty("log4j.appender.daily", "org.apache.log4j.DailyRollingFileAppender");
+        props.setProperty("log4j.appender.daily.File", fileName);
+        props.setProperty("log4j.appender.daily.DatePattern", "'.'yyyy-MM-dd-HH");
+        props.setProperty("log4j.appender.sized", "org.apache.log4j.RollingFileAppender");
+        props.setProperty("log4j.appender.sized.File", new File(dir, "sized.log").getPath());
+        props.setProperty("log4j.appender.sized.MaxFileSize", "1MB");
+        props.setProperty("log4j.appender.sized.Compress", "true");
+        props.setProperty("log4j.appender.plain", "org.apache.log4j.RollingFileAppender");
+        props.setProperty("log4j.appender.plain.File", new File(dir, "plain.log").getPath());
+        props.setProperty("log4j.compression.Threads", "2");
+        PropertyConfigurator.configure(props);
+
+        assertTrue(WritePath.getSink("daily") instanceof RollingFileSink);
+        assertTrue(WritePath.getSink("sized") instanceof RollingFileSink);
+        assertNull(WritePath.getSink("plain"), "uncompressed size rollover stays with log4Rich");
+        assertEquals(2, GzipCompressor.getThreads());
+
+        Logger.getLogger("rolling").info("routed to the daily file");
+        WritePath.flush(1000L);
+        assertTrue(new File(fileName).length() > 0);
+    }
+
+    @Test
+    public void testRolledRecordsUseConversionPattern() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, daily");
+        props.setProperty("log4j.appender.daily", "org.apache.log4j.DailyRollingFileAppender");
+        props.setProperty("log4j.appender.daily.File", fileName);
+        props.setProperty("log4j.appender.daily.layout", "org.apache.log4j.PatternLayout");
+        props.setProperty("log4j.appender.daily.layout.ConversionPattern", "%d{yyyy-MM-dd} %-5p [%c] %m%n");
+        PropertyConfigurator.configure(props);
+        
+        Logger.getLogger("rolling.Job").warn("patterned");
+        WritePath.flush(1000L);
+        
+        String today = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
+        List<String> lines = Files.readAllLines(new File(fileName).toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).equals(today + " WARN  [rolling.Job] patterned"), lines.get(0));
+    }
+
+    @Test
+    public void testParallelCompression() throws Exception {
+        runBenchmark(dir, 32 * 1024 * 1024);
+    }
+
+    private static void runBenchmark(File dir, int size) throws Exception {
+        byte[] original = sampleLog(size);
+        File source = new File(dir, "bench.log");
+        File target = new File(dir, "bench.log.gz");
+        int pool = Math.max(2, GzipCompressor.defaultThreads());
+
+        long[] millis = new long[2];
+        int[] threads = {1, pool};
+        for (int i = 0; i < threads.length; i++) {
+            GzipCompressor.setThreads(threads[i]);
+            Files.write(source.toPath(), original);
+            long start = System.nanoTime();
+            GzipCompressor.compress(source, target, GzipCompressor.DEFAULT_BLOCK_SIZE);
+            millis[i] = (System.nanoTime() - start) / 1000000L;
+            assertArrayEquals(original, gunzip(target));
+        }
+        System.out.println(String.format("Compressed %d MB to %d bytes: %d ms on 1 thread, %d ms on %d threads",
+                                         size >> 20, target.length(), millis[0], millis[1], pool));
+    }
+
+    private static LogEvent event(long timestamp, String message) {
+        return new LogEvent(null, "rolling", Level.INFO, message, null, timestamp, "main");
+    }
+
+    private static byte[] sampleLog(int size) {
+        StringBuilder sb = new StringBuilder(size + 128);
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("2024-03-01 10:00:00.000 [worker-").append(i % 16).append("] INFO com.shop.Orders - order ")
+              .append(i).append(" shipped to customer ").append(i * 7919 % 100000).append('\n');
+        }
+        sb.setLength(size);
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(File file) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static List<Integer> sequence(String name) throws IOException {
+        File file = new File(name);
+        byte[] content = name.endsWith(".gz") ? gunzip(file) : Files.readAllBytes(file.toPath());
+        List<Integer> sequence = new ArrayList<>();
+        for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+            int at = line.lastIndexOf("event ");
+            if (at >= 0) {
+                sequence.add(Integer.parseInt(line.substring(at + 6).trim()));
+            }
+        }
+        return sequence;
+    }
+
+    private static void deleteAll(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteAll(child);
+            }
+        }
+        file.delete();
+    }
+
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("rolling").toFile();
+        try {
+            runBenchmark(dir, 64 * 1024 * 1024);
+        } finally {
+            deleteAll(dir);
+        }
+    }
+}
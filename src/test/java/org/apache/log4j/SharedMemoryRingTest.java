@@ -0,0 +1,278 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.RingAggregator;
+import org.apache.log4j.helpers.SharedMemoryRingSink;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Tests for the shared-memory ring sink and the ring aggregator.
+ */
+public class SharedMemoryRingTest {
+    
+    private File dir;
+    private File ringDir;
+    private String output;
+    
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("rings").toFile();
+        ringDir = new File(dir, "shm");
+        output = new File(dir, "host.log").getPath();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        WritePath.reset(1000L);
+        delete(dir);
+    }
+    
+    /**
+     * Child JVM entry point for {@link #testSeveralJvms}: writes events to a ring and closes it.
+     */
+    public static void main(String[] args) throws Exception {
+        SharedMemoryRingSink sink = new SharedMemoryRingSink(args[0], "child", 1024 * 1024, 128);
+        int events = Integer.parseInt(args[1]);
+        for (int i = 0; i < events; i++) {
+            while (!sink.offer(new LogEvent(null, "jvm", Level.INFO, args[2] + " " + i, null))) {
+                Thread.sleep(1);
+            }
+        }
+        sink.close();
+    }
+    
+    @Test
+    public void testConcurrentWritersDrainedCompletely() throws Exception {
+        final SharedMemoryRingSink sink = new SharedMemoryRingSink(ringDir.getPath(), "app", 64 * 1024, 128);
+        final RingAggregator aggregator = new RingAggregator(ringDir.getPath(), output, 0L, 1);
+        Thread drainer = new Thread(aggregator::run);
+        drainer.start();
+        
+        final int threads = 4;
+        final int events = 5000;
+        Thread[] producers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int threadId = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    while (!sink.offer(new LogEvent(null, "ring", Level.INFO, threadId + " " + i, null))) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        sink.close();
+        aggregator.stop();
+        drainer.join();
+        
+        List<String> lines = new ArrayList<>();
+        long reportedDrops = 0;
+        for (String line : Files.readAllLines(new File(output).toPath(), StandardCharsets.UTF_8)) {
+            if (line.startsWith("log4j-log4Rich: ")) {
+                reportedDrops += Long.parseLong(line.split(" ")[1]);
+            } else {
+                lines.add(line);
+            }
+        }
+        assertEquals(threads * events, lines.size());
+        assertEquals(sink.getDroppedCount(), reportedDrops, "every drop is reported once");
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+        for (String line : lines) {
+            String[] message = line.substring(line.indexOf(" - ") + 3).split(" ");
+            int thread = Integer.parseInt(message[0]);
+            int sequence = Integer.parseInt(message[1]);
+            assertEquals(last[thread] + 1, sequence, "records of one thread keep their order");
+            last[thread] = sequence;
+        }
+        assertFalse(new File(sink.getFileName()).exists(), "drained rings of closed sinks are deleted");
+    }
+    
+    @Test
+    public void testFullRingDropsInsteadOfBlocking() throws Exception {
+        SharedMemoryRingSink sink = new SharedMemoryRingSink(ringDir.getPath(), "full", 16 * 64, 64);
+        for (int i = 0; i < 100; i++) {
+            sink.write(new LogEvent(null, "ring", Level.INFO, "event " + i, null));
+        }
+        assertTrue(sink.getDroppedCount() > 0);
+        
+        try (RingAggregator aggregator = new RingAggregator(ringDir.getPath(), output, 0L, 1)) {
+            int drained = aggregator.drain();
+            assertEquals(100 - sink.getDroppedCount(), drained);
+            sink.write(new LogEvent(null, "ring", Level.INFO, "after drain", null));
+            assertEquals(1, aggregator.drain(), "draining frees the slots");
+        }
+        sink.close();
+        
+        String text = new String(Files.readAllBytes(new File(output).toPath()), StandardCharsets.UTF_8);
+        assertTrue(text.contains("log4j-log4Rich: " + sink.getDroppedCount() + " records dropped by "
+                                 + new File(sink.getFileName()).getName()), text);
+    }
+    
+    @Test
+    public void testDroppedCountReportedOncePerIncrease() throws Exception {
+        SharedMemoryRingSink sink = new SharedMemoryRingSink(ringDir.getPath(), "drops", 16 * 64, 64);
+        try (RingAggregator aggregator = new RingAggregator(ringDir.getPath(), output, 0L, 1)) {
+            for (int i = 0; i < 20; i++) {
+                sink.write(new LogEvent(null, "ring", Level.INFO, "first " + i, null));
+            }
+            long firstDrops = sink.getDroppedCount();
+            assertTrue(firstDrops > 0);
+            aggregator.drain();
+            assertEquals(0, aggregator.drain(), "nothing new to report");
+            
+            for (int i = 0; i < 20; i++) {
+                sink.write(new LogEvent(null, "ring", Level.INFO, "second " + i, null));
+            }
+            long secondDrops = sink.getDroppedCount() - firstDrops;
+            assertTrue(secondDrops > 0);
+            aggregator.drain();
+            sink.close();
+            
+            String text = new String(Files.readAllBytes(new File(output).toPath()), StandardCharsets.UTF_8);
+            assertTrue(text.contains(": " + firstDrops + " records dropped"), text);
+            assertTrue(text.contains(": " + secondDrops + " records dropped"), text);
+            assertEquals(2, text.split("records dropped", -1).length - 1, text);
+        }
+    }
+    
+    @Test
+    public void testLongRecordsSpanSlotsAndWrap() throws Exception {
+        SharedMemoryRingSink sink = new SharedMemoryRingSink(ringDir.getPath(), "long", 32 * 64, 64);
+        char[] filler = new char[150];
+        Arrays.fill(filler, 'x');
+        String longMessage = new String(filler);
+        
+        try (RingAggregator aggregator = new RingAggregator(ringDir.getPath(), output, 0L, 1)) {
+            for (int i = 0; i < 50; i++) {
+                sink.write(new LogEvent(null, "ring", Level.WARN, i + " " + longMessage, null));
+                sink.write(new LogEvent(null, "ring", Level.INFO, "short " + i, null));
+                aggregator.drain();
+            }
+        }
+        sink.close();
+        
+        List<String> lines = Files.readAllLines(new File(output).toPath(), StandardCharsets.UTF_8);
+        assertEquals(100, lines.size());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(lines.get(2 * i).endsWith(" - " + i + " " + longMessage), lines.get(2 * i));
+            assertTrue(lines.get(2 * i + 1).endsWith(" - short " + i));
+        }
+    }
+    
+    @Test
+    public void testOutputRollsOver() throws Exception {
+        SharedMemoryRingSink sink = new SharedMemoryRingSink(ringDir.getPath(), "roll", 64 * 1024, 128);
+        try (RingAggregator aggregator = new RingAggregator(ringDir.getPath(), output, 1024L, 2)) {
+            for (int i = 0; i < 100; i++) {
+                sink.write(new LogEvent(null, "ring", Level.INFO, "rolling event " + i, null));
+            }
+            aggregator.drain();
+        }
+        sink.close();
+        
+        assertTrue(new File(output + ".1").exists());
+        assertTrue(new File(output + ".2").exists());
+        assertFalse(new File(output + ".3").exists());
+        assertTrue(new File(output).length() <= 1024L);
+    }
+    
+    @Test
+    public void testSeveralJvms() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        final int jvms = 3;
+        final int events = 3000;
+        
+        RingAggregator aggregator = new RingAggregator(ringDir.getPath(), output, 0L, 1);
+        Thread drainer = new Thread(aggregator::run);
+        drainer.start();
+        List<Process> processes = new ArrayList<>();
+        for (int j = 0; j < jvms; j++) {
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                             SharedMemoryRingTest.class.getName(), ringDir.getPath(),
+                                             String.valueOf(events), "jvm" + j)
+                              .inheritIO().start());
+        }
+        for (Process process : processes) {
+            assertEquals(0, process.waitFor());
+        }
+        aggregator.stop();
+        drainer.join();
+        
+        Map<String, Integer> counts = new HashMap<>();
+        for (String line : Files.readAllLines(new File(output).toPath(), StandardCharsets.UTF_8)) {
+            String jvm = line.substring(line.indexOf(" - ") + 3).split(" ")[0];
+            counts.put(jvm, counts.containsKey(jvm) ? counts.get(jvm) + 1 : 1);
+        }
+        for (int j = 0; j < jvms; j++) {
+            assertEquals(Integer.valueOf(events), counts.get("jvm" + j));
+        }
+        String[] left = ringDir.list();
+        assertEquals(0, left == null ? 0 : left.length, "rings of exited JVMs are deleted");
+    }
+    
+    @Test
+    public void testConfiguredThroughTranslator() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, shm");
+        props.setProperty("log4j.appender.shm", "org.apache.log4j.FileAppender");
+        props.setProperty("log4j.appender.shm.SharedMemory", "true");
+        props.setProperty("log4j.appender.shm.RingDirectory", ringDir.getPath());
+        props.setProperty("log4j.appender.shm.RingSize", "64KB");
+        PropertyConfigurator.configure(props);
+        
+        Logger.getLogger("shm.Service").info("through shared memory");
+        try (RingAggregator aggregator = new RingAggregator(ringDir.getPath(), output, 0L, 1)) {
+            assertEquals(1, aggregator.drain());
+        }
+        String text = new String(Files.readAllBytes(new File(output).toPath()), StandardCharsets.UTF_8);
+        assertTrue(text.contains("INFO shm.Service - through shared memory"));
+    }
+    
+    @Test
+    public void testRingRecordsUseConversionPattern() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, shm");
+        props.setProperty("log4j.appender.shm", "org.apache.log4j.FileAppender");
+        props.setProperty("log4j.appender.shm.SharedMemory", "true");
+        props.setProperty("log4j.appender.shm.RingDirectory", ringDir.getPath());
+        props.setProperty("log4j.appender.shm.layout", "org.apache.log4j.PatternLayout");
+        props.setProperty("log4j.appender.shm.layout.ConversionPattern", "[%t] %p %c{1} %m%n");
+        PropertyConfigurator.configure(props);
+        
+        Logger.getLogger("shm.Service").info("patterned");
+        try (RingAggregator aggregator = new RingAggregator(ringDir.getPath(), output, 0L, 1)) {
+            assertEquals(1, aggregator.drain());
+        }
+        List<String> lines = Files.readAllLines(new File(output).toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("[" + Thread.currentThread().getName() + "] INFO Service patterned"), lines);
+    }
+    
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,122 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.FlushReport;
+import org.apache.log4j.helpers.ShutdownCoordinator;
+import org.apache.log4j.helpers.StripedFileSink;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Tests for bounded flush and shutdown.
+ */
+public class ShutdownCoordinatorTest {
+
+    @AfterEach
+    public void tearDown() {
+        WritePath.reset(1000L);
+        ShutdownCoordinator.setDeadline(ShutdownCoordinator.DEFAULT_DEADLINE);
+    }
+
+    @Test
+    public void testFlushDrainsQueuedEvents() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, file");
+        props.setProperty("log4j.appender.file.OverflowPolicy", "Block");
+        props.setProperty("log4j.shutdown.Hook", "false");
+        PropertyConfigurator.configure(props);
+
+        Logger logger = Logger.getLogger("flush.test");
+        for (int i = 0; i < 1000; i++) {
+            logger.info("queued message " + i);
+        }
+
+        FlushReport report = LogManager.flush(5000L);
+        assertFalse(report.isTimedOut());
+        assertEquals(0L, report.getPendingEvents());
+
+        AsyncDispatcher dispatcher = WritePath.getDispatcher("file");
+        assertEquals(0, dispatcher.getQueueSize());
+    }
+
+    @Test
+    public void testFlushSyncsRegisteredFiles() throws Exception {
+        File file = File.createTempFile("flush", ".log");
+        file.deleteOnExit();
+        ShutdownCoordinator.registerFile(file.getPath());
+
+        FlushReport report = LogManager.flush(1000L);
+        assertTrue(report.getSyncedFiles() >= 1);
+    }
+
+    @Test
+    public void testBridgeWrittenFilesAreSynced() throws Exception {
+        File dir = Files.createTempDirectory("synced").toFile();
+        String rolling = new File(dir, "rolling.log").getPath();
+        String striped = new File(dir, "striped.log").getPath();
+        String overflow = new File(dir, "overflow.log").getPath();
+        try {
+            Properties props = new Properties();
+            props.setProperty("log4j.rootLogger", "INFO, rolling, striped");
+            props.setProperty("log4j.shutdown.Hook", "false");
+            props.setProperty("log4j.appender.rolling", "org.apache.log4j.DailyRollingFileAppender");
+            props.setProperty("log4j.appender.rolling.File", rolling);
+            props.setProperty("log4j.appender.rolling.OverflowPolicy", "Spill");
+            props.setProperty("log4j.appender.rolling.OverflowFile", overflow);
+            props.setProperty("log4j.appender.striped", "org.apache.log4j.FileAppender");
+            props.setProperty("log4j.appender.striped.File", striped);
+            props.setProperty("log4j.appender.striped.Stripes", "2");
+            PropertyConfigurator.configure(props);
+
+            assertTrue(ShutdownCoordinator.getFiles().containsAll(Arrays.asList(
+                rolling, overflow, striped, StripedFileSink.stripeFileName(striped, 0),
+                StripedFileSink.stripeFileName(striped, 1))));
+
+            Logger.getLogger("sync.test").info("written by the bridge");
+            FlushReport report = LogManager.flush(1000L);
+            assertTrue(report.getSyncedFiles() >= 3, "the rolling file and both stripes are forced");
+        } finally {
+            WritePath.reset(1000L);
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testReconfigurationReplacesSyncedFiles() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        props.setProperty("log4j.shutdown.Hook", "false");
+        for (int i = 0; i < 100; i++) {
+            props.setProperty("log4j.flightRecorder.File", "flight-" + i + ".log");
+            PropertyConfigurator.configure(props);
+        }
+
+        assertEquals(1, ShutdownCoordinator.getFiles().size(), "only the latest configuration's files are synced");
+        assertTrue(ShutdownCoordinator.getFiles().contains("flight-99.log"));
+    }
+
+    @Test
+    public void testShutdownHonoursDeadline() {
+        ShutdownCoordinator.setDeadline(2000L);
+
+        long start = System.currentTimeMillis();
+        FlushReport report = ShutdownCoordinator.shutdown();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 4000L, "shutdown took " + elapsed + " ms");
+        assertNotNull(report.toString());
+    }
+}
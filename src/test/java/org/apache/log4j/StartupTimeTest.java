@@ -0,0 +1,156 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.BackendRegistry;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Startup benchmark: time-to-first-log in a fresh JVM, and the cost of
+ * class-initializing many classes that hold a logger in a static field.
+ *
+ * Can also be run directly: java -cp ... org.apache.log4j.StartupTimeTest
+ */
+public class StartupTimeTest {
+    
+    private static final int HOLDER_CLASSES = 10000;
+    public static final AtomicInteger HOLDER_COUNTER = new AtomicInteger();
+    
+    @Test
+    public void testClassInitializationDoesNotBindBackends() throws Exception {
+        System.out.println("=== Logger-Holding Class Initialization ===");
+        
+        int backendsBefore = BackendRegistry.getBackendCount();
+        long nanos = initializeHolders(HOLDER_CLASSES);
+        
+        System.out.printf("Initialized %d logger-holding classes in %d ms (%.2f microseconds/class)%n",
+                          HOLDER_CLASSES, nanos / 1_000_000, nanos / 1000.0 / HOLDER_CLASSES);
+        assertEquals(backendsBefore, BackendRegistry.getBackendCount(),
+                     "holding a logger must not resolve a log4Rich logger");
+    }
+    
+    @Test
+    public void testLoggerBindsOnFirstUse() {
+        Logger logger = Logger.getLogger("startup.lazy." + System.nanoTime());
+        int backendsBefore = BackendRegistry.getBackendCount();
+        
+        logger.isDebugEnabled();
+        assertEquals(backendsBefore + 1, BackendRegistry.getBackendCount());
+        logger.info("bound");
+        assertEquals(backendsBefore + 1, BackendRegistry.getBackendCount());
+    }
+    
+    @Test
+    public void testTimeToFirstLog() throws Exception {
+        System.out.println("=== Time To First Log ===");
+        
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                                    StartupTimeTest.class.getName(), "first-log");
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        
+        String result = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("first-log ")) {
+                    result = line;
+                }
+            }
+        }
+        
+        assertEquals(0, process.waitFor());
+        assertNotNull(result, "child JVM should report its first-log timing");
+        System.out.println(result);
+    }
+    
+    /**
+     * Entry point for the forked measurement, or for running the benchmark by hand.
+     */
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+        Logger logger = Logger.getLogger(StartupTimeTest.class);
+        long created = System.nanoTime();
+        logger.info("first log message");
+        long logged = System.nanoTime();
+        
+        System.out.printf("first-log jvmUptime=%d ms, getLogger=%.2f ms, firstEvent=%.2f ms%n",
+                          ManagementFactory.getRuntimeMXBean().getUptime(),
+                          (created - start) / 1_000_000.0, (logged - created) / 1_000_000.0);
+        
+        if (args.length == 0) {
+            long nanos = initializeHolders(HOLDER_CLASSES);
+            System.out.printf("class-init classes=%d, total=%d ms, perClass=%.2f microseconds%n",
+                              HOLDER_CLASSES, nanos / 1_000_000, nanos / 1000.0 / HOLDER_CLASSES);
+        }
+    }
+    
+    /**
+     * Define and initialize the given number of distinct copies of {@link Holder},
+     * each in its own class loader and each holding a differently named logger.
+     */
+    private static long initializeHolders(int count) throws Exception {
+        byte[] bytes = readClassBytes(Holder.class);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Class.forName(Holder.class.getName(), true, new HolderLoader(bytes));
+        }
+        return System.nanoTime() - start;
+    }
+    
+    private static byte[] readClassBytes(Class<?> clazz) throws Exception {
+        String resource = clazz.getName().replace('.', '/') + ".class";
+        try (InputStream in = clazz.getClassLoader().getResourceAsStream(resource)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+    
+    /**
+     * Typical application class: a logger in a static field, nothing logged yet.
+     */
+    public static class Holder {
+        public static final Logger LOG = Logger.getLogger("startup.holder." + HOLDER_COUNTER.incrementAndGet());
+    }
+    
+    /**
+     * Loads its own copy of {@link Holder} and delegates everything else.
+     */
+    private static final class HolderLoader extends ClassLoader {
+        private final byte[] holderBytes;
+        
+        HolderLoader(byte[] holderBytes) {
+            super(StartupTimeTest.class.getClassLoader());
+            this.holderBytes = holderBytes;
+        }
+        
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(Holder.class.getName())) {
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> loaded = findLoadedClass(name);
+                    if (loaded == null) {
+                        loaded = defineClass(name, holderBytes, 0, holderBytes.length);
+                    }
+                    return loaded;
+                }
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.PlainLayout;
+import org.apache.log4j.helpers.StripeMerger;
+import org.apache.log4j.helpers.StripedFileSink;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Tests for striped file output and the stripe merger.
+ */
+public class StripedFileTest {
+    
+    private File dir;
+    private String fileName;
+    
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("striped").toFile();
+        fileName = new File(dir, "app.log").getPath();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        WritePath.reset(1000L);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+    
+    @Test
+    public void testMergedFileIsTimeOrderedAndComplete() throws Exception {
+        final StripedFileSink sink = new StripedFileSink(fileName, 4, 4096, true);
+        final int threads = 8;
+        final int events = 2000;
+        
+        Thread[] producers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int threadId = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    sink.write(new LogEvent(null, "striped", Level.INFO, threadId + " " + i, null));
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        sink.close();
+        
+        List<String> lines = Files.readAllLines(new File(fileName).toPath(), StandardCharsets.UTF_8);
+        assertEquals(threads * events, lines.size());
+        assertEquals(0, StripeMerger.countStripes(fileName), "stripes are removed after merging");
+        
+        String previousTime = "";
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+        for (String line : lines) {
+            String time = line.substring(0, 23);
+            assertTrue(time.compareTo(previousTime) >= 0, "merged records must be time-ordered");
+            previousTime = time;
+            
+            String[] message = line.substring(line.indexOf(" - ") + 3).split(" ");
+            int thread = Integer.parseInt(message[0]);
+            int sequence = Integer.parseInt(message[1]);
+            assertTrue(sequence > last[thread], "records of one thread must stay in order");
+            last[thread] = sequence;
+        }
+    }
+    
+    @Test
+    public void testMergeIsDeterministic() throws Exception {
+        StripedFileSink sink = new StripedFileSink(fileName, 3, 4096, false);
+        Thread[] producers = new Thread[6];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    sink.write(new LogEvent(null, "striped", Level.WARN, "event " + i,
+                                            i % 100 == 0 ? new IllegalStateException("multi-line") : null));
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        sink.close();
+        
+        assertEquals(3, StripeMerger.countStripes(fileName));
+        File first = new File(dir, "merged-1.log");
+        File second = new File(dir, "merged-2.log");
+        assertEquals(3000L, StripeMerger.merge(fileName, 3, first.getPath()));
+        assertEquals(3000L, StripeMerger.merge(fileName, 3, second.getPath()));
+        assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+        assertTrue(new String(Files.readAllBytes(first.toPath()), StandardCharsets.UTF_8)
+                       .contains("java.lang.IllegalStateException: multi-line"));
+    }
+    
+    @Test
+    public void testStripedAppenderConfiguredThroughTranslator() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        props.setProperty("log4j.logger.com.shop", "INFO, file");
+        props.setProperty("log4j.appender.file", "org.apache.log4j.FileAppender");
+        props.setProperty("log4j.appender.file.File", fileName);
+        props.setProperty("log4j.appender.file.Stripes", "4");
+        props.setProperty("log4j.appender.file.StripeSegmentSize", "64KB");
+        PropertyConfigurator.configure(props);
+        
+        assertTrue(WritePath.getSink("file") instanceof StripedFileSink);
+        assertEquals(4, ((StripedFileSink) WritePath.getSink("file")).getStripeCount());
+        assertSame(WritePath.getSink("file"), WritePath.bind("com.shop.Cart").getSink());
+        assertNull(WritePath.bind("com.other.Service").getSink());
+        
+        Logger.getLogger("com.shop.Cart").info("order placed");
+        WritePath.reset(1000L);
+        
+        String merged = new String(Files.readAllBytes(new File(fileName).toPath()), StandardCharsets.UTF_8);
+        assertTrue(merged.contains("INFO com.shop.Cart - order placed"));
+    }
+    
+    @Test
+    public void testStripedAppenderUsesConversionPattern() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, file");
+        props.setProperty("log4j.appender.file", "org.apache.log4j.FileAppender");
+        props.setProperty("log4j.appender.file.File", fileName);
+        props.setProperty("log4j.appender.file.Stripes", "2");
+        props.setProperty("log4j.appender.file.layout", "org.apache.log4j.PatternLayout");
+        props.setProperty("log4j.appender.file.layout.ConversionPattern", "%d{HH:mm:ss} %-5p %c{1}: %m%n");
+        PropertyConfigurator.configure(props);
+        
+        Logger.getLogger("com.shop.Cart").warn("low stock");
+        WritePath.reset(1000L);
+        
+        List<String> lines = Files.readAllLines(new File(fileName).toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).matches("\\d\\d:\\d\\d:\\d\\d WARN  Cart: low stock"), lines.get(0));
+    }
+    
+    @Test
+    public void testPatternConversionsAndModifiers() {
+        long time = 1700000000123L;
+        String expectedTime = new java.text.SimpleDateFormat("HH:mm:ss,SSS").format(new java.util.Date(time));
+        
+        assertEquals(expectedTime + " [main] INFO  hop.Cart - placed 42 %",
+                     new PlainLayout("%d{ABSOLUTE} [%t] %-5p %.8c - %m %%%n")
+                         .format(time, "main", Level.INFO, "com.shop.Cart", "placed 42", null));
+        assertEquals(" ERROR|shop.Cart|?:?|",
+                     new PlainLayout("%6p|%c{2}|%F:%L|%X{user}")
+                         .format(time, "main", Level.ERROR, "com.shop.Cart", "ignored", null));
+        assertEquals("line one" + PlainLayout.LINE_SEPARATOR + "WARN",
+                     new PlainLayout("%m%n%p").format(time, "main", Level.WARN, "x", "line one", null));
+        assertTrue(new PlainLayout().format(time, "main", Level.INFO, "x", "m", null)
+                       .endsWith(" [main] INFO x - m"));
+    }
+}
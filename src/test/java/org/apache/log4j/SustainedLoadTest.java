@@ -0,0 +1,457 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sustained-load harness: fixed-rate (open-loop) producers on many threads
+ * logging a mix of levels and throwables through a configurable sink, reporting
+ * caller-side latency percentiles up to p99.99, GC pauses and allocation.
+ *
+ * Latency is measured from each event's scheduled start, so a stalled producer
+ * records the backlog it builds up rather than silently slowing down.
+ *
+ * Run directly for a soak, with key=value arguments or -Dsoak.* properties:
+ * <pre>
+ *   java -cp ... org.apache.log4j.SustainedLoadTest threads=16 rate=200000 duration=300 sink=batch
+ * </pre>
+ * threads (8), rate in events/second across all threads (100000), duration and
+ * warmup in seconds (60, 10), throwables as the fraction of ERROR/FATAL events
+ * carrying one (0.1), sink one of console, file, async, batch or striped (file),
+ * and config, a log4j.properties file used instead of the sink presets.
+ */
+public class SustainedLoadTest {
+
+    /** Level mix per 100 events: TRACE 5, DEBUG 20, INFO 60, WARN 10, ERROR 4, FATAL 1. */
+    private static final Level[] LEVEL_MIX = new Level[100];
+    static {
+        int i = 0;
+        i = fill(Level.TRACE, i, 5);
+        i = fill(Level.DEBUG, i, 20);
+        i = fill(Level.INFO, i, 60);
+        i = fill(Level.WARN, i, 10);
+        i = fill(Level.ERROR, i, 4);
+        fill(Level.FATAL, i, 1);
+    }
+
+    private File logDir;
+
+    @AfterEach
+    public void tearDown() {
+        WritePath.reset(1000L);
+        if (logDir != null) {
+            File[] files = logDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            logDir.delete();
+        }
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100000; v++) {
+            histogram.record(v);
+        }
+        assertEquals(100000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50000, histogram.getValueAtPercentile(50.0), 50000 * 0.01);
+        assertEquals(99000, histogram.getValueAtPercentile(99.0), 99000 * 0.01);
+        assertEquals(99990, histogram.getValueAtPercentile(99.99), 99990 * 0.01);
+        assertEquals(100000, histogram.getValueAtPercentile(100.0));
+        assertEquals(50000.5, histogram.getMean(), 50000 * 0.01);
+    }
+
+    @Test
+    public void testHistogramMergeAndLargeValues() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(0);
+        a.record(TimeUnit.SECONDS.toNanos(30));
+        b.record(Long.MAX_VALUE);
+        a.add(b);
+        assertEquals(3, a.getCount());
+        assertEquals(0, a.getMin());
+        assertEquals(Long.MAX_VALUE, a.getMax());
+        assertEquals(TimeUnit.SECONDS.toNanos(30), a.getValueAtPercentile(60.0),
+                     TimeUnit.SECONDS.toNanos(30) * 0.01);
+    }
+
+    @Test
+    public void testShortRunReports() throws Exception {
+        logDir = java.nio.file.Files.createTempDirectory("soak").toFile();
+        Scenario scenario = new Scenario();
+        scenario.threads = 2;
+        scenario.rate = 4000;
+        scenario.durationSeconds = 1;
+        scenario.warmupSeconds = 0;
+        scenario.sink = "batch";
+        scenario.logDir = logDir;
+
+        Result result = scenario.run();
+
+        assertTrue(result.events >= 3000, "open-loop producers should keep close to the target rate");
+        assertEquals(result.events, result.latency.getCount());
+        assertTrue(result.latency.getValueAtPercentile(99.99) >= result.latency.getValueAtPercentile(50.0));
+        String report = result.toString();
+        assertTrue(report.contains("p99.99"));
+        assertTrue(report.contains("GC"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Scenario scenario = Scenario.fromArguments(args);
+        System.out.println("=== Sustained Load: " + scenario + " ===");
+        System.out.println(scenario.run());
+    }
+
+    private static int fill(Level level, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            LEVEL_MIX[i] = level;
+        }
+        return from + count;
+    }
+
+    /**
+     * Load parameters and the run loop.
+     */
+    static final class Scenario {
+        int threads = 8;
+        long rate = 100000;
+        long durationSeconds = 60;
+        long warmupSeconds = 10;
+        double throwables = 0.1;
+        String sink = "file";
+        String config;
+        File logDir = new File(System.getProperty("java.io.tmpdir"));
+
+        static Scenario fromArguments(String[] args) {
+            Properties options = new Properties();
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("soak.")) {
+                    options.setProperty(name.substring("soak.".length()), System.getProperty(name));
+                }
+            }
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq > 0) {
+                    options.setProperty(arg.substring(0, eq), arg.substring(eq + 1));
+                }
+            }
+            Scenario scenario = new Scenario();
+            scenario.threads = Integer.parseInt(options.getProperty("threads", "8"));
+            scenario.rate = Long.parseLong(options.getProperty("rate", "100000"));
+            scenario.durationSeconds = Long.parseLong(options.getProperty("duration", "60"));
+            scenario.warmupSeconds = Long.parseLong(options.getProperty("warmup", "10"));
+            scenario.throwables = Double.parseDouble(options.getProperty("throwables", "0.1"));
+            scenario.sink = options.getProperty("sink", "file");
+            scenario.config = options.getProperty("config");
+            return scenario;
+        }
+
+        Properties properties() throws IOException {
+            Properties props = new Properties();
+            if (config != null) {
+                try (InputStream in = new FileInputStream(config)) {
+                    props.load(in);
+                }
+                return props;
+            }
+            String appender = "console".equals(sink) ? "console" : "file";
+            props.setProperty("log4j.rootLogger", "DEBUG, " + appender);
+            if ("console".equals(sink)) {
+                props.setProperty("log4j.appender.console", "org.apache.log4j.ConsoleAppender");
+                return props;
+            }
+            props.setProperty("log4j.appender.file", "org.apache.log4j.FileAppender");
+            props.setProperty("log4j.appender.file.File", new File(logDir, "soak.log").getPath());
+            if ("async".equals(sink)) {
+                props.setProperty("log4j.appender.file.OverflowPolicy", "Block");
+                props.setProperty("log4j.appender.file.QueueSize", "65536");
+            } else if ("batch".equals(sink)) {
+                props.setProperty("log4j.appender.file.BatchSize", "64");
+            } else if ("striped".equals(sink)) {
+                props.setProperty("log4j.appender.file.Stripes", "auto");
+            } else if (!"file".equals(sink)) {
+                throw new IllegalArgumentException("Unknown sink " + sink);
+            }
+            return props;
+        }
+
+        Result run() throws Exception {
+            PropertyConfigurator.configure(properties());
+
+            final long intervalNanos = Math.max(1L, TimeUnit.SECONDS.toNanos(1) * threads / Math.max(1L, rate));
+            final long warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+            final long runNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+            final int throwableEvery = throwables > 0 ? (int) Math.max(1L, Math.round(1.0 / throwables)) : 0;
+            final Exception failure = new IllegalStateException("soak failure");
+
+            final LatencyHistogram[] latencies = new LatencyHistogram[threads];
+            final LatencyHistogram[] services = new LatencyHistogram[threads];
+            final AtomicLong allocated = new AtomicLong();
+            final CountDownLatch ready = new CountDownLatch(threads);
+            final CountDownLatch start = new CountDownLatch(1);
+            final long[] startTime = new long[1];
+            Thread[] producers = new Thread[threads];
+
+            for (int t = 0; t < threads; t++) {
+                final int threadId = t;
+                latencies[t] = new LatencyHistogram();
+                services[t] = new LatencyHistogram();
+                producers[t] = new Thread(() -> {
+                    Logger logger = Logger.getLogger("soak.producer" + threadId);
+                    ready.countDown();
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    // Stagger the threads across one interval so they do not fire in lockstep
+                    long base = startTime[0] + intervalNanos * threadId / threads;
+                    long measureFrom = base + warmupNanos;
+                    long end = measureFrom + runNanos;
+                    long allocatedAtStart = -1;
+                    int errors = 0;
+                    for (long i = 0; ; i++) {
+                        long scheduled = base + i * intervalNanos;
+                        if (scheduled >= end) {
+                            break;
+                        }
+                        if (allocatedAtStart < 0 && scheduled >= measureFrom) {
+                            allocatedAtStart = allocatedBytes();
+                        }
+                        waitUntil(scheduled);
+
+                        long before = System.nanoTime();
+                        Level level = LEVEL_MIX[(int) (i % LEVEL_MIX.length)];
+                        Throwable throwable = null;
+                        if (throwableEvery > 0 && level.toInt() >= Level.ERROR.toInt() && errors++ % throwableEvery == 0) {
+                            throwable = failure;
+                        }
+                        logger.log(level, "order " + i + " from producer " + threadId, throwable);
+                        long after = System.nanoTime();
+
+                        if (scheduled >= measureFrom) {
+                            latencies[threadId].record(after - scheduled);
+                            services[threadId].record(after - before);
+                        }
+                    }
+                    if (allocatedAtStart >= 0) {
+                        allocated.addAndGet(allocatedBytes() - allocatedAtStart);
+                    }
+                }, "soak-producer-" + t);
+                producers[t].start();
+            }
+
+            ready.await();
+            GcSnapshot gcBefore = new GcSnapshot();
+            startTime[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+            start.countDown();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            long pending = WritePath.flush(10000L);
+            GcSnapshot gcAfter = new GcSnapshot();
+
+            Result result = new Result();
+            result.scenario = this;
+            for (int t = 0; t < threads; t++) {
+                result.latency.add(latencies[t]);
+                result.service.add(services[t]);
+            }
+            result.events = result.latency.getCount();
+            result.allocatedBytes = allocated.get();
+            result.gcCount = gcAfter.count - gcBefore.count;
+            result.gcMillis = gcAfter.millis - gcBefore.millis;
+            result.pending = pending;
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return threads + " threads, " + rate + " events/s, " + durationSeconds + "s (+" + warmupSeconds
+                + "s warmup), sink " + (config != null ? config : sink);
+        }
+    }
+
+    /**
+     * Park until shortly before the scheduled time, then spin.
+     */
+    private static void waitUntil(long scheduled) {
+        long remaining = scheduled - System.nanoTime();
+        if (remaining > 100000L) {
+            LockSupport.parkNanos(remaining - 50000L);
+        }
+        while (System.nanoTime() < scheduled) {
+            // spin
+        }
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0L;
+    }
+
+    private static final class GcSnapshot {
+        long count;
+        long millis;
+
+        GcSnapshot() {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0L, gc.getCollectionCount());
+                millis += Math.max(0L, gc.getCollectionTime());
+            }
+        }
+    }
+
+    static final class Result {
+        Scenario scenario;
+        long events;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        long allocatedBytes;
+        long gcCount;
+        long gcMillis;
+        long pending;
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Events: %d (%.0f events/s achieved)%n", events,
+                                    events / (double) Math.max(1L, scenario.durationSeconds)));
+            sb.append(row("Latency (from schedule)", latency));
+            sb.append(row("Service time", service));
+            sb.append(String.format("GC: %d collections, %d ms total%n", gcCount, gcMillis));
+            sb.append(String.format("Allocation: %d bytes on producer threads (%.1f bytes/event)%n",
+                                    allocatedBytes, allocatedBytes / (double) Math.max(1L, events)));
+            sb.append(String.format("Unwritten after flush: %d%n", pending));
+            return sb.toString();
+        }
+
+        private static String row(String label, LatencyHistogram h) {
+            return String.format("%-24s us: p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  p99.99 %.1f  max %.1f%n",
+                                 label, micros(h.getValueAtPercentile(50.0)), micros(h.getValueAtPercentile(90.0)),
+                                 micros(h.getValueAtPercentile(99.0)), micros(h.getValueAtPercentile(99.9)),
+                                 micros(h.getValueAtPercentile(99.99)), micros(h.getMax()));
+        }
+
+        private static double micros(long nanos) {
+            return nanos / 1000.0;
+        }
+    }
+
+    /**
+     * HDR-style histogram of non-negative longs: values below 256 are counted
+     * exactly, larger values in log-linear buckets of 128 sub-buckets per power
+     * of two, bounding the relative error to under 1%. Not thread-safe; keep
+     * one per thread and {@link #add} them afterwards.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 8;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int HALF = SUB_BUCKETS >> 1;
+
+        private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * HALF + SUB_BUCKETS];
+        private long count;
+        private long min = Long.MAX_VALUE;
+        private long max;
+        private double sum;
+
+        void record(long value) {
+            long v = Math.max(0L, value);
+            counts[index(v)]++;
+            count++;
+            sum += v;
+            if (v < min) {
+                min = v;
+            }
+            if (v > max) {
+                max = v;
+            }
+        }
+
+        void add(LatencyHistogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        long getMax() {
+            return max;
+        }
+
+        double getMean() {
+            return count == 0 ? 0.0 : sum / count;
+        }
+
+        /**
+         * Get the highest value equivalent to the given percentile, capped at the recorded maximum.
+         */
+        long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(max, highestEquivalent(i));
+                }
+            }
+            return max;
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return shift * HALF + (int) (value >>> shift);
+        }
+
+        private static long highestEquivalent(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int shift = index / HALF - 1;
+            long sub = index - shift * HALF;
+            long upper = ((sub + 1) << shift) - 1;
+            return upper < 0 ? Long.MAX_VALUE : upper;
+        }
+    }
+}
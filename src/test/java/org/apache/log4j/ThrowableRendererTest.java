@@ -0,0 +1,169 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.PlainLayout;
+import org.apache.log4j.helpers.ThrowableRenderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Properties;
+
+/**
+ * Tests for stack trace limits: frame depth, package collapsing and cause depth.
+ */
+public class ThrowableRendererTest {
+    
+    private static final String NL = PlainLayout.LINE_SEPARATOR;
+    
+    @AfterEach
+    public void tearDown() {
+        ThrowableRenderer.setActive(null);
+    }
+    
+    @Test
+    public void testFullRenderingMatchesPrintStackTrace() {
+        Exception root = new IllegalStateException("pool exhausted");
+        root.setStackTrace(frames("com.shop.Pool.acquire", "com.shop.Service.call", "com.shop.Main.main"));
+        Exception wrapper = new RuntimeException("request failed", root);
+        wrapper.setStackTrace(frames("com.shop.Handler.handle", "com.shop.Service.call", "com.shop.Main.main"));
+        Exception closing = new java.io.IOException("close failed");
+        closing.setStackTrace(frames("com.shop.Conn.close", "com.shop.Main.main"));
+        wrapper.addSuppressed(closing);
+        
+        StringWriter expected = new StringWriter();
+        wrapper.printStackTrace(new PrintWriter(expected));
+        assertEquals(expected.toString().trim().replace(System.lineSeparator(), NL),
+                     ThrowableRenderer.FULL.render(wrapper));
+        assertFalse(ThrowableRenderer.FULL.isLimited());
+    }
+    
+    @Test
+    public void testFrameLimit() {
+        Exception e = new RuntimeException("deep");
+        e.setStackTrace(frames("a.A.one", "a.A.two", "a.A.three", "a.A.four", "a.A.five"));
+        
+        String rendered = new ThrowableRenderer(2, null, 0).render(e);
+        assertEquals("java.lang.RuntimeException: deep" + NL
+                     + "\tat a.A.one(A.java:1)" + NL
+                     + "\tat a.A.two(A.java:2)" + NL
+                     + "\t... 3 more", rendered);
+    }
+    
+    @Test
+    public void testCollapsedPackages() {
+        Exception e = new RuntimeException("proxied");
+        e.setStackTrace(frames("com.shop.Cart.add",
+                               "org.springframework.aop.Proxy.invoke",
+                               "org.springframework.aop.Advice.invoke",
+                               "org.springframework.web.Filter.doFilter",
+                               "sun.reflect.Method.invoke",
+                               "org.springframeworkx.Other.run",
+                               "org.springframework.Boot.run"));
+        
+        ThrowableRenderer renderer = new ThrowableRenderer(0, new String[] { "org.springframework.*", "sun.reflect" }, 0);
+        assertEquals("java.lang.RuntimeException: proxied" + NL
+                     + "\tat com.shop.Cart.add(Cart.java:1)" + NL
+                     + "\t... 3 frames in org.springframework" + NL
+                     + "\tat sun.reflect.Method.invoke(Method.java:5)" + NL
+                     + "\tat org.springframeworkx.Other.run(Other.java:6)" + NL
+                     + "\tat org.springframework.Boot.run(Boot.java:7)", renderer.render(e));
+    }
+    
+    @Test
+    public void testCauseDepthAndCommonFrames() {
+        Exception third = new IllegalArgumentException("third");
+        third.setStackTrace(frames("c.C.run", "m.Main.main"));
+        Exception second = new IllegalStateException("second", third);
+        second.setStackTrace(frames("b.B.run", "m.Main.main"));
+        Exception first = new RuntimeException("first", second);
+        first.setStackTrace(frames("a.A.run", "m.Main.main"));
+        
+        assertEquals("java.lang.RuntimeException: first" + NL
+                     + "\tat a.A.run(A.java:1)" + NL
+                     + "\tat m.Main.main(Main.java:2)" + NL
+                     + "Caused by: java.lang.IllegalStateException: second" + NL
+                     + "\tat b.B.run(B.java:1)" + NL
+                     + "\t... 1 more" + NL
+                     + "\t... 1 nested causes omitted", new ThrowableRenderer(0, null, 1).render(first));
+        
+        assertTrue(ThrowableRenderer.FULL.render(first).contains("Caused by: java.lang.IllegalArgumentException"));
+    }
+    
+    @Test
+    public void testTranslatedFromLayoutProperties() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console, file");
+        props.setProperty("log4j.appender.console.layout.MaxStackFrames", "40");
+        props.setProperty("log4j.appender.file.layout.MaxStackFrames", "25");
+        props.setProperty("log4j.appender.file.layout.CollapsedPackages", "org.springframework, sun.reflect");
+        props.setProperty("log4j.appender.file.layout.MaxCauseDepth", "3");
+        PropertyConfigurator.configure(props);
+        
+        ThrowableRenderer active = ThrowableRenderer.getActive();
+        assertEquals(25, active.getMaxFrames());
+        assertEquals(3, active.getMaxCauseDepth());
+        assertArrayEquals(new String[] { "org.springframework", "sun.reflect" }, active.getCollapsedPackages());
+        
+        LogManager.resetConfiguration();
+        assertSame(ThrowableRenderer.FULL, ThrowableRenderer.getActive());
+    }
+    
+    @Test
+    public void testLimitedRenderingAgainstPrintStackTrace() {
+        String[] names = new String[160];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = i < 10 ? "com.shop.Layer" + i + ".call"
+                : i % 3 == 0 ? "sun.reflect.GeneratedMethodAccessor" + i + ".invoke"
+                : "org.springframework.cglib.Proxy" + i + ".intercept";
+        }
+        Exception e = new RuntimeException("deep framework stack", new IllegalStateException("cause"));
+        e.setStackTrace(frames(names));
+        e.getCause().setStackTrace(frames(names));
+        ThrowableRenderer limited = new ThrowableRenderer(30, new String[] { "org.springframework", "sun.reflect" }, 2);
+        int iterations = 20000;
+        
+        for (int i = 0; i < iterations / 4; i++) {
+            printStackTrace(e);
+            limited.render(e);
+        }
+        long fullStart = System.nanoTime();
+        int fullLength = 0;
+        for (int i = 0; i < iterations; i++) {
+            fullLength = printStackTrace(e).length();
+        }
+        long fullNanos = System.nanoTime() - fullStart;
+        long limitedStart = System.nanoTime();
+        int limitedLength = 0;
+        for (int i = 0; i < iterations; i++) {
+            limitedLength = limited.render(e).length();
+        }
+        long limitedNanos = System.nanoTime() - limitedStart;
+        
+        System.out.println("=== Throwable Rendering: 160 frames, 150 in framework packages ===");
+        System.out.printf("printStackTrace  %8.0f ns, %6d chars%n", fullNanos / (double) iterations, fullLength);
+        System.out.printf("limited          %8.0f ns, %6d chars%n", limitedNanos / (double) iterations, limitedLength);
+        assertTrue(limitedLength < fullLength / 4);
+    }
+    
+    private static String printStackTrace(Throwable t) {
+        StringWriter trace = new StringWriter();
+        t.printStackTrace(new PrintWriter(trace));
+        return trace.toString();
+    }
+    
+    /**
+     * Build frames for "package.Class.method" names, numbered by position.
+     */
+    private static StackTraceElement[] frames(String... methods) {
+        StackTraceElement[] frames = new StackTraceElement[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            int dot = methods[i].lastIndexOf('.');
+            String className = methods[i].substring(0, dot);
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            frames[i] = new StackTraceElement(className, methods[i].substring(dot + 1), simpleName + ".java", i + 1);
+        }
+        return frames;
+    }
+}
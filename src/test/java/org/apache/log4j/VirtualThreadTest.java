@@ -0,0 +1,174 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.AsyncDispatcher;
+import org.apache.log4j.helpers.BatchingStage;
+import org.apache.log4j.helpers.EventSink;
+import org.apache.log4j.helpers.LogEvent;
+import org.apache.log4j.helpers.OverflowPolicy;
+import org.apache.log4j.helpers.StringBuilderPool;
+import org.apache.log4j.helpers.VirtualThreads;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for the virtual-thread mode, plus a benchmark logging once from each
+ * of one million virtual threads. The benchmark needs a runtime with virtual
+ * threads and is skipped on older ones.
+ *
+ * Can also be run directly: java -cp ... org.apache.log4j.VirtualThreadTest
+ */
+public class VirtualThreadTest {
+
+    private static final int VIRTUAL_THREADS = 1000000;
+
+    @AfterEach
+    public void tearDown() {
+        VirtualThreads.disable();
+        WritePath.reset(1000L);
+    }
+
+    @Test
+    public void testPoolReusesBuilders() {
+        StringBuilderPool pool = new StringBuilderPool(4, 64, 1024);
+        StringBuilder first = pool.borrow();
+        first.append("rendered");
+        pool.release(first);
+        assertEquals(1, pool.getPooledCount());
+
+        StringBuilder second = pool.borrow();
+        assertSame(first, second, "a released builder should be borrowed again");
+        assertEquals(0, second.length(), "a released builder should come back empty");
+
+        StringBuilder nested = pool.borrow();
+        assertNotSame(second, nested, "a borrowed builder must not be handed out twice");
+    }
+
+    @Test
+    public void testPoolDropsOversizedBuilders() {
+        StringBuilderPool pool = new StringBuilderPool(4, 64, 1024);
+        StringBuilder builder = pool.borrow();
+        builder.append(new char[4096]);
+        pool.release(builder);
+        assertEquals(0, pool.getPooledCount());
+    }
+
+    @Test
+    public void testPlatformWriterIsAppenderDispatcher() {
+        CountingSink sink = new CountingSink();
+        AsyncDispatcher dispatcher = new AsyncDispatcher("queued", 64, OverflowPolicy.BLOCK, null, null,
+                                                         10000L, sink);
+        WritePath.install(Collections.singletonMap("queued", dispatcher), routes("queued"));
+        VirtualThreads.enable(64);
+
+        assertSame(dispatcher, WritePath.bind("vt").getPlatformWriter());
+    }
+
+    @Test
+    public void testPlatformWriterBypassesBatchingStage() {
+        CountingSink sink = new CountingSink();
+        Map<String, EventSink> sinks = new HashMap<>();
+        sinks.put("batched", sink);
+        BatchingStage stage = new BatchingStage("batched", 1000, 60000L, Level.ERROR, 1024, sink);
+        WritePath.install(Collections.<String, AsyncDispatcher>emptyMap(),
+                          Collections.singletonMap("batched", stage), sinks, routes("batched"));
+        VirtualThreads.enable(64);
+
+        WritePath.Binding binding = WritePath.bind("vt");
+        AsyncDispatcher writer = binding.getPlatformWriter();
+        assertSame(writer, binding.getPlatformWriter(), "one writer per sink");
+        for (int i = 0; i < 10; i++) {
+            writer.dispatch(new LogEvent(null, "vt", Level.INFO, "event " + i, null));
+        }
+        assertEquals(0L, WritePath.flush(5000L));
+        assertEquals(10L, sink.count.get(), "events should reach the sink without waiting for a batch");
+        assertEquals(0, stage.getQueueSize());
+
+        WritePath.reset(1000L);
+        writer.dispatch(new LogEvent(null, "vt", Level.INFO, "after reset", null));
+        assertEquals(11L, sink.count.get(), "a closed writer writes synchronously");
+    }
+
+    @Test
+    public void testConfiguredByProperties() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        props.setProperty("log4j.virtualThreads", "true");
+        props.setProperty("log4j.virtualThreads.QueueSize", "1024");
+        PropertyConfigurator.configure(props);
+        assertTrue(VirtualThreads.isEnabled());
+        assertEquals(1024, VirtualThreads.getQueueSize());
+        assertFalse(VirtualThreads.isCurrentThreadVirtual(), "platform threads keep the configured path");
+
+        LogManager.resetConfiguration();
+        assertFalse(VirtualThreads.isEnabled());
+    }
+
+    @Test
+    public void testMillionVirtualThreads() throws Exception {
+        runBenchmark();
+    }
+
+    private static long runBenchmark() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            System.out.println("Virtual threads are not available on this runtime; skipping benchmark");
+            return 0L;
+        }
+        CountingSink sink = new CountingSink();
+        WritePath.install(Collections.<String, AsyncDispatcher>emptyMap(),
+                          Collections.<String, BatchingStage>emptyMap(),
+                          Collections.<String, EventSink>singletonMap("counted", sink), routes("counted"));
+        VirtualThreads.enable(8192);
+        final Logger logger = Logger.getLogger("vt.benchmark");
+
+        ExecutorService executor =
+            (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        long start = System.nanoTime();
+        for (int i = 0; i < VIRTUAL_THREADS; i++) {
+            final int request = i;
+            executor.execute(() -> logger.info("request " + request + " handled"));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        assertEquals(0L, WritePath.flush(60000L));
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(VIRTUAL_THREADS, sink.count.get(), "every virtual thread's event should be written");
+        long perSecond = VIRTUAL_THREADS * 1000000000L / Math.max(1L, elapsed);
+        System.out.println(String.format("%,d virtual threads logged in %d ms: %,d events/s",
+                                         VIRTUAL_THREADS, elapsed / 1000000L, perSecond));
+        return perSecond;
+    }
+
+    private static Map<String, String[]> routes(String appender) {
+        return Collections.singletonMap(WritePath.ROOT, new String[] {appender});
+    }
+
+    private static final class CountingSink implements EventSink {
+        final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void write(LogEvent event) {
+            count.incrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            runBenchmark();
+        } finally {
+            VirtualThreads.disable();
+            WritePath.reset(1000L);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.RollingFileSink;
+import org.apache.log4j.helpers.WritePath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+/**
+ * Write modes selected by BufferedIO, BufferSize and ImmediateFlush, and the
+ * throughput of each mode.
+ */
+public class WriteModeBenchmarkTest {
+
+    private static final int MESSAGE_COUNT = 100000;
+
+    private File dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("write-modes").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, console");
+        PropertyConfigurator.configure(props);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testModesDerivedForEveryFileAppender() {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, immediate, deferred, buffered, plain");
+        addAppender(props, "immediate", "org.apache.log4j.FileAppender", null, null, "true");
+        addAppender(props, "deferred", "org.apache.log4j.RollingFileAppender", null, null, "false");
+        addAppender(props, "buffered", "org.apache.log4j.FileAppender", "true", "64KB", "true");
+        addAppender(props, "plain", "org.apache.log4j.FileAppender", null, null, null);
+        PropertyConfigurator.configure(props);
+
+        RollingFileSink immediate = sink("immediate");
+        assertTrue(immediate.isImmediateFlush());
+
+        RollingFileSink deferred = sink("deferred");
+        assertFalse(deferred.isImmediateFlush());
+        assertEquals(8192, deferred.getBufferSize());
+
+        RollingFileSink buffered = sink("buffered");
+        assertFalse(buffered.isImmediateFlush(), "BufferedIO turns ImmediateFlush off");
+        assertEquals(65536, buffered.getBufferSize());
+
+        assertNull(WritePath.getSink("plain"), "appenders without a write mode stay with log4Rich");
+        assertNull(Log4jToLog4RichConfigTranslator.translate(fileConfig("app.log", "true", null, null))
+                       .getProperty("log4rich.file.path"), "the bridge writes the file, not log4Rich");
+    }
+
+    @Test
+    public void testBufferedModeDefersWrites() throws IOException {
+        File immediate = new File(dir, "immediate.log");
+        PropertyConfigurator.configure(fileConfig(immediate.getPath(), null, null, "true"));
+        Logger.getLogger("modes").info("written at once");
+        assertTrue(immediate.length() > 0, "immediate flush writes every event through");
+
+        File buffered = new File(dir, "buffered.log");
+        PropertyConfigurator.configure(fileConfig(buffered.getPath(), "true", "64KB", null));
+        Logger.getLogger("modes").info("held in the buffer");
+        assertEquals(0L, buffered.length(), "a buffered appender holds events until the buffer fills");
+
+        LogManager.flush(1000L);
+        String text = new String(Files.readAllBytes(buffered.toPath()), StandardCharsets.UTF_8);
+        assertTrue(text.contains("held in the buffer"));
+    }
+
+    @Test
+    public void testThroughputPerMode() throws IOException {
+        String[][] modes = {
+            { "immediate flush", null, null, "true" },
+            { "deferred flush", null, null, "false" },
+            { "buffered 64KB", "true", "64KB", null },
+            { "buffered 1MB", "true", "1MB", null },
+        };
+        Logger logger = Logger.getLogger(WriteModeBenchmarkTest.class);
+
+        System.out.println("=== Write Mode Throughput ===");
+        for (String[] mode : modes) {
+            File file = new File(dir, mode[0].replace(' ', '-') + ".log");
+            PropertyConfigurator.configure(fileConfig(file.getPath(), mode[1], mode[2], mode[3]));
+            RollingFileSink sink = sink("file");
+            assertEquals(mode[3] != null && mode[1] == null && Boolean.parseBoolean(mode[3]), sink.isImmediateFlush(),
+                         mode[0]);
+
+            for (int i = 0; i < MESSAGE_COUNT / 10; i++) {
+                logger.info("warmup message " + i);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                logger.info("Write mode benchmark message " + i);
+            }
+            assertEquals(0L, LogManager.flush(10000L).getPendingEvents());
+            long elapsed = Math.max(1L, System.nanoTime() - start);
+
+            assertEquals(MESSAGE_COUNT + MESSAGE_COUNT / 10, Files.readAllLines(file.toPath()).size(), mode[0]);
+            System.out.printf("%-18s %,12d messages/second%n", mode[0], MESSAGE_COUNT * 1000000000L / elapsed);
+        }
+    }
+
+    private static RollingFileSink sink(String appender) {
+        assertTrue(WritePath.getSink(appender) instanceof RollingFileSink, appender + " is written by the bridge");
+        return (RollingFileSink) WritePath.getSink(appender);
+    }
+
+    private Properties fileConfig(String fileName, String bufferedIO, String bufferSize, String immediateFlush) {
+        Properties props = new Properties();
+        props.setProperty("log4j.rootLogger", "INFO, file");
+        addAppender(props, "file", "org.apache.log4j.FileAppender", bufferedIO, bufferSize, immediateFlush);
+        props.setProperty("log4j.appender.file.File", fileName);
+        return props;
+    }
+
+    private void addAppender(Properties props, String name, String className,
+                             String bufferedIO, String bufferSize, String immediateFlush) {
+        String base = "log4j.appender." + name;
+        props.setProperty(base, className);
+        props.setProperty(base + ".File", new File(dir, name + ".log").getPath());
+        if (bufferedIO != null) {
+            props.setProperty(base + ".BufferedIO", bufferedIO);
+        }
+        if (bufferSize != null) {
+            props.setProperty(base + ".BufferSize", bufferSize);
+        }
+        if (immediateFlush != null) {
+            props.setProperty(base + ".ImmediateFlush", immediateFlush);
+        }
+    }
+}